@@ -0,0 +1,181 @@
+package com.pizzeria.bench;
+
+import com.pizzeria.dao.DatabaseConnection;
+import com.pizzeria.dao.IngredientDAODB;
+import com.pizzeria.dao.OrderDAODB;
+import com.pizzeria.dao.PizzaDAODB;
+import com.pizzeria.models.Customer;
+import com.pizzeria.models.IdGenerator;
+import com.pizzeria.models.Ingredient;
+import com.pizzeria.models.Order;
+import com.pizzeria.models.Order.OrderStatus;
+import com.pizzeria.models.OrderItem;
+import com.pizzeria.models.Pizza;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Подготовка БД для бенчмарков: выбор режима H2 и заполнение тестовыми данными.
+ * <p>
+ * {@link DatabaseConnection} читает URL один раз при первом обращении, поэтому
+ * {@link #configure} вызывается в {@code @Setup} до любого DAO. JMH запускает каждый
+ * набор параметров в отдельном форке, так что у каждого набора своя БД.
+ */
+public final class BenchDatabase {
+    public static final String MEM = "mem";
+    public static final String FILE = "file";
+
+    private static final int SEED_BATCH = 1000;
+    private static final int MAX_CUSTOMERS = 2000;
+    private static final int HISTORY_DAYS = 30;
+
+    private static final String[] PIZZA_NAMES = {
+            "Маргарита", "Пепперони", "Четыре сыра", "Гавайская", "Барбекю", "Дьябло",
+            "Грибная", "Морская", "Деревенская", "Мясная", "Цезарь", "Овощная"
+    };
+
+    private BenchDatabase() {
+    }
+
+    /**
+     * Направляет приложение на чистую БД в памяти или в файле во временном каталоге.
+     *
+     * @return каталог файловой БД, который нужно передать в {@link #close}, или {@code null}
+     */
+    public static Path configure(String mode, String name) throws IOException {
+        if (MEM.equals(mode)) {
+            System.setProperty("pizzeria.db.url", "jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+            return null;
+        }
+        if (!FILE.equals(mode)) {
+            throw new IllegalArgumentException("Неизвестный режим БД: " + mode);
+        }
+        Path dir = Files.createTempDirectory("pizzeria-bench-");
+        System.setProperty("pizzeria.db.url", "jdbc:h2:file:" + dir.resolve(name).toAbsolutePath());
+        return dir;
+    }
+
+    public static void close(Path dir) throws IOException, SQLException {
+        DatabaseConnection.close();
+        if (dir == null) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path path : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    /**
+     * Удаляет индексы заказов из миграции V2, чтобы сравнить запросы с индексами и без них.
+     * Индекс по телефону клиента V6 уже заменил уникальным, он здесь не трогается.
+     */
+    public static void dropOrderIndexes() throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP INDEX IF EXISTS idx_orders_status_time");
+            stmt.execute("DROP INDEX IF EXISTS idx_orders_time_id");
+        }
+    }
+
+    // ==================== SEEDING ====================
+
+    /**
+     * Добавляет {@code count} пицц со случайными ингредиентами из словаря и возвращает всё меню.
+     */
+    public static List<Pizza> seedPizzas(int count, long seed) {
+        PizzaDAODB pizzaDAO = new PizzaDAODB();
+        List<Ingredient> ingredients = new IngredientDAODB().loadDictionary().getAll();
+        Random random = new Random(seed);
+
+        for (int i = 0; i < count; i++) {
+            List<String> names = new ArrayList<>();
+            for (Ingredient ingredient : pick(ingredients, 3 + random.nextInt(4), random)) {
+                names.add(ingredient.getName());
+            }
+            String name = PIZZA_NAMES[i % PIZZA_NAMES.length] + " " + (i / PIZZA_NAMES.length + 1);
+            Pizza pizza = new Pizza(String.format("B%05d", i), name, "Пицца " + name + ": " + String.join(", ", names),
+                    names, Pizza.PizzaSize.values()[random.nextInt(Pizza.PizzaSize.values().length)],
+                    150_000 + 5_000L * random.nextInt(70), 12 + random.nextInt(14),
+                    Pizza.Category.values()[random.nextInt(Pizza.Category.values().length)], true);
+            if (!pizzaDAO.addPizza(pizza)) {
+                throw new IllegalStateException("Не удалось добавить пиццу " + pizza.getId());
+            }
+        }
+        return pizzaDAO.getAllPizzas();
+    }
+
+    /**
+     * Добавляет {@code count} заказов за последние {@value #HISTORY_DAYS} дней пакетами по {@value #SEED_BATCH}.
+     * Большая часть истории завершена, как в работающей пиццерии.
+     */
+    public static void seedOrders(OrderDAODB orderDAO, List<Pizza> menu, int count, long seed) {
+        Random random = new Random(seed);
+        List<Customer> customers = new ArrayList<>();
+        for (int i = 0; i < Math.min(MAX_CUSTOMERS, Math.max(1, count / 5)); i++) {
+            customers.add(orderDAO.saveCustomer(new Customer("Клиент " + i, String.format("+7701%07d", i),
+                    "client" + i + "@example.com", "ул. Абая, " + i)));
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<Order> batch = new ArrayList<>(SEED_BATCH);
+        for (int i = 0; i < count; i++) {
+            LocalDateTime time = now.minusSeconds(random.nextInt(HISTORY_DAYS * 24 * 3600));
+            Order order = new Order(IdGenerator.nextId(), customers.get(random.nextInt(customers.size())),
+                    randomItems(menu, random), randomStatus(random), time, time.plusMinutes(25), null,
+                    "", "ул. Абая, 1", random.nextBoolean() ? Order.DeliveryType.PICKUP : Order.DeliveryType.DELIVERY);
+            batch.add(order);
+            if (batch.size() == SEED_BATCH || i == count - 1) {
+                if (orderDAO.createOrders(batch).contains(null)) {
+                    throw new IllegalStateException("Не удалось сохранить пакет заказов");
+                }
+                batch.clear();
+            }
+        }
+    }
+
+    public static Order randomOrder(Customer customer, List<Pizza> menu, Random random) {
+        return new Order(customer, randomItems(menu, random), "", "ул. Абая, 1", Order.DeliveryType.DELIVERY);
+    }
+
+    public static List<OrderItem> randomItems(List<Pizza> menu, Random random) {
+        int count = 1 + random.nextInt(3);
+        List<OrderItem> items = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            items.add(new OrderItem(menu.get(random.nextInt(menu.size())), 1 + random.nextInt(2)));
+        }
+        return items;
+    }
+
+    private static OrderStatus randomStatus(Random random) {
+        int roll = random.nextInt(100);
+        if (roll < 80) {
+            return OrderStatus.COMPLETED;
+        }
+        if (roll < 85) {
+            return OrderStatus.CANCELLED;
+        }
+        OrderStatus[] active = {OrderStatus.PENDING, OrderStatus.CONFIRMED, OrderStatus.PREPARING,
+                OrderStatus.BAKING, OrderStatus.READY, OrderStatus.DELIVERING};
+        return active[random.nextInt(active.length)];
+    }
+
+    private static <T> List<T> pick(List<T> source, int count, Random random) {
+        List<T> copy = new ArrayList<>(source);
+        Collections.shuffle(copy, random);
+        return copy.subList(0, Math.min(count, copy.size()));
+    }
+}
@@ -0,0 +1,365 @@
+package com.pizzeria.bench;
+
+import com.pizzeria.dao.OrderDAODB;
+import com.pizzeria.dao.PizzaDAODB;
+import com.pizzeria.server.OrderHttpServer;
+import com.pizzeria.services.OrderService;
+import com.pizzeria.services.PizzaService;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Пропускная способность HTTP API ({@link OrderHttpServer}) при большом числе одновременных клиентов.
+ * <p>
+ * Модель закрытая: каждый из {@code clients} клиентов отправляет следующий запрос сразу после ответа
+ * на предыдущий. Клиенты асинхронные, поэтому тысяча клиентов не требует тысячи потоков у генератора.
+ * Без {@code url} сервер поднимается в этом же процессе на свободном порту и своей БД.
+ * <p>
+ * Параметры задаются аргументами {@code --ключ=значение}:
+ * <ul>
+ *     <li>{@code clients} — число одновременных клиентов (по умолчанию 1000);</li>
+ *     <li>{@code duration}, {@code warmup} — длительность замера и прогрева;</li>
+ *     <li>{@code mix} — доли запросов, например {@code create:40,lookup:25,status:15,menu:20};</li>
+ *     <li>{@code url} — адрес уже запущенного сервера, например {@code http://localhost:8080};</li>
+ *     <li>{@code db}, {@code seedOrders} — БД встроенного сервера, как в {@link LoadGenerator};</li>
+ *     <li>{@code report} — файл отчёта.</li>
+ * </ul>
+ */
+public class HttpLoadGenerator {
+
+    enum Operation { CREATE, LOOKUP, STATUS, MENU }
+
+    private static final long MAX_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(10);
+    private static final int RECENT_ORDERS = 10_000;
+    private static final Pattern PIZZA_ID = Pattern.compile("\"id\":\"([^\"]+)\"");
+    private static final Pattern ORDER_ID = Pattern.compile("\"orderId\":\"([^\"]+)\"");
+
+    private final Map<String, String> options;
+    private final int clients;
+    private final Map<Operation, Integer> mix;
+
+    private HttpClient http;
+    private URI base;
+    private List<String> menu;
+
+    private final Map<Operation, Histogram> latency = new EnumMap<>(Operation.class);
+    private final Map<Operation, LongAdder> errors = new EnumMap<>(Operation.class);
+    private final LongAdder conflicts = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final AtomicBoolean recording = new AtomicBoolean();
+    private volatile long deadline;
+
+    // Новые заказы ждут подтверждения, недавние служат для поиска по id
+    private final ConcurrentLinkedQueue<String> pendingOrders = new ConcurrentLinkedQueue<>();
+    private final AtomicReferenceArray<String> recentOrders = new AtomicReferenceArray<>(RECENT_ORDERS);
+    private final LongAdder createdOrders = new LongAdder();
+
+    public static void main(String[] args) throws Exception {
+        new HttpLoadGenerator(LoadGenerator.parseOptions(args)).run();
+    }
+
+    HttpLoadGenerator(Map<String, String> options) {
+        this.options = options;
+        this.clients = Integer.parseInt(options.getOrDefault("clients", "1000"));
+        this.mix = parseMix(options.getOrDefault("mix", "create:40,lookup:25,status:15,menu:20"));
+        for (Operation op : Operation.values()) {
+            latency.put(op, new ConcurrentHistogram(MAX_TRACKABLE_MICROS, 3));
+            errors.put(op, new LongAdder());
+        }
+    }
+
+    void run() throws Exception {
+        String url = options.get("url");
+        Path dir = null;
+        OrderHttpServer server = null;
+        ExecutorService io = Executors.newFixedThreadPool(Integer.parseInt(options.getOrDefault("ioThreads", "8")));
+        try {
+            if (url == null) {
+                dir = BenchDatabase.configure(options.getOrDefault("db", BenchDatabase.MEM), "http");
+                BenchDatabase.seedOrders(new OrderDAODB(), new PizzaDAODB().getAllPizzas(),
+                        Integer.parseInt(options.getOrDefault("seedOrders", "10000")), 42);
+                PizzaService pizzaService = new PizzaService();
+                server = new OrderHttpServer(pizzaService, new OrderService(pizzaService),
+                        new InetSocketAddress(InetAddress.getLoopbackAddress(), 0),
+                        Integer.getInteger("pizzeria.server.threads", Math.max(4, Runtime.getRuntime().availableProcessors())),
+                        Math.max(1024, clients), null);
+                url = "http://127.0.0.1:" + server.getPort();
+            }
+            base = URI.create(url);
+            http = HttpClient.newBuilder()
+                    .executor(io)
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(Duration.ofSeconds(10))
+                    .build();
+            menu = loadMenu();
+
+            long warmupNanos = LoadGenerator.parseDuration(options.getOrDefault("warmup", "10s"));
+            if (warmupNanos > 0) {
+                System.out.println("Прогрев " + TimeUnit.NANOSECONDS.toSeconds(warmupNanos) + " с");
+                drive(warmupNanos);
+            }
+
+            long durationNanos = LoadGenerator.parseDuration(options.getOrDefault("duration", "30s"));
+            System.out.printf(Locale.ROOT, "Замер: %d с, %d клиентов%n", TimeUnit.NANOSECONDS.toSeconds(durationNanos), clients);
+            recording.set(true);
+            long started = System.nanoTime();
+            drive(durationNanos);
+            long elapsed = System.nanoTime() - started;
+
+            Path report = Paths.get(options.getOrDefault("report", "target/http-report.txt"));
+            writeReport(report, elapsed);
+            System.out.println("Отчёт сохранён в " + report.toAbsolutePath());
+        } finally {
+            if (server != null) {
+                server.close();
+            }
+            io.shutdownNow();
+            BenchDatabase.close(dir);
+        }
+    }
+
+    private List<String> loadMenu() throws Exception {
+        HttpResponse<String> response = http.send(get("/api/menu"), HttpResponse.BodyHandlers.ofString());
+        List<String> ids = new ArrayList<>();
+        Matcher m = PIZZA_ID.matcher(response.body());
+        while (m.find()) {
+            ids.add(m.group(1));
+        }
+        if (ids.isEmpty()) {
+            throw new IllegalStateException("В меню нет доступных пицц: " + response.statusCode());
+        }
+        return ids;
+    }
+
+    // ==================== CLIENTS ====================
+
+    /**
+     * Запускает всех клиентов и ждёт, пока каждый получит ответ на последний запрос.
+     */
+    private void drive(long durationNanos) {
+        deadline = System.nanoTime() + durationNanos;
+        List<CompletableFuture<Void>> loops = new ArrayList<>(clients);
+        for (int i = 0; i < clients; i++) {
+            CompletableFuture<Void> loop = new CompletableFuture<>();
+            loops.add(loop);
+            next(loop);
+        }
+        CompletableFuture.allOf(loops.toArray(new CompletableFuture<?>[0])).join();
+    }
+
+    private void next(CompletableFuture<Void> loop) {
+        if (System.nanoTime() >= deadline) {
+            loop.complete(null);
+            return;
+        }
+        Operation op = pickOperation();
+        HttpRequest request = request(op);
+        long start = System.nanoTime();
+        http.sendAsync(request, HttpResponse.BodyHandlers.ofString()).whenComplete((response, error) -> {
+            long micros = (System.nanoTime() - start) / 1000;
+            if (recording.get()) {
+                latency.get(op).recordValue(Math.min(micros, MAX_TRACKABLE_MICROS));
+                if (error != null) {
+                    errors.get(op).increment();
+                } else {
+                    count(op, response.statusCode());
+                }
+            }
+            if (error == null && response.statusCode() == 201) {
+                remember(response.body());
+            }
+            next(loop);
+        });
+    }
+
+    private HttpRequest request(Operation op) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        switch (op) {
+            case CREATE:
+                return post("/api/orders", orderJson(random));
+            case STATUS: {
+                String orderId = pendingOrders.poll();
+                if (orderId != null) {
+                    return put("/api/orders/" + orderId + "/status", "{\"status\":\"CONFIRMED\",\"expected\":\"PENDING\"}");
+                }
+                return get("/api/menu");
+            }
+            case LOOKUP: {
+                long created = createdOrders.sum();
+                String orderId = created == 0 ? null
+                        : recentOrders.get((int) (random.nextLong(Math.min(created, RECENT_ORDERS))));
+                return get(orderId == null ? "/api/menu" : "/api/orders/" + orderId);
+            }
+            default:
+                return get("/api/menu");
+        }
+    }
+
+    private void count(Operation op, int status) {
+        if (status == 409) {
+            conflicts.increment();
+        } else if (status == 503) {
+            rejected.increment();
+        } else if (status >= 400) {
+            errors.get(op).increment();
+        }
+    }
+
+    private void remember(String body) {
+        Matcher m = ORDER_ID.matcher(body);
+        if (m.find()) {
+            String orderId = m.group(1);
+            pendingOrders.offer(orderId);
+            createdOrders.increment();
+            recentOrders.set((int) ((createdOrders.sum() - 1) % RECENT_ORDERS), orderId);
+        }
+    }
+
+    private String orderJson(ThreadLocalRandom random) {
+        StringBuilder items = new StringBuilder();
+        int count = 1 + random.nextInt(3);
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                items.append(',');
+            }
+            items.append("{\"pizzaId\":\"").append(menu.get(random.nextInt(menu.size())))
+                    .append("\",\"quantity\":").append(1 + random.nextInt(2)).append('}');
+        }
+        return "{\"customer\":{\"name\":\"Клиент\",\"phone\":\"+7701" + String.format("%07d", random.nextInt(5000)) + "\"}," +
+                "\"items\":[" + items + "],\"deliveryType\":\"PICKUP\"}";
+    }
+
+    private Operation pickOperation() {
+        int total = 0;
+        for (int weight : mix.values()) {
+            total += weight;
+        }
+        int roll = ThreadLocalRandom.current().nextInt(total);
+        for (Map.Entry<Operation, Integer> e : mix.entrySet()) {
+            roll -= e.getValue();
+            if (roll < 0) {
+                return e.getKey();
+            }
+        }
+        return Operation.MENU;
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(base.resolve(path)).timeout(Duration.ofSeconds(60)).GET().build();
+    }
+
+    private HttpRequest post(String path, String body) {
+        return HttpRequest.newBuilder(base.resolve(path)).timeout(Duration.ofSeconds(60))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body, StandardCharsets.UTF_8)).build();
+    }
+
+    private HttpRequest put(String path, String body) {
+        return HttpRequest.newBuilder(base.resolve(path)).timeout(Duration.ofSeconds(60))
+                .header("Content-Type", "application/json")
+                .PUT(HttpRequest.BodyPublishers.ofString(body, StandardCharsets.UTF_8)).build();
+    }
+
+    // ==================== REPORT ====================
+
+    private void writeReport(Path file, long elapsedNanos) throws Exception {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        double seconds = elapsedNanos / 1e9;
+        try (PrintStream out = new PrintStream(Files.newOutputStream(file), true, StandardCharsets.UTF_8)) {
+            out.println("# Нагрузочный прогон HTTP API, закрытая модель");
+            out.println();
+            out.println("[config]");
+            for (Map.Entry<String, String> e : effectiveConfig().entrySet()) {
+                out.println(e.getKey() + " = " + e.getValue());
+            }
+            out.println();
+
+            long total = 0;
+            out.println("[summary] latency, ms");
+            out.println(String.format(Locale.ROOT, "%-8s %9s %7s %9s %9s %9s %9s %9s %9s",
+                    "op", "count", "errors", "req/s", "p50", "p90", "p99", "p99.9", "max"));
+            for (Operation op : Operation.values()) {
+                Histogram h = latency.get(op);
+                total += h.getTotalCount();
+                out.println(String.format(Locale.ROOT, "%-8s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f",
+                        op.name().toLowerCase(Locale.ROOT), h.getTotalCount(), errors.get(op).sum(),
+                        h.getTotalCount() / seconds, millis(h, 50), millis(h, 90), millis(h, 99), millis(h, 99.9),
+                        h.getMaxValue() / 1000.0));
+            }
+            out.println(String.format(Locale.ROOT, "throughput = %.1f req/s, conflicts = %d, rejected (503) = %d",
+                    total / seconds, conflicts.sum(), rejected.sum()));
+
+            for (Operation op : Operation.values()) {
+                Histogram h = latency.get(op);
+                if (h.getTotalCount() == 0) {
+                    continue;
+                }
+                out.println();
+                out.println("[latency distribution] " + op.name().toLowerCase(Locale.ROOT) + ", ms");
+                h.outputPercentileDistribution(out, 5, 1000.0);
+            }
+        }
+    }
+
+    private Map<String, String> effectiveConfig() {
+        Map<String, String> config = new LinkedHashMap<>();
+        config.put("url", base.toString());
+        config.put("clients", String.valueOf(clients));
+        config.put("duration", options.getOrDefault("duration", "30s"));
+        config.put("warmup", options.getOrDefault("warmup", "10s"));
+        config.put("mix", mix.toString());
+        config.put("menu", String.valueOf(menu.size()));
+        if (!options.containsKey("url")) {
+            config.put("db", options.getOrDefault("db", BenchDatabase.MEM));
+            config.put("seedOrders", options.getOrDefault("seedOrders", "10000"));
+            config.put("dbPoolSize", Integer.getInteger("pizzeria.db.poolSize", 8).toString());
+            config.put("serverThreads", System.getProperty("pizzeria.server.threads", "default"));
+        }
+        return config;
+    }
+
+    private static double millis(Histogram h, double percentile) {
+        return h.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    static Map<Operation, Integer> parseMix(String spec) {
+        Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+        for (String part : spec.split(",")) {
+            String[] nameAndWeight = part.trim().split(":");
+            mix.put(Operation.valueOf(nameAndWeight[0].toUpperCase(Locale.ROOT)), Integer.parseInt(nameAndWeight[1]));
+        }
+        return mix;
+    }
+}
@@ -0,0 +1,97 @@
+package com.pizzeria.bench;
+
+import com.pizzeria.dao.OrderDAODB;
+import com.pizzeria.models.Customer;
+import com.pizzeria.models.Order;
+import com.pizzeria.models.OrderRequest;
+import com.pizzeria.models.Pizza;
+import com.pizzeria.services.OrderIngestionPipeline;
+import com.pizzeria.services.OrderResult;
+import com.pizzeria.services.OrderService;
+import com.pizzeria.services.PizzaService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Приём заказов через {@link OrderIngestionPipeline#submit} из нескольких потоков (по умолчанию 8,
+ * меняется опцией JMH {@code -t}). Каждый поток ждёт сохранения своего заказа, так что результат —
+ * заказов в секунду при заданном числе одновременных источников. {@code maxBatch=1} — фиксация
+ * каждого заказа отдельно, для сравнения с групповой. Средний размер пакета печатается после итерации.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Threads(8)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class IngestionBenchmark {
+
+    @Param({BenchDatabase.MEM, BenchDatabase.FILE})
+    public String db;
+
+    @Param({"1", "100"})
+    public int maxBatch;
+
+    @Param({"0", "5"})
+    public long lingerMs;
+
+    private Path dir;
+    private OrderIngestionPipeline pipeline;
+    private List<Pizza> menu;
+    private Customer customer;
+    private long ordersBefore;
+    private long batchesBefore;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        dir = BenchDatabase.configure(db, "ingestion");
+        PizzaService pizzaService = new PizzaService();
+        menu = pizzaService.getAvailablePizzas();
+        customer = new OrderDAODB().saveCustomer(new Customer("Бенчмарк", "+77009999999", "", "ул. Абая, 1"));
+        pipeline = new OrderIngestionPipeline(new OrderService(pizzaService), maxBatch, lingerMs, 10_000);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        pipeline.close();
+        System.out.println(pipeline);
+        BenchDatabase.close(dir);
+    }
+
+    @TearDown(Level.Iteration)
+    public void reportBatchSize() {
+        long orders = pipeline.getOrdersIngested() + pipeline.getOrdersFailed();
+        long batches = pipeline.getBatchCount();
+        if (batches > batchesBefore) {
+            System.out.printf(" [пакетов %d, средний размер %.1f]", batches - batchesBefore,
+                    (double) (orders - ordersBefore) / (batches - batchesBefore));
+        }
+        ordersBefore = orders;
+        batchesBefore = batches;
+    }
+
+    @Benchmark
+    public OrderResult submit() {
+        OrderRequest request = new OrderRequest(customer, BenchDatabase.randomItems(menu, ThreadLocalRandom.current()),
+                "", "ул. Абая, 1", Order.DeliveryType.DELIVERY);
+        return pipeline.submit(request).join();
+    }
+}
@@ -0,0 +1,424 @@
+package com.pizzeria.bench;
+
+import com.pizzeria.dao.OrderDAODB;
+import com.pizzeria.dao.PizzaDAODB;
+import com.pizzeria.models.Customer;
+import com.pizzeria.models.Order;
+import com.pizzeria.models.Order.OrderStatus;
+import com.pizzeria.models.OrderItem;
+import com.pizzeria.models.Pizza;
+import com.pizzeria.services.OrderService;
+import com.pizzeria.services.PizzaService;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Генератор нагрузки «час пик» для {@link OrderService}.
+ * <p>
+ * Запросы поступают по расписанию (открытая модель): диспетчер выпускает их с заданной
+ * частотой независимо от того, успевает ли сервис, а задержка считается от запланированного
+ * момента, а не от начала выполнения. Поэтому очередь перед перегруженным сервисом
+ * видна в перцентилях, а не прячется за снизившейся частотой.
+ * <p>
+ * Параметры задаются аргументами {@code --ключ=значение}:
+ * <ul>
+ *     <li>{@code phases} — этапы нагрузки {@code длительность@запросов_в_секунду}, например {@code 60s@50,120s@400,60s@100};</li>
+ *     <li>{@code warmup} — прогрев на частоте первого этапа, не попадает в отчёт;</li>
+ *     <li>{@code arrivals} — {@code poisson} (по умолчанию) или {@code uniform};</li>
+ *     <li>{@code mix} — доли операций, например {@code create:60,status:30,page:8,active:2};</li>
+ *     <li>{@code threads} — число рабочих потоков;</li>
+ *     <li>{@code menuSkew} — показатель Ципфа для популярности пицц (0 — все одинаково популярны);</li>
+ *     <li>{@code customers} — число разных клиентов;</li>
+ *     <li>{@code db} — {@code mem} или {@code file}; {@code seedOrders} — заказов в истории до старта;</li>
+ *     <li>{@code report} — файл отчёта.</li>
+ * </ul>
+ */
+public class LoadGenerator {
+
+    enum Operation { CREATE, STATUS, PAGE, ACTIVE }
+
+    private static final int PAGE_SIZE = 100;
+    private static final int CANCEL_PERCENT = 5;
+    // Гистограммы в микросекундах, до часа, три значащие цифры
+    private static final long MAX_TRACKABLE_MICROS = TimeUnit.HOURS.toMicros(1);
+
+    private final Map<String, String> options;
+    private final List<long[]> phases;
+    private final Map<Operation, Integer> mix;
+    private final int threads;
+    private final double menuSkew;
+    private final int customers;
+    private final boolean poisson;
+
+    private OrderService orderService;
+    private List<Pizza> menu;
+    private double[] menuWeights;
+
+    private final Map<Operation, Histogram> latency = new EnumMap<>(Operation.class);
+    private final Map<Operation, Histogram> serviceTime = new EnumMap<>(Operation.class);
+    private final Map<Operation, LongAdder> errors = new EnumMap<>(Operation.class);
+    private final LongAdder conflicts = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+    private final AtomicBoolean recording = new AtomicBoolean();
+
+    // Заказы в работе: очередь на продвижение и их текущий статус
+    private final ConcurrentLinkedDeque<String> liveOrders = new ConcurrentLinkedDeque<>();
+    private final Map<String, OrderStatus> liveStatuses = new ConcurrentHashMap<>();
+
+    public static void main(String[] args) throws Exception {
+        new LoadGenerator(parseOptions(args)).run();
+    }
+
+    LoadGenerator(Map<String, String> options) {
+        this.options = options;
+        this.phases = parsePhases(options.getOrDefault("phases", "60s@100"));
+        this.mix = parseMix(options.getOrDefault("mix", "create:60,status:30,page:8,active:2"));
+        this.threads = Integer.parseInt(options.getOrDefault("threads", "16"));
+        this.menuSkew = Double.parseDouble(options.getOrDefault("menuSkew", "1.0"));
+        this.customers = Integer.parseInt(options.getOrDefault("customers", "5000"));
+        this.poisson = !"uniform".equals(options.getOrDefault("arrivals", "poisson"));
+        for (Operation op : Operation.values()) {
+            latency.put(op, new ConcurrentHistogram(MAX_TRACKABLE_MICROS, 3));
+            serviceTime.put(op, new ConcurrentHistogram(MAX_TRACKABLE_MICROS, 3));
+            errors.put(op, new LongAdder());
+        }
+    }
+
+    void run() throws Exception {
+        Path dir = BenchDatabase.configure(options.getOrDefault("db", BenchDatabase.MEM), "load");
+        try {
+            prepare();
+
+            ExecutorService workers = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<>());
+            long warmupNanos = parseDuration(options.getOrDefault("warmup", "10s"));
+            if (warmupNanos > 0) {
+                System.out.println("Прогрев " + TimeUnit.NANOSECONDS.toSeconds(warmupNanos) + " с");
+                drive(workers, warmupNanos, phases.get(0)[1]);
+            }
+
+            recording.set(true);
+            List<long[]> achieved = new ArrayList<>();
+            long started = System.nanoTime();
+            for (long[] phase : phases) {
+                System.out.printf(Locale.ROOT, "Этап: %d с, %d запросов/с%n",
+                        TimeUnit.NANOSECONDS.toSeconds(phase[0]), phase[1]);
+                long issued = drive(workers, phase[0], phase[1]);
+                achieved.add(new long[]{phase[0], phase[1], issued});
+            }
+            workers.shutdown();
+            workers.awaitTermination(10, TimeUnit.MINUTES);
+            long elapsed = System.nanoTime() - started;
+
+            Path report = Paths.get(options.getOrDefault("report", "target/load-report.txt"));
+            writeReport(report, achieved, elapsed);
+            System.out.println("Отчёт сохранён в " + report.toAbsolutePath());
+        } finally {
+            BenchDatabase.close(dir);
+        }
+    }
+
+    private void prepare() throws Exception {
+        int seedOrders = Integer.parseInt(options.getOrDefault("seedOrders", "10000"));
+        OrderDAODB orderDAO = new OrderDAODB();
+        BenchDatabase.seedOrders(orderDAO, new PizzaDAODB().getAllPizzas(), seedOrders, 42);
+
+        // Сервис создаётся после заполнения, чтобы статистика и кухня подхватили историю
+        PizzaService pizzaService = new PizzaService();
+        orderService = new OrderService(pizzaService);
+        menu = pizzaService.getAvailablePizzas();
+        menuWeights = new double[menu.size()];
+        double total = 0;
+        for (int i = 0; i < menu.size(); i++) {
+            total += 1 / Math.pow(i + 1, menuSkew);
+            menuWeights[i] = total;
+        }
+        for (Order order : orderService.getActiveOrders()) {
+            track(order.getOrderId(), order.getStatus());
+        }
+    }
+
+    // ==================== DISPATCH ====================
+
+    /**
+     * Выпускает запросы с частотой {@code rate} в течение {@code durationNanos}.
+     *
+     * @return сколько запросов выпущено
+     */
+    private long drive(ExecutorService workers, long durationNanos, long rate) {
+        double meanGapNanos = 1e9 / rate;
+        long start = System.nanoTime();
+        long end = start + durationNanos;
+        long next = start;
+        long issued = 0;
+        while (next < end) {
+            long now;
+            while ((now = System.nanoTime()) < next) {
+                LockSupport.parkNanos(next - now);
+            }
+            long intended = next;
+            Operation op = pickOperation();
+            workers.execute(() -> execute(op, intended));
+            issued++;
+            double gap = poisson ? -Math.log(1 - ThreadLocalRandom.current().nextDouble()) * meanGapNanos : meanGapNanos;
+            next += Math.max(1, (long) gap);
+        }
+        return issued;
+    }
+
+    private void execute(Operation op, long intendedNanos) {
+        long begin = System.nanoTime();
+        boolean done;
+        try {
+            done = perform(op);
+        } catch (Exception e) {
+            errors.get(op).increment();
+            done = true;
+        }
+        long finish = System.nanoTime();
+        if (done && recording.get()) {
+            latency.get(op).recordValue(Math.min(MAX_TRACKABLE_MICROS, (finish - intendedNanos) / 1000));
+            serviceTime.get(op).recordValue(Math.min(MAX_TRACKABLE_MICROS, (finish - begin) / 1000));
+        }
+    }
+
+    /**
+     * @return {@code false}, если операцию выполнить не на чем (нет заказов в работе)
+     */
+    private boolean perform(Operation op) throws Exception {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        switch (op) {
+            case CREATE: {
+                int client = random.nextInt(customers);
+                Order order = orderService.createOrder(
+                        new Customer("Клиент " + client, String.format("+7702%07d", client), "", "ул. Абая, " + client),
+                        randomItems(random), "", "ул. Абая, 1",
+                        random.nextBoolean() ? Order.DeliveryType.PICKUP : Order.DeliveryType.DELIVERY);
+                if (order == null) {
+                    throw new IllegalStateException("Заказ не создан");
+                }
+                track(order.getOrderId(), order.getStatus());
+                return true;
+            }
+            case STATUS: {
+                String orderId = liveOrders.pollFirst();
+                if (orderId == null) {
+                    skipped.increment();
+                    return false;
+                }
+                OrderStatus current = liveStatuses.remove(orderId);
+                OrderStatus next = nextStatus(current, random);
+                if (orderService.updateOrderStatus(orderId, next)) {
+                    track(orderId, next);
+                } else {
+                    conflicts.increment();
+                }
+                return true;
+            }
+            case PAGE:
+                orderService.getOrdersPage(null, null, PAGE_SIZE);
+                return true;
+            case ACTIVE:
+                orderService.getActiveOrders();
+                return true;
+            default:
+                throw new IllegalArgumentException(op.name());
+        }
+    }
+
+    private void track(String orderId, OrderStatus status) {
+        if (!status.isTerminal()) {
+            liveStatuses.put(orderId, status);
+            liveOrders.addLast(orderId);
+        }
+    }
+
+    // Заказ идёт по основному пути; небольшая доля отменяется
+    private static OrderStatus nextStatus(OrderStatus current, ThreadLocalRandom random) {
+        if (random.nextInt(100) < CANCEL_PERCENT && current.canTransitionTo(OrderStatus.CANCELLED)) {
+            return OrderStatus.CANCELLED;
+        }
+        for (OrderStatus candidate : current.getAllowedTransitions()) {
+            if (candidate != OrderStatus.CANCELLED) {
+                return candidate;
+            }
+        }
+        return OrderStatus.CANCELLED;
+    }
+
+    private Operation pickOperation() {
+        int total = 0;
+        for (int weight : mix.values()) {
+            total += weight;
+        }
+        int roll = ThreadLocalRandom.current().nextInt(total);
+        for (Map.Entry<Operation, Integer> e : mix.entrySet()) {
+            roll -= e.getValue();
+            if (roll < 0) {
+                return e.getKey();
+            }
+        }
+        return Operation.CREATE;
+    }
+
+    private List<OrderItem> randomItems(ThreadLocalRandom random) {
+        int count = 1 + random.nextInt(3);
+        List<OrderItem> items = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            double roll = random.nextDouble() * menuWeights[menuWeights.length - 1];
+            int index = Arrays.binarySearch(menuWeights, roll);
+            items.add(new OrderItem(menu.get(index >= 0 ? index : -index - 1), 1 + random.nextInt(2)));
+        }
+        return items;
+    }
+
+    // ==================== REPORT ====================
+
+    private void writeReport(Path file, List<long[]> achieved, long elapsedNanos) throws Exception {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        try (PrintStream out = new PrintStream(Files.newOutputStream(file), true, StandardCharsets.UTF_8)) {
+            out.println("# Нагрузочный прогон OrderService");
+            out.println("# Задержка считается от запланированного момента запроса, время обслуживания — от начала выполнения");
+            out.println();
+            out.println("[config]");
+            for (Map.Entry<String, String> e : effectiveConfig().entrySet()) {
+                out.println(e.getKey() + " = " + e.getValue());
+            }
+            out.println();
+
+            out.println("[phases]");
+            out.println(String.format(Locale.ROOT, "%-10s %10s %10s", "seconds", "target/s", "issued/s"));
+            for (long[] phase : achieved) {
+                double seconds = phase[0] / 1e9;
+                out.println(String.format(Locale.ROOT, "%-10.0f %10d %10.1f", seconds, phase[1], phase[2] / seconds));
+            }
+            out.println();
+
+            double seconds = elapsedNanos / 1e9;
+            out.println("[summary] latency, ms");
+            out.println(String.format(Locale.ROOT, "%-8s %9s %7s %9s %9s %9s %9s %9s %9s",
+                    "op", "count", "errors", "ops/s", "p50", "p90", "p99", "p99.9", "max"));
+            for (Operation op : Operation.values()) {
+                Histogram h = latency.get(op);
+                out.println(String.format(Locale.ROOT, "%-8s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f",
+                        op.name().toLowerCase(Locale.ROOT), h.getTotalCount(), errors.get(op).sum(),
+                        h.getTotalCount() / seconds, millis(h, 50), millis(h, 90), millis(h, 99), millis(h, 99.9),
+                        h.getMaxValue() / 1000.0));
+            }
+            out.println("status conflicts = " + conflicts.sum() + ", status skipped (no live orders) = " + skipped.sum());
+            out.println();
+
+            out.println("[summary] service time, ms");
+            out.println(String.format(Locale.ROOT, "%-8s %9s %9s %9s %9s", "op", "p50", "p99", "p99.9", "max"));
+            for (Operation op : Operation.values()) {
+                Histogram h = serviceTime.get(op);
+                out.println(String.format(Locale.ROOT, "%-8s %9.2f %9.2f %9.2f %9.2f", op.name().toLowerCase(Locale.ROOT),
+                        millis(h, 50), millis(h, 99), millis(h, 99.9), h.getMaxValue() / 1000.0));
+            }
+
+            for (Operation op : Operation.values()) {
+                Histogram h = latency.get(op);
+                if (h.getTotalCount() == 0) {
+                    continue;
+                }
+                out.println();
+                out.println("[latency distribution] " + op.name().toLowerCase(Locale.ROOT) + ", ms");
+                h.outputPercentileDistribution(out, 5, 1000.0);
+            }
+        }
+    }
+
+    private Map<String, String> effectiveConfig() {
+        Map<String, String> config = new LinkedHashMap<>();
+        config.put("phases", options.getOrDefault("phases", "60s@100"));
+        config.put("warmup", options.getOrDefault("warmup", "10s"));
+        config.put("arrivals", poisson ? "poisson" : "uniform");
+        config.put("mix", mix.toString());
+        config.put("threads", String.valueOf(threads));
+        config.put("menuSkew", String.valueOf(menuSkew));
+        config.put("customers", String.valueOf(customers));
+        config.put("db", options.getOrDefault("db", BenchDatabase.MEM));
+        config.put("seedOrders", options.getOrDefault("seedOrders", "10000"));
+        config.put("menu", String.valueOf(menu.size()));
+        config.put("dbPoolSize", Integer.getInteger("pizzeria.db.poolSize", 8).toString());
+        return config;
+    }
+
+    private static double millis(Histogram h, double percentile) {
+        return h.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    // ==================== OPTIONS ====================
+
+    static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Ожидался аргумент вида --ключ=значение: " + arg);
+            }
+            int eq = arg.indexOf('=');
+            options.put(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+        return options;
+    }
+
+    static List<long[]> parsePhases(String spec) {
+        List<long[]> phases = new ArrayList<>();
+        for (String part : spec.split(",")) {
+            String[] durationAndRate = part.trim().split("@");
+            if (durationAndRate.length != 2) {
+                throw new IllegalArgumentException("Этап задаётся как длительность@частота: " + part);
+            }
+            phases.add(new long[]{parseDuration(durationAndRate[0]), Long.parseLong(durationAndRate[1])});
+        }
+        return phases;
+    }
+
+    static Map<Operation, Integer> parseMix(String spec) {
+        Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+        for (String part : spec.split(",")) {
+            String[] nameAndWeight = part.trim().split(":");
+            mix.put(Operation.valueOf(nameAndWeight[0].toUpperCase(Locale.ROOT)), Integer.parseInt(nameAndWeight[1]));
+        }
+        return mix;
+    }
+
+    static long parseDuration(String text) {
+        String value = text.trim();
+        if (value.endsWith("ms")) {
+            return TimeUnit.MILLISECONDS.toNanos(Long.parseLong(value.substring(0, value.length() - 2)));
+        }
+        if (value.endsWith("m")) {
+            return TimeUnit.MINUTES.toNanos(Long.parseLong(value.substring(0, value.length() - 1)));
+        }
+        if (value.endsWith("s")) {
+            value = value.substring(0, value.length() - 1);
+        }
+        return TimeUnit.SECONDS.toNanos(Long.parseLong(value));
+    }
+}
@@ -0,0 +1,61 @@
+package com.pizzeria.bench;
+
+import com.pizzeria.models.Pizza;
+import com.pizzeria.services.PizzaService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Поиск по меню через {@link PizzaService#searchPizzas}. Поиск идёт по индексу в памяти,
+ * поэтому режим БД влияет только на загрузку меню и здесь не перебирается.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class MenuSearchBenchmark {
+
+    @Param({"50", "500", "5000"})
+    public int pizzas;
+
+    // Точное слово, префикс, опечатка и запрос из двух слов
+    @Param({"пепперони", "моц", "пеперони", "острая курица"})
+    public String query;
+
+    private Path dir;
+    private PizzaService pizzaService;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        dir = BenchDatabase.configure(BenchDatabase.MEM, "menu");
+        BenchDatabase.seedPizzas(pizzas, 42);
+        pizzaService = new PizzaService();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        BenchDatabase.close(dir);
+    }
+
+    @Benchmark
+    public List<Pizza> searchPizzas() {
+        return pizzaService.searchPizzas(query);
+    }
+}
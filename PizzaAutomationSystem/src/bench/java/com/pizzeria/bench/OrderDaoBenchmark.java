@@ -0,0 +1,126 @@
+package com.pizzeria.bench;
+
+import com.pizzeria.dao.OrderCursor;
+import com.pizzeria.dao.OrderDAODB;
+import com.pizzeria.dao.PizzaDAODB;
+import com.pizzeria.models.Customer;
+import com.pizzeria.models.Order;
+import com.pizzeria.models.Order.OrderStatus;
+import com.pizzeria.models.Pizza;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Запись и чтение заказов через {@link OrderDAODB} на заполненной БД.
+ * Параметр {@code indexes=false} удаляет индексы заказов из V2 и показывает, что они дают.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class OrderDaoBenchmark {
+    private static final int PAGE_SIZE = 100;
+    private static final int BATCH_SIZE = 50;
+
+    @Param({BenchDatabase.MEM, BenchDatabase.FILE})
+    public String db;
+
+    @Param({"1000", "10000", "100000"})
+    public int orders;
+
+    @Param({"true", "false"})
+    public boolean indexes;
+
+    private Path dir;
+    private OrderDAODB orderDAO;
+    private List<Pizza> menu;
+    private Customer customer;
+    private OrderCursor middle;
+    private final Random random = new Random(7);
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        dir = BenchDatabase.configure(db, "orders");
+        orderDAO = new OrderDAODB();
+        if (!indexes) {
+            BenchDatabase.dropOrderIndexes();
+        }
+        menu = new PizzaDAODB().getAllPizzas();
+        BenchDatabase.seedOrders(orderDAO, menu, orders, 42);
+        customer = orderDAO.saveCustomer(new Customer("Бенчмарк", "+77009999999", "", "ул. Абая, 1"));
+
+        List<Order> all = orderDAO.getOrdersPage(null, null, orders / 2 + 1);
+        middle = OrderCursor.of(all.get(all.size() - 1));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        BenchDatabase.close(dir);
+    }
+
+    @Benchmark
+    public Order createOrder() {
+        return orderDAO.createOrder(BenchDatabase.randomOrder(customer, menu, random));
+    }
+
+    // Групповая фиксация: один коммит на пакет, время указано на один заказ
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public List<Order> createOrdersBatch() {
+        List<Order> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            batch.add(BenchDatabase.randomOrder(customer, menu, random));
+        }
+        return orderDAO.createOrders(batch);
+    }
+
+    @Benchmark
+    public List<Order> firstPage() {
+        return orderDAO.getOrdersPage(null, null, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<Order> middlePage() {
+        return orderDAO.getOrdersPage(null, middle, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<Order> firstPageByStatus() {
+        return orderDAO.getOrdersPage(OrderStatus.READY, null, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<Order> activeOrders() {
+        return orderDAO.getAllActiveOrders();
+    }
+
+    @Benchmark
+    public List<Order> todayOrders() {
+        return orderDAO.getTodayOrders();
+    }
+
+    @Benchmark
+    public int countOrders() {
+        return orderDAO.getTotalOrdersCount();
+    }
+}
@@ -0,0 +1,86 @@
+package com.pizzeria.bench;
+
+import com.pizzeria.models.Customer;
+import com.pizzeria.models.Order;
+import com.pizzeria.models.OrderItem;
+import com.pizzeria.models.Pizza;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сумма заказа. Пересчёт по позициям заменён кэшированной суммой в тиынах,
+ * поэтому измеряются чтение суммы, сборка заказа и изменение количества в позиции.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class OrderTotalBenchmark {
+
+    @Param({"1", "10", "100"})
+    public int items;
+
+    private final Customer customer = new Customer("Бенчмарк", "+77009999999", "", "");
+    private List<OrderItem> itemList;
+    private Order order;
+    private OrderItem firstItem;
+    private int quantity = 1;
+
+    @Setup
+    public void setUp() {
+        itemList = new ArrayList<>(items);
+        for (int i = 0; i < items; i++) {
+            Pizza pizza = new Pizza("B" + i, "Пицца " + i, List.of("сыр"), Pizza.PizzaSize.MEDIUM,
+                    250_000 + 1_000L * i, Pizza.Category.CLASSIC);
+            itemList.add(new OrderItem(pizza, 1 + i % 3));
+        }
+        order = new Order(customer, copyItems(), "", "", Order.DeliveryType.PICKUP);
+        firstItem = order.getItems().get(0);
+    }
+
+    @Benchmark
+    public long getTotalCents() {
+        return order.getTotalCents();
+    }
+
+    @Benchmark
+    public String getFormattedTotal() {
+        return order.getFormattedTotal();
+    }
+
+    @Benchmark
+    public long buildOrder() {
+        return new Order(customer, copyItems(), "", "", Order.DeliveryType.PICKUP).getTotalCents();
+    }
+
+    @Benchmark
+    public long changeQuantity() {
+        quantity = quantity % 5 + 1;
+        firstItem.setQuantity(quantity);
+        return order.getTotalCents();
+    }
+
+    // Позиция привязывается к одному заказу, поэтому каждый новый заказ получает свои копии
+    private List<OrderItem> copyItems() {
+        List<OrderItem> copy = new ArrayList<>(itemList.size());
+        for (OrderItem item : itemList) {
+            copy.add(new OrderItem(item.getPizza(), item.getQuantity(), item.getUnitPriceCents()));
+        }
+        return copy;
+    }
+}
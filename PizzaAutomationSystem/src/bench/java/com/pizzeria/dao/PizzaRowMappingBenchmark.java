@@ -0,0 +1,87 @@
+package com.pizzeria.dao;
+
+import com.pizzeria.bench.BenchDatabase;
+import com.pizzeria.models.Pizza;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Разбор строки таблицы {@code pizza} в {@link Pizza} и загрузка всего меню.
+ * Лежит в пакете DAO, потому что {@link PizzaDAODB#mapResultSetToPizza} не публичный.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class PizzaRowMappingBenchmark {
+
+    @Param({BenchDatabase.MEM, BenchDatabase.FILE})
+    public String db;
+
+    @Param({"100", "1000"})
+    public int pizzas;
+
+    private Path dir;
+    private PizzaDAODB pizzaDAO;
+    private Connection conn;
+    private Statement stmt;
+    private ResultSet rows;
+    private int rowCount;
+    private int row;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        dir = BenchDatabase.configure(db, "pizzas");
+        BenchDatabase.seedPizzas(pizzas, 42);
+        pizzaDAO = new PizzaDAODB();
+
+        // Прокручиваемый результат позволяет разбирать одни и те же строки без повторного запроса
+        conn = DatabaseConnection.getConnection();
+        stmt = conn.createStatement(ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY);
+        rows = stmt.executeQuery("SELECT * FROM pizza");
+        rows.last();
+        rowCount = rows.getRow();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        rows.close();
+        stmt.close();
+        conn.close();
+        BenchDatabase.close(dir);
+    }
+
+    @Benchmark
+    public Pizza mapResultSetToPizza() throws SQLException {
+        row = row % rowCount + 1;
+        rows.absolute(row);
+        return pizzaDAO.mapResultSetToPizza(rows);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public List<Pizza> getAllPizzas() {
+        return pizzaDAO.getAllPizzas();
+    }
+}
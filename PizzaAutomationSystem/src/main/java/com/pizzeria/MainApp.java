@@ -1,6 +1,11 @@
 package com.pizzeria;
 
+import com.pizzeria.controllers.FxStallMonitor;
+import com.pizzeria.controllers.MainController;
 import com.pizzeria.dao.DatabaseConnection;
+import com.pizzeria.metrics.Metrics;
+import com.pizzeria.server.OrderHttpServer;
+import com.pizzeria.services.ServiceExecutor;
 import javafx.application.Application;
 import javafx.application.Platform;
 import javafx.fxml.FXMLLoader;
@@ -10,17 +15,24 @@ import javafx.stage.Stage;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.util.Arrays;
+
 public class MainApp extends Application {
     private static final Logger logger = LogManager.getLogger(MainApp.class);
 
+    private final FxStallMonitor stallMonitor =
+            new FxStallMonitor(Long.getLong("pizzeria.ui.stallThresholdMs", 100));
+
     @Override
     public void start(Stage primaryStage) {
         try {
             logger.info("Запуск Pizza Automation System с H2 Database");
+            Metrics.start();
 
             // Загрузка FXML файла
             FXMLLoader loader = new FXMLLoader(getClass().getResource("/com/pizzeria/views/main.fxml"));
             Parent root = loader.load();
+            MainController controller = loader.getController();
 
             // Настройка сцены
             Scene scene = new Scene(root, 1200, 800);
@@ -35,6 +47,11 @@ public class MainApp extends Application {
             // Обработка закрытия окна
             primaryStage.setOnCloseRequest(event -> {
                 logger.info("Завершение работы приложения...");
+                stallMonitor.close();
+                logger.info(stallMonitor.toString());
+                controller.shutdown();
+                ServiceExecutor.shutdown();
+                Metrics.stop();
                 try {
                     DatabaseConnection.close();
                 } catch (Exception e) {
@@ -44,6 +61,7 @@ public class MainApp extends Application {
 
             // Показ окна
             primaryStage.show();
+            stallMonitor.start();
 
             logger.info("Приложение успешно запущено с H2 БД");
 
@@ -69,6 +87,17 @@ public class MainApp extends Application {
         // Инициализация Log4j2
         System.setProperty("log4j.configurationFile", "log4j2.xml");
 
+        // С флагом --server окно не открывается, заказы принимает HTTP API
+        if (Arrays.asList(args).contains("--server")) {
+            try {
+                OrderHttpServer.runHeadless();
+            } catch (Exception e) {
+                logger.error("Не удалось запустить HTTP API", e);
+                System.exit(1);
+            }
+            return;
+        }
+
         // Запуск JavaFX приложения
         launch(args);
     }
@@ -0,0 +1,74 @@
+package com.pizzeria.controllers;
+
+import javafx.application.Platform;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+
+/**
+ * Доставка результатов асинхронных вызовов сервисов в UI-поток JavaFX.
+ */
+public final class FxAsync {
+
+    private FxAsync() {
+    }
+
+    /**
+     * Вызывает {@code onSuccess} или {@code onError} в UI-потоке. Отменённые задачи молча игнорируются.
+     */
+    public static <T> void onFx(CompletableFuture<T> future, Consumer<T> onSuccess, Consumer<Throwable> onError) {
+        future.whenCompleteAsync((value, error) -> {
+            if (error == null) {
+                onSuccess.accept(value);
+            } else if (!isCancellation(error)) {
+                onError.accept(unwrap(error));
+            }
+        }, Platform::runLater);
+    }
+
+    public static Throwable unwrap(Throwable error) {
+        while ((error instanceof CompletionException || error instanceof ExecutionException) && error.getCause() != null) {
+            error = error.getCause();
+        }
+        return error;
+    }
+
+    public static boolean isCancellation(Throwable error) {
+        return unwrap(error) instanceof CancellationException;
+    }
+
+    /**
+     * Запрос, у которого важен только последний результат: новый вызов {@link #submit}
+     * отменяет предыдущий, а результат устаревшего запроса не попадает в UI.
+     * Методы вызываются только из UI-потока.
+     */
+    public static final class Latest<T> {
+        private CompletableFuture<T> current;
+
+        public void submit(CompletableFuture<T> future, Consumer<T> onSuccess, Consumer<Throwable> onError) {
+            cancel();
+            current = future;
+            onFx(future, value -> {
+                if (future == current) {
+                    current = null;
+                    onSuccess.accept(value);
+                }
+            }, error -> {
+                if (future == current) {
+                    current = null;
+                    onError.accept(error);
+                }
+            });
+        }
+
+        public void cancel() {
+            if (current != null) {
+                current.cancel(false);
+                current = null;
+            }
+        }
+    }
+}
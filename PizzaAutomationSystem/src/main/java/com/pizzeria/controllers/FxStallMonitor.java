@@ -0,0 +1,81 @@
+package com.pizzeria.controllers;
+
+import javafx.application.Platform;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Измеряет, насколько UI-поток JavaFX не успевает обрабатывать события.
+ * <p>
+ * Фоновый поток периодически ставит в очередь UI-потока пустую задачу и замеряет,
+ * через сколько она выполнилась. Задержки дольше порога считаются зависаниями
+ * и выводятся в лог.
+ */
+public class FxStallMonitor implements AutoCloseable {
+    private static final long PROBE_INTERVAL_MILLIS = 100;
+
+    private final long thresholdNanos;
+    private final ScheduledExecutorService scheduler;
+    private final AtomicBoolean probePending = new AtomicBoolean();
+
+    private final LongAdder probeCount = new LongAdder();
+    private final LongAdder stallCount = new LongAdder();
+    private final LongAdder stallNanos = new LongAdder();
+    private final LongAccumulator maxDelayNanos = new LongAccumulator(Math::max, 0);
+
+    public FxStallMonitor(long thresholdMillis) {
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "fx-stall-monitor");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::probe, PROBE_INTERVAL_MILLIS, PROBE_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    private void probe() {
+        // Пока предыдущая проба не выполнилась, UI-поток занят — новую не ставим
+        if (!probePending.compareAndSet(false, true)) {
+            return;
+        }
+        long posted = System.nanoTime();
+        Platform.runLater(() -> {
+            long delay = System.nanoTime() - posted;
+            probePending.set(false);
+            probeCount.increment();
+            maxDelayNanos.accumulate(delay);
+            if (delay >= thresholdNanos) {
+                stallCount.increment();
+                stallNanos.add(delay);
+                System.err.println("UI-поток был занят " + TimeUnit.NANOSECONDS.toMillis(delay) + " мс");
+            }
+        });
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    // ==================== METRICS ====================
+
+    public long getProbeCount() { return probeCount.sum(); }
+    public long getStallCount() { return stallCount.sum(); }
+    public long getTotalStallNanos() { return stallNanos.sum(); }
+    public long getMaxDelayNanos() { return maxDelayNanos.get(); }
+
+    @Override
+    public String toString() {
+        return String.format("FxStallMonitor[probes=%d, stalls=%d, stallTime=%d ms, maxDelay=%d ms]",
+                getProbeCount(), getStallCount(), TimeUnit.NANOSECONDS.toMillis(getTotalStallNanos()),
+                TimeUnit.NANOSECONDS.toMillis(getMaxDelayNanos()));
+    }
+}
@@ -5,7 +5,13 @@ import com.pizzeria.models.Order.OrderStatus;
 import com.pizzeria.models.Order.DeliveryType;
 import com.pizzeria.models.Payment.PaymentMethod;
 import com.pizzeria.services.PizzaService;
+import com.pizzeria.services.OrderEvent;
+import com.pizzeria.services.OrderArchiver;
 import com.pizzeria.services.OrderService;
+import com.pizzeria.services.SharedStoreRefresher;
+import com.pizzeria.services.SpaceSavingSketch;
+import javafx.application.Platform;
+import javafx.beans.binding.Bindings;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
@@ -13,11 +19,14 @@ import javafx.fxml.FXML;
 import javafx.scene.control.*;
 
 import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class MainController {
 
@@ -47,6 +56,7 @@ public class MainController {
 
     // ==================== ORDERS TAB ====================
     @FXML private ComboBox<String> orderStatusFilter;
+    @FXML private CheckBox includeArchiveCheck;
     @FXML private Label ordersCountLabel;
     @FXML private TableView<Order> ordersTableView;
     @FXML private TableColumn<Order, String> orderIdColumn;
@@ -92,11 +102,19 @@ public class MainController {
     private final OrderService orderService;
     private final ObservableList<OrderItem> cartItems = FXCollections.observableArrayList();
     private ToggleGroup deliveryToggleGroup;
+    private PagedOrdersTableModel ordersTableModel;
+    private final AtomicBoolean statisticsRefreshScheduled = new AtomicBoolean();
     private Pizza editingPizza = null;
+    // Только в общем режиме БД, иначе null
+    private final SharedStoreRefresher sharedStoreRefresher;
+    // null, если архивация выключена
+    private final OrderArchiver orderArchiver;
 
     public MainController() {
         this.pizzaService = new PizzaService();
         this.orderService = new OrderService(pizzaService);
+        this.sharedStoreRefresher = SharedStoreRefresher.startIfShared(pizzaService, orderService);
+        this.orderArchiver = OrderArchiver.startFromSystemProperties(orderService);
     }
 
     @FXML
@@ -108,6 +126,9 @@ public class MainController {
             setupOrdersTab();
             setupStatisticsTab();
             setupSettingsTab();
+            if (sharedStoreRefresher != null) {
+                sharedStoreRefresher.onMenuChanged(() -> Platform.runLater(this::menuChangedElsewhere));
+            }
             System.out.println("All tabs initialized");
         } catch (Exception e) {
             showError("Initialization error", e.getMessage());
@@ -115,6 +136,18 @@ public class MainController {
         }
     }
 
+    /**
+     * Останавливает фоновые задачи контроллера при закрытии окна.
+     */
+    public void shutdown() {
+        if (sharedStoreRefresher != null) {
+            sharedStoreRefresher.close();
+        }
+        if (orderArchiver != null) {
+            orderArchiver.close();
+        }
+    }
+
     private void initializeData() throws IOException {
         pizzaService.initializeData();
         System.out.println("Pizza data initialized");
@@ -191,10 +224,7 @@ public class MainController {
                 if (empty || item == null) {
                     setText(null);
                 } else {
-                    setText(String.format("%s x%d = %s",
-                            item.getPizza().getName(),
-                            item.getQuantity(),
-                            item.getFormattedTotal()));
+                    setText(item.getPizza().getName() + " x" + item.getQuantity() + " = " + item.getFormattedTotal());
                 }
             }
         });
@@ -215,14 +245,15 @@ public class MainController {
     }
 
     private void filterAvailablePizzas() {
-        String query = searchPizzaField.getText().toLowerCase();
+        String query = searchPizzaField.getText().trim();
         Pizza.Category category = orderCategoryFilter.getValue();
 
-        List<Pizza> filtered = pizzaService.getAvailablePizzas().stream()
-                .filter(p -> (query.isEmpty() || p.getName().toLowerCase().contains(query) ||
-                        p.getDescription().toLowerCase().contains(query)))
-                .filter(p -> (category == null || p.getCategory() == category))
-                .toList();
+        List<Pizza> filtered = query.isEmpty()
+                ? pizzaService.getAvailablePizzas(category)
+                : pizzaService.searchPizzas(query).stream()
+                        .filter(Pizza::isAvailable)
+                        .filter(p -> (category == null || p.getCategory() == category))
+                        .toList();
 
         availablePizzasListView.setItems(FXCollections.observableArrayList(filtered));
     }
@@ -268,8 +299,11 @@ public class MainController {
     }
 
     private void updateCartTotal() {
-        double total = cartItems.stream().mapToDouble(OrderItem::getTotalPrice).sum();
-        totalLabel.setText(String.format("Total: %.2f T", total));
+        long total = 0;
+        for (OrderItem item : cartItems) {
+            total += item.getTotalPriceCents();
+        }
+        totalLabel.setText("Total: " + Money.toPlainString(total) + " T");
     }
 
     @FXML
@@ -292,39 +326,42 @@ public class MainController {
             return;
         }
 
-        try {
-            Customer customer = new Customer(name, phone,
-                    customerEmailField.getText().trim(),
-                    deliveryAddressField.getText().trim());
-
-            DeliveryType deliveryType = pickupRadio.isSelected() ? DeliveryType.PICKUP : DeliveryType.DELIVERY;
-            String address = deliveryRadio.isSelected() ? deliveryAddressField.getText().trim() : "Pickup";
-
-            Order order = orderService.createOrder(
-                    customer,
-                    new ArrayList<>(cartItems),
-                    orderNotesArea.getText(),
-                    address,
-                    deliveryType
-            );
-
+        Customer customer = new Customer(name, phone,
+                customerEmailField.getText().trim(),
+                deliveryAddressField.getText().trim());
+
+        DeliveryType deliveryType = pickupRadio.isSelected() ? DeliveryType.PICKUP : DeliveryType.DELIVERY;
+        String address = deliveryRadio.isSelected() ? deliveryAddressField.getText().trim() : "Pickup";
+
+        // Запись в БД идёт в фоне, кнопка заблокирована до ответа, чтобы заказ не ушёл дважды
+        placeOrderBtn.setDisable(true);
+        FxAsync.onFx(orderService.createOrderAsync(
+                customer,
+                new ArrayList<>(cartItems),
+                orderNotesArea.getText(),
+                address,
+                deliveryType
+        ), order -> {
+            placeOrderBtn.setDisable(false);
             if (order != null) {
+                // Время готовности рассчитано с учётом очереди на кухне
+                long readyInMinutes = Math.max(0,
+                        Duration.between(LocalDateTime.now(), order.getEstimatedReadyTime()).toMinutes());
                 showInfo("Order created!",
                         "Order #" + order.getOrderId() + "\n" +
                                 "Total: " + order.getFormattedTotal() + "\n" +
-                                "Ready in approx " + order.calculateTotalPreparationTime() + " min");
+                                "Ready in approx " + readyInMinutes + " min (at " +
+                                order.getEstimatedReadyTime().format(DateTimeFormatter.ofPattern("HH:mm")) + ")");
 
                 clearOrderForm();
-                refreshOrdersTable();
-                refreshStatistics();
             } else {
                 showError("Error", "Could not create order");
             }
-
-        } catch (Exception e) {
-            showError("Order creation error", e.getMessage());
-            e.printStackTrace();
-        }
+        }, error -> {
+            placeOrderBtn.setDisable(false);
+            showError("Order creation error", error.getMessage());
+            error.printStackTrace();
+        });
     }
 
     private void clearOrderForm() {
@@ -348,6 +385,7 @@ public class MainController {
         orderStatusFilter.setItems(statusOptions);
         orderStatusFilter.getSelectionModel().selectFirst();
         orderStatusFilter.setOnAction(e -> refreshOrdersTable());
+        includeArchiveCheck.setOnAction(e -> refreshOrdersTable());
 
         orderIdColumn.setCellValueFactory(data -> new SimpleStringProperty(data.getValue().getOrderId()));
         orderTimeColumn.setCellValueFactory(data -> new SimpleStringProperty(
@@ -363,6 +401,8 @@ public class MainController {
         ordersTableView.getSelectionModel().selectedItemProperty()
                 .addListener((obs, oldVal, newVal) -> showOrderDetails(newVal));
 
+        ordersTableModel = new PagedOrdersTableModel(ordersTableView, orderService);
+        ordersCountLabel.textProperty().bind(Bindings.format("Orders: %d", ordersTableModel.totalCountProperty()));
         refreshOrdersTable();
     }
 
@@ -372,31 +412,22 @@ public class MainController {
     }
 
     private void refreshOrdersTable() {
-        try {
-            String filterValue = orderStatusFilter.getValue();
-            List<Order> orders;
-
-            if (filterValue == null || "All".equals(filterValue)) {
-                orders = new ArrayList<>(orderService.getActiveOrders());
-                orders.addAll(orderService.getOrdersByStatus(OrderStatus.COMPLETED));
-                orders.addAll(orderService.getOrdersByStatus(OrderStatus.CANCELLED));
-            } else {
-                OrderStatus status = null;
-                for (OrderStatus s : OrderStatus.values()) {
-                    if (s.getDisplayName().equals(filterValue)) {
-                        status = s;
-                        break;
-                    }
+        String filterValue = orderStatusFilter.getValue();
+        OrderStatus status = null;
+
+        if (filterValue != null && !"All".equals(filterValue)) {
+            for (OrderStatus s : OrderStatus.values()) {
+                if (s.getDisplayName().equals(filterValue)) {
+                    status = s;
+                    break;
                 }
-                orders = status != null ? orderService.getOrdersByStatus(status) : new ArrayList<>();
             }
-
-            ordersTableView.setItems(FXCollections.observableArrayList(orders));
-            ordersCountLabel.setText("Orders: " + orders.size());
-
-        } catch (Exception e) {
-            showError("Error loading orders", e.getMessage());
         }
+
+        // Таблица получает только первую страницу, остальные подгружаются при прокрутке.
+        // Загрузка идёт в фоне; повторное обновление отменяет предыдущее.
+        FxAsync.onFx(ordersTableModel.reset(status, includeArchiveCheck.isSelected()), ignored -> { },
+                error -> showError("Error loading orders", error.getMessage()));
     }
 
     private void showOrderDetails(Order order) {
@@ -465,25 +496,46 @@ public class MainController {
             return;
         }
 
-        try {
-            boolean success = orderService.updateOrderStatus(selected.getOrderId(), newStatus);
-            if (success) {
-                showInfo("Status changed", "Order #" + selected.getOrderId() +
-                        " is now: " + newStatus.getDisplayName());
-                refreshOrdersTable();
-                refreshStatistics();
-            } else {
-                showError("Error", "Could not change status");
+        // Ожидаемый статус — тот, что видит кассир: чужое изменение не будет перезаписано
+        OrderStatus expected = selected.getStatus();
+        FxAsync.onFx(orderService.changeStatusAsync(selected.getOrderId(), expected, newStatus), change -> {
+            switch (change.result()) {
+                // Строку таблицы и статистику обновляют события шины
+                case APPLIED:
+                    showInfo("Status changed", "Order #" + selected.getOrderId() +
+                            " is now: " + newStatus.getDisplayName());
+                    break;
+                case INVALID_TRANSITION:
+                    showWarning("Status not changed", "Order in status \"" + expected.getDisplayName() +
+                            "\" cannot be moved to \"" + newStatus.getDisplayName() + "\"");
+                    break;
+                case CONFLICT:
+                    ordersTableModel.applyStatus(selected.getOrderId(), change.actual());
+                    showWarning("Order was changed", "Order #" + selected.getOrderId() +
+                            " has already been moved to \"" + change.actual().getDisplayName() +
+                            "\" by someone else");
+                    break;
+                case NOT_FOUND:
+                    ordersTableModel.removeOrder(selected.getOrderId());
+                    showError("Error", "Order #" + selected.getOrderId() + " no longer exists");
+                    break;
             }
-        } catch (Exception e) {
-            showError("Error", e.getMessage());
-        }
+        }, error -> showError("Error", error.getMessage()));
     }
 
     // ==================== STATISTICS TAB METHODS ====================
 
     private void setupStatisticsTab() {
         refreshStatistics();
+        // Числа берутся из памяти, так что после серии событий достаточно одного обновления
+        orderService.getEventBus().subscribe(OrderEvent.class, event -> {
+            if (statisticsRefreshScheduled.compareAndSet(false, true)) {
+                Platform.runLater(() -> {
+                    statisticsRefreshScheduled.set(false);
+                    refreshStatistics();
+                });
+            }
+        });
     }
 
     @FXML
@@ -493,55 +545,36 @@ public class MainController {
 
     private void refreshStatistics() {
         try {
-            int totalOrders = orderService.getTotalOrdersCount();
-            double totalRevenue = orderService.getTotalRevenue();
-
-            totalOrdersLabel.setText(String.valueOf(totalOrders));
-            todayOrdersLabel.setText(String.valueOf(orderService.getTodayOrders().size()));
-            totalRevenueLabel.setText(String.format("%.0f T", totalRevenue));
-            todayRevenueLabel.setText(String.format("%.0f T", calculateTodayRevenue()));
-
-            pendingCountLabel.setText(String.valueOf(countByStatus(OrderStatus.PENDING)));
-            confirmedCountLabel.setText(String.valueOf(countByStatus(OrderStatus.CONFIRMED)));
-            preparingCountLabel.setText(String.valueOf(countByStatus(OrderStatus.PREPARING)));
-            bakingCountLabel.setText(String.valueOf(countByStatus(OrderStatus.BAKING)));
-            readyCountLabel.setText(String.valueOf(countByStatus(OrderStatus.READY)));
-            deliveringCountLabel.setText(String.valueOf(countByStatus(OrderStatus.DELIVERING)));
-            completedCountLabel.setText(String.valueOf(countByStatus(OrderStatus.COMPLETED)));
-            cancelledCountLabel.setText(String.valueOf(countByStatus(OrderStatus.CANCELLED)));
-
-            popularPizzasListView.setItems(FXCollections.observableArrayList(
-                    "1. Пепперони",
-                    "2. Маргарита",
-                    "3. Четыре сыра",
-                    "4. Гавайская",
-                    "5. Мясная"
-            ));
+            // Все числа берутся из статистики в памяти, без запросов к БД, и из одного среза
+            DashboardSnapshot stats = orderService.getStatistics().snapshot();
+
+            totalOrdersLabel.setText(String.valueOf(stats.getTotalOrdersCount()));
+            todayOrdersLabel.setText(String.valueOf(stats.getTodayOrdersCount()));
+            totalRevenueLabel.setText(Money.roundToWhole(stats.getTotalRevenueCents()) + " T");
+            todayRevenueLabel.setText(Money.roundToWhole(stats.getTodayRevenueCents()) + " T");
+
+            pendingCountLabel.setText(String.valueOf(stats.getCount(OrderStatus.PENDING)));
+            confirmedCountLabel.setText(String.valueOf(stats.getCount(OrderStatus.CONFIRMED)));
+            preparingCountLabel.setText(String.valueOf(stats.getCount(OrderStatus.PREPARING)));
+            bakingCountLabel.setText(String.valueOf(stats.getCount(OrderStatus.BAKING)));
+            readyCountLabel.setText(String.valueOf(stats.getCount(OrderStatus.READY)));
+            deliveringCountLabel.setText(String.valueOf(stats.getCount(OrderStatus.DELIVERING)));
+            completedCountLabel.setText(String.valueOf(stats.getCount(OrderStatus.COMPLETED)));
+            cancelledCountLabel.setText(String.valueOf(stats.getCount(OrderStatus.CANCELLED)));
+
+            ObservableList<String> popular = FXCollections.observableArrayList();
+            List<SpaceSavingSketch.Entry> top = orderService.getPopularPizzas().getTopAllTime(5);
+            for (int i = 0; i < top.size(); i++) {
+                SpaceSavingSketch.Entry entry = top.get(i);
+                popular.add((i + 1) + ". " + entry.label() + " — " + entry.count() + " шт.");
+            }
+            popularPizzasListView.setItems(popular);
 
         } catch (Exception e) {
             showError("Statistics error", e.getMessage());
         }
     }
 
-    private int countByStatus(OrderStatus status) {
-        try {
-            return orderService.getOrdersByStatus(status).size();
-        } catch (Exception e) {
-            return 0;
-        }
-    }
-
-    private double calculateTodayRevenue() {
-        try {
-            return orderService.getTodayOrders().stream()
-                    .filter(o -> o.getStatus() == OrderStatus.COMPLETED)
-                    .mapToDouble(Order::calculateTotal)
-                    .sum();
-        } catch (Exception e) {
-            return 0;
-        }
-    }
-
     // ==================== SETTINGS TAB METHODS ====================
 
     private void setupSettingsTab() {
@@ -564,6 +597,12 @@ public class MainController {
         languageCombo.getSelectionModel().selectFirst();
     }
 
+    // Форму редактирования не трогаем: устаревшая версия пиццы не даст затереть чужую правку
+    private void menuChangedElsewhere() {
+        refreshSettingsPizzaList();
+        try { loadPizzas(); } catch (Exception ignored) {}
+    }
+
     private void refreshSettingsPizzaList() {
         settingsPizzaListView.setItems(FXCollections.observableArrayList(pizzaService.getAllPizzas()));
     }
@@ -576,7 +615,7 @@ public class MainController {
         pizzaDescField.setText(pizza.getDescription());
         pizzaIngredientsField.setText(pizza.getIngredientsString());
         pizzaSizeCombo.setValue(pizza.getSize());
-        pizzaPriceField.setText(String.valueOf(pizza.getPrice()));
+        pizzaPriceField.setText(Money.toPlainString(pizza.getPriceCents()));
         pizzaTimeField.setText(String.valueOf(pizza.getPreparationTime()));
         pizzaCategoryCombo.setValue(pizza.getCategory());
         pizzaAvailableCheck.setSelected(pizza.isAvailable());
@@ -611,13 +650,15 @@ public class MainController {
         confirm.setContentText("Are you sure you want to delete \"" + selected.getName() + "\"?");
 
         if (confirm.showAndWait().orElse(ButtonType.CANCEL) == ButtonType.OK) {
-            if (pizzaService.deletePizza(selected.getId())) {
-                showInfo("Deleted", "Pizza successfully deleted");
-                refreshSettingsPizzaList();
-                handleResetPizzaForm();
-            } else {
-                showError("Error", "Could not delete pizza");
-            }
+            FxAsync.onFx(pizzaService.deletePizzaAsync(selected.getId()), deleted -> {
+                if (deleted) {
+                    showInfo("Deleted", "Pizza successfully deleted");
+                    refreshSettingsPizzaList();
+                    handleResetPizzaForm();
+                } else {
+                    showError("Error", "Could not delete pizza");
+                }
+            }, error -> showError("Error", error.getMessage()));
         }
     }
 
@@ -629,10 +670,10 @@ public class MainController {
             return;
         }
 
-        double price;
+        long price;
         int prepTime;
         try {
-            price = Double.parseDouble(pizzaPriceField.getText().trim());
+            price = Money.parse(pizzaPriceField.getText());
             prepTime = Integer.parseInt(pizzaTimeField.getText().trim());
         } catch (NumberFormatException e) {
             showWarning("Invalid format", "Price and time must be numbers");
@@ -642,20 +683,23 @@ public class MainController {
         List<String> ingredients = List.of(pizzaIngredientsField.getText().split(",\\s*"));
 
         if (editingPizza != null) {
-            editingPizza.setName(name);
-            editingPizza.setDescription(pizzaDescField.getText().trim());
-            editingPizza.setIngredients(ingredients);
-            editingPizza.setSize(pizzaSizeCombo.getValue());
-            editingPizza.setPrice(price);
-            editingPizza.setPreparationTime(prepTime);
-            editingPizza.setCategory(pizzaCategoryCombo.getValue());
-            editingPizza.setAvailable(pizzaAvailableCheck.isSelected());
-
-            if (pizzaService.updatePizza(editingPizza)) {
-                showInfo("Saved", "Pizza successfully updated");
-            } else {
-                showError("Error", "Could not update pizza");
-            }
+            // Пицца из снимка меню общая для всех читателей: правки идут в копию
+            Pizza edited = new Pizza(
+                    editingPizza.getId(), name, pizzaDescField.getText().trim(), ingredients,
+                    pizzaSizeCombo.getValue(), price, prepTime,
+                    pizzaCategoryCombo.getValue(), pizzaAvailableCheck.isSelected()
+            );
+            edited.setVersion(editingPizza.getVersion());
+
+            FxAsync.onFx(pizzaService.updatePizzaAsync(edited), updated -> {
+                if (updated) {
+                    showInfo("Saved", "Pizza successfully updated");
+                } else {
+                    showError("Error", "Could not update pizza. It may have been changed on another terminal: "
+                            + "the list has been reloaded, open the pizza and apply your changes again");
+                }
+                pizzaSaved();
+            }, error -> showError("Error", error.getMessage()));
         } else {
             String id = "P" + UUID.randomUUID().toString().substring(0, 3).toUpperCase();
             Pizza newPizza = new Pizza(
@@ -664,13 +708,18 @@ public class MainController {
                     pizzaCategoryCombo.getValue(), pizzaAvailableCheck.isSelected()
             );
 
-            if (pizzaService.addPizza(newPizza)) {
-                showInfo("Added", "New pizza successfully added");
-            } else {
-                showError("Error", "Could not add pizza");
-            }
+            FxAsync.onFx(pizzaService.addPizzaAsync(newPizza), added -> {
+                if (added) {
+                    showInfo("Added", "New pizza successfully added");
+                } else {
+                    showError("Error", "Could not add pizza");
+                }
+                pizzaSaved();
+            }, error -> showError("Error", error.getMessage()));
         }
+    }
 
+    private void pizzaSaved() {
         refreshSettingsPizzaList();
         try { loadPizzas(); } catch (Exception ignored) {}
         handleResetPizzaForm();
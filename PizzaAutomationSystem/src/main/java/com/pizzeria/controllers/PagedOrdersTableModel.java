@@ -0,0 +1,455 @@
+package com.pizzeria.controllers;
+
+import com.pizzeria.dao.OrderCursor;
+import com.pizzeria.models.Order;
+import com.pizzeria.models.Order.OrderStatus;
+import com.pizzeria.services.OrderEvent;
+import com.pizzeria.services.OrderEventBus;
+import com.pizzeria.services.OrderService;
+import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyIntegerProperty;
+import javafx.beans.property.ReadOnlyIntegerWrapper;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.scene.control.TableRow;
+import javafx.scene.control.TableView;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Модель таблицы заказов, которая подгружает страницы по мере прокрутки.
+ * <p>
+ * В памяти держится не больше {@link #MAX_ROWS} строк: при прокрутке вниз отбрасываются
+ * верхние строки, при прокрутке вверх они загружаются снова по курсору первой строки.
+ * Поэтому расход памяти не зависит от размера истории заказов.
+ * <p>
+ * События {@link OrderEventBus} применяются к строкам на месте: новый заказ вставляется
+ * сверху, смена статуса обновляет одну строку, найденную по id за O(1), без перезагрузки страницы.
+ * Пока после {@link #reset} грузится первая страница, события откладываются и применяются
+ * к новым строкам, а пока считается число заказов, оно не правится событиями и после ответа
+ * пересчитывается заново.
+ */
+public class PagedOrdersTableModel implements AutoCloseable {
+    private static final int PAGE_SIZE = 100;
+    private static final int MAX_ROWS = 500;
+    private static final int PREFETCH = 20;
+
+    private final TableView<Order> table;
+    private final OrderService orderService;
+    private final ObservableList<Order> rows = FXCollections.observableArrayList();
+    private final ReadOnlyIntegerWrapper totalCount = new ReadOnlyIntegerWrapper(0);
+    private final FxAsync.Latest<Integer> countRequest = new FxAsync.Latest<>();
+
+    // id заказа -> сквозная позиция; индекс строки = позиция - firstPosition,
+    // поэтому добавление и удаление строк с краёв не требует пересчёта остальных
+    private final Map<String, Long> positions = new HashMap<>();
+    private long firstPosition = 0;
+
+    // События приходят из фоновых потоков и применяются пачкой за один заход в UI-поток
+    private final Queue<OrderEvent> inbox = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+    private final OrderEventBus.Subscription subscription;
+    // События, пришедшие, пока грузится первая страница после reset
+    private final List<OrderEvent> deferred = new ArrayList<>();
+    private boolean resetting = false;
+    private boolean replaying = false;
+    // Число заказов запрошено; события за это время делают ответ устаревшим
+    private boolean counting = false;
+    private boolean countStale = false;
+
+    private OrderStatus status;
+    private boolean includeArchive = false;
+    private boolean hasOlder = false;
+    private boolean hasNewer = false;
+    private boolean loading = false;
+    private int generation = 0;
+    private CompletableFuture<List<Order>> pending;
+
+    public PagedOrdersTableModel(TableView<Order> table, OrderService orderService) {
+        this.table = table;
+        this.orderService = orderService;
+
+        table.setItems(rows);
+        table.setRowFactory(tv -> new TableRow<>() {
+            @Override
+            protected void updateItem(Order order, boolean empty) {
+                super.updateItem(order, empty);
+                if (!empty && order != null) {
+                    onRowShown(getIndex());
+                }
+            }
+        });
+
+        subscription = orderService.getEventBus().subscribe(OrderEvent.class, this::enqueue);
+    }
+
+    /**
+     * Сбрасывает таблицу на первую страницу с фильтром {@code status} ({@code null} — все заказы).
+     * Страница и число заказов загружаются в фоне; незавершённая загрузка по прежнему фильтру отменяется.
+     * Возвращённый future завершается после того, как строки попали в таблицу.
+     */
+    public CompletableFuture<Void> reset(OrderStatus status) {
+        return reset(status, false);
+    }
+
+    /**
+     * То же, что {@link #reset(OrderStatus)}; с {@code includeArchive} таблица листает и заказы из архива.
+     */
+    public CompletableFuture<Void> reset(OrderStatus status, boolean includeArchive) {
+        this.status = status;
+        this.includeArchive = includeArchive;
+        int scheduledFor = ++generation;
+        cancelPending();
+        loading = false;
+        // События, отложенные до прежнего reset, новая страница уже учитывает
+        deferred.clear();
+        resetting = true;
+
+        // Ответ на запрос по прежнему фильтру отменён и не придёт
+        counting = false;
+        countStale = false;
+        requestCount();
+
+        CompletableFuture<List<Order>> request = orderService.getOrdersPageAsync(status, null, PAGE_SIZE, includeArchive);
+        pending = request;
+        return request.handleAsync((page, error) -> {
+            if (scheduledFor != generation) {
+                return null;
+            }
+            pending = null;
+            if (error == null) {
+                rows.setAll(page);
+                reindex();
+                hasOlder = page.size() == PAGE_SIZE;
+                hasNewer = false;
+                table.scrollTo(0);
+            }
+            resetting = false;
+            // Заказы сопоставляются по id, поэтому событие, уже попавшее в страницу, применится без изменений.
+            // Учёл ли событие подсчёт, неизвестно, поэтому вместо поправок число заказов перечитывается
+            List<OrderEvent> replay = new ArrayList<>(deferred);
+            deferred.clear();
+            replaying = true;
+            apply(replay);
+            replaying = false;
+            if (countStale && !counting) {
+                countStale = false;
+                requestCount();
+            }
+            if (error != null) {
+                throw new CompletionException(error);
+            }
+            return null;
+        }, Platform::runLater);
+    }
+
+    public ObservableList<Order> getRows() {
+        return rows;
+    }
+
+    /**
+     * Число заказов под текущим фильтром, включая не загруженные в таблицу.
+     */
+    public ReadOnlyIntegerProperty totalCountProperty() {
+        return totalCount.getReadOnlyProperty();
+    }
+
+    /**
+     * Показывает статус, который заказ получил в обход этого процесса, например
+     * обнаруженный при конфликте смены статуса.
+     */
+    public void applyStatus(String orderId, OrderStatus newStatus) {
+        int index = indexOf(orderId);
+        if (index < 0) {
+            return;
+        }
+        if (status != null && newStatus != status) {
+            removeAt(index);
+            return;
+        }
+        Order order = rows.get(index);
+        order.setStatus(newStatus);
+        rows.set(index, order);
+    }
+
+    public void removeOrder(String orderId) {
+        int index = indexOf(orderId);
+        if (index >= 0) {
+            removeAt(index);
+        }
+    }
+
+    @Override
+    public void close() {
+        subscription.close();
+        cancelPending();
+        countRequest.cancel();
+        counting = false;
+    }
+
+    // ==================== EVENTS ====================
+
+    private void enqueue(OrderEvent event) {
+        inbox.add(event);
+        if (drainScheduled.compareAndSet(false, true)) {
+            Platform.runLater(this::drain);
+        }
+    }
+
+    private void drain() {
+        drainScheduled.set(false);
+        List<OrderEvent> events = new ArrayList<>();
+        OrderEvent event;
+        while ((event = inbox.poll()) != null) {
+            events.add(event);
+        }
+        if (resetting) {
+            deferred.addAll(events);
+        } else {
+            apply(events);
+        }
+    }
+
+    private void apply(List<OrderEvent> events) {
+        List<Order> created = new ArrayList<>();
+        boolean refreshed = false;
+        for (OrderEvent event : events) {
+            if (event instanceof OrderEvent.OrderCreated e) {
+                if (matches(e.order().getStatus())) {
+                    created.add(e.order());
+                }
+            } else if (event instanceof OrderEvent.StatusChanged e) {
+                statusChanged(e.orderId(), e.from(), e.to());
+            } else if (event instanceof OrderEvent.OrderCancelled e) {
+                statusChanged(e.orderId(), e.from(), OrderStatus.CANCELLED);
+            } else if (event instanceof OrderEvent.OrderRefreshed e) {
+                orderRefreshed(e.order(), created);
+                refreshed = true;
+            }
+        }
+        if (!created.isEmpty()) {
+            ordersCreated(created);
+        }
+        if (refreshed) {
+            // Прежний статус заказа с другого терминала неизвестен, поэтому число заказов перечитывается
+            requestCount();
+        }
+    }
+
+    /**
+     * Перечитывает число заказов. Если запрос уже идёт, новый отправляется после его ответа:
+     * неизвестно, учёл ли идущий запрос последние события.
+     */
+    private void requestCount() {
+        if (counting) {
+            countStale = true;
+            return;
+        }
+        counting = true;
+        countRequest.submit(orderService.countOrdersAsync(status, includeArchive), count -> {
+            counting = false;
+            totalCount.set(count);
+            if (countStale) {
+                countStale = false;
+                requestCount();
+            }
+        }, error -> {
+            counting = false;
+            countStale = false;
+            System.err.println("Ошибка подсчёта заказов: " + error.getMessage());
+        });
+    }
+
+    private void adjustCount(int delta) {
+        if (delta == 0) {
+            return;
+        }
+        if (counting || replaying) {
+            countStale = true;
+        } else {
+            totalCount.set(totalCount.get() + delta);
+        }
+    }
+
+    /**
+     * Заказ, изменённый другим терминалом: строка заменяется новой версией, а незнакомый заказ
+     * новее верхней строки добавляется как созданный. Более старые подтянутся при прокрутке.
+     */
+    private void orderRefreshed(Order order, List<Order> created) {
+        int index = indexOf(order.getOrderId());
+        if (index >= 0) {
+            if (matches(order.getStatus())) {
+                rows.set(index, order);
+            } else {
+                removeAt(index);
+            }
+        } else if (matches(order.getStatus())
+                && (rows.isEmpty() || order.getOrderTime().isAfter(rows.get(0).getOrderTime()))) {
+            created.add(order);
+        }
+    }
+
+    private void ordersCreated(List<Order> created) {
+        // Если верх истории не загружен, новые заказы подтянутся при прокрутке вверх
+        if (hasNewer) {
+            adjustCount(created.size());
+            return;
+        }
+        List<Order> fresh = new ArrayList<>(created.size());
+        for (int i = created.size() - 1; i >= 0; i--) {
+            Order order = created.get(i);
+            if (!positions.containsKey(order.getOrderId())) {
+                fresh.add(order);
+            }
+        }
+        adjustCount(fresh.size());
+        firstPosition -= fresh.size();
+        for (int i = 0; i < fresh.size(); i++) {
+            positions.put(fresh.get(i).getOrderId(), firstPosition + i);
+        }
+        rows.addAll(0, fresh);
+
+        int overflow = rows.size() - MAX_ROWS;
+        if (overflow > 0) {
+            dropLast(overflow);
+            hasOlder = true;
+        }
+    }
+
+    private void statusChanged(String orderId, OrderStatus from, OrderStatus to) {
+        if (status != null) {
+            if (from == status) {
+                adjustCount(-1);
+            } else if (to == status) {
+                adjustCount(1);
+            }
+        }
+        applyStatus(orderId, to);
+    }
+
+    private boolean matches(OrderStatus orderStatus) {
+        return status == null || status == orderStatus;
+    }
+
+    // ==================== PAGING ====================
+
+    private void cancelPending() {
+        if (pending != null) {
+            pending.cancel(false);
+            pending = null;
+        }
+    }
+
+    private void onRowShown(int index) {
+        if (loading || rows.isEmpty()) {
+            return;
+        }
+        // Результат применяется через Platform.runLater, то есть уже после раскладки строк
+        int scheduledFor = generation;
+        if (hasOlder && index >= rows.size() - PREFETCH) {
+            loading = true;
+            pending = orderService.getOrdersPageAsync(status, OrderCursor.of(rows.get(rows.size() - 1)), PAGE_SIZE,
+                    includeArchive);
+            FxAsync.onFx(pending, page -> appendOlder(scheduledFor, index, page), this::loadFailed);
+        } else if (hasNewer && index < PREFETCH) {
+            loading = true;
+            pending = orderService.getOrdersPageBeforeAsync(status, OrderCursor.of(rows.get(0)), PAGE_SIZE,
+                    includeArchive);
+            FxAsync.onFx(pending, page -> prependNewer(scheduledFor, index, page), this::loadFailed);
+        }
+    }
+
+    private void appendOlder(int scheduledFor, int visibleIndex, List<Order> page) {
+        if (scheduledFor != generation) {
+            return;
+        }
+        pending = null;
+        loading = false;
+        long next = firstPosition + rows.size();
+        for (Order order : page) {
+            positions.put(order.getOrderId(), next++);
+        }
+        rows.addAll(page);
+        hasOlder = page.size() == PAGE_SIZE;
+
+        int overflow = rows.size() - MAX_ROWS;
+        if (overflow > 0) {
+            dropFirst(overflow);
+            hasNewer = true;
+            table.scrollTo(Math.max(0, visibleIndex - overflow - PREFETCH));
+        }
+    }
+
+    private void prependNewer(int scheduledFor, int visibleIndex, List<Order> page) {
+        if (scheduledFor != generation) {
+            return;
+        }
+        pending = null;
+        loading = false;
+        firstPosition -= page.size();
+        for (int i = 0; i < page.size(); i++) {
+            positions.put(page.get(i).getOrderId(), firstPosition + i);
+        }
+        rows.addAll(0, page);
+        hasNewer = page.size() == PAGE_SIZE;
+
+        int overflow = rows.size() - MAX_ROWS;
+        if (overflow > 0) {
+            dropLast(overflow);
+            hasOlder = true;
+        }
+        table.scrollTo(visibleIndex + page.size());
+    }
+
+    private void loadFailed(Throwable error) {
+        pending = null;
+        loading = false;
+        System.err.println("Ошибка подгрузки заказов: " + error.getMessage());
+    }
+
+    // ==================== ROW INDEX ====================
+
+    private int indexOf(String orderId) {
+        Long position = positions.get(orderId);
+        return position == null ? -1 : (int) (position - firstPosition);
+    }
+
+    private void reindex() {
+        positions.clear();
+        firstPosition = 0;
+        for (int i = 0; i < rows.size(); i++) {
+            positions.put(rows.get(i).getOrderId(), (long) i);
+        }
+    }
+
+    private void dropFirst(int count) {
+        for (int i = 0; i < count; i++) {
+            positions.remove(rows.get(i).getOrderId());
+        }
+        firstPosition += count;
+        rows.remove(0, count);
+    }
+
+    private void dropLast(int count) {
+        for (int i = rows.size() - count; i < rows.size(); i++) {
+            positions.remove(rows.get(i).getOrderId());
+        }
+        rows.remove(rows.size() - count, rows.size());
+    }
+
+    private void removeAt(int index) {
+        positions.remove(rows.remove(index).getOrderId());
+        // Сдвигаются только строки ниже удалённой
+        for (int i = index; i < rows.size(); i++) {
+            positions.put(rows.get(i).getOrderId(), firstPosition + i);
+        }
+    }
+}
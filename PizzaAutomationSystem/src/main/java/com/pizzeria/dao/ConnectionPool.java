@@ -0,0 +1,401 @@
+package com.pizzeria.dao;
+
+import com.pizzeria.metrics.Metrics;
+import com.pizzeria.metrics.Timer;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Ограниченный пул JDBC-соединений.
+ * <p>
+ * Соединение выдаётся через {@link #borrow()} и возвращается в пул вызовом
+ * {@code close()} на полученном объекте, поэтому DAO работают с ним через
+ * try-with-resources. Пул проверяет соединение при выдаче, закрывает простаивающие
+ * соединения, сообщает о соединениях, которые держат слишком долго, и считает время ожидания.
+ * <p>
+ * Если выдача помечена операцией ({@link #borrow(String)}), время от выдачи до возврата,
+ * ошибки SQL и прочитанные строки ({@link #recordRows}) пишутся в метрики этой операции.
+ */
+public class ConnectionPool implements AutoCloseable {
+    // Соединение, использованное недавно, не проверяем повторно
+    private static final long VALIDATION_BYPASS_MILLIS = 500;
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final int maxSize;
+    private final int minIdle;
+    private final long borrowTimeoutMillis;
+    private final long idleTimeoutMillis;
+    private final long leakThresholdMillis;
+
+    private final Semaphore permits;
+    private final Deque<PooledConnection> idle = new ConcurrentLinkedDeque<>();
+    private final Set<PooledConnection> borrowed = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger openConnections = new AtomicInteger();
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean closed = false;
+
+    private final LongAdder borrowCount = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final LongAccumulator maxWaitNanos = new LongAccumulator(Math::max, 0);
+    private final LongAdder timeoutCount = new LongAdder();
+    private final LongAdder validationFailures = new LongAdder();
+    private final LongAdder leakCount = new LongAdder();
+
+    public ConnectionPool(String url, String user, String password, int maxSize, int minIdle,
+                          long borrowTimeoutMillis, long idleTimeoutMillis, long leakThresholdMillis) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Размер пула должен быть больше нуля: " + maxSize);
+        }
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.maxSize = maxSize;
+        this.minIdle = Math.min(minIdle, maxSize);
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.leakThresholdMillis = leakThresholdMillis;
+        this.permits = new Semaphore(maxSize, true);
+
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "db-pool-housekeeper");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(1000, Math.min(idleTimeoutMillis, 30_000));
+        housekeeper.scheduleWithFixedDelay(this::housekeep, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    public Connection borrow() throws SQLException {
+        return borrow(null);
+    }
+
+    /**
+     * Выдаёт соединение для операции {@code operation}, например {@code OrderDAODB.getOrdersPage}.
+     */
+    public Connection borrow(String operation) throws SQLException {
+        if (closed) {
+            throw new SQLException("Пул соединений закрыт");
+        }
+
+        Timer operationTimer = operation == null ? null : Metrics.dao(operation);
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                timeoutCount.increment();
+                Metrics.connectionWait().recordError();
+                if (operationTimer != null) {
+                    operationTimer.recordError();
+                }
+                throw new SQLTransientConnectionException("Нет свободных соединений за " + borrowTimeoutMillis +
+                        " мс (активных: " + borrowed.size() + " из " + maxSize + ")");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Ожидание соединения прервано", e);
+        }
+        long waited = System.nanoTime() - start;
+        borrowCount.increment();
+        waitNanos.add(waited);
+        maxWaitNanos.accumulate(waited);
+        Metrics.connectionWait().record(waited);
+
+        try {
+            PooledConnection pooled = takeIdle();
+            if (pooled == null) {
+                pooled = open();
+            }
+            pooled.borrowedAt = System.currentTimeMillis();
+            pooled.borrowTrace = leakThresholdMillis > 0 ? new Throwable("Соединение выдано здесь") : null;
+            pooled.leakReported = false;
+            borrowed.add(pooled);
+            return pooled.newHandle(operation, operationTimer, start);
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Добавляет {@code rows} прочитанных строк к операции, для которой выдано соединение.
+     */
+    public static void recordRows(Connection connection, int rows) {
+        if (Proxy.isProxyClass(connection.getClass())
+                && Proxy.getInvocationHandler(connection) instanceof ConnectionPool.Handle handle) {
+            handle.rows += rows;
+        }
+    }
+
+    private PooledConnection takeIdle() {
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            if (System.currentTimeMillis() - pooled.lastUsed < VALIDATION_BYPASS_MILLIS || pooled.isValid()) {
+                return pooled;
+            }
+            validationFailures.increment();
+            pooled.closePhysical();
+        }
+        return null;
+    }
+
+    private PooledConnection open() throws SQLException {
+        Connection physical = DriverManager.getConnection(url, user, password);
+        openConnections.incrementAndGet();
+        return new PooledConnection(physical);
+    }
+
+    private void release(PooledConnection pooled) {
+        borrowed.remove(pooled);
+        boolean reusable = !closed;
+        try {
+            if (pooled.physical.isClosed()) {
+                reusable = false;
+            } else if (!pooled.physical.getAutoCommit()) {
+                // Незавершённая транзакция не должна достаться следующему потоку
+                pooled.physical.rollback();
+                pooled.physical.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            reusable = false;
+        }
+
+        if (reusable) {
+            pooled.lastUsed = System.currentTimeMillis();
+            idle.offerFirst(pooled);
+        } else {
+            pooled.closePhysical();
+        }
+        permits.release();
+    }
+
+    private void housekeep() {
+        long now = System.currentTimeMillis();
+
+        // Закрываем простаивающие соединения сверх minIdle, начиная с самых старых
+        Iterator<PooledConnection> it = idle.descendingIterator();
+        while (it.hasNext() && idle.size() > minIdle) {
+            PooledConnection pooled = it.next();
+            if (now - pooled.lastUsed > idleTimeoutMillis && idle.removeFirstOccurrence(pooled)) {
+                pooled.closePhysical();
+            }
+        }
+
+        if (leakThresholdMillis > 0) {
+            for (PooledConnection pooled : borrowed) {
+                if (!pooled.leakReported && now - pooled.borrowedAt > leakThresholdMillis) {
+                    pooled.leakReported = true;
+                    leakCount.increment();
+                    System.err.println("Возможная утечка соединения: удерживается " +
+                            (now - pooled.borrowedAt) + " мс");
+                    if (pooled.borrowTrace != null) {
+                        pooled.borrowTrace.printStackTrace();
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        housekeeper.shutdownNow();
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            pooled.closePhysical();
+        }
+    }
+
+    // ==================== METRICS ====================
+
+    public int getMaxSize() { return maxSize; }
+    public int getActiveCount() { return borrowed.size(); }
+    public int getIdleCount() { return idle.size(); }
+    public int getOpenCount() { return openConnections.get(); }
+    public int getWaitingThreads() { return permits.getQueueLength(); }
+    public long getBorrowCount() { return borrowCount.sum(); }
+    public long getTimeoutCount() { return timeoutCount.sum(); }
+    public long getValidationFailures() { return validationFailures.sum(); }
+    public long getLeakCount() { return leakCount.sum(); }
+    public long getTotalWaitNanos() { return waitNanos.sum(); }
+    public long getMaxWaitNanos() { return maxWaitNanos.get(); }
+
+    public double getAverageWaitMillis() {
+        long count = borrowCount.sum();
+        return count == 0 ? 0 : waitNanos.sum() / 1_000_000.0 / count;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ConnectionPool[active=%d, idle=%d, max=%d, waiting=%d, avgWait=%.3f ms, maxWait=%.3f ms, timeouts=%d, leaks=%d]",
+                getActiveCount(), getIdleCount(), maxSize, getWaitingThreads(), getAverageWaitMillis(),
+                getMaxWaitNanos() / 1_000_000.0, getTimeoutCount(), getLeakCount());
+    }
+
+    // ==================== POOLED CONNECTION ====================
+
+    private final class PooledConnection {
+        final Connection physical;
+        volatile long lastUsed = System.currentTimeMillis();
+        volatile long borrowedAt;
+        volatile Throwable borrowTrace;
+        volatile boolean leakReported;
+
+        PooledConnection(Connection physical) {
+            this.physical = physical;
+        }
+
+        boolean isValid() {
+            try {
+                return physical.isValid(VALIDATION_TIMEOUT_SECONDS);
+            } catch (SQLException e) {
+                return false;
+            }
+        }
+
+        void closePhysical() {
+            try {
+                physical.close();
+            } catch (SQLException e) {
+                System.err.println("Ошибка при закрытии соединения: " + e.getMessage());
+            } finally {
+                openConnections.decrementAndGet();
+            }
+        }
+
+        Connection newHandle(String operation, Timer timer, long startNanos) {
+            return (Connection) Proxy.newProxyInstance(
+                    Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    new Handle(this, operation, timer, startNanos));
+        }
+    }
+
+    /**
+     * Одна выдача соединения. После {@code close()} handle становится недействительным,
+     * а физическое соединение возвращается в пул. Выданные через него запросы тоже
+     * оборачиваются, чтобы ошибка выполнения засчитывалась операции.
+     */
+    private final class Handle implements InvocationHandler {
+        private final PooledConnection pooled;
+        private final String operation;
+        private final Timer timer;
+        private final long startNanos;
+        private boolean released = false;
+        private boolean failed = false;
+        private long rows = 0;
+
+        Handle(PooledConnection pooled, String operation, Timer timer, long startNanos) {
+            this.pooled = pooled;
+            this.operation = operation;
+            this.timer = timer;
+            this.startNanos = startNanos;
+        }
+
+        private void recordMetrics() {
+            if (timer == null) {
+                return;
+            }
+            timer.recordSince(startNanos);
+            if (failed) {
+                timer.recordError();
+            }
+            if (rows > 0) {
+                Metrics.daoRows(operation).add(rows);
+            }
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!released) {
+                        released = true;
+                        release(pooled);
+                        recordMetrics();
+                    }
+                    return null;
+                case "isClosed":
+                    return released || pooled.physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + pooled.physical + "]";
+                default:
+                    break;
+            }
+            if (released) {
+                throw new SQLException("Соединение уже возвращено в пул");
+            }
+            Object result;
+            try {
+                result = method.invoke(pooled.physical, args);
+            } catch (InvocationTargetException e) {
+                failed = true;
+                throw e.getCause();
+            }
+            if (timer != null && result instanceof Statement) {
+                Class<?> type = method.getReturnType();
+                return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                        new StatementHandler(this, result));
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Отмечает операцию неудачной, если запрос завершился ошибкой.
+     */
+    private static final class StatementHandler implements InvocationHandler {
+        private final Handle handle;
+        private final Object statement;
+
+        StatementHandler(Handle handle, Object statement) {
+            this.handle = handle;
+            this.statement = statement;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    break;
+            }
+            try {
+                return method.invoke(statement, args);
+            } catch (InvocationTargetException e) {
+                if (method.getName().startsWith("execute")) {
+                    handle.failed = true;
+                }
+                throw e.getCause();
+            }
+        }
+    }
+}
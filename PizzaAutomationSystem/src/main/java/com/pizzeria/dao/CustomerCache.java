@@ -0,0 +1,38 @@
+package com.pizzeria.dao;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Ограниченный LRU-кэш клиентов по нормализованному телефону. Хранит id и данные,
+ * которые последними записаны в БД: если клиент оформляет заказ с теми же данными,
+ * обращаться к БД не нужно.
+ */
+class CustomerCache {
+
+    record Entry(String id, String name, String email, String address) {
+    }
+
+    private final Map<String, Entry> entries;
+
+    CustomerCache(int capacity) {
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    synchronized Entry get(String phone) {
+        return entries.get(phone);
+    }
+
+    synchronized void put(String phone, Entry entry) {
+        entries.put(phone, entry);
+    }
+
+    synchronized void clear() {
+        entries.clear();
+    }
+}
@@ -1,31 +1,53 @@
 package com.pizzeria.dao;
 
-import java.io.BufferedReader;
-import java.io.InputStream;
-import java.io.InputStreamReader;
+import com.pizzeria.dao.migration.SchemaMigrator;
+import com.pizzeria.metrics.Metrics;
+import com.pizzeria.metrics.MetricsRegistry;
+import com.pizzeria.models.IdGenerator;
+
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
-import java.sql.Statement;
-import java.util.stream.Collectors;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 public class DatabaseConnection {
-    private static Connection connection;
+    // Подключение к файловой H2 базе
+    // База будет храниться в папке "database" рядом с проектом
+    private static final String DEFAULT_URL = "jdbc:h2:file:./database/pizzeria;DB_CLOSE_DELAY=-1";
+
+    // Аренда номера узла продлевается в несколько раз чаще, чем истекает
+    private static final long NODE_LEASE_TTL_MS = Long.getLong("pizzeria.db.nodeLeaseTtlMs", 300_000);
+
+    private static ConnectionPool pool;
     private static boolean initialized = false;
+    private static boolean shared = false;
+    private static volatile NodeLease nodeLease;
+    private static ScheduledExecutorService leaseHeartbeat;
 
     static {
         try {
-            // Подключение к файловой H2 базе
-            // База будет храниться в папке "database" рядом с проектом
-            connection = DriverManager.getConnection(
-                    "jdbc:h2:file:./database/pizzeria;DB_CLOSE_DELAY=-1",
-                    "sa",
-                    ""
+            String url = resolveUrl(System.getProperty("pizzeria.db.url", DEFAULT_URL),
+                    System.getProperty("pizzeria.db.mode", "embedded"));
+            // Параметры пула можно переопределить через -Dpizzeria.db.*
+            pool = new ConnectionPool(
+                    url,
+                    System.getProperty("pizzeria.db.user", "sa"),
+                    System.getProperty("pizzeria.db.password", ""),
+                    Integer.getInteger("pizzeria.db.poolSize", 8),
+                    Integer.getInteger("pizzeria.db.minIdle", 1),
+                    Long.getLong("pizzeria.db.borrowTimeoutMs", 5_000),
+                    Long.getLong("pizzeria.db.idleTimeoutMs", 300_000),
+                    Long.getLong("pizzeria.db.leakThresholdMs", 30_000)
             );
+            registerPoolGauges(pool);
 
             initializeDatabase();
             initialized = true;
-            System.out.println("H2 Database подключена (файловая база)");
+            System.out.println(shared
+                    ? "H2 Database подключена (общая база для нескольких терминалов)"
+                    : "H2 Database подключена (файловая база)");
 
         } catch (Exception e) {
             System.err.println("Ошибка подключения к БД: " + e.getMessage());
@@ -33,53 +55,115 @@ public class DatabaseConnection {
         }
     }
 
-    private static void initializeDatabase() throws SQLException {
-        Statement stmt = null;
-        try {
-            stmt = connection.createStatement();
-
-            InputStream inputStream = DatabaseConnection.class
-                    .getClassLoader()
-                    .getResourceAsStream("schema.sql");
-
-            if (inputStream == null) {
-                throw new RuntimeException("Не найден schema.sql в resources");
-            }
+    /**
+     * В режиме {@code shared} файловая база открывается с AUTO_SERVER=TRUE: первый процесс
+     * поднимает TCP-сервер H2, остальные терминалы подключаются к нему по тому же URL.
+     * URL вида jdbc:h2:tcp:// считается общим в любом режиме.
+     */
+    private static String resolveUrl(String url, String mode) {
+        if (url.startsWith("jdbc:h2:tcp:") || url.startsWith("jdbc:h2:ssl:")
+                || url.toUpperCase().contains(";AUTO_SERVER=TRUE")) {
+            shared = true;
+            return url;
+        }
+        if (!"shared".equalsIgnoreCase(mode)) {
+            return url;
+        }
+        if (url.startsWith("jdbc:h2:mem:")) {
+            System.err.println("Общий режим недоступен для базы в памяти, используется встроенный");
+            return url;
+        }
+        shared = true;
+        return url + ";AUTO_SERVER=TRUE";
+    }
 
-            String sql = new BufferedReader(new InputStreamReader(inputStream))
-                    .lines()
-                    .collect(Collectors.joining("\n"));
-
-            // Выполняем все SQL-запросы из schema.sql
-            for (String sqlStatement : sql.split(";")) {
-                String trimmed = sqlStatement.trim();
-                if (!trimmed.isEmpty()) {
-                    System.out.println("Выполняем SQL: " + trimmed);
-                    stmt.execute(trimmed);
-                }
+    private static void initializeDatabase() throws SQLException {
+        try (Connection connection = pool.borrow()) {
+            int applied = new SchemaMigrator(SchemaMigrator.defaultMigrations()).migrate(connection);
+            System.out.println(applied == 0
+                    ? "Схема БД актуальна"
+                    : "Схема БД обновлена, применено миграций: " + applied);
+            Integer configured = Integer.getInteger("pizzeria.nodeId");
+            if (configured != null) {
+                IdGenerator.setNodeId(configured);
+            } else {
+                leaseNodeId(connection);
             }
-
-            System.out.println("Таблицы созданы и данные инициализированы");
-
         } catch (SQLException e) {
             System.err.println("Ошибка создания таблиц: " + e.getMessage());
             throw e;
-        } finally {
-            if (stmt != null) {
-                stmt.close();
+        }
+    }
+
+    private static void registerPoolGauges(ConnectionPool pool) {
+        MetricsRegistry registry = Metrics.registry();
+        registry.gauge("pizzeria_db_pool_active", "Выданные соединения", pool::getActiveCount);
+        registry.gauge("pizzeria_db_pool_idle", "Свободные соединения", pool::getIdleCount);
+        registry.gauge("pizzeria_db_pool_open", "Открытые физические соединения", pool::getOpenCount);
+        registry.gauge("pizzeria_db_pool_waiting", "Потоки в ожидании соединения", pool::getWaitingThreads);
+        registry.gauge("pizzeria_db_pool_max", "Размер пула", pool::getMaxSize);
+    }
+
+    /**
+     * Номер узла для {@link IdGenerator}, если он не задан через -Dpizzeria.nodeId: арендуется
+     * в таблице node_leases и продлевается в фоне, пока приложение работает.
+     */
+    private static void leaseNodeId(Connection connection) throws SQLException {
+        nodeLease = NodeLease.claim(connection, UUID.randomUUID().toString(), IdGenerator.MAX_NODE, NODE_LEASE_TTL_MS);
+        IdGenerator.setNodeId(nodeLease.nodeId);
+
+        leaseHeartbeat = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "node-lease-heartbeat");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(1, NODE_LEASE_TTL_MS / 5);
+        leaseHeartbeat.scheduleWithFixedDelay(DatabaseConnection::renewNodeLease, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    private static void renewNodeLease() {
+        try (Connection conn = pool.borrow()) {
+            if (!nodeLease.heartbeat(conn)) {
+                // Процесс простоял дольше срока аренды: номер мог достаться другому терминалу
+                NodeLease lost = nodeLease;
+                nodeLease = NodeLease.claim(conn, lost.owner, IdGenerator.MAX_NODE, NODE_LEASE_TTL_MS);
+                IdGenerator.setNodeId(nodeLease.nodeId);
+                System.err.println("Аренда номера узла " + lost.nodeId + " истекла, новый номер: " + nodeLease.nodeId);
             }
+        } catch (SQLException e) {
+            System.err.println("Ошибка продления аренды номера узла: " + e.getMessage());
         }
     }
 
+    /**
+     * Выдаёт соединение из пула. Вызывающий обязан закрыть его (try-with-resources),
+     * после чего соединение вернётся в пул.
+     */
     public static Connection getConnection() throws SQLException {
-        if (connection == null || connection.isClosed()) {
-            connection = DriverManager.getConnection(
-                    "jdbc:h2:file:./database/pizzeria;DB_CLOSE_DELAY=-1",
-                    "sa",
-                    ""
-            );
+        return getConnection(null);
+    }
+
+    /**
+     * То же, что {@link #getConnection()}, но время выдачи и число прочитанных строк записываются
+     * в метрики операции {@code operation}, например {@code OrderDAODB.getOrdersPage}.
+     * Имя передаёт метод DAO: вспомогательный loadOrders засчитывается вызвавшему его публичному методу.
+     */
+    public static Connection getConnection(String operation) throws SQLException {
+        if (pool == null) {
+            throw new SQLException("Пул соединений не инициализирован");
         }
-        return connection;
+        return pool.borrow(operation);
+    }
+
+    public static ConnectionPool getPool() {
+        return pool;
+    }
+
+    /**
+     * База открыта так, что её одновременно используют несколько терминалов.
+     */
+    public static boolean isShared() {
+        return shared;
     }
 
     public static boolean isInitialized() {
@@ -87,8 +171,25 @@ public class DatabaseConnection {
     }
 
     public static void close() throws SQLException {
-        if (connection != null && !connection.isClosed()) {
-            connection.close();
+        if (leaseHeartbeat != null) {
+            // Продление не прерывается: прерывание внутри запроса закрыло бы файловую базу
+            leaseHeartbeat.shutdown();
+            try {
+                leaseHeartbeat.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (pool != null && nodeLease != null) {
+            try (Connection conn = pool.borrow()) {
+                nodeLease.release(conn);
+            } catch (SQLException e) {
+                System.err.println("Ошибка освобождения номера узла: " + e.getMessage());
+            }
+        }
+        if (pool != null) {
+            System.out.println("Статистика пула: " + pool);
+            pool.close();
             System.out.println("Соединение с БД закрыто");
         }
     }
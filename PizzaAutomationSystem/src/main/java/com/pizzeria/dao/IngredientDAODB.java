@@ -0,0 +1,61 @@
+package com.pizzeria.dao;
+
+import com.pizzeria.models.DietaryTag;
+import com.pizzeria.models.Ingredient;
+import com.pizzeria.models.IngredientDictionary;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+public class IngredientDAODB {
+    // Имена операций в метриках DAO: время от выдачи соединения до возврата и число прочитанных строк
+    private static final String OP_LOAD_DICTIONARY = "IngredientDAODB.loadDictionary";
+
+
+    public IngredientDictionary loadDictionary() {
+        List<Ingredient> ingredients = new ArrayList<>();
+        String sql = "SELECT id, name, tags FROM ingredients ORDER BY id";
+
+        try (Connection conn = DatabaseConnection.getConnection(OP_LOAD_DICTIONARY);
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+
+            while (rs.next()) {
+                ingredients.add(new Ingredient(rs.getInt("id"), rs.getString("name"), parseTags(rs.getString("tags"))));
+            }
+            ConnectionPool.recordRows(conn, ingredients.size());
+
+        } catch (SQLException e) {
+            System.err.println("Ошибка при загрузке словаря ингредиентов: " + e.getMessage());
+        }
+
+        return new IngredientDictionary(ingredients);
+    }
+
+    /**
+     * @return {@code null} для NULL в колонке: признаки ингредиента ещё не проверены
+     */
+    private Set<DietaryTag> parseTags(String tags) {
+        if (tags == null) {
+            return null;
+        }
+        Set<DietaryTag> result = EnumSet.noneOf(DietaryTag.class);
+        if (tags.isBlank()) {
+            return result;
+        }
+        for (String tag : tags.split(",")) {
+            try {
+                result.add(DietaryTag.valueOf(tag.trim()));
+            } catch (IllegalArgumentException e) {
+                System.err.println("Неизвестный пищевой признак: " + tag);
+            }
+        }
+        return result;
+    }
+}
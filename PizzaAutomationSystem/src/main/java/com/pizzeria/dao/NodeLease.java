@@ -0,0 +1,85 @@
+package com.pizzeria.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+
+/**
+ * Аренда номера узла в таблице {@code node_leases}. Терминал занимает наименьший свободный номер
+ * и продлевает аренду ({@link #heartbeat}); номер, аренда которого истекла, можно занять снова.
+ * Время аренды сравнивается по часам БД, поэтому расхождение часов терминалов не мешает.
+ */
+final class NodeLease {
+    private static final int CLAIM_ATTEMPTS = 5;
+
+    final int nodeId;
+    final String owner;
+
+    private NodeLease(int nodeId, String owner) {
+        this.nodeId = nodeId;
+        this.owner = owner;
+    }
+
+    /**
+     * Занимает свободный номер от 0 до {@code maxNode}. Если все номера заняты живыми
+     * терминалами, бросает исключение: повторно выдать занятый номер нельзя.
+     */
+    static NodeLease claim(Connection conn, String owner, int maxNode, long ttlMillis) throws SQLException {
+        for (int attempt = 0; attempt < CLAIM_ATTEMPTS; attempt++) {
+            try (PreparedStatement pstmt = conn.prepareStatement(
+                    "DELETE FROM node_leases WHERE heartbeat < DATEADD(MILLISECOND, -?, CURRENT_TIMESTAMP)")) {
+                pstmt.setLong(1, ttlMillis);
+                pstmt.executeUpdate();
+            }
+
+            int free;
+            try (PreparedStatement pstmt = conn.prepareStatement(
+                    "SELECT MIN(x) FROM SYSTEM_RANGE(0, ?) WHERE x NOT IN (SELECT node_id FROM node_leases)")) {
+                pstmt.setInt(1, maxNode);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    rs.next();
+                    free = rs.getInt(1);
+                    if (rs.wasNull()) {
+                        throw new SQLException("Все " + (maxNode + 1) + " номеров узлов заняты работающими терминалами");
+                    }
+                }
+            }
+
+            try (PreparedStatement pstmt = conn.prepareStatement(
+                    "INSERT INTO node_leases (node_id, owner, heartbeat) VALUES (?, ?, CURRENT_TIMESTAMP)")) {
+                pstmt.setInt(1, free);
+                pstmt.setString(2, owner);
+                pstmt.executeUpdate();
+                return new NodeLease(free, owner);
+            } catch (SQLIntegrityConstraintViolationException taken) {
+                // Тот же номер одновременно занял другой терминал
+            }
+        }
+        throw new SQLException("Не удалось занять номер узла за " + CLAIM_ATTEMPTS + " попыток");
+    }
+
+    /**
+     * Продлевает аренду.
+     *
+     * @return {@code false}, если аренда уже истекла и номер мог достаться другому терминалу
+     */
+    boolean heartbeat(Connection conn) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "UPDATE node_leases SET heartbeat = CURRENT_TIMESTAMP WHERE node_id = ? AND owner = ?")) {
+            pstmt.setInt(1, nodeId);
+            pstmt.setString(2, owner);
+            return pstmt.executeUpdate() > 0;
+        }
+    }
+
+    void release(Connection conn) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "DELETE FROM node_leases WHERE node_id = ? AND owner = ?")) {
+            pstmt.setInt(1, nodeId);
+            pstmt.setString(2, owner);
+            pstmt.executeUpdate();
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.pizzeria.dao;
+
+import com.pizzeria.models.Order;
+
+import java.time.LocalDateTime;
+
+/**
+ * Позиция в списке заказов для keyset-пагинации: заказы упорядочены по (order_time, order_id).
+ */
+public record OrderCursor(LocalDateTime orderTime, String orderId) {
+
+    public static OrderCursor of(Order order) {
+        return new OrderCursor(order.getOrderTime(), order.getOrderId());
+    }
+}
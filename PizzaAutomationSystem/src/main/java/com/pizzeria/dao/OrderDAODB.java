@@ -6,57 +6,130 @@ import com.pizzeria.models.Order.DeliveryType;
 import com.pizzeria.models.Payment.PaymentMethod;
 import com.pizzeria.models.Payment.PaymentStatus;
 
+import java.math.BigDecimal;
 import java.sql.*;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 
 public class OrderDAODB {
+    // Диапазон вместо CAST(order_time AS DATE), чтобы запрос мог использовать индекс по order_time
+    private static final String TODAY_CONDITION =
+            "order_time >= CURRENT_DATE AND order_time < DATEADD(DAY, 1, CURRENT_DATE)";
+    // Каждая запись заказа получает новую версию и номер узла, который её сделал
+    private static final String NEXT_VERSION = "version = NEXT VALUE FOR row_version_seq, updated_by = ?";
+    private static final String ARCHIVABLE_CONDITION = "status IN ('COMPLETED', 'CANCELLED')";
+    private static final Comparator<Order> NEWEST_FIRST =
+            Comparator.comparing(Order::getOrderTime).thenComparing(Order::getOrderId).reversed();
+
+    // Имена операций в метриках DAO: время от выдачи соединения до возврата и число прочитанных строк
+    private static final String OP_SAVE_CUSTOMER = "OrderDAODB.saveCustomer";
+    private static final String OP_GET_CUSTOMER_BY_PHONE = "OrderDAODB.getCustomerByPhone";
+    private static final String OP_CREATE_ORDER = "OrderDAODB.createOrder";
+    private static final String OP_CREATE_ORDERS = "OrderDAODB.createOrders";
+    private static final String OP_UPDATE_ORDER = "OrderDAODB.updateOrder";
+    private static final String OP_UPDATE_ESTIMATED_READY_TIMES = "OrderDAODB.updateEstimatedReadyTimes";
+    private static final String OP_COMPARE_AND_SET_STATUS = "OrderDAODB.compareAndSetStatus";
+    private static final String OP_GET_ORDER_STATUS = "OrderDAODB.getOrderStatus";
+    private static final String OP_GET_ALL_ORDERS = "OrderDAODB.getAllOrders";
+    private static final String OP_GET_ALL_ACTIVE_ORDERS = "OrderDAODB.getAllActiveOrders";
+    private static final String OP_GET_COMPLETED_ORDERS = "OrderDAODB.getCompletedOrders";
+    private static final String OP_GET_ORDERS_BY_STATUS = "OrderDAODB.getOrdersByStatus";
+    private static final String OP_GET_TODAY_ORDERS = "OrderDAODB.getTodayOrders";
+    private static final String OP_GET_ORDER_BY_ID = "OrderDAODB.getOrderById";
+    private static final String OP_GET_ORDERS_PAGE = "OrderDAODB.getOrdersPage";
+    private static final String OP_GET_ORDERS_PAGE_BEFORE = "OrderDAODB.getOrdersPageBefore";
+    private static final String OP_GET_ORDERS_CHANGED_SINCE = "OrderDAODB.getOrdersChangedSince";
+    private static final String OP_GET_MAX_ORDER_VERSION = "OrderDAODB.getMaxOrderVersion";
+    private static final String OP_GET_TOTAL_ORDERS_COUNT = "OrderDAODB.getTotalOrdersCount";
+    private static final String OP_GET_TODAY_ORDERS_COUNT = "OrderDAODB.getTodayOrdersCount";
+    private static final String OP_GET_TOTAL_REVENUE_CENTS = "OrderDAODB.getTotalRevenueCents";
+    private static final String OP_GET_TODAY_REVENUE_CENTS = "OrderDAODB.getTodayRevenueCents";
+    private static final String OP_GET_ORDERS_COUNT_BY_STATUS = "OrderDAODB.getOrdersCountByStatus";
+    private static final String OP_GET_ARCHIVED_ORDERS_COUNT = "OrderDAODB.getArchivedOrdersCount";
+    private static final String OP_GET_DASHBOARD_SNAPSHOT = "OrderDAODB.getDashboardSnapshot";
+    private static final String OP_GET_PIZZA_SALES = "OrderDAODB.getPizzaSales";
+    private static final String OP_ARCHIVE_ORDERS = "OrderDAODB.archiveOrders";
+
+    /**
+     * Таблицы заказов и позиций: горячие и их архивная копия с теми же столбцами.
+     */
+    private enum Tables {
+        HOT("orders", "order_items"),
+        ARCHIVE("orders_archive", "order_items_archive");
+
+        final String orders;
+        final String items;
+
+        Tables(String orders, String items) {
+            this.orders = orders;
+            this.items = items;
+        }
+    }
+
+    // Позиции всех загруженных заказов ссылаются на общие объекты пицц
+    private final PizzaCatalog pizzaCatalog = new PizzaCatalog();
+    private final CustomerCache customerCache =
+            new CustomerCache(Integer.getInteger("pizzeria.customers.cacheSize", 10_000));
 
     // ==================== CUSTOMER OPERATIONS ====================
 
+    /**
+     * Создаёт клиента или обновляет данные существующего с тем же телефоном.
+     * Повторный клиент с неизменившимися данными берётся из кэша без обращения к БД,
+     * иначе выполняется один атомарный MERGE по уникальному нормализованному телефону.
+     */
     public Customer saveCustomer(Customer customer) {
-        String checkSql = "SELECT id FROM customers WHERE phone = ?";
-        String insertSql = "INSERT INTO customers (id, name, phone, email, address) VALUES (?, ?, ?, ?, ?)";
-        String updateSql = "UPDATE customers SET name = ?, email = ?, address = ? WHERE phone = ?";
-
-        try {
-            Connection conn = DatabaseConnection.getConnection();
-            
-            PreparedStatement checkStmt = conn.prepareStatement(checkSql);
-            checkStmt.setString(1, customer.getPhone());
-            ResultSet rs = checkStmt.executeQuery();
-            
-            if (rs.next()) {
-                String existingId = rs.getString("id");
-                rs.close();
-                checkStmt.close();
-                
-                PreparedStatement updateStmt = conn.prepareStatement(updateSql);
-                updateStmt.setString(1, customer.getName());
-                updateStmt.setString(2, customer.getEmail());
-                updateStmt.setString(3, customer.getAddress());
-                updateStmt.setString(4, customer.getPhone());
-                updateStmt.executeUpdate();
-                updateStmt.close();
-                
-                return new Customer(existingId, customer.getName(), customer.getPhone(),
-                        customer.getEmail(), customer.getAddress(), LocalDate.now(), 0, 0);
+        String phone = PhoneNumbers.normalize(customer.getPhone());
+        CustomerCache.Entry details = new CustomerCache.Entry(customer.getId(), customer.getName(),
+                customer.getEmail(), customer.getAddress());
+
+        CustomerCache.Entry cached = customerCache.get(phone);
+        if (cached != null && Objects.equals(cached.name(), details.name())
+                && Objects.equals(cached.email(), details.email())
+                && Objects.equals(cached.address(), details.address())) {
+            return withId(customer, cached.id());
+        }
+
+        String sql = "SELECT id FROM FINAL TABLE (" +
+                "MERGE INTO customers c USING (VALUES (CAST(? AS VARCHAR(20)), CAST(? AS VARCHAR(100)), " +
+                "CAST(? AS VARCHAR(20)), CAST(? AS VARCHAR(20)), CAST(? AS VARCHAR(100)), CAST(? AS VARCHAR(255)))) " +
+                "s(id, name, phone, phone_normalized, email, address) " +
+                "ON c.phone_normalized = s.phone_normalized " +
+                "WHEN MATCHED THEN UPDATE SET name = s.name, phone = s.phone, email = s.email, address = s.address " +
+                "WHEN NOT MATCHED THEN INSERT (id, name, phone, phone_normalized, email, address) " +
+                "VALUES (s.id, s.name, s.phone, s.phone_normalized, s.email, s.address))";
+
+        try (Connection conn = DatabaseConnection.getConnection(OP_SAVE_CUSTOMER);
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, customer.getId());
+            pstmt.setString(2, customer.getName());
+            pstmt.setString(3, customer.getPhone());
+            pstmt.setString(4, phone);
+            pstmt.setString(5, customer.getEmail());
+            pstmt.setString(6, customer.getAddress());
+
+            String id;
+            try {
+                id = executeForId(pstmt);
+            } catch (SQLException e) {
+                // Параллельный MERGE успел вставить того же клиента; повтор попадёт в ветку MATCHED
+                if (!"23505".equals(e.getSQLState())) {
+                    throw e;
+                }
+                id = executeForId(pstmt);
             }
-            rs.close();
-            checkStmt.close();
-
-            PreparedStatement insertStmt = conn.prepareStatement(insertSql);
-            insertStmt.setString(1, customer.getId());
-            insertStmt.setString(2, customer.getName());
-            insertStmt.setString(3, customer.getPhone());
-            insertStmt.setString(4, customer.getEmail());
-            insertStmt.setString(5, customer.getAddress());
-            insertStmt.executeUpdate();
-            insertStmt.close();
-            
-            return customer;
+
+            customerCache.put(phone, new CustomerCache.Entry(id, details.name(), details.email(), details.address()));
+            return withId(customer, id);
 
         } catch (SQLException e) {
             System.err.println("Ошибка при сохранении клиента: " + e.getMessage());
@@ -64,21 +137,31 @@ public class OrderDAODB {
         }
     }
 
+    private String executeForId(PreparedStatement pstmt) throws SQLException {
+        try (ResultSet rs = pstmt.executeQuery()) {
+            rs.next();
+            return rs.getString(1);
+        }
+    }
+
+    private Customer withId(Customer customer, String id) {
+        if (id.equals(customer.getId())) {
+            return customer;
+        }
+        return new Customer(id, customer.getName(), customer.getPhone(),
+                customer.getEmail(), customer.getAddress(), LocalDate.now(), 0, 0);
+    }
+
     public Optional<Customer> getCustomerByPhone(String phone) {
-        String sql = "SELECT * FROM customers WHERE phone = ?";
-        try {
-            Connection conn = DatabaseConnection.getConnection();
-            PreparedStatement pstmt = conn.prepareStatement(sql);
-            pstmt.setString(1, phone);
-            ResultSet rs = pstmt.executeQuery();
-            if (rs.next()) {
-                Customer customer = mapResultSetToCustomer(rs);
-                rs.close();
-                pstmt.close();
-                return Optional.of(customer);
+        String sql = "SELECT * FROM customers WHERE phone_normalized = ?";
+        try (Connection conn = DatabaseConnection.getConnection(OP_GET_CUSTOMER_BY_PHONE);
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, PhoneNumbers.normalize(phone));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return Optional.of(mapResultSetToCustomer(rs));
+                }
             }
-            rs.close();
-            pstmt.close();
         } catch (SQLException e) {
             System.err.println("Ошибка при поиске клиента: " + e.getMessage());
         }
@@ -87,42 +170,27 @@ public class OrderDAODB {
 
     // ==================== ORDER OPERATIONS ====================
 
+    private static final String INSERT_ORDER_SQL =
+            "INSERT INTO orders (order_id, customer_id, status, order_time, estimated_ready_time, " +
+            "delivery_address, delivery_type, notes, payment_method, payment_status, total_amount, updated_by) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_ITEM_SQL =
+            "INSERT INTO order_items (order_id, pizza_id, quantity, unit_price) VALUES (?, ?, ?, ?)";
+
     public Order createOrder(Order order) {
-        String orderSql = "INSERT INTO orders (order_id, customer_id, status, order_time, estimated_ready_time, " +
-                "delivery_address, delivery_type, notes, payment_method, payment_status, total_amount) " +
-                "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
-        String itemSql = "INSERT INTO order_items (order_id, pizza_id, quantity, unit_price)" +
-                "VALUES (?, ?, ?, ?)";
-
-        try {
-            Connection conn = DatabaseConnection.getConnection();
+        // Каждый вызов берёт своё соединение, поэтому транзакции разных потоков не пересекаются
+        try (Connection conn = DatabaseConnection.getConnection(OP_CREATE_ORDER)) {
             conn.setAutoCommit(false);
             try {
-                PreparedStatement orderStmt = conn.prepareStatement(orderSql);
-                orderStmt.setString(1, order.getOrderId());
-                orderStmt.setString(2, order.getCustomer() != null ? order.getCustomer().getId() : null);
-                orderStmt.setString(3, order.getStatus().name());
-                orderStmt.setTimestamp(4, Timestamp.valueOf(order.getOrderTime()));
-                orderStmt.setTimestamp(5, Timestamp.valueOf(order.getEstimatedReadyTime()));
-                orderStmt.setString(6, order.getDeliveryAddress());
-                orderStmt.setString(7, order.getDeliveryType() != null ? order.getDeliveryType().name() : "PICKUP");
-                orderStmt.setString(8, order.getNotes());
-                orderStmt.setString(9, order.getPayment() != null ? order.getPayment().getMethod().name() : "CASH");
-                orderStmt.setString(10, order.getPayment() != null ? order.getPayment().getStatus().name() : "PENDING");
-                orderStmt.setDouble(11, order.calculateTotal());
-                orderStmt.executeUpdate();
-                orderStmt.close();
-
-                PreparedStatement itemStmt = conn.prepareStatement(itemSql);
-                for (OrderItem item : order.getItems()) {
-                    itemStmt.setString(1, order.getOrderId());
-                    itemStmt.setString(2, item.getPizza().getId());
-                    itemStmt.setInt(3, item.getQuantity());
-                    itemStmt.setDouble(4, item.getPizza().getPrice());
-                    itemStmt.addBatch();
+                try (PreparedStatement orderStmt = conn.prepareStatement(INSERT_ORDER_SQL)) {
+                    bindOrder(orderStmt, order);
+                    orderStmt.executeUpdate();
+                }
+
+                try (PreparedStatement itemStmt = conn.prepareStatement(INSERT_ITEM_SQL)) {
+                    addItemBatches(itemStmt, order);
+                    itemStmt.executeBatch();
                 }
-                itemStmt.executeBatch();
-                itemStmt.close();
 
                 conn.commit();
                 return order;
@@ -140,22 +208,102 @@ public class OrderDAODB {
         }
     }
 
+    /**
+     * Сохраняет пакет заказов одной транзакцией: заказы и позиции всех заказов уходят
+     * двумя JDBC-пакетами. Если пакет не прошёл (например, один заказ ссылается на удалённую пиццу),
+     * заказы сохраняются по одному, чтобы ошибка одного не отменяла остальные.
+     *
+     * @return список той же длины; {@code null} на месте заказа, который сохранить не удалось
+     */
+    public List<Order> createOrders(List<Order> orders) {
+        if (orders.isEmpty()) {
+            return List.of();
+        }
+
+        try (Connection conn = DatabaseConnection.getConnection(OP_CREATE_ORDERS)) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement orderStmt = conn.prepareStatement(INSERT_ORDER_SQL);
+                 PreparedStatement itemStmt = conn.prepareStatement(INSERT_ITEM_SQL)) {
+                for (Order order : orders) {
+                    bindOrder(orderStmt, order);
+                    orderStmt.addBatch();
+                    addItemBatches(itemStmt, order);
+                }
+                orderStmt.executeBatch();
+                itemStmt.executeBatch();
+                conn.commit();
+                return new ArrayList<>(orders);
+
+            } catch (SQLException e) {
+                conn.rollback();
+                System.err.println("Пакет из " + orders.size() + " заказов не сохранён, сохраняем по одному: " + e.getMessage());
+            } finally {
+                conn.setAutoCommit(true);
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Ошибка при создании заказов: " + e.getMessage());
+        }
+
+        // Соединение пакета уже возвращено в пул
+        List<Order> created = new ArrayList<>(orders.size());
+        for (Order order : orders) {
+            created.add(createOrder(order));
+        }
+        return created;
+    }
+
+    private void bindOrder(PreparedStatement orderStmt, Order order) throws SQLException {
+        orderStmt.setString(1, order.getOrderId());
+        orderStmt.setString(2, order.getCustomer() != null ? order.getCustomer().getId() : null);
+        orderStmt.setString(3, order.getStatus().name());
+        orderStmt.setTimestamp(4, Timestamp.valueOf(order.getOrderTime()));
+        orderStmt.setTimestamp(5, Timestamp.valueOf(order.getEstimatedReadyTime()));
+        orderStmt.setString(6, order.getDeliveryAddress());
+        orderStmt.setString(7, order.getDeliveryType() != null ? order.getDeliveryType().name() : "PICKUP");
+        orderStmt.setString(8, order.getNotes());
+        orderStmt.setString(9, order.getPayment() != null ? order.getPayment().getMethod().name() : "CASH");
+        orderStmt.setString(10, order.getPayment() != null ? order.getPayment().getStatus().name() : "PENDING");
+        orderStmt.setBigDecimal(11, Money.toDecimal(order.getTotalCents()));
+        orderStmt.setInt(12, IdGenerator.getNodeId());
+    }
+
+    private void addItemBatches(PreparedStatement itemStmt, Order order) throws SQLException {
+        for (OrderItem item : order.getItems()) {
+            itemStmt.setString(1, order.getOrderId());
+            itemStmt.setString(2, item.getPizza().getId());
+            itemStmt.setInt(3, item.getQuantity());
+            itemStmt.setBigDecimal(4, Money.toDecimal(item.getUnitPriceCents()));
+            itemStmt.addBatch();
+        }
+    }
+
+    /**
+     * Сохраняет заказ, только если его строка не менялась с момента чтения ({@link Order#getVersion()}).
+     * При успехе в заказ записывается новая версия; {@code false} без сообщения об ошибке значит,
+     * что заказ успел изменить другой терминал и его нужно перечитать.
+     */
     public boolean updateOrder(Order order) {
-        String sql = "UPDATE orders SET status = ?, estimated_ready_time = ?, delivery_address = ?, " +
-                "payment_status = ? WHERE order_id = ?";
-        try {
-            Connection conn = DatabaseConnection.getConnection();
-            PreparedStatement pstmt = conn.prepareStatement(sql);
+        String sql = "SELECT version FROM FINAL TABLE (UPDATE orders SET status = ?, estimated_ready_time = ?, " +
+                "delivery_address = ?, payment_status = ?, " + NEXT_VERSION + " WHERE order_id = ? AND version = ?)";
+        try (Connection conn = DatabaseConnection.getConnection(OP_UPDATE_ORDER);
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
             pstmt.setString(1, order.getStatus().name());
             pstmt.setTimestamp(2, Timestamp.valueOf(order.getEstimatedReadyTime()));
             pstmt.setString(3, order.getDeliveryAddress());
             pstmt.setString(4, order.getPayment() != null ? order.getPayment().getStatus().name() : "PENDING");
-            pstmt.setString(5, order.getOrderId());
+            pstmt.setInt(5, IdGenerator.getNodeId());
+            pstmt.setString(6, order.getOrderId());
+            pstmt.setLong(7, order.getVersion());
 
-            int result = pstmt.executeUpdate();
-            pstmt.close();
-            return result > 0;
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (!rs.next()) {
+                    return false;
+                }
+                order.setVersion(rs.getLong(1));
+                return true;
+            }
 
         } catch (SQLException e) {
             System.err.println("Ошибка при обновлении заказа: " + e.getMessage());
@@ -163,186 +311,262 @@ public class OrderDAODB {
         }
     }
 
-    public boolean updateOrderStatus(String orderId, OrderStatus status) {
-        String sql = "UPDATE orders SET status = ? WHERE order_id = ?";
-        try {
-            Connection conn = DatabaseConnection.getConnection();
-            PreparedStatement pstmt = conn.prepareStatement(sql);
-
-            pstmt.setString(1, status.name());
-            pstmt.setString(2, orderId);
-
-            int result = pstmt.executeUpdate();
-            pstmt.close();
-            return result > 0;
+    /**
+     * Записывает пересчитанное время готовности нескольких заказов одним пакетом.
+     * Версию не меняет: время готовности каждый терминал пересчитывает сам.
+     */
+    public boolean updateEstimatedReadyTimes(Map<String, LocalDateTime> readyTimes) {
+        if (readyTimes.isEmpty()) {
+            return true;
+        }
+        String sql = "UPDATE orders SET estimated_ready_time = ? WHERE order_id = ?";
+        try (Connection conn = DatabaseConnection.getConnection(OP_UPDATE_ESTIMATED_READY_TIMES);
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            for (Map.Entry<String, LocalDateTime> e : readyTimes.entrySet()) {
+                pstmt.setTimestamp(1, Timestamp.valueOf(e.getValue()));
+                pstmt.setString(2, e.getKey());
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
+            return true;
 
         } catch (SQLException e) {
-            System.err.println("Ошибка при смене статуса заказа: " + e.getMessage());
+            System.err.println("Ошибка при обновлении времени готовности: " + e.getMessage());
             return false;
         }
     }
 
-    public boolean completeOrder(String orderId) {
-        return updateOrderStatus(orderId, OrderStatus.COMPLETED);
-    }
-
-    public boolean cancelOrder(String orderId) {
-        return updateOrderStatus(orderId, OrderStatus.CANCELLED);
-    }
-
-    public List<Order> getAllOrders() {
-        List<Order> orders = new ArrayList<>();
-        String sql = "SELECT * FROM orders ORDER BY order_time DESC";
-        try {
-            Connection conn = DatabaseConnection.getConnection();
-            Statement stmt = conn.createStatement();
-            ResultSet rs = stmt.executeQuery(sql);
+    /**
+     * Меняет статус, только если в БД всё ещё стоит {@code expected}: проверка и запись
+     * выполняются одним UPDATE, а время и сумма для статистики читаются из той же строки.
+     * Если строка не обновилась, отдельным запросом выясняется, исчез заказ или статус уже другой.
+     * Допустимость перехода проверяет вызывающий код.
+     */
+    public StatusChange compareAndSetStatus(String orderId, OrderStatus expected, OrderStatus next) {
+        String sql = "SELECT order_time, total_amount FROM FINAL TABLE " +
+                "(UPDATE orders SET status = ?, " + NEXT_VERSION + " WHERE order_id = ? AND status = ?)";
+        try (Connection conn = DatabaseConnection.getConnection(OP_COMPARE_AND_SET_STATUS)) {
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                pstmt.setString(1, next.name());
+                pstmt.setInt(2, IdGenerator.getNodeId());
+                pstmt.setString(3, orderId);
+                pstmt.setString(4, expected.name());
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    if (rs.next()) {
+                        return StatusChange.applied(expected, next, rs.getTimestamp("order_time").toLocalDateTime(),
+                                Money.fromDecimal(rs.getBigDecimal("total_amount")));
+                    }
+                }
+            }
 
-            while (rs.next()) {
-                Order order = mapResultSetToOrder(rs);
-                loadOrderItems(order);
-                orders.add(order);
+            try (PreparedStatement pstmt = conn.prepareStatement("SELECT status FROM orders WHERE order_id = ?")) {
+                pstmt.setString(1, orderId);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    if (rs.next()) {
+                        return StatusChange.rejected(StatusChange.Result.CONFLICT, expected,
+                                OrderStatus.valueOf(rs.getString("status")));
+                    }
+                    return StatusChange.rejected(StatusChange.Result.NOT_FOUND, expected, null);
+                }
             }
-            rs.close();
-            stmt.close();
 
         } catch (SQLException e) {
-            System.err.println("Ошибка при получении заказов: " + e.getMessage());
+            System.err.println("Ошибка при смене статуса заказа: " + e.getMessage());
+            return null;
         }
-        return orders;
     }
 
-    public List<Order> getAllActiveOrders() {
-        List<Order> orders = new ArrayList<>();
-        String sql = "SELECT * FROM orders WHERE status NOT IN ('COMPLETED', 'CANCELLED') ORDER BY order_time DESC";
-        try {
-            Connection conn = DatabaseConnection.getConnection();
-            Statement stmt = conn.createStatement();
-            ResultSet rs = stmt.executeQuery(sql);
+    /**
+     * Статус заказа; перенесённый в архив заказ тоже находится.
+     */
+    public Optional<OrderStatus> getOrderStatus(String orderId) {
+        String sql = "SELECT status FROM orders WHERE order_id = ? " +
+                "UNION ALL SELECT status FROM orders_archive WHERE order_id = ?";
+        try (Connection conn = DatabaseConnection.getConnection(OP_GET_ORDER_STATUS);
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
-            while (rs.next()) {
-                Order order = mapResultSetToOrder(rs);
-                loadOrderItems(order);
-                orders.add(order);
+            pstmt.setString(1, orderId);
+            pstmt.setString(2, orderId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? Optional.of(OrderStatus.valueOf(rs.getString("status"))) : Optional.empty();
             }
-            rs.close();
-            stmt.close();
 
         } catch (SQLException e) {
-            System.err.println("Ошибка при получении активных заказов: " + e.getMessage());
+            System.err.println("Ошибка при чтении статуса заказа: " + e.getMessage());
+            return Optional.empty();
         }
-        return orders;
+    }
+
+    public List<Order> getAllOrders() {
+        return loadOrders(OP_GET_ALL_ORDERS, "", "Ошибка при получении заказов");
+    }
+
+    public List<Order> getAllActiveOrders() {
+        return loadOrders(OP_GET_ALL_ACTIVE_ORDERS, "WHERE status NOT IN ('COMPLETED', 'CANCELLED')",
+                "Ошибка при получении активных заказов");
     }
 
     public List<Order> getCompletedOrders() {
-        List<Order> orders = new ArrayList<>();
-        String sql = "SELECT * FROM orders WHERE status = 'COMPLETED' ORDER BY order_time DESC";
-        try {
-            Connection conn = DatabaseConnection.getConnection();
-            Statement stmt = conn.createStatement();
-            ResultSet rs = stmt.executeQuery(sql);
+        return loadOrders(OP_GET_COMPLETED_ORDERS, "WHERE status = 'COMPLETED'",
+                "Ошибка при получении завершенных заказов");
+    }
 
-            while (rs.next()) {
-                Order order = mapResultSetToOrder(rs);
-                loadOrderItems(order);
-                orders.add(order);
-            }
-            rs.close();
-            stmt.close();
+    public List<Order> getOrdersByStatus(OrderStatus status) {
+        return loadOrders(OP_GET_ORDERS_BY_STATUS, "WHERE status = ?",
+                "Ошибка при фильтрации по статусу", status.name());
+    }
 
-        } catch (SQLException e) {
-            System.err.println("Ошибка при получении завершенных заказов: " + e.getMessage());
+    public List<Order> getTodayOrders() {
+        return loadOrders(OP_GET_TODAY_ORDERS, "WHERE " + TODAY_CONDITION,
+                "Ошибка при получении заказов за сегодня");
+    }
+
+    /**
+     * Заказ по номеру; если в горячей таблице его нет, он ищется в архиве.
+     */
+    public Optional<Order> getOrderById(String orderId) {
+        List<Order> orders = loadOrders(OP_GET_ORDER_BY_ID, "WHERE order_id = ?", "Ошибка при поиске заказа", orderId);
+        if (orders.isEmpty()) {
+            orders = queryOrders(OP_GET_ORDER_BY_ID, Tables.ARCHIVE, "SELECT * FROM orders_archive WHERE order_id = ?",
+                    "Ошибка при поиске заказа в архиве", orderId);
         }
-        return orders;
+        return orders.isEmpty() ? Optional.empty() : Optional.of(orders.get(0));
     }
 
-    public List<Order> getOrdersByStatus(OrderStatus status) {
-        List<Order> orders = new ArrayList<>();
-        String sql = "SELECT * FROM orders WHERE status = ? ORDER BY order_time DESC";
-        try {
-            Connection conn = DatabaseConnection.getConnection();
-            PreparedStatement pstmt = conn.prepareStatement(sql);
+    // ==================== PAGINATION ====================
 
-            pstmt.setString(1, status.name());
-            ResultSet rs = pstmt.executeQuery();
+    /**
+     * Страница заказов, более старых чем {@code after}, от новых к старым.
+     * Курсор {@code null} означает первую страницу. Фильтр по статусу необязателен.
+     */
+    public List<Order> getOrdersPage(OrderStatus status, OrderCursor after, int limit) {
+        return getOrdersPage(status, after, limit, false);
+    }
 
-            while (rs.next()) {
-                Order order = mapResultSetToOrder(rs);
-                loadOrderItems(order);
-                orders.add(order);
-            }
-            rs.close();
-            pstmt.close();
+    /**
+     * То же, что {@link #getOrdersPage(OrderStatus, OrderCursor, int)}; с {@code includeArchive}
+     * страница собирается из горячей и архивной таблиц. Из каждой по индексу берётся не больше
+     * {@code limit} заказов, и результаты сливаются в один порядок.
+     */
+    public List<Order> getOrdersPage(OrderStatus status, OrderCursor after, int limit, boolean includeArchive) {
+        List<Order> page = pageAfter(OP_GET_ORDERS_PAGE, Tables.HOT, status, after, limit);
+        if (!includeArchive || !isArchivable(status)) {
+            return page;
+        }
+        return merge(page, pageAfter(OP_GET_ORDERS_PAGE, Tables.ARCHIVE, status, after, limit), limit, true);
+    }
 
-        } catch (SQLException e) {
-            System.err.println("Ошибка при фильтрации по статусу: " + e.getMessage());
+    private List<Order> pageAfter(String operation, Tables tables, OrderStatus status, OrderCursor after, int limit) {
+        StringBuilder sql = new StringBuilder("SELECT * FROM " + tables.orders + " WHERE 1 = 1");
+        List<Object> params = new ArrayList<>();
+        if (status != null) {
+            sql.append(" AND status = ?");
+            params.add(status.name());
         }
-        return orders;
+        if (after != null) {
+            sql.append(" AND (order_time, order_id) < (?, ?)");
+            params.add(Timestamp.valueOf(after.orderTime()));
+            params.add(after.orderId());
+        }
+        sql.append(" ORDER BY order_time DESC, order_id DESC LIMIT ?");
+        params.add(limit);
+        return queryOrders(operation, tables, sql.toString(), "Ошибка при загрузке страницы заказов", params.toArray());
     }
 
-    public List<Order> getTodayOrders() {
-        List<Order> orders = new ArrayList<>();
-        String sql = "SELECT * FROM orders WHERE CAST(order_time AS DATE) = CURRENT_DATE ORDER BY order_time DESC";
-        try {
-            Connection conn = DatabaseConnection.getConnection();
-            Statement stmt = conn.createStatement();
-            ResultSet rs = stmt.executeQuery(sql);
+    /**
+     * Страница заказов, более новых чем {@code before}, тоже от новых к старым.
+     * Нужна, чтобы догрузить строки при прокрутке таблицы вверх.
+     */
+    public List<Order> getOrdersPageBefore(OrderStatus status, OrderCursor before, int limit) {
+        return getOrdersPageBefore(status, before, limit, false);
+    }
 
-            while (rs.next()) {
-                Order order = mapResultSetToOrder(rs);
-                loadOrderItems(order);
-                orders.add(order);
-            }
-            rs.close();
-            stmt.close();
+    public List<Order> getOrdersPageBefore(OrderStatus status, OrderCursor before, int limit, boolean includeArchive) {
+        List<Order> page = pageBefore(OP_GET_ORDERS_PAGE_BEFORE, Tables.HOT, status, before, limit);
+        if (!includeArchive || !isArchivable(status)) {
+            return page;
+        }
+        return merge(page, pageBefore(OP_GET_ORDERS_PAGE_BEFORE, Tables.ARCHIVE, status, before, limit), limit, false);
+    }
 
-        } catch (SQLException e) {
-            System.err.println("Ошибка при получении заказов за сегодня: " + e.getMessage());
+    private List<Order> pageBefore(String operation, Tables tables, OrderStatus status, OrderCursor before, int limit) {
+        StringBuilder sql = new StringBuilder("SELECT * FROM " + tables.orders + " WHERE (order_time, order_id) > (?, ?)");
+        List<Object> params = new ArrayList<>();
+        params.add(Timestamp.valueOf(before.orderTime()));
+        params.add(before.orderId());
+        if (status != null) {
+            sql.append(" AND status = ?");
+            params.add(status.name());
         }
-        return orders;
+        sql.append(" ORDER BY order_time ASC, order_id ASC LIMIT ?");
+        params.add(limit);
+        List<Order> page = queryOrders(operation, tables, sql.toString(), "Ошибка при загрузке страницы заказов",
+                params.toArray());
+        Collections.reverse(page);
+        return page;
     }
 
-    public Optional<Order> getOrderById(String orderId) {
-        String sql = "SELECT * FROM orders WHERE order_id = ?";
-        try {
-            Connection conn = DatabaseConnection.getConnection();
-            PreparedStatement pstmt = conn.prepareStatement(sql);
+    /**
+     * В архиве лежат только завершённые и отменённые заказы, для остальных фильтров он не читается.
+     */
+    private static boolean isArchivable(OrderStatus status) {
+        return status == null || status == OrderStatus.COMPLETED || status == OrderStatus.CANCELLED;
+    }
 
-            pstmt.setString(1, orderId);
-            ResultSet rs = pstmt.executeQuery();
+    /**
+     * Сливает страницы горячей и архивной таблиц от новых к старым и оставляет {@code limit} заказов:
+     * самые новые для страницы после курсора ({@code keepNewest}) или ближайшие к курсору для страницы перед ним.
+     * Заказ, перенесённый в архив между двумя запросами, может попасть в обе страницы и берётся один раз.
+     */
+    private static List<Order> merge(List<Order> hot, List<Order> archived, int limit, boolean keepNewest) {
+        Map<String, Order> byId = new LinkedHashMap<>();
+        for (Order order : hot) {
+            byId.put(order.getOrderId(), order);
+        }
+        for (Order order : archived) {
+            byId.putIfAbsent(order.getOrderId(), order);
+        }
+        List<Order> all = new ArrayList<>(byId.values());
+        all.sort(NEWEST_FIRST);
+        int size = Math.min(limit, all.size());
+        return new ArrayList<>(keepNewest ? all.subList(0, size) : all.subList(all.size() - size, all.size()));
+    }
 
-            if (rs.next()) {
-                Order order = mapResultSetToOrder(rs);
-                loadOrderItems(order);
-                rs.close();
-                pstmt.close();
-                return Optional.of(order);
-            }
-            rs.close();
-            pstmt.close();
+    /**
+     * Заказы, которые с версии {@code sinceVersion} записали другие узлы.
+     * По ним терминал в общем режиме догоняет изменения соседей.
+     */
+    public List<Order> getOrdersChangedSince(long sinceVersion) {
+        return queryOrders(OP_GET_ORDERS_CHANGED_SINCE,
+                "SELECT * FROM orders WHERE version > ? AND updated_by <> ? ORDER BY version",
+                "Ошибка при чтении изменённых заказов", sinceVersion, IdGenerator.getNodeId());
+    }
+
+    public long getMaxOrderVersion() {
+        String sql = "SELECT COALESCE(MAX(version), 0) FROM orders";
+        try (Connection conn = DatabaseConnection.getConnection(OP_GET_MAX_ORDER_VERSION);
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+
+            return rs.next() ? rs.getLong(1) : 0;
 
         } catch (SQLException e) {
-            System.err.println("Ошибка при поиске заказа: " + e.getMessage());
+            System.err.println("Ошибка при чтении версии заказов: " + e.getMessage());
+            return 0;
         }
-        return Optional.empty();
     }
 
     // ==================== STATISTICS ====================
 
     public int getTotalOrdersCount() {
         String sql = "SELECT COUNT(*) FROM orders";
-        try {
-            Connection conn = DatabaseConnection.getConnection();
-            Statement stmt = conn.createStatement();
-            ResultSet rs = stmt.executeQuery(sql);
+        try (Connection conn = DatabaseConnection.getConnection(OP_GET_TOTAL_ORDERS_COUNT);
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
             if (rs.next()) {
-                int count = rs.getInt(1);
-                rs.close();
-                stmt.close();
-                return count;
+                return rs.getInt(1);
             }
-            rs.close();
-            stmt.close();
         } catch (SQLException e) {
             System.err.println("Ошибка подсчета заказов: " + e.getMessage());
         }
@@ -350,59 +574,41 @@ public class OrderDAODB {
     }
 
     public int getTodayOrdersCount() {
-        String sql = "SELECT COUNT(*) FROM orders WHERE CAST(order_time AS DATE) = CURRENT_DATE";
-        try {
-            Connection conn = DatabaseConnection.getConnection();
-            Statement stmt = conn.createStatement();
-            ResultSet rs = stmt.executeQuery(sql);
+        String sql = "SELECT COUNT(*) FROM orders WHERE " + TODAY_CONDITION;
+        try (Connection conn = DatabaseConnection.getConnection(OP_GET_TODAY_ORDERS_COUNT);
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
             if (rs.next()) {
-                int count = rs.getInt(1);
-                rs.close();
-                stmt.close();
-                return count;
+                return rs.getInt(1);
             }
-            rs.close();
-            stmt.close();
         } catch (SQLException e) {
             System.err.println("Ошибка подсчета заказов за сегодня: " + e.getMessage());
         }
         return 0;
     }
 
-    public double getTotalRevenue() {
+    public long getTotalRevenueCents() {
         String sql = "SELECT COALESCE(SUM(total_amount), 0) FROM orders WHERE status = 'COMPLETED'";
-        try {
-            Connection conn = DatabaseConnection.getConnection();
-            Statement stmt = conn.createStatement();
-            ResultSet rs = stmt.executeQuery(sql);
+        try (Connection conn = DatabaseConnection.getConnection(OP_GET_TOTAL_REVENUE_CENTS);
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
             if (rs.next()) {
-                double revenue = rs.getDouble(1);
-                rs.close();
-                stmt.close();
-                return revenue;
+                return Money.fromDecimal(rs.getBigDecimal(1));
             }
-            rs.close();
-            stmt.close();
         } catch (SQLException e) {
             System.err.println("Ошибка подсчета выручки: " + e.getMessage());
         }
         return 0;
     }
 
-    public double getTodayRevenue() {
-        String sql = "SELECT COALESCE(SUM(total_amount), 0) FROM orders WHERE status = 'COMPLETED' AND CAST(order_time AS DATE) = CURRENT_DATE";
-        try {
-            Connection conn = DatabaseConnection.getConnection();
-            Statement stmt = conn.createStatement();
-            ResultSet rs = stmt.executeQuery(sql);
+    public long getTodayRevenueCents() {
+        String sql = "SELECT COALESCE(SUM(total_amount), 0) FROM orders WHERE status = 'COMPLETED' AND " + TODAY_CONDITION;
+        try (Connection conn = DatabaseConnection.getConnection(OP_GET_TODAY_REVENUE_CENTS);
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
             if (rs.next()) {
-                double revenue = rs.getDouble(1);
-                rs.close();
-                stmt.close();
-                return revenue;
+                return Money.fromDecimal(rs.getBigDecimal(1));
             }
-            rs.close();
-            stmt.close();
         } catch (SQLException e) {
             System.err.println("Ошибка подсчета выручки за сегодня: " + e.getMessage());
         }
@@ -411,63 +617,356 @@ public class OrderDAODB {
 
     public int getOrdersCountByStatus(OrderStatus status) {
         String sql = "SELECT COUNT(*) FROM orders WHERE status = ?";
-        try {
-            Connection conn = DatabaseConnection.getConnection();
-            PreparedStatement pstmt = conn.prepareStatement(sql);
+        try (Connection conn = DatabaseConnection.getConnection(OP_GET_ORDERS_COUNT_BY_STATUS);
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setString(1, status.name());
-            ResultSet rs = pstmt.executeQuery();
-            if (rs.next()) {
-                int count = rs.getInt(1);
-                rs.close();
-                pstmt.close();
-                return count;
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getInt(1);
+                }
             }
-            rs.close();
-            pstmt.close();
         } catch (SQLException e) {
             System.err.println("Ошибка подсчета по статусу: " + e.getMessage());
         }
         return 0;
     }
 
-    // ==================== HELPERS ====================
+    /**
+     * Число заказов в архиве, {@code status == null} — всех. Берётся из итогов архива, а не подсчётом строк.
+     */
+    public int getArchivedOrdersCount(OrderStatus status) {
+        String sql = "SELECT COALESCE(SUM(orders_count), 0) FROM orders_archive_totals" +
+                (status != null ? " WHERE status = ?" : "");
+        try (Connection conn = DatabaseConnection.getConnection(OP_GET_ARCHIVED_ORDERS_COUNT);
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            if (status != null) {
+                pstmt.setString(1, status.name());
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getInt(1);
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Ошибка подсчета заказов в архиве: " + e.getMessage());
+        }
+        return 0;
+    }
 
-    private void loadOrderItems(Order order) {
-        String sql = "SELECT oi.*, p.name, p.description, p.ingredients, p.size, p.price, " +
-                "p.preparation_time, p.category, p.is_available " +
-                "FROM order_items oi JOIN pizza p ON oi.pizza_id = p.id WHERE oi.order_id = ?";
-        try {
-            Connection conn = DatabaseConnection.getConnection();
-            PreparedStatement pstmt = conn.prepareStatement(sql);
+    /**
+     * Все счётчики и суммы по статусам, за всё время и за сегодня, одним проходом GROUP BY
+     * в отдельной транзакции только для чтения. Итоги архива прибавляются в том же запросе,
+     * поэтому заказ, который как раз переносится в архив, не считается дважды.
+     */
+    public DashboardSnapshot getDashboardSnapshot() {
+        String sql = "SELECT status, SUM(orders_count), SUM(revenue_cents), SUM(today_count), SUM(today_revenue_cents) " +
+                "FROM (SELECT status, COUNT(*) AS orders_count, " +
+                "COALESCE(SUM(CAST(total_amount * 100 AS BIGINT)), 0) AS revenue_cents, " +
+                "SUM(CASE WHEN " + TODAY_CONDITION + " THEN 1 ELSE 0 END) AS today_count, " +
+                "COALESCE(SUM(CASE WHEN " + TODAY_CONDITION + " THEN CAST(total_amount * 100 AS BIGINT) ELSE 0 END), 0) " +
+                "AS today_revenue_cents FROM orders GROUP BY status " +
+                // Сегодняшние заказы в архив не попадают, поэтому архив входит только в итоги за всё время
+                "UNION ALL SELECT status, orders_count, revenue_cents, 0, 0 FROM orders_archive_totals) t " +
+                "GROUP BY status";
+
+        int n = OrderStatus.values().length;
+        int[] counts = new int[n];
+        long[] revenueCents = new long[n];
+        int[] todayCounts = new int[n];
+        long[] todayRevenueCents = new long[n];
+        LocalDate day = LocalDate.now();
+
+        try (Connection conn = DatabaseConnection.getConnection(OP_GET_DASHBOARD_SNAPSHOT)) {
+            conn.setAutoCommit(false);
+            conn.setReadOnly(true);
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery(sql)) {
+                while (rs.next()) {
+                    int s = OrderStatus.valueOf(rs.getString(1)).ordinal();
+                    counts[s] = rs.getInt(2);
+                    revenueCents[s] = rs.getLong(3);
+                    todayCounts[s] = rs.getInt(4);
+                    todayRevenueCents[s] = rs.getLong(5);
+                }
+                conn.commit();
+            } finally {
+                conn.setReadOnly(false);
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            System.err.println("Ошибка получения сводки заказов: " + e.getMessage());
+        }
+        return new DashboardSnapshot(day, counts, revenueCents, todayCounts, todayRevenueCents);
+    }
 
-            pstmt.setString(1, order.getOrderId());
-            ResultSet rs = pstmt.executeQuery();
+    public record PizzaSales(String pizzaId, String name, long allTimeQuantity, long todayQuantity) {
+    }
 
-            List<OrderItem> items = new ArrayList<>();
+    /**
+     * Сколько штук каждой пиццы заказано за всё время и за сегодня, одним агрегатным запросом.
+     * Продажи из архива берутся из его итогов. Отсортировано по убыванию общего количества.
+     */
+    public List<PizzaSales> getPizzaSales() {
+        String sql = "SELECT s.pizza_id, p.name, SUM(s.quantity), SUM(s.today_quantity) " +
+                "FROM (SELECT oi.pizza_id, oi.quantity, " +
+                "CASE WHEN " + TODAY_CONDITION.replace("order_time", "o.order_time") + " THEN oi.quantity ELSE 0 END " +
+                "AS today_quantity FROM order_items oi JOIN orders o ON o.order_id = oi.order_id " +
+                "UNION ALL SELECT pizza_id, quantity, 0 FROM pizza_archive_sales) s " +
+                "JOIN pizza p ON p.id = s.pizza_id GROUP BY s.pizza_id, p.name ORDER BY 3 DESC";
+        List<PizzaSales> sales = new ArrayList<>();
+        try (Connection conn = DatabaseConnection.getConnection(OP_GET_PIZZA_SALES);
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
             while (rs.next()) {
-                Pizza pizza = new Pizza(
-                        rs.getString("pizza_id"),
-                        rs.getString("name"),
-                        rs.getString("description"),
-                        List.of(rs.getString("ingredients").split(", ")),
-                        Pizza.PizzaSize.valueOf(rs.getString("size")),
-                        rs.getDouble("unit_price"),
-                        rs.getInt("preparation_time"),
-                        Pizza.Category.valueOf(rs.getString("category")),
-                        rs.getBoolean("is_available")
-                );
-                OrderItem item = new OrderItem(pizza, rs.getInt("quantity"));
-                items.add(item);
+                sales.add(new PizzaSales(rs.getString(1), rs.getString(2), rs.getLong(3), rs.getLong(4)));
             }
-            rs.close();
-            pstmt.close();
-            order.getItems().addAll(items);
+        } catch (SQLException e) {
+            System.err.println("Ошибка подсчета продаж пицц: " + e.getMessage());
+        }
+        return sales;
+    }
+
+    // ==================== ARCHIVE ====================
+
+    /**
+     * Переносит в архив до {@code limit} самых старых завершённых и отменённых заказов, сделанных
+     * раньше {@code cutoff}, вместе с позициями. Порция переносится одной короткой транзакцией,
+     * в ней же пополняются итоги архива для статистики.
+     * <p>
+     * Заказы выбираются в той же транзакции с {@code FOR UPDATE}, так что смена статуса на другом
+     * терминале дождётся переноса; DELETE заказов ещё раз проверяет статус и дату. Строки вставляются
+     * в архив уже прочитанными из удаления: если те же заказы одновременно переносит другой терминал,
+     * его выборка дождётся этой транзакции и ничего не найдёт, поэтому заказ не попадёт в архив и итоги дважды.
+     *
+     * @return число перенесённых заказов; {@code -1} при ошибке
+     */
+    public int archiveOrders(LocalDateTime cutoff, int limit) {
+        String archivable = ARCHIVABLE_CONDITION + " AND order_time < ?";
+        String selectSql = "SELECT order_id FROM orders WHERE " + archivable +
+                " ORDER BY order_time LIMIT ? FOR UPDATE";
+        Timestamp cutoffTime = Timestamp.valueOf(cutoff);
+
+        try (Connection conn = DatabaseConnection.getConnection(OP_ARCHIVE_ORDERS)) {
+            conn.setAutoCommit(false);
+            try {
+                List<String> ids = new ArrayList<>();
+                try (PreparedStatement pstmt = conn.prepareStatement(selectSql)) {
+                    pstmt.setTimestamp(1, cutoffTime);
+                    pstmt.setInt(2, limit);
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        while (rs.next()) {
+                            ids.add(rs.getString(1));
+                        }
+                    }
+                }
+                if (ids.isEmpty()) {
+                    conn.commit();
+                    return 0;
+                }
+
+                Array idArray = conn.createArrayOf("VARCHAR", ids.toArray());
+                // Позиции ссылаются на заказ: удаляются первыми, а вставляются в архив после заказов
+                DeletedRows items = deleteReturning(conn, Tables.HOT.items, idArray, "");
+                DeletedRows orders = deleteReturning(conn, Tables.HOT.orders, idArray, " AND " + archivable, cutoffTime);
+                if (orders.rows().size() != ids.size()) {
+                    throw new SQLException("заказы изменились во время переноса, порция отменена");
+                }
+                insertRows(conn, Tables.ARCHIVE.orders, orders);
+                insertRows(conn, Tables.ARCHIVE.items, items);
+                addArchiveTotals(conn, orders);
+                addArchiveSales(conn, items);
+                conn.commit();
+                ConnectionPool.recordRows(conn, orders.rows().size() + items.rows().size());
+                return orders.rows().size();
+
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Ошибка при переносе заказов в архив: " + e.getMessage());
+            return -1;
+        }
+    }
+
+    /**
+     * Строки, удалённые из таблицы, со всеми столбцами в порядке таблицы.
+     */
+    private record DeletedRows(List<String> columns, List<Object[]> rows) {
+        Object get(Object[] row, String column) {
+            return row[columns.indexOf(column)];
+        }
+    }
+
+    private DeletedRows deleteReturning(Connection conn, String table, Array orderIds,
+                                        String condition, Object... params) throws SQLException {
+        String sql = "SELECT * FROM OLD TABLE (DELETE FROM " + table + " WHERE order_id = ANY(?)" + condition + ")";
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setArray(1, orderIds);
+            for (int i = 0; i < params.length; i++) {
+                pstmt.setObject(i + 2, params[i]);
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                ResultSetMetaData meta = rs.getMetaData();
+                List<String> columns = new ArrayList<>(meta.getColumnCount());
+                for (int i = 1; i <= meta.getColumnCount(); i++) {
+                    columns.add(meta.getColumnName(i).toLowerCase());
+                }
+                List<Object[]> rows = new ArrayList<>();
+                while (rs.next()) {
+                    Object[] row = new Object[columns.size()];
+                    for (int i = 0; i < row.length; i++) {
+                        row[i] = rs.getObject(i + 1);
+                    }
+                    rows.add(row);
+                }
+                return new DeletedRows(columns, rows);
+            }
+        }
+    }
+
+    private void insertRows(Connection conn, String table, DeletedRows deleted) throws SQLException {
+        if (deleted.rows().isEmpty()) {
+            return;
+        }
+        String sql = "INSERT INTO " + table + " (" + String.join(", ", deleted.columns()) + ") VALUES (" +
+                String.join(", ", Collections.nCopies(deleted.columns().size(), "?")) + ")";
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            for (Object[] row : deleted.rows()) {
+                for (int i = 0; i < row.length; i++) {
+                    pstmt.setObject(i + 1, row[i]);
+                }
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
+        }
+    }
+
+    private void addArchiveTotals(Connection conn, DeletedRows orders) throws SQLException {
+        Map<String, long[]> totals = new HashMap<>();
+        for (Object[] row : orders.rows()) {
+            long[] t = totals.computeIfAbsent((String) orders.get(row, "status"), key -> new long[2]);
+            t[0]++;
+            t[1] += Money.fromDecimal((BigDecimal) orders.get(row, "total_amount"));
+        }
+        String sql = "MERGE INTO orders_archive_totals t USING (VALUES (CAST(? AS VARCHAR(20)), " +
+                "CAST(? AS BIGINT), CAST(? AS BIGINT))) AS v(status, orders_count, revenue_cents) ON t.status = v.status " +
+                "WHEN MATCHED THEN UPDATE SET orders_count = t.orders_count + v.orders_count, " +
+                "revenue_cents = t.revenue_cents + v.revenue_cents " +
+                "WHEN NOT MATCHED THEN INSERT VALUES (v.status, v.orders_count, v.revenue_cents)";
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            for (Map.Entry<String, long[]> e : totals.entrySet()) {
+                pstmt.setString(1, e.getKey());
+                pstmt.setLong(2, e.getValue()[0]);
+                pstmt.setLong(3, e.getValue()[1]);
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
+        }
+    }
+
+    private void addArchiveSales(Connection conn, DeletedRows items) throws SQLException {
+        Map<String, Long> quantities = new HashMap<>();
+        for (Object[] row : items.rows()) {
+            quantities.merge((String) items.get(row, "pizza_id"), ((Number) items.get(row, "quantity")).longValue(), Long::sum);
+        }
+        String sql = "MERGE INTO pizza_archive_sales s USING (VALUES (CAST(? AS VARCHAR(10)), CAST(? AS BIGINT))) " +
+                "AS v(pizza_id, quantity) ON s.pizza_id = v.pizza_id " +
+                "WHEN MATCHED THEN UPDATE SET quantity = s.quantity + v.quantity " +
+                "WHEN NOT MATCHED THEN INSERT VALUES (v.pizza_id, v.quantity)";
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            for (Map.Entry<String, Long> e : quantities.entrySet()) {
+                pstmt.setString(1, e.getKey());
+                pstmt.setLong(2, e.getValue());
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
+        }
+    }
+
+    // ==================== HELPERS ====================
+
+    /**
+     * Загружает заказы по условию {@code filter} и все их позиции двумя запросами,
+     * независимо от количества заказов. Позиции раскладываются по заказам за один проход.
+     */
+    private List<Order> loadOrders(String operation, String filter, String errorMessage, Object... params) {
+        return queryOrders(operation, "SELECT * FROM orders " + filter + " ORDER BY order_time DESC",
+                errorMessage, params);
+    }
+
+    private List<Order> queryOrders(String operation, String ordersSql, String errorMessage, Object... params) {
+        return queryOrders(operation, Tables.HOT, ordersSql, errorMessage, params);
+    }
+
+    private List<Order> queryOrders(String operation, Tables tables, String ordersSql, String errorMessage,
+                                    Object... params) {
+        String itemsSql = "SELECT oi.order_id, oi.pizza_id, oi.quantity, oi.unit_price, " +
+                "p.name, p.description, p.ingredients, p.size, p.price, p.preparation_time, p.category, p.is_available, p.version " +
+                "FROM " + tables.items + " oi JOIN pizza p ON oi.pizza_id = p.id " +
+                "WHERE oi.order_id = ANY(?) ORDER BY oi.id";
+
+        Map<String, Order> ordersById = new LinkedHashMap<>();
+        try (Connection conn = DatabaseConnection.getConnection(operation)) {
+            int rows = 0;
+            try (PreparedStatement pstmt = conn.prepareStatement(ordersSql)) {
+                bindParams(pstmt, params);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        Order order = mapResultSetToOrder(rs);
+                        ordersById.put(order.getOrderId(), order);
+                        rows++;
+                    }
+                }
+            }
+
+            if (!ordersById.isEmpty()) {
+                try (PreparedStatement pstmt = conn.prepareStatement(itemsSql)) {
+                    pstmt.setArray(1, conn.createArrayOf("VARCHAR", ordersById.keySet().toArray()));
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        while (rs.next()) {
+                            Order order = ordersById.get(rs.getString("order_id"));
+                            if (order != null) {
+                                order.addItem(mapResultSetToOrderItem(rs));
+                            }
+                            rows++;
+                        }
+                    }
+                }
+            }
+            ConnectionPool.recordRows(conn, rows);
 
         } catch (SQLException e) {
-            System.err.println("Ошибка загрузки позиций заказа: " + e.getMessage());
+            System.err.println(errorMessage + ": " + e.getMessage());
+        }
+        return new ArrayList<>(ordersById.values());
+    }
+
+    private void bindParams(PreparedStatement pstmt, Object... params) throws SQLException {
+        for (int i = 0; i < params.length; i++) {
+            pstmt.setObject(i + 1, params[i]);
         }
     }
 
+    private OrderItem mapResultSetToOrderItem(ResultSet rs) throws SQLException {
+        Pizza pizza = pizzaCatalog.resolve(
+                rs.getString("pizza_id"),
+                rs.getString("name"),
+                rs.getString("description"),
+                rs.getString("ingredients"),
+                rs.getString("size"),
+                Money.fromDecimal(rs.getBigDecimal("price")),
+                rs.getInt("preparation_time"),
+                rs.getString("category"),
+                rs.getBoolean("is_available"),
+                rs.getLong("version")
+        );
+        return new OrderItem(pizza, rs.getInt("quantity"), Money.fromDecimal(rs.getBigDecimal("unit_price")));
+    }
+
     private Order mapResultSetToOrder(ResultSet rs) throws SQLException {
         String paymentMethodStr = rs.getString("payment_method");
         String paymentStatusStr = rs.getString("payment_status");
@@ -475,7 +974,7 @@ public class OrderDAODB {
         if (paymentMethodStr != null) {
             payment = new Payment(
                     PaymentMethod.valueOf(paymentMethodStr),
-                    rs.getDouble("total_amount")
+                    Money.fromDecimal(rs.getBigDecimal("total_amount"))
             );
             if (paymentStatusStr != null) {
                 payment.setStatus(PaymentStatus.valueOf(paymentStatusStr));
@@ -485,10 +984,10 @@ public class OrderDAODB {
         String deliveryTypeStr = rs.getString("delivery_type");
         DeliveryType deliveryType = deliveryTypeStr != null ? DeliveryType.valueOf(deliveryTypeStr) : DeliveryType.PICKUP;
 
-        return new Order(
+        Order order = new Order(
                 rs.getString("order_id"),
                 null,
-                new ArrayList<>(),
+                List.of(),
                 OrderStatus.valueOf(rs.getString("status")),
                 rs.getTimestamp("order_time").toLocalDateTime(),
                 rs.getTimestamp("estimated_ready_time").toLocalDateTime(),
@@ -497,6 +996,8 @@ public class OrderDAODB {
                 rs.getString("delivery_address"),
                 deliveryType
         );
+        order.setVersion(rs.getLong("version"));
+        return order;
     }
 
     private Customer mapResultSetToCustomer(ResultSet rs) throws SQLException {
@@ -0,0 +1,56 @@
+package com.pizzeria.dao;
+
+import com.pizzeria.models.CatalogPizza;
+import com.pizzeria.models.Pizza;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Каталог общих экземпляров пицц для позиций заказов.
+ * <p>
+ * Для каждой пиццы хранится экземпляр текущей версии строки в БД. Пока строка пиццы
+ * не менялась, все позиции получают один и тот же объект, и ингредиенты не разбираются
+ * заново. Если строка изменилась, создаётся новый экземпляр с её версией. Старые экземпляры
+ * живут, пока на них ссылаются загруженные позиции.
+ */
+public class PizzaCatalog {
+    private final Map<String, Entry> current = new ConcurrentHashMap<>();
+
+    private record Row(String name, String description, String ingredients, String size, long priceCents,
+                       int preparationTime, String category, boolean available, long version) {
+    }
+
+    private record Entry(Row row, CatalogPizza pizza) {
+    }
+
+    public CatalogPizza resolve(String id, String name, String description, String ingredients, String size,
+                                long priceCents, int preparationTime, String category, boolean available,
+                                long version) {
+        Row row = new Row(name, description, ingredients, size, priceCents, preparationTime, category, available, version);
+        Entry entry = current.get(id);
+        if (entry != null && entry.row().equals(row)) {
+            return entry.pizza();
+        }
+        return current.compute(id, (key, existing) -> {
+            if (existing != null && existing.row().equals(row)) {
+                return existing;
+            }
+            return new Entry(row, create(id, row));
+        }).pizza();
+    }
+
+    public int size() {
+        return current.size();
+    }
+
+    private static CatalogPizza create(String id, Row row) {
+        List<String> ingredients = row.ingredients() == null || row.ingredients().isEmpty()
+                ? List.of()
+                : List.of(row.ingredients().split(", "));
+        return new CatalogPizza(id, row.name(), row.description(), ingredients,
+                Pizza.PizzaSize.valueOf(row.size()), row.priceCents(), row.preparationTime(),
+                Pizza.Category.valueOf(row.category()), row.available(), row.version());
+    }
+}
@@ -1,106 +1,72 @@
 package com.pizzeria.dao;
 
+import com.pizzeria.models.IngredientDictionary;
+import com.pizzeria.models.IngredientSet;
+import com.pizzeria.models.Money;
 import com.pizzeria.models.Pizza;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 public class PizzaDAODB {
+    // Имена операций в метриках DAO: время от выдачи соединения до возврата и число прочитанных строк
+    private static final String OP_GET_ALL_PIZZAS = "PizzaDAODB.getAllPizzas";
+    private static final String OP_GET_PIZZA_BY_ID = "PizzaDAODB.getPizzaById";
+    private static final String OP_GET_PIZZAS_BY_CATEGORY = "PizzaDAODB.getPizzasByCategory";
+    private static final String OP_ADD_PIZZA = "PizzaDAODB.addPizza";
+    private static final String OP_UPDATE_PIZZA = "PizzaDAODB.updatePizza";
+    private static final String OP_GET_MENU_STAMP = "PizzaDAODB.getMenuStamp";
+    private static final String OP_DELETE_PIZZA = "PizzaDAODB.deletePizza";
 
-    public List<Pizza> getAllPizzas() {
-        List<Pizza> pizzas = new ArrayList<>();
-        String sql = "SELECT * FROM pizza ORDER BY name";
-
-        try {
-            Connection conn = DatabaseConnection.getConnection();
-            Statement stmt = conn.createStatement();
-            ResultSet rs = stmt.executeQuery(sql);
-
-            while (rs.next()) {
-                pizzas.add(mapResultSetToPizza(rs));
-            }
-            rs.close();
-            stmt.close();
-
-        } catch (SQLException e) {
-            System.err.println("Ошибка при получении пицц: " + e.getMessage());
-        }
 
-        return pizzas;
+    public List<Pizza> getAllPizzas() {
+        return loadPizzas(OP_GET_ALL_PIZZAS, "SELECT * FROM pizza ORDER BY name", "Ошибка при получении пицц");
     }
 
     public Optional<Pizza> getPizzaById(String id) {
-        String sql = "SELECT * FROM pizza WHERE id = ?";
-
-        try {
-            Connection conn = DatabaseConnection.getConnection();
-            PreparedStatement pstmt = conn.prepareStatement(sql);
-            pstmt.setString(1, id);
-            ResultSet rs = pstmt.executeQuery();
-
-            if (rs.next()) {
-                Pizza pizza = mapResultSetToPizza(rs);
-                rs.close();
-                pstmt.close();
-                return Optional.of(pizza);
-            }
-            rs.close();
-            pstmt.close();
-
-        } catch (SQLException e) {
-            System.err.println("Ошибка при поиске пиццы: " + e.getMessage());
-        }
-
-        return Optional.empty();
+        List<Pizza> pizzas = loadPizzas(OP_GET_PIZZA_BY_ID, "SELECT * FROM pizza WHERE id = ?",
+                "Ошибка при поиске пиццы", id);
+        return pizzas.isEmpty() ? Optional.empty() : Optional.of(pizzas.get(0));
     }
 
     public List<Pizza> getPizzasByCategory(Pizza.Category category) {
-        List<Pizza> pizzas = new ArrayList<>();
-        String sql = "SELECT * FROM pizza WHERE category = ? ORDER BY name";
-
-        try {
-            Connection conn = DatabaseConnection.getConnection();
-            PreparedStatement pstmt = conn.prepareStatement(sql);
-            pstmt.setString(1, category.name());
-            ResultSet rs = pstmt.executeQuery();
-
-            while (rs.next()) {
-                pizzas.add(mapResultSetToPizza(rs));
-            }
-            rs.close();
-            pstmt.close();
-
-        } catch (SQLException e) {
-            System.err.println("Ошибка при фильтрации пицц по категории: " + e.getMessage());
-        }
-
-        return pizzas;
+        return loadPizzas(OP_GET_PIZZAS_BY_CATEGORY, "SELECT * FROM pizza WHERE category = ? ORDER BY name",
+                "Ошибка при фильтрации пицц по категории", category.name());
     }
 
     public boolean addPizza(Pizza pizza) {
         String sql = """
-            INSERT INTO pizza (id, name, description, ingredients, size, price, preparation_time, category, is_available, image_path)
-            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            INSERT INTO pizza (id, name, description, ingredients, size, price, preparation_time, category, is_available)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)
         """;
 
-        try {
-            Connection conn = DatabaseConnection.getConnection();
-            PreparedStatement pstmt = conn.prepareStatement(sql);
-
-            pstmt.setString(1, pizza.getId());
-            pstmt.setString(2, pizza.getName());
-            pstmt.setString(3, pizza.getDescription());
-            pstmt.setString(4, String.join(", ", pizza.getIngredients()));
-            pstmt.setString(5, pizza.getSize().name());
-            pstmt.setDouble(6, pizza.getPrice());
-            pstmt.setInt(7, pizza.getPreparationTime());
-            pstmt.setString(8, pizza.getCategory().name());
-            pstmt.setBoolean(9, pizza.isAvailable());
-
-            int result = pstmt.executeUpdate();
-            pstmt.close();
-            return result > 0;
+        try (Connection conn = DatabaseConnection.getConnection(OP_ADD_PIZZA)) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                pstmt.setString(1, pizza.getId());
+                pstmt.setString(2, pizza.getName());
+                pstmt.setString(3, pizza.getDescription());
+                pstmt.setString(4, String.join(", ", pizza.getIngredients()));
+                pstmt.setString(5, pizza.getSize().name());
+                pstmt.setBigDecimal(6, Money.toDecimal(pizza.getPriceCents()));
+                pstmt.setInt(7, pizza.getPreparationTime());
+                pstmt.setString(8, pizza.getCategory().name());
+                pstmt.setBoolean(9, pizza.isAvailable());
+
+                boolean inserted = pstmt.executeUpdate() > 0;
+                saveIngredientLinks(conn, pizza.getId(), pizza.getIngredients());
+                conn.commit();
+                return inserted;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
 
         } catch (SQLException e) {
             System.err.println("Ошибка при добавлении пиццы: " + e.getMessage());
@@ -108,31 +74,51 @@ public class PizzaDAODB {
         }
     }
 
+    /**
+     * Сохраняет пиццу, только если её строка не менялась с момента чтения ({@link Pizza#getVersion()}).
+     * При успехе в пиццу записывается новая версия.
+     */
     public boolean updatePizza(Pizza pizza) {
         String sql = """
-            UPDATE pizza 
-            SET name = ?, description = ?, ingredients = ?, size = ?, price = ?, preparation_time = ?, 
-                category = ?, is_available = ?
-            WHERE id = ?
+            SELECT version FROM FINAL TABLE (
+                UPDATE pizza
+                SET name = ?, description = ?, ingredients = ?, size = ?, price = ?, preparation_time = ?,
+                    category = ?, is_available = ?, version = NEXT VALUE FOR row_version_seq
+                WHERE id = ? AND version = ?
+            )
         """;
 
-        try {
-            Connection conn = DatabaseConnection.getConnection();
-            PreparedStatement pstmt = conn.prepareStatement(sql);
-
-            pstmt.setString(1, pizza.getName());
-            pstmt.setString(2, pizza.getDescription());
-            pstmt.setString(3, String.join(", ", pizza.getIngredients()));
-            pstmt.setString(4, pizza.getSize().name());
-            pstmt.setDouble(5, pizza.getPrice());
-            pstmt.setInt(6, pizza.getPreparationTime());
-            pstmt.setString(7, pizza.getCategory().name());
-            pstmt.setBoolean(8, pizza.isAvailable());
-            pstmt.setString(9, pizza.getId());
-
-            int result = pstmt.executeUpdate();
-            pstmt.close();
-            return result > 0;
+        try (Connection conn = DatabaseConnection.getConnection(OP_UPDATE_PIZZA)) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                pstmt.setString(1, pizza.getName());
+                pstmt.setString(2, pizza.getDescription());
+                pstmt.setString(3, String.join(", ", pizza.getIngredients()));
+                pstmt.setString(4, pizza.getSize().name());
+                pstmt.setBigDecimal(5, Money.toDecimal(pizza.getPriceCents()));
+                pstmt.setInt(6, pizza.getPreparationTime());
+                pstmt.setString(7, pizza.getCategory().name());
+                pstmt.setBoolean(8, pizza.isAvailable());
+                pstmt.setString(9, pizza.getId());
+                pstmt.setLong(10, pizza.getVersion());
+
+                long version;
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    if (!rs.next()) {
+                        conn.rollback();
+                        System.err.println("Пицца " + pizza.getId() + " изменена на другом терминале или удалена");
+                        return false;
+                    }
+                    version = rs.getLong(1);
+                }
+                saveIngredientLinks(conn, pizza.getId(), pizza.getIngredients());
+                conn.commit();
+                pizza.setVersion(version);
+                return true;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
 
         } catch (SQLException e) {
             System.err.println("Ошибка при обновлении пиццы: " + e.getMessage());
@@ -140,16 +126,36 @@ public class PizzaDAODB {
         }
     }
 
+    /**
+     * Отпечаток меню: если он не изменился, то и меню в БД то же самое.
+     * Удаление пиццы видно по числу строк, добавление и правка — по максимальной версии.
+     */
+    public record MenuStamp(long count, long maxVersion) {
+    }
+
+    public MenuStamp getMenuStamp() {
+        String sql = "SELECT COUNT(*), COALESCE(MAX(version), 0) FROM pizza";
+        try (Connection conn = DatabaseConnection.getConnection(OP_GET_MENU_STAMP);
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+
+            rs.next();
+            return new MenuStamp(rs.getLong(1), rs.getLong(2));
+
+        } catch (SQLException e) {
+            System.err.println("Ошибка при чтении версии меню: " + e.getMessage());
+            return null;
+        }
+    }
+
     public boolean deletePizza(String id) {
+        // Связи с ингредиентами удаляются каскадно
         String sql = "DELETE FROM pizza WHERE id = ?";
 
-        try {
-            Connection conn = DatabaseConnection.getConnection();
-            PreparedStatement pstmt = conn.prepareStatement(sql);
+        try (Connection conn = DatabaseConnection.getConnection(OP_DELETE_PIZZA);
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setString(1, id);
-            int result = pstmt.executeUpdate();
-            pstmt.close();
-            return result > 0;
+            return pstmt.executeUpdate() > 0;
 
         } catch (SQLException e) {
             System.err.println("Ошибка при удалении пиццы: " + e.getMessage());
@@ -157,19 +163,135 @@ public class PizzaDAODB {
         }
     }
 
-    private Pizza mapResultSetToPizza(ResultSet rs) throws SQLException {
-        List<String> ingredients = List.of(rs.getString("ingredients").split(", "));
-        return new Pizza(
+    // ==================== INGREDIENTS ====================
+
+    /**
+     * Загружает пиццы по запросу {@code sql} и их ингредиенты из словаря вторым запросом.
+     * Имена ингредиентов — общие строки словаря, текстовая колонка не разбирается.
+     */
+    private List<Pizza> loadPizzas(String operation, String sql, String errorMessage, Object... params) {
+        Map<String, Pizza> pizzasById = new LinkedHashMap<>();
+        Map<String, String> ingredientText = new HashMap<>();
+        String linksSql = "SELECT pi.pizza_id, i.id, i.name FROM pizza_ingredients pi " +
+                "JOIN ingredients i ON i.id = pi.ingredient_id " +
+                "WHERE pi.pizza_id = ANY(?) ORDER BY pi.pizza_id, pi.position";
+
+        try (Connection conn = DatabaseConnection.getConnection(operation)) {
+            int rows = 0;
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                for (int i = 0; i < params.length; i++) {
+                    pstmt.setObject(i + 1, params[i]);
+                }
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        Pizza pizza = mapResultSetToPizza(rs);
+                        pizzasById.put(pizza.getId(), pizza);
+                        ingredientText.put(pizza.getId(), rs.getString("ingredients"));
+                        rows++;
+                    }
+                }
+            }
+
+            if (!pizzasById.isEmpty()) {
+                Map<String, List<String>> names = new HashMap<>();
+                Map<String, IngredientSet.Builder> sets = new HashMap<>();
+                Map<Integer, String> sharedNames = new HashMap<>();
+                try (PreparedStatement pstmt = conn.prepareStatement(linksSql)) {
+                    pstmt.setArray(1, conn.createArrayOf("VARCHAR", pizzasById.keySet().toArray()));
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        while (rs.next()) {
+                            String pizzaId = rs.getString(1);
+                            int ingredientId = rs.getInt(2);
+                            String name = sharedNames.get(ingredientId);
+                            if (name == null) {
+                                name = rs.getString(3);
+                                sharedNames.put(ingredientId, name);
+                            }
+                            names.computeIfAbsent(pizzaId, key -> new ArrayList<>()).add(name);
+                            sets.computeIfAbsent(pizzaId, key -> new IngredientSet.Builder()).add(ingredientId);
+                            rows++;
+                        }
+                    }
+                }
+                for (Pizza pizza : pizzasById.values()) {
+                    List<String> pizzaNames = names.get(pizza.getId());
+                    if (pizzaNames != null) {
+                        pizza.setIngredients(List.copyOf(pizzaNames));
+                        pizza.setIngredientSet(sets.get(pizza.getId()).build());
+                    } else {
+                        // Строка добавлена в обход DAO: показываем текст как есть, маска пустая
+                        String text = ingredientText.get(pizza.getId());
+                        pizza.setIngredients(text == null || text.isEmpty() ? List.of() : List.of(text.split(", ")));
+                    }
+                }
+            }
+            ConnectionPool.recordRows(conn, rows);
+
+        } catch (SQLException e) {
+            System.err.println(errorMessage + ": " + e.getMessage());
+        }
+
+        return new ArrayList<>(pizzasById.values());
+    }
+
+    private void saveIngredientLinks(Connection conn, String pizzaId, List<String> ingredients) throws SQLException {
+        Set<String> names = new LinkedHashSet<>();
+        for (String ingredient : ingredients) {
+            String name = IngredientDictionary.normalize(ingredient);
+            if (!name.isEmpty()) {
+                names.add(name);
+            }
+        }
+
+        try (PreparedStatement delete = conn.prepareStatement("DELETE FROM pizza_ingredients WHERE pizza_id = ?")) {
+            delete.setString(1, pizzaId);
+            delete.executeUpdate();
+        }
+
+        try (PreparedStatement find = conn.prepareStatement("SELECT id FROM ingredients WHERE name = ?");
+             PreparedStatement insert = conn.prepareStatement(
+                     "INSERT INTO ingredients (name) VALUES (?)", Statement.RETURN_GENERATED_KEYS);
+             PreparedStatement link = conn.prepareStatement(
+                     "INSERT INTO pizza_ingredients (pizza_id, ingredient_id, position) VALUES (?, ?, ?)")) {
+            int position = 0;
+            for (String name : names) {
+                int id;
+                find.setString(1, name);
+                try (ResultSet rs = find.executeQuery()) {
+                    if (rs.next()) {
+                        id = rs.getInt(1);
+                    } else {
+                        insert.setString(1, name);
+                        insert.executeUpdate();
+                        try (ResultSet keys = insert.getGeneratedKeys()) {
+                            keys.next();
+                            id = keys.getInt(1);
+                        }
+                    }
+                }
+                link.setString(1, pizzaId);
+                link.setInt(2, id);
+                link.setInt(3, position++);
+                link.addBatch();
+            }
+            link.executeBatch();
+        }
+    }
+
+    Pizza mapResultSetToPizza(ResultSet rs) throws SQLException {
+        Pizza pizza = new Pizza(
                 rs.getString("id"),
                 rs.getString("name"),
                 rs.getString("description"),
-                ingredients,
+                List.of(),
                 Pizza.PizzaSize.valueOf(rs.getString("size")),
-                rs.getDouble("price"),
+                Money.fromDecimal(rs.getBigDecimal("price")),
                 rs.getInt("preparation_time"),
                 Pizza.Category.valueOf(rs.getString("category")),
                 rs.getBoolean("is_available")
         );
+        pizza.setVersion(rs.getLong("version"));
+        return pizza;
     }
 
     public void initializeSampleData() {
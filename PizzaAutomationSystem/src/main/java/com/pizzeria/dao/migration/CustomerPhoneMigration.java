@@ -0,0 +1,74 @@
+package com.pizzeria.dao.migration;
+
+import com.pizzeria.models.PhoneNumbers;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Добавляет {@code customers.phone_normalized} с уникальным индексом.
+ * Клиенты с одинаковым нормализованным телефоном объединяются: остаётся самый ранний,
+ * заказы дублей переносятся на него.
+ */
+public class CustomerPhoneMigration implements Migration {
+    // Меняется вместе с логикой миграции или PhoneNumbers.normalize
+    private static final String CHECKSUM = "java-1";
+
+    @Override
+    public int getVersion() { return 6; }
+
+    @Override
+    public String getDescription() { return "customer phone normalized"; }
+
+    @Override
+    public String getChecksum() { return CHECKSUM; }
+
+    @Override
+    public void apply(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("ALTER TABLE customers ADD COLUMN IF NOT EXISTS phone_normalized VARCHAR(20)");
+        }
+
+        Map<String, String> survivorByPhone = new HashMap<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(
+                     "SELECT id, phone FROM customers ORDER BY registration_date, id");
+             PreparedStatement setPhone = conn.prepareStatement(
+                     "UPDATE customers SET phone_normalized = ? WHERE id = ?");
+             PreparedStatement moveOrders = conn.prepareStatement(
+                     "UPDATE orders SET customer_id = ? WHERE customer_id = ?");
+             PreparedStatement delete = conn.prepareStatement("DELETE FROM customers WHERE id = ?")) {
+            while (rs.next()) {
+                String id = rs.getString("id");
+                String phone = PhoneNumbers.normalize(rs.getString("phone"));
+                String survivor = survivorByPhone.putIfAbsent(phone, id);
+                if (survivor == null) {
+                    setPhone.setString(1, phone);
+                    setPhone.setString(2, id);
+                    setPhone.addBatch();
+                } else {
+                    moveOrders.setString(1, survivor);
+                    moveOrders.setString(2, id);
+                    moveOrders.addBatch();
+                    delete.setString(1, id);
+                    delete.addBatch();
+                }
+            }
+            setPhone.executeBatch();
+            moveOrders.executeBatch();
+            delete.executeBatch();
+        }
+
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("ALTER TABLE customers ALTER COLUMN phone_normalized SET NOT NULL");
+            stmt.execute("CREATE UNIQUE INDEX IF NOT EXISTS ux_customers_phone_normalized ON customers(phone_normalized)");
+            // Поиск теперь идёт по нормализованному телефону
+            stmt.execute("DROP INDEX IF EXISTS idx_customers_phone");
+        }
+    }
+}
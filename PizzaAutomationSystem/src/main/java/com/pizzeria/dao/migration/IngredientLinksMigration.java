@@ -0,0 +1,83 @@
+package com.pizzeria.dao.migration;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Переносит текстовые списки ингредиентов из {@code pizza.ingredients} в {@code pizza_ingredients}.
+ * Ингредиенты, которых нет в словаре, добавляются в него без пищевых признаков.
+ */
+public class IngredientLinksMigration implements Migration {
+    // Меняется вместе с логикой миграции, как контрольная сумма SQL-скрипта
+    private static final String CHECKSUM = "java-1";
+
+    @Override
+    public int getVersion() { return 4; }
+
+    @Override
+    public String getDescription() { return "ingredient links"; }
+
+    @Override
+    public String getChecksum() { return CHECKSUM; }
+
+    @Override
+    public void apply(Connection conn) throws SQLException {
+        Map<String, Integer> ids = new HashMap<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT id, name FROM ingredients")) {
+            while (rs.next()) {
+                ids.put(rs.getString("name"), rs.getInt("id"));
+            }
+        }
+
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT id, ingredients FROM pizza");
+             PreparedStatement insertIngredient = conn.prepareStatement(
+                     "INSERT INTO ingredients (name) VALUES (?)", Statement.RETURN_GENERATED_KEYS);
+             PreparedStatement insertLink = conn.prepareStatement(
+                     "INSERT INTO pizza_ingredients (pizza_id, ingredient_id, position) VALUES (?, ?, ?)")) {
+            while (rs.next()) {
+                String pizzaId = rs.getString("id");
+                int position = 0;
+                for (String name : parse(rs.getString("ingredients"))) {
+                    Integer id = ids.get(name);
+                    if (id == null) {
+                        insertIngredient.setString(1, name);
+                        insertIngredient.executeUpdate();
+                        try (ResultSet keys = insertIngredient.getGeneratedKeys()) {
+                            keys.next();
+                            id = keys.getInt(1);
+                        }
+                        ids.put(name, id);
+                    }
+                    insertLink.setString(1, pizzaId);
+                    insertLink.setInt(2, id);
+                    insertLink.setInt(3, position++);
+                    insertLink.addBatch();
+                }
+            }
+            insertLink.executeBatch();
+        }
+    }
+
+    private static Set<String> parse(String ingredients) {
+        Set<String> names = new LinkedHashSet<>();
+        if (ingredients != null) {
+            for (String part : ingredients.split(",")) {
+                String name = part.trim().toLowerCase(Locale.ROOT);
+                if (!name.isEmpty()) {
+                    names.add(name);
+                }
+            }
+        }
+        return names;
+    }
+}
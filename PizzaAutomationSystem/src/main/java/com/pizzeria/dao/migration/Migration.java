@@ -0,0 +1,19 @@
+package com.pizzeria.dao.migration;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Одна версия схемы БД. Миграции применяются по возрастанию версии и ровно один раз;
+ * контрольная сумма защищает от незаметного изменения уже применённой миграции.
+ */
+public interface Migration {
+
+    int getVersion();
+
+    String getDescription();
+
+    String getChecksum();
+
+    void apply(Connection conn) throws SQLException;
+}
@@ -0,0 +1,213 @@
+package com.pizzeria.dao.migration;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Приводит схему БД к актуальной версии. Применённые миграции записываются в таблицу
+ * {@code schema_version}; при следующем запуске они пропускаются.
+ * <p>
+ * DDL в H2 фиксирует транзакцию, поэтому миграция не атомарна и блокировка строки внутри
+ * транзакции до её конца не доживёт. Терминалы общей базы договариваются через строку
+ * в {@code schema_lock}: её вставляет тот, кто мигрирует, и удаляет по окончании.
+ * Уже взяв блокировку, мигратор заново читает применённые версии.
+ */
+public class SchemaMigrator {
+
+    private static final String CREATE_VERSION_TABLE = """
+            CREATE TABLE IF NOT EXISTS schema_version (
+                version INT PRIMARY KEY,
+                description VARCHAR(200) NOT NULL,
+                checksum VARCHAR(64) NOT NULL,
+                installed_on TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+                execution_ms BIGINT
+            )""";
+
+    private static final String CREATE_LOCK_TABLE = """
+            CREATE TABLE IF NOT EXISTS schema_lock (
+                id INT PRIMARY KEY,
+                owner VARCHAR(64) NOT NULL,
+                locked_at TIMESTAMP NOT NULL
+            )""";
+
+    /** Блокировка упавшего терминала снимается, если ей больше стольких миллисекунд. */
+    private static final long STALE_LOCK_MILLIS = Long.getLong("pizzeria.db.migrationLockStaleMs", 600_000);
+    private static final long LOCK_TIMEOUT_MILLIS = Long.getLong("pizzeria.db.migrationLockTimeoutMs", 120_000);
+    private static final long LOCK_RETRY_MILLIS = 200;
+
+    private final List<Migration> migrations;
+
+    public SchemaMigrator(List<Migration> migrations) {
+        this.migrations = migrations.stream()
+                .sorted(Comparator.comparingInt(Migration::getVersion))
+                .toList();
+    }
+
+    public static List<Migration> defaultMigrations() {
+        return List.of(
+                new SqlMigration(1, "baseline", "db/migration/V1__baseline.sql"),
+                new SqlMigration(2, "hot path indexes", "db/migration/V2__hot_path_indexes.sql"),
+                new SqlMigration(3, "ingredient dictionary", "db/migration/V3__ingredient_dictionary.sql"),
+                new IngredientLinksMigration(),
+                new SqlMigration(5, "time ordered ids", "db/migration/V5__time_ordered_ids.sql"),
+                new CustomerPhoneMigration(),
+                new SqlMigration(7, "row versions", "db/migration/V7__row_versions.sql"),
+                new SqlMigration(8, "order archive", "db/migration/V8__order_archive.sql"),
+                new SqlMigration(9, "node leases", "db/migration/V9__node_leases.sql"),
+                new SqlMigration(10, "unreviewed ingredients", "db/migration/V10__unreviewed_ingredients.sql")
+        );
+    }
+
+    /**
+     * Применяет недостающие миграции и возвращает их количество.
+     */
+    public int migrate(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute(CREATE_VERSION_TABLE);
+            stmt.execute(CREATE_LOCK_TABLE);
+        }
+
+        // Обычный запуск: схема уже актуальна, блокировка не нужна
+        if (pending(loadAppliedChecksums(conn)) == 0) {
+            return 0;
+        }
+
+        String owner = UUID.randomUUID().toString();
+        acquireLock(conn, owner);
+        try {
+            return applyPending(conn, loadAppliedChecksums(conn));
+        } finally {
+            releaseLock(conn, owner);
+        }
+    }
+
+    private int pending(Map<Integer, String> applied) throws SQLException {
+        int count = 0;
+        for (Migration migration : migrations) {
+            if (verify(migration, applied.get(migration.getVersion()))) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Сверяет контрольную сумму применённой миграции.
+     *
+     * @return {@code true}, если миграция ещё не применена
+     */
+    private static boolean verify(Migration migration, String checksum) throws SQLException {
+        if (checksum == null) {
+            return true;
+        }
+        if (!checksum.equals(migration.getChecksum())) {
+            throw new SQLException("Миграция V" + migration.getVersion() +
+                    " изменена после применения (checksum " + checksum + " -> " + migration.getChecksum() + ")");
+        }
+        return false;
+    }
+
+    private int applyPending(Connection conn, Map<Integer, String> applied) throws SQLException {
+        int count = 0;
+        for (Migration migration : migrations) {
+            if (verify(migration, applied.get(migration.getVersion()))) {
+                apply(conn, migration);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Вставляет строку блокировки; пока её держит другой терминал, ждёт. Блокировку старше
+     * {@link #STALE_LOCK_MILLIS} оставил упавший процесс — она удаляется.
+     */
+    private static void acquireLock(Connection conn, String owner) throws SQLException {
+        long deadline = System.currentTimeMillis() + LOCK_TIMEOUT_MILLIS;
+        boolean waited = false;
+        while (true) {
+            try (PreparedStatement pstmt = conn.prepareStatement(
+                    "INSERT INTO schema_lock (id, owner, locked_at) VALUES (1, ?, CURRENT_TIMESTAMP)")) {
+                pstmt.setString(1, owner);
+                pstmt.executeUpdate();
+                return;
+            } catch (SQLIntegrityConstraintViolationException busy) {
+                // Блокировку держит другой терминал
+            }
+            try (PreparedStatement pstmt = conn.prepareStatement(
+                    "DELETE FROM schema_lock WHERE id = 1 AND locked_at < ?")) {
+                pstmt.setTimestamp(1, new Timestamp(System.currentTimeMillis() - STALE_LOCK_MILLIS));
+                if (pstmt.executeUpdate() > 0) {
+                    System.err.println("Снята устаревшая блокировка миграций");
+                    continue;
+                }
+            }
+            if (System.currentTimeMillis() > deadline) {
+                throw new SQLException("Миграции выполняет другой терминал дольше " + LOCK_TIMEOUT_MILLIS + " мс");
+            }
+            if (!waited) {
+                System.out.println("Миграции выполняет другой терминал, ожидание...");
+                waited = true;
+            }
+            try {
+                Thread.sleep(LOCK_RETRY_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Ожидание блокировки миграций прервано", e);
+            }
+        }
+    }
+
+    private static void releaseLock(Connection conn, String owner) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement("DELETE FROM schema_lock WHERE id = 1 AND owner = ?")) {
+            pstmt.setString(1, owner);
+            pstmt.executeUpdate();
+        }
+    }
+
+    private void apply(Connection conn, Migration migration) throws SQLException {
+        long start = System.currentTimeMillis();
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try {
+            migration.apply(conn);
+            try (PreparedStatement pstmt = conn.prepareStatement(
+                    "INSERT INTO schema_version (version, description, checksum, execution_ms) VALUES (?, ?, ?, ?)")) {
+                pstmt.setInt(1, migration.getVersion());
+                pstmt.setString(2, migration.getDescription());
+                pstmt.setString(3, migration.getChecksum());
+                pstmt.setLong(4, System.currentTimeMillis() - start);
+                pstmt.executeUpdate();
+            }
+            conn.commit();
+            System.out.println("Применена миграция V" + migration.getVersion() + " (" + migration.getDescription() +
+                    ") за " + (System.currentTimeMillis() - start) + " мс");
+        } catch (SQLException e) {
+            conn.rollback();
+            throw new SQLException("Ошибка миграции V" + migration.getVersion() + ": " + e.getMessage(), e);
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+    }
+
+    private Map<Integer, String> loadAppliedChecksums(Connection conn) throws SQLException {
+        Map<Integer, String> applied = new HashMap<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT version, checksum FROM schema_version")) {
+            while (rs.next()) {
+                applied.put(rs.getInt("version"), rs.getString("checksum"));
+            }
+        }
+        return applied;
+    }
+}
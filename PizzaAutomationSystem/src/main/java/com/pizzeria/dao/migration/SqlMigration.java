@@ -0,0 +1,62 @@
+package com.pizzeria.dao.migration;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.zip.CRC32;
+
+/**
+ * Миграция из SQL-скрипта в classpath, например {@code db/migration/V2__hot_path_indexes.sql}.
+ */
+public class SqlMigration implements Migration {
+    private final int version;
+    private final String description;
+    private final String script;
+    private final String checksum;
+
+    public SqlMigration(int version, String description, String resource) {
+        this.version = version;
+        this.description = description;
+        this.script = readResource(resource);
+        this.checksum = checksumOf(script);
+    }
+
+    @Override
+    public int getVersion() { return version; }
+
+    @Override
+    public String getDescription() { return description; }
+
+    @Override
+    public String getChecksum() { return checksum; }
+
+    @Override
+    public void apply(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            for (String sql : SqlScript.split(script)) {
+                stmt.execute(sql);
+            }
+        }
+    }
+
+    static String checksumOf(String text) {
+        CRC32 crc = new CRC32();
+        crc.update(text.replace("\r\n", "\n").getBytes(StandardCharsets.UTF_8));
+        return Long.toHexString(crc.getValue());
+    }
+
+    private static String readResource(String resource) {
+        try (InputStream in = SqlMigration.class.getClassLoader().getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new IllegalStateException("Не найден " + resource + " в resources");
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.pizzeria.dao.migration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Разбивает SQL-скрипт на отдельные запросы по {@code ;}, не разрезая строковые литералы
+ * и пропуская комментарии {@code --}.
+ */
+final class SqlScript {
+
+    private SqlScript() {
+    }
+
+    static List<String> split(String script) {
+        List<String> statements = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean inString = false;
+        int i = 0;
+        while (i < script.length()) {
+            char c = script.charAt(i);
+            if (inString) {
+                current.append(c);
+                if (c == '\'') {
+                    inString = false;
+                }
+            } else if (c == '\'') {
+                current.append(c);
+                inString = true;
+            } else if (c == '-' && i + 1 < script.length() && script.charAt(i + 1) == '-') {
+                int end = script.indexOf('\n', i);
+                i = end < 0 ? script.length() : end;
+                continue;
+            } else if (c == ';') {
+                addStatement(statements, current);
+            } else {
+                current.append(c);
+            }
+            i++;
+        }
+        addStatement(statements, current);
+        return statements;
+    }
+
+    private static void addStatement(List<String> statements, StringBuilder current) {
+        String sql = current.toString().trim();
+        if (!sql.isEmpty()) {
+            statements.add(sql);
+        }
+        current.setLength(0);
+    }
+}
@@ -0,0 +1,23 @@
+package com.pizzeria.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+public final class Counter extends Metric {
+    private final LongAdder value = new LongAdder();
+
+    Counter(String name, String operation, String help) {
+        super(name, operation, help);
+    }
+
+    public void increment() {
+        value.increment();
+    }
+
+    public void add(long amount) {
+        value.add(amount);
+    }
+
+    public long get() {
+        return value.sum();
+    }
+}
@@ -0,0 +1,19 @@
+package com.pizzeria.metrics;
+
+import java.util.function.DoubleSupplier;
+
+/**
+ * Значение, которое считывается в момент экспорта, например размер очереди.
+ */
+public final class Gauge extends Metric {
+    private final DoubleSupplier supplier;
+
+    Gauge(String name, String operation, String help, DoubleSupplier supplier) {
+        super(name, operation, help);
+        this.supplier = supplier;
+    }
+
+    public double get() {
+        return supplier.getAsDouble();
+    }
+}
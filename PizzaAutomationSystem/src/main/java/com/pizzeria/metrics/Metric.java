@@ -0,0 +1,31 @@
+package com.pizzeria.metrics;
+
+/**
+ * Общая часть всех метрик: имя в формате Prometheus, необязательная метка {@code operation} и описание.
+ */
+public abstract class Metric {
+    private final String name;
+    private final String operation;
+    private final String help;
+
+    Metric(String name, String operation, String help) {
+        this.name = name;
+        this.operation = operation;
+        this.help = help;
+    }
+
+    public String getName() { return name; }
+    public String getOperation() { return operation; }
+    public String getHelp() { return help; }
+
+    /**
+     * Имя с меткой, например {@code pizzeria_dao_seconds{operation="OrderDAODB.getOrdersPage"}}.
+     */
+    public String getKey() {
+        return key(name, operation);
+    }
+
+    static String key(String name, String operation) {
+        return operation == null ? name : name + "{operation=\"" + operation + "\"}";
+    }
+}
@@ -0,0 +1,87 @@
+package com.pizzeria.metrics;
+
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Общий реестр метрик приложения и имена основных метрик.
+ * <p>
+ * Время каждой операции DAO пишет пул соединений, время методов сервисов — сами сервисы.
+ * {@link #start()} публикует реестр в JMX ({@value #OBJECT_NAME}) и, если задан
+ * {@code -Dpizzeria.metrics.port}, поднимает на localhost страницу {@code /metrics} в формате Prometheus.
+ */
+public final class Metrics {
+    public static final String OBJECT_NAME = "com.pizzeria:type=Metrics";
+
+    public static final String DAO_SECONDS = "pizzeria_dao_seconds";
+    public static final String DAO_ROWS = "pizzeria_dao_rows_total";
+    public static final String SERVICE_SECONDS = "pizzeria_service_seconds";
+    public static final String HTTP_SECONDS = "pizzeria_http_seconds";
+    public static final String CONNECTION_WAIT_SECONDS = "pizzeria_db_connection_wait_seconds";
+    public static final String EXECUTOR_WAIT_SECONDS = "pizzeria_executor_wait_seconds";
+
+    private static final MetricsRegistry REGISTRY = new MetricsRegistry();
+    private static PrometheusExporter exporter;
+    private static boolean started = false;
+
+    private Metrics() {
+    }
+
+    public static MetricsRegistry registry() {
+        return REGISTRY;
+    }
+
+    public static Timer dao(String operation) {
+        return REGISTRY.timer(DAO_SECONDS, operation, "Время операций DAO от получения соединения до его возврата");
+    }
+
+    public static Counter daoRows(String operation) {
+        return REGISTRY.counter(DAO_ROWS, operation, "Строк, прочитанных операциями DAO");
+    }
+
+    public static Timer service(String operation) {
+        return REGISTRY.timer(SERVICE_SECONDS, operation, "Время методов сервисов");
+    }
+
+    public static Timer http(String route) {
+        return REGISTRY.timer(HTTP_SECONDS, route, "Время обработки запросов HTTP API");
+    }
+
+    public static Timer connectionWait() {
+        return REGISTRY.timer(CONNECTION_WAIT_SECONDS, null, "Ожидание свободного соединения в пуле");
+    }
+
+    public static Timer executorWait() {
+        return REGISTRY.timer(EXECUTOR_WAIT_SECONDS, null, "Ожидание задачи в очереди фоновых потоков сервисов");
+    }
+
+    public static synchronized void start() {
+        if (started) {
+            return;
+        }
+        started = true;
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new MetricsMBean(REGISTRY), new ObjectName(OBJECT_NAME));
+        } catch (Exception e) {
+            System.err.println("Ошибка регистрации метрик в JMX: " + e.getMessage());
+        }
+
+        Integer port = Integer.getInteger("pizzeria.metrics.port");
+        if (port != null) {
+            try {
+                exporter = new PrometheusExporter(REGISTRY, port);
+                System.out.println("Метрики доступны на http://localhost:" + exporter.getPort() + "/metrics");
+            } catch (IOException e) {
+                System.err.println("Не удалось открыть порт метрик " + port + ": " + e.getMessage());
+            }
+        }
+    }
+
+    public static synchronized void stop() {
+        if (exporter != null) {
+            exporter.close();
+            exporter = null;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.pizzeria.metrics;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Реестр метрик как один MBean. Набор атрибутов строится заново при каждом запросе,
+ * потому что метрики операций появляются по мере первых вызовов.
+ * Таймер даёт атрибуты {@code <метрика>.count}, {@code .errors}, {@code .meanMs}, {@code .p50Ms},
+ * {@code .p99Ms} и {@code .maxMs}; у метрики с меткой к имени добавляется операция.
+ */
+class MetricsMBean implements DynamicMBean {
+    private final MetricsRegistry registry;
+
+    MetricsMBean(MetricsRegistry registry) {
+        this.registry = registry;
+    }
+
+    private Map<String, Supplier<Object>> attributes() {
+        Map<String, Supplier<Object>> attributes = new LinkedHashMap<>();
+        for (Metric metric : registry.getAll()) {
+            String base = metric.getOperation() == null ? metric.getName() : metric.getName() + "." + metric.getOperation();
+            if (metric instanceof Counter counter) {
+                attributes.put(base, counter::get);
+            } else if (metric instanceof Gauge gauge) {
+                attributes.put(base, gauge::get);
+            } else if (metric instanceof Timer timer) {
+                attributes.put(base + ".count", timer::getCount);
+                attributes.put(base + ".errors", timer::getErrors);
+                attributes.put(base + ".meanMs", timer::getMeanMillis);
+                attributes.put(base + ".p50Ms", () -> timer.getPercentileMillis(50));
+                attributes.put(base + ".p99Ms", () -> timer.getPercentileMillis(99));
+                attributes.put(base + ".maxMs", () -> timer.getMaxNanos() / 1_000_000.0);
+            }
+        }
+        return attributes;
+    }
+
+    @Override
+    public Object getAttribute(String name) throws AttributeNotFoundException {
+        Supplier<Object> value = attributes().get(name);
+        if (value == null) {
+            throw new AttributeNotFoundException(name);
+        }
+        return value.get();
+    }
+
+    @Override
+    public AttributeList getAttributes(String[] names) {
+        Map<String, Supplier<Object>> attributes = attributes();
+        AttributeList list = new AttributeList();
+        for (String name : names) {
+            Supplier<Object> value = attributes.get(name);
+            if (value != null) {
+                list.add(new Attribute(name, value.get()));
+            }
+        }
+        return list;
+    }
+
+    @Override
+    public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+        throw new AttributeNotFoundException("Метрики доступны только для чтения: " + attribute.getName());
+    }
+
+    @Override
+    public AttributeList setAttributes(AttributeList attributes) {
+        return new AttributeList();
+    }
+
+    @Override
+    public Object invoke(String actionName, Object[] params, String[] signature) {
+        throw new UnsupportedOperationException(actionName);
+    }
+
+    @Override
+    public MBeanInfo getMBeanInfo() {
+        Map<String, Supplier<Object>> attributes = attributes();
+        MBeanAttributeInfo[] infos = new MBeanAttributeInfo[attributes.size()];
+        int i = 0;
+        for (Map.Entry<String, Supplier<Object>> e : attributes.entrySet()) {
+            String type = e.getValue().get() instanceof Long ? Long.class.getName() : Double.class.getName();
+            infos[i++] = new MBeanAttributeInfo(e.getKey(), type, e.getKey(), true, false, false);
+        }
+        return new MBeanInfo(getClass().getName(), "Метрики Pizza Automation System", infos,
+                null, new MBeanOperationInfo[0], null);
+    }
+}
@@ -0,0 +1,50 @@
+package com.pizzeria.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Набор метрик процесса. Метрика создаётся при первом обращении по имени и метке
+ * и дальше переиспользуется; экспорт идёт в порядке имён.
+ */
+public class MetricsRegistry {
+    private final ConcurrentSkipListMap<String, Metric> metrics = new ConcurrentSkipListMap<>();
+
+    // Метрики с меткой запрашиваются на каждом вызове, поэтому сначала ищем без создания объекта
+    public Counter counter(String name, String operation, String help) {
+        Metric existing = metrics.get(Metric.key(name, operation));
+        if (existing instanceof Counter counter) {
+            return counter;
+        }
+        return register(new Counter(name, operation, help), Counter.class);
+    }
+
+    public Timer timer(String name, String operation, String help) {
+        Metric existing = metrics.get(Metric.key(name, operation));
+        if (existing instanceof Timer timer) {
+            return timer;
+        }
+        return register(new Timer(name, operation, help), Timer.class);
+    }
+
+    public Gauge gauge(String name, String help, DoubleSupplier supplier) {
+        return register(new Gauge(name, null, help, supplier), Gauge.class);
+    }
+
+    public List<Metric> getAll() {
+        return new ArrayList<>(metrics.values());
+    }
+
+    private <M extends Metric> M register(M metric, Class<M> type) {
+        Metric existing = metrics.putIfAbsent(metric.getKey(), metric);
+        if (existing == null) {
+            return metric;
+        }
+        if (!type.isInstance(existing)) {
+            throw new IllegalArgumentException("Метрика " + metric.getKey() + " уже зарегистрирована другого типа");
+        }
+        return type.cast(existing);
+    }
+}
@@ -0,0 +1,140 @@
+package com.pizzeria.metrics;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Страница {@code /metrics} в текстовом формате Prometheus. Слушает только localhost.
+ * <p>
+ * Таймер выгружается гистограммой в секундах ({@code _bucket}, {@code _sum}, {@code _count})
+ * и отдельным счётчиком ошибок {@code <имя без _seconds>_errors_total}.
+ */
+public class PrometheusExporter implements AutoCloseable {
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    public PrometheusExporter(MetricsRegistry registry, int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        executor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "metrics-http");
+            t.setDaemon(true);
+            return t;
+        });
+        server.setExecutor(executor);
+        server.createContext("/metrics", exchange -> {
+            try (exchange) {
+                if (!"GET".equals(exchange.getRequestMethod())) {
+                    exchange.sendResponseHeaders(405, -1);
+                    return;
+                }
+                byte[] body = render(registry.getAll()).getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            }
+        });
+        server.start();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    // Реестр отсортирован по ключу, поэтому метрики с одним именем идут подряд
+    static String render(List<Metric> metrics) {
+        StringBuilder out = new StringBuilder(8192);
+        StringBuilder errors = new StringBuilder();
+        String lastName = null;
+        for (Metric metric : metrics) {
+            String name = metric.getName();
+            if (!name.equals(lastName)) {
+                flushErrors(out, errors, lastName);
+                header(out, name, metric.getHelp(), metric instanceof Counter ? "counter"
+                        : metric instanceof Gauge ? "gauge" : "histogram");
+                lastName = name;
+            }
+            if (metric instanceof Counter counter) {
+                sample(out, name, metric.getOperation(), null, Long.toString(counter.get()));
+            } else if (metric instanceof Gauge gauge) {
+                sample(out, name, metric.getOperation(), null, Double.toString(gauge.get()));
+            } else if (metric instanceof Timer timer) {
+                histogram(out, timer);
+                sample(errors, errorsName(name), metric.getOperation(), null, Long.toString(timer.getErrors()));
+            }
+        }
+        flushErrors(out, errors, lastName);
+        return out.toString();
+    }
+
+    private static void histogram(StringBuilder out, Timer timer) {
+        String name = timer.getName();
+        long[] counts = timer.getBucketCounts();
+        long cumulative = 0;
+        for (int k = 0; k < counts.length - 1; k++) {
+            cumulative += counts[k];
+            sample(out, name + "_bucket", timer.getOperation(),
+                    Double.toString(Timer.upperBoundMicros(k) / 1e6), Long.toString(cumulative));
+        }
+        cumulative += counts[counts.length - 1];
+        sample(out, name + "_bucket", timer.getOperation(), "+Inf", Long.toString(cumulative));
+        sample(out, name + "_sum", timer.getOperation(), null, Double.toString(timer.getTotalNanos() / 1e9));
+        // Счётчик берём из корзин, чтобы он совпадал с +Inf при одновременной записи
+        sample(out, name + "_count", timer.getOperation(), null, Long.toString(cumulative));
+    }
+
+    private static void flushErrors(StringBuilder out, StringBuilder errors, String timerName) {
+        if (errors.length() == 0) {
+            return;
+        }
+        header(out, errorsName(timerName), "Ошибки операций " + timerName, "counter");
+        out.append(errors);
+        errors.setLength(0);
+    }
+
+    private static String errorsName(String timerName) {
+        String base = timerName.endsWith("_seconds") ? timerName.substring(0, timerName.length() - 8) : timerName;
+        return base + "_errors_total";
+    }
+
+    private static void header(StringBuilder out, String name, String help, String type) {
+        out.append("# HELP ").append(name).append(' ').append(help.replace("\\", "\\\\").replace("\n", "\\n")).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void sample(StringBuilder out, String name, String operation, String le, String value) {
+        out.append(name);
+        if (operation != null || le != null) {
+            out.append('{');
+            if (operation != null) {
+                out.append("operation=\"").append(escape(operation)).append('"');
+            }
+            if (le != null) {
+                out.append(operation != null ? "," : "").append("le=\"").append(le).append('"');
+            }
+            out.append('}');
+        }
+        out.append(' ').append(value).append('\n');
+    }
+
+    private static String escape(String label) {
+        return label.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
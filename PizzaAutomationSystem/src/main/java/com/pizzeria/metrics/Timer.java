@@ -0,0 +1,119 @@
+package com.pizzeria.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Время выполнения операции: число вызовов, ошибки, сумма, максимум и гистограмма.
+ * <p>
+ * Гистограмма логарифмическая: корзина {@code k} считает длительности от 2^(k-1) до 2^k мкс,
+ * поэтому запись — это один {@code numberOfLeadingZeros} и один {@link LongAdder} без блокировок.
+ * Перцентили по ней приблизительные, с точностью до корзины.
+ */
+public final class Timer extends Metric {
+    static final int BUCKETS = 32;
+
+    private final LongAdder count = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+
+    /**
+     * Действие, время которого измеряется; может бросать проверяемое исключение.
+     */
+    @FunctionalInterface
+    public interface Call<T, E extends Exception> {
+        T call() throws E;
+    }
+
+    Timer(String name, String operation, String help) {
+        super(name, operation, help);
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    public void record(long nanos) {
+        count.increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+        buckets[bucketOf(nanos)].increment();
+    }
+
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    public void recordError() {
+        errors.increment();
+    }
+
+    /**
+     * Выполняет {@code call} и записывает его время; исключение считается ошибкой и пробрасывается.
+     */
+    public <T, E extends Exception> T record(Call<T, E> call) throws E {
+        long start = System.nanoTime();
+        try {
+            return call.call();
+        } catch (Exception | Error e) {
+            errors.increment();
+            throw e;
+        } finally {
+            recordSince(start);
+        }
+    }
+
+    // ==================== READS ====================
+
+    public long getCount() { return count.sum(); }
+    public long getErrors() { return errors.sum(); }
+    public long getTotalNanos() { return totalNanos.sum(); }
+    public long getMaxNanos() { return maxNanos.get(); }
+
+    public double getMeanMillis() {
+        long n = count.sum();
+        return n == 0 ? 0 : totalNanos.sum() / 1_000_000.0 / n;
+    }
+
+    /**
+     * Верхняя граница корзины, в которую попадает перцентиль {@code percentile} (0–100), в миллисекундах.
+     */
+    public double getPercentileMillis(double percentile) {
+        long[] counts = getBucketCounts();
+        long total = 0;
+        for (long c : counts) {
+            total += c;
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(percentile / 100 * total);
+        long seen = 0;
+        for (int k = 0; k < BUCKETS; k++) {
+            seen += counts[k];
+            if (seen >= rank) {
+                return Math.min(upperBoundMicros(k) / 1000.0, maxNanos.get() / 1_000_000.0);
+            }
+        }
+        return maxNanos.get() / 1_000_000.0;
+    }
+
+    long[] getBucketCounts() {
+        long[] counts = new long[BUCKETS];
+        for (int k = 0; k < BUCKETS; k++) {
+            counts[k] = buckets[k].sum();
+        }
+        return counts;
+    }
+
+    static long upperBoundMicros(int bucket) {
+        return 1L << bucket;
+    }
+
+    private static int bucketOf(long nanos) {
+        long micros = TimeUnit.NANOSECONDS.toMicros(Math.max(0, nanos));
+        return Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+    }
+}
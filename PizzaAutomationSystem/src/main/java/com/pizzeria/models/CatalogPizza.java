@@ -0,0 +1,34 @@
+package com.pizzeria.models;
+
+import java.util.List;
+
+/**
+ * Неизменяемая версия пиццы из каталога, общая для всех позиций заказов,
+ * которые на неё ссылаются. Изменить её нельзя: при изменении пиццы в меню
+ * каталог создаёт экземпляр с новой версией строки, а старые позиции продолжают
+ * ссылаться на прежний.
+ */
+public final class CatalogPizza extends Pizza {
+
+    public CatalogPizza(String id, String name, String description, List<String> ingredients,
+                        PizzaSize size, long priceCents, int preparationTime,
+                        Category category, boolean isAvailable, long version) {
+        super(id, name, description, List.copyOf(ingredients), size, priceCents, preparationTime, category, isAvailable);
+        super.setVersion(version);
+    }
+
+    @Override public void setName(String name) { throw immutable(); }
+    @Override public void setDescription(String description) { throw immutable(); }
+    @Override public void setIngredients(List<String> ingredients) { throw immutable(); }
+    @Override public void setSize(PizzaSize size) { throw immutable(); }
+    @Override public void setPriceCents(long priceCents) { throw immutable(); }
+    @Override public void setPreparationTime(int preparationTime) { throw immutable(); }
+    @Override public void setCategory(Category category) { throw immutable(); }
+    @Override public void setAvailable(boolean available) { throw immutable(); }
+    @Override public void setIngredientSet(IngredientSet ingredientSet) { throw immutable(); }
+    @Override public void setVersion(long version) { throw immutable(); }
+
+    private UnsupportedOperationException immutable() {
+        return new UnsupportedOperationException("Пицца из каталога не изменяется: " + getId());
+    }
+}
@@ -1,7 +1,6 @@
 package com.pizzeria.models;
 
 import java.time.LocalDate;
-import java.util.UUID;
 
 public class Customer {
     private String id;
@@ -26,7 +25,7 @@ public class Customer {
     }
 
     public Customer(String name, String phone, String email, String address) {
-        this(UUID.randomUUID().toString().substring(0, 6),
+        this(IdGenerator.nextId(),
                 name, phone, email, address, LocalDate.now(), 0, 0);
     }
 
@@ -0,0 +1,72 @@
+package com.pizzeria.models;
+
+import com.pizzeria.models.Order.OrderStatus;
+
+import java.time.LocalDate;
+
+/**
+ * Согласованный срез статистики заказов на один момент времени.
+ * Массивы индексируются {@link OrderStatus#ordinal()}, суммы хранятся в тиынах.
+ */
+public class DashboardSnapshot {
+    private final LocalDate day;
+    private final int[] counts;
+    private final long[] revenueCents;
+    private final int[] todayCounts;
+    private final long[] todayRevenueCents;
+
+    public DashboardSnapshot(LocalDate day, int[] counts, long[] revenueCents,
+                             int[] todayCounts, long[] todayRevenueCents) {
+        this.day = day;
+        this.counts = counts;
+        this.revenueCents = revenueCents;
+        this.todayCounts = todayCounts;
+        this.todayRevenueCents = todayRevenueCents;
+    }
+
+    public static DashboardSnapshot empty(LocalDate day) {
+        int n = OrderStatus.values().length;
+        return new DashboardSnapshot(day, new int[n], new long[n], new int[n], new long[n]);
+    }
+
+    public LocalDate getDay() { return day; }
+    public int getCount(OrderStatus status) { return counts[status.ordinal()]; }
+    public long getRevenueCents(OrderStatus status) { return revenueCents[status.ordinal()]; }
+    public int getTodayCount(OrderStatus status) { return todayCounts[status.ordinal()]; }
+    public long getTodayRevenueCents(OrderStatus status) { return todayRevenueCents[status.ordinal()]; }
+
+    // Все заказы, кроме отменённых
+    public int getTotalOrdersCount() {
+        return sum(counts) - counts[OrderStatus.CANCELLED.ordinal()];
+    }
+
+    public int getTodayOrdersCount() {
+        return sum(todayCounts);
+    }
+
+    // Выручка по всем заказам, кроме отменённых
+    public long getTotalRevenueCents() {
+        return sum(revenueCents) - revenueCents[OrderStatus.CANCELLED.ordinal()];
+    }
+
+    // Выручка за сегодня по завершённым заказам
+    public long getTodayRevenueCents() {
+        return todayRevenueCents[OrderStatus.COMPLETED.ordinal()];
+    }
+
+    private static int sum(int[] values) {
+        int total = 0;
+        for (int v : values) {
+            total += v;
+        }
+        return total;
+    }
+
+    private static long sum(long[] values) {
+        long total = 0;
+        for (long v : values) {
+            total += v;
+        }
+        return total;
+    }
+}
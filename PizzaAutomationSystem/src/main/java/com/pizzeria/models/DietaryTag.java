@@ -0,0 +1,23 @@
+package com.pizzeria.models;
+
+/**
+ * Пищевые признаки ингредиента, по которым фильтруется меню.
+ */
+public enum DietaryTag {
+    MEAT("Мясо"),
+    PORK("Свинина"),
+    POULTRY("Птица"),
+    FISH("Рыба"),
+    DAIRY("Молочные продукты"),
+    SPICY("Острое");
+
+    private final String displayName;
+
+    DietaryTag(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+}
@@ -0,0 +1,79 @@
+package com.pizzeria.models;
+
+import java.security.SecureRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Генератор идентификаторов заказов и клиентов в духе Snowflake.
+ * <p>
+ * 64-битное значение: 41 бит — миллисекунды от {@link #EPOCH_MILLIS}, 10 бит — номер узла,
+ * 12 бит — счётчик внутри миллисекунды. Номер узла каждый запуск арендует в таблице
+ * node_leases, так что несколько терминалов с общей базой не пересекаются. Внутри JVM генерация
+ * идёт через CAS без блокировок; если счётчик миллисекунды исчерпан или часы отстали,
+ * время берётся следующее за последним выданным, поэтому id всегда растут.
+ * <p>
+ * В строку id кодируется 13 символами Crockford base32 фиксированной ширины: строки
+ * сравниваются так же, как числа, и новые заказы вставляются в конец индекса.
+ */
+public final class IdGenerator {
+    // 2024-01-01T00:00:00Z, 41 бита хватит до 2093 года
+    public static final long EPOCH_MILLIS = 1_704_067_200_000L;
+    public static final int NODE_BITS = 10;
+    public static final int MAX_NODE = (1 << NODE_BITS) - 1;
+    private static final int SEQUENCE_BITS = 12;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    public static final int ENCODED_LENGTH = 13;
+
+    // До получения номера из БД узел случайный, чтобы id без БД тоже не пересекались
+    private static volatile int nodeId = new SecureRandom().nextInt(MAX_NODE + 1);
+    // Последнее выданное значение: миллисекунды << SEQUENCE_BITS | счётчик
+    private static final AtomicLong lastState = new AtomicLong();
+
+    private IdGenerator() {
+    }
+
+    public static void setNodeId(int node) {
+        if (node < 0 || node > MAX_NODE) {
+            throw new IllegalArgumentException("Номер узла должен быть от 0 до " + MAX_NODE + ": " + node);
+        }
+        nodeId = node;
+    }
+
+    public static int getNodeId() {
+        return nodeId;
+    }
+
+    public static long nextLong() {
+        long now = System.currentTimeMillis() - EPOCH_MILLIS;
+        long prev;
+        long next;
+        do {
+            prev = lastState.get();
+            long candidate = now << SEQUENCE_BITS;
+            // При исчерпанном счётчике prev + 1 переносится в следующую миллисекунду
+            next = candidate > prev ? candidate : prev + 1;
+        } while (!lastState.compareAndSet(prev, next));
+
+        long millis = next >>> SEQUENCE_BITS;
+        return (millis << (NODE_BITS + SEQUENCE_BITS)) | ((long) nodeId << SEQUENCE_BITS) | (next & SEQUENCE_MASK);
+    }
+
+    public static String nextId() {
+        return encode(nextLong());
+    }
+
+    public static String encode(long id) {
+        char[] chars = new char[ENCODED_LENGTH];
+        for (int i = ENCODED_LENGTH - 1; i >= 0; i--) {
+            chars[i] = ALPHABET[(int) (id & 31)];
+            id >>>= 5;
+        }
+        return new String(chars);
+    }
+
+    public static long timestampOf(long id) {
+        return (id >>> (NODE_BITS + SEQUENCE_BITS)) + EPOCH_MILLIS;
+    }
+}
@@ -0,0 +1,39 @@
+package com.pizzeria.models;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+public final class Ingredient {
+    private final int id;
+    private final String name;
+    private final Set<DietaryTag> tags;
+    // false — признаки ещё никто не проверил, пустой набор ничего не гарантирует
+    private final boolean tagged;
+
+    /**
+     * @param tags пищевые признаки; {@code null}, если они не проверены
+     */
+    public Ingredient(int id, String name, Set<DietaryTag> tags) {
+        this.id = id;
+        this.name = name;
+        this.tagged = tags != null;
+        this.tags = tags == null || tags.isEmpty()
+                ? Collections.emptySet()
+                : Collections.unmodifiableSet(EnumSet.copyOf(tags));
+    }
+
+    public int getId() { return id; }
+    public String getName() { return name; }
+    public Set<DietaryTag> getTags() { return tags; }
+    public boolean isTagged() { return tagged; }
+
+    public boolean hasTag(DietaryTag tag) {
+        return tags.contains(tag);
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,71 @@
+package com.pizzeria.models;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Словарь ингредиентов с заранее посчитанными масками по пищевым признакам.
+ */
+public final class IngredientDictionary {
+    public static final IngredientDictionary EMPTY = new IngredientDictionary(List.of());
+
+    private final List<Ingredient> all;
+    private final Map<String, Ingredient> byName = new HashMap<>();
+    private final Map<DietaryTag, IngredientSet> tagMasks = new EnumMap<>(DietaryTag.class);
+    private final IngredientSet untagged;
+
+    public IngredientDictionary(Collection<Ingredient> ingredients) {
+        this.all = List.copyOf(ingredients);
+        Map<DietaryTag, IngredientSet.Builder> builders = new EnumMap<>(DietaryTag.class);
+        for (DietaryTag tag : DietaryTag.values()) {
+            builders.put(tag, new IngredientSet.Builder());
+        }
+        IngredientSet.Builder untaggedBuilder = new IngredientSet.Builder();
+        for (Ingredient ingredient : all) {
+            byName.put(ingredient.getName(), ingredient);
+            if (!ingredient.isTagged()) {
+                untaggedBuilder.add(ingredient.getId());
+            }
+            for (DietaryTag tag : ingredient.getTags()) {
+                builders.get(tag).add(ingredient.getId());
+            }
+        }
+        builders.forEach((tag, builder) -> tagMasks.put(tag, builder.build()));
+        this.untagged = untaggedBuilder.build();
+    }
+
+    public List<Ingredient> getAll() {
+        return Collections.unmodifiableList(all);
+    }
+
+    public Ingredient find(String name) {
+        return name == null ? null : byName.get(normalize(name));
+    }
+
+    /**
+     * Все ингредиенты, у которых есть хотя бы один из признаков.
+     */
+    public IngredientSet withAnyTag(Collection<DietaryTag> tags) {
+        IngredientSet.Builder builder = new IngredientSet.Builder();
+        for (DietaryTag tag : tags) {
+            builder.addAll(tagMasks.get(tag));
+        }
+        return builder.build();
+    }
+
+    /**
+     * Ингредиенты с непроверенными признаками.
+     */
+    public IngredientSet untagged() {
+        return untagged;
+    }
+
+    public static String normalize(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+}
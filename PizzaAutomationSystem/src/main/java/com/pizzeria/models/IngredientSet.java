@@ -0,0 +1,137 @@
+package com.pizzeria.models;
+
+import java.util.Arrays;
+
+/**
+ * Неизменяемое множество id ингредиентов в виде битовой маски: бит {@code id} установлен,
+ * если ингредиент входит в множество. Проверки «содержит все» и «пересекается»
+ * выполняются над машинными словами, без сравнения строк.
+ */
+public final class IngredientSet {
+    public static final IngredientSet EMPTY = new IngredientSet(new long[0]);
+
+    private final long[] words;
+
+    private IngredientSet(long[] words) {
+        this.words = words;
+    }
+
+    public static IngredientSet of(int... ids) {
+        Builder builder = new Builder();
+        for (int id : ids) {
+            builder.add(id);
+        }
+        return builder.build();
+    }
+
+    public boolean contains(int id) {
+        int word = id >>> 6;
+        return word < words.length && (words[word] & (1L << id)) != 0;
+    }
+
+    public boolean containsAll(IngredientSet other) {
+        for (int i = 0; i < other.words.length; i++) {
+            long mine = i < words.length ? words[i] : 0;
+            if ((other.words[i] & ~mine) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public boolean intersects(IngredientSet other) {
+        int common = Math.min(words.length, other.words.length);
+        for (int i = 0; i < common; i++) {
+            if ((words[i] & other.words[i]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public IngredientSet union(IngredientSet other) {
+        if (other.words.length > words.length) {
+            return other.union(this);
+        }
+        long[] result = words.clone();
+        for (int i = 0; i < other.words.length; i++) {
+            result[i] |= other.words[i];
+        }
+        return new IngredientSet(result);
+    }
+
+    public boolean isEmpty() {
+        return words.length == 0;
+    }
+
+    public int size() {
+        int count = 0;
+        for (long word : words) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    public int[] toArray() {
+        int[] ids = new int[size()];
+        int n = 0;
+        for (int i = 0; i < words.length; i++) {
+            long word = words[i];
+            while (word != 0) {
+                ids[n++] = (i << 6) + Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+            }
+        }
+        return ids;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof IngredientSet other && Arrays.equals(words, other.words);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(words);
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(toArray());
+    }
+
+    public static final class Builder {
+        private long[] words = new long[1];
+
+        public Builder add(int id) {
+            if (id < 0) {
+                throw new IllegalArgumentException("Отрицательный id ингредиента: " + id);
+            }
+            int word = id >>> 6;
+            if (word >= words.length) {
+                words = Arrays.copyOf(words, Math.max(word + 1, words.length * 2));
+            }
+            words[word] |= 1L << id;
+            return this;
+        }
+
+        public Builder addAll(IngredientSet set) {
+            if (set.words.length > words.length) {
+                words = Arrays.copyOf(words, set.words.length);
+            }
+            for (int i = 0; i < set.words.length; i++) {
+                words[i] |= set.words[i];
+            }
+            return this;
+        }
+
+        public IngredientSet build() {
+            // Без нулевых слов в конце, чтобы равные множества имели одинаковый массив
+            int length = words.length;
+            while (length > 0 && words[length - 1] == 0) {
+                length--;
+            }
+            return length == 0 ? EMPTY : new IngredientSet(Arrays.copyOf(words, length));
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.pizzeria.models;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Денежные суммы в тиынах ({@code long}, 1 ₸ = 100 тиын). Вся арифметика целочисленная,
+ * поэтому суммы по любому числу заказов не накапливают ошибку округления.
+ * С колонками {@code DECIMAL(10,2)} суммы обмениваются через {@link BigDecimal}.
+ */
+public final class Money {
+    public static final String CURRENCY = "₸";
+    private static final int SCALE = 2;
+
+    private Money() {
+    }
+
+    public static long fromDecimal(BigDecimal amount) {
+        if (amount == null) {
+            return 0;
+        }
+        return amount.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    public static BigDecimal toDecimal(long cents) {
+        return BigDecimal.valueOf(cents, SCALE);
+    }
+
+    /**
+     * Разбирает сумму, введённую пользователем: «2500», «2500.5», «2500,50».
+     *
+     * @throws NumberFormatException если это не число или в нём больше двух знаков после запятой
+     */
+    public static long parse(String text) {
+        BigDecimal amount = new BigDecimal(text.trim().replace(',', '.'));
+        if (amount.stripTrailingZeros().scale() > SCALE) {
+            throw new NumberFormatException("Больше двух знаков после запятой: " + text);
+        }
+        try {
+            return amount.setScale(SCALE, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+        } catch (ArithmeticException e) {
+            throw new NumberFormatException("Слишком большая сумма: " + text);
+        }
+    }
+
+    public static long times(long cents, int quantity) {
+        return Math.multiplyExact(cents, quantity);
+    }
+
+    /**
+     * Сумма без валюты, с двумя знаками после точки: {@code 250050 -> "2500.50"}.
+     * Собирается без {@code String.format}, так как вызывается при отрисовке каждой ячейки.
+     */
+    public static String toPlainString(long cents) {
+        StringBuilder sb = new StringBuilder(16);
+        appendPlain(sb, cents);
+        return sb.toString();
+    }
+
+    public static String format(long cents) {
+        StringBuilder sb = new StringBuilder(16);
+        appendPlain(sb, cents);
+        return sb.append(CURRENCY).toString();
+    }
+
+    /**
+     * Целое число тенге с округлением половины вверх, для сводных показателей.
+     */
+    public static long roundToWhole(long cents) {
+        return Math.floorDiv(cents + 50, 100);
+    }
+
+    private static void appendPlain(StringBuilder sb, long cents) {
+        if (cents < 0) {
+            sb.append('-');
+        }
+        long abs = Math.abs(cents);
+        long fraction = abs % 100;
+        sb.append(abs / 100).append('.');
+        if (fraction < 10) {
+            sb.append('0');
+        }
+        sb.append(fraction);
+    }
+}
@@ -1,13 +1,22 @@
 package com.pizzeria.models;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.List;
-import java.util.UUID;
+import java.util.Map;
+import java.util.Set;
 
 public class Order {
     private String orderId;
     private Customer customer;
-    private List<OrderItem> items;
+    private final List<OrderItem> items;
+    private final List<OrderItem> itemsView;
+    // Сумма в тиынах пересчитывается только при изменении позиций, строка для таблицы — лениво
+    private long totalCents;
+    private String formattedTotal;
     private OrderStatus status;
     private LocalDateTime orderTime;
     private LocalDateTime estimatedReadyTime;
@@ -15,6 +24,8 @@ public class Order {
     private String notes;
     private String deliveryAddress;
     private DeliveryType deliveryType;
+    // Версия строки в БД: UPDATE проходит, только если она не изменилась с момента чтения
+    private long version;
 
     public enum OrderStatus {
         PENDING("В ожидании"),
@@ -26,6 +37,20 @@ public class Order {
         COMPLETED("Завершен"),
         CANCELLED("Отменен");
 
+        // Допустимые переходы; из COMPLETED и CANCELLED перейти нельзя
+        private static final Map<OrderStatus, Set<OrderStatus>> TRANSITIONS = new EnumMap<>(OrderStatus.class);
+
+        static {
+            TRANSITIONS.put(PENDING, EnumSet.of(CONFIRMED, CANCELLED));
+            TRANSITIONS.put(CONFIRMED, EnumSet.of(PREPARING, CANCELLED));
+            TRANSITIONS.put(PREPARING, EnumSet.of(BAKING, CANCELLED));
+            TRANSITIONS.put(BAKING, EnumSet.of(READY, CANCELLED));
+            TRANSITIONS.put(READY, EnumSet.of(DELIVERING, COMPLETED, CANCELLED));
+            TRANSITIONS.put(DELIVERING, EnumSet.of(COMPLETED, CANCELLED));
+            TRANSITIONS.put(COMPLETED, EnumSet.noneOf(OrderStatus.class));
+            TRANSITIONS.put(CANCELLED, EnumSet.noneOf(OrderStatus.class));
+        }
+
         private final String displayName;
 
         OrderStatus(String displayName) {
@@ -35,6 +60,18 @@ public class Order {
         public String getDisplayName() {
             return displayName;
         }
+
+        public boolean canTransitionTo(OrderStatus next) {
+            return TRANSITIONS.get(this).contains(next);
+        }
+
+        public Set<OrderStatus> getAllowedTransitions() {
+            return Collections.unmodifiableSet(TRANSITIONS.get(this));
+        }
+
+        public boolean isTerminal() {
+            return TRANSITIONS.get(this).isEmpty();
+        }
     }
 
     public enum DeliveryType {
@@ -57,7 +94,11 @@ public class Order {
                  String notes, String deliveryAddress, DeliveryType deliveryType) {
         this.orderId = orderId;
         this.customer = customer;
-        this.items = items;
+        this.items = new ArrayList<>(items.size());
+        this.itemsView = Collections.unmodifiableList(this.items);
+        for (OrderItem item : items) {
+            addItem(item);
+        }
         this.status = status;
         this.orderTime = orderTime;
         this.estimatedReadyTime = estimatedReadyTime;
@@ -69,14 +110,34 @@ public class Order {
 
     public Order(Customer customer, List<OrderItem> items, String notes,
                  String deliveryAddress, DeliveryType deliveryType) {
-        this(UUID.randomUUID().toString().substring(0, 8).toUpperCase(),
+        this(IdGenerator.nextId(),
                 customer, items, OrderStatus.PENDING, LocalDateTime.now(),
                 LocalDateTime.now().plusMinutes(30), null, notes,
                 deliveryAddress, deliveryType);
     }
 
-    public double calculateTotal() {
-        return items.stream().mapToDouble(OrderItem::getTotalPrice).sum();
+    public void addItem(OrderItem item) {
+        item.owner = this;
+        items.add(item);
+        itemTotalChanged(item.getTotalPriceCents());
+    }
+
+    public boolean removeItem(OrderItem item) {
+        if (!items.remove(item)) {
+            return false;
+        }
+        item.owner = null;
+        itemTotalChanged(-item.getTotalPriceCents());
+        return true;
+    }
+
+    void itemTotalChanged(long deltaCents) {
+        totalCents = Math.addExact(totalCents, deltaCents);
+        formattedTotal = null;
+    }
+
+    public long getTotalCents() {
+        return totalCents;
     }
 
     public int calculateTotalPreparationTime() {
@@ -90,7 +151,7 @@ public class Order {
     // Getters
     public String getOrderId() { return orderId; }
     public Customer getCustomer() { return customer; }
-    public List<OrderItem> getItems() { return items; }
+    public List<OrderItem> getItems() { return itemsView; }
     public OrderStatus getStatus() { return status; }
     public LocalDateTime getOrderTime() { return orderTime; }
     public LocalDateTime getEstimatedReadyTime() { return estimatedReadyTime; }
@@ -98,14 +159,21 @@ public class Order {
     public String getNotes() { return notes; }
     public String getDeliveryAddress() { return deliveryAddress; }
     public DeliveryType getDeliveryType() { return deliveryType; }
+    public long getVersion() { return version; }
 
     // Setters
     public void setStatus(OrderStatus status) { this.status = status; }
     public void setPayment(Payment payment) { this.payment = payment; }
     public void setEstimatedReadyTime(LocalDateTime estimatedReadyTime) { this.estimatedReadyTime = estimatedReadyTime; }
+    public void setVersion(long version) { this.version = version; }
 
     public String getFormattedTotal() {
-        return String.format("%.2f₸", calculateTotal());
+        String formatted = formattedTotal;
+        if (formatted == null) {
+            formatted = Money.format(totalCents);
+            formattedTotal = formatted;
+        }
+        return formatted;
     }
 
     public String getFormattedOrderTime() {
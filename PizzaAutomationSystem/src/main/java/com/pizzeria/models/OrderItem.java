@@ -3,15 +3,24 @@ package com.pizzeria.models;
 public class OrderItem {
     private Pizza pizza;
     private int quantity;
+    // Цена на момент заказа в тиынах; цена пиццы в меню могла измениться позже
+    private final long unitPriceCents;
     private String specialInstructions;
+    // Заказ, чью сумму нужно поправить при изменении количества
+    Order owner;
 
     public OrderItem(Pizza pizza, int quantity) {
+        this(pizza, quantity, pizza.getPriceCents());
+    }
+
+    public OrderItem(Pizza pizza, int quantity, long unitPriceCents) {
         this.pizza = pizza;
         this.quantity = quantity;
+        this.unitPriceCents = unitPriceCents;
     }
 
-    public double getTotalPrice() {
-        return pizza.getPrice() * quantity;
+    public long getTotalPriceCents() {
+        return Money.times(unitPriceCents, quantity);
     }
 
     public int getPreparationTime() {
@@ -20,11 +29,18 @@ public class OrderItem {
 
     public Pizza getPizza() { return pizza; }
     public int getQuantity() { return quantity; }
+    public long getUnitPriceCents() { return unitPriceCents; }
     public String getSpecialInstructions() { return specialInstructions; }
 
-    public void setQuantity(int quantity) { this.quantity = quantity; }
+    public void setQuantity(int quantity) {
+        long before = getTotalPriceCents();
+        this.quantity = quantity;
+        if (owner != null) {
+            owner.itemTotalChanged(getTotalPriceCents() - before);
+        }
+    }
 
     public String getFormattedTotal() {
-        return String.format("%.2f₸", getTotalPrice());
+        return Money.format(getTotalPriceCents());
     }
 }
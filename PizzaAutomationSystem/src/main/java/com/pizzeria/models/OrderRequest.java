@@ -0,0 +1,29 @@
+package com.pizzeria.models;
+
+import java.util.List;
+
+/**
+ * Данные для оформления одного заказа, например из агрегатора доставки.
+ */
+public class OrderRequest {
+    private final Customer customer;
+    private final List<OrderItem> items;
+    private final String notes;
+    private final String deliveryAddress;
+    private final Order.DeliveryType deliveryType;
+
+    public OrderRequest(Customer customer, List<OrderItem> items, String notes,
+                        String deliveryAddress, Order.DeliveryType deliveryType) {
+        this.customer = customer;
+        this.items = items;
+        this.notes = notes;
+        this.deliveryAddress = deliveryAddress;
+        this.deliveryType = deliveryType;
+    }
+
+    public Customer getCustomer() { return customer; }
+    public List<OrderItem> getItems() { return items; }
+    public String getNotes() { return notes; }
+    public String getDeliveryAddress() { return deliveryAddress; }
+    public Order.DeliveryType getDeliveryType() { return deliveryType; }
+}
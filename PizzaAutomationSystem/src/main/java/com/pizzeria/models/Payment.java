@@ -1,12 +1,11 @@
 package com.pizzeria.models;
 
 import java.time.LocalDateTime;
-import java.util.UUID;
 
 public class Payment {
     private String paymentId;
     private PaymentMethod method;
-    private double amount;
+    private long amountCents;
     private PaymentStatus status;
     private LocalDateTime paymentTime;
 
@@ -44,23 +43,23 @@ public class Payment {
         }
     }
 
-    public Payment(String paymentId, PaymentMethod method, double amount, PaymentStatus status, LocalDateTime paymentTime) {
+    public Payment(String paymentId, PaymentMethod method, long amountCents, PaymentStatus status, LocalDateTime paymentTime) {
         this.paymentId = paymentId;
         this.method = method;
-        this.amount = amount;
+        this.amountCents = amountCents;
         this.status = status;
         this.paymentTime = paymentTime;
     }
 
-    public Payment(PaymentMethod method, double amount) {
-        this(UUID.randomUUID().toString().substring(0, 8).toUpperCase(),
-                method, amount, PaymentStatus.PENDING, null);
+    public Payment(PaymentMethod method, long amountCents) {
+        this(IdGenerator.nextId(),
+                method, amountCents, PaymentStatus.PENDING, null);
     }
 
     // Getters
     public String getPaymentId() { return paymentId; }
     public PaymentMethod getMethod() { return method; }
-    public double getAmount() { return amount; }
+    public long getAmountCents() { return amountCents; }
     public PaymentStatus getStatus() { return status; }
     public LocalDateTime getPaymentTime() { return paymentTime; }
 
@@ -77,6 +76,6 @@ public class Payment {
     }
 
     public String getFormattedAmount() {
-        return String.format("%.2f₸", amount);
+        return Money.format(amountCents);
     }
 }
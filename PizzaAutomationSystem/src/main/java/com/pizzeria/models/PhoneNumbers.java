@@ -0,0 +1,35 @@
+package com.pizzeria.models;
+
+/**
+ * Приведение телефонов к единому виду, по которому клиенты ищутся и не дублируются.
+ */
+public final class PhoneNumbers {
+
+    private PhoneNumbers() {
+    }
+
+    /**
+     * Оставляет только цифры; местный формат «8XXXXXXXXXX» приводится к «7XXXXXXXXXX».
+     * {@code "+7 (701) 123-45-67"} и {@code "87011234567"} дают {@code "77011234567"}.
+     * Строка без цифр возвращается как есть, без пробелов по краям.
+     */
+    public static String normalize(String phone) {
+        if (phone == null) {
+            return null;
+        }
+        StringBuilder digits = new StringBuilder(phone.length());
+        for (int i = 0; i < phone.length(); i++) {
+            char c = phone.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits.append(c);
+            }
+        }
+        if (digits.length() == 0) {
+            return phone.trim();
+        }
+        if (digits.length() == 11 && digits.charAt(0) == '8') {
+            digits.setCharAt(0, '7');
+        }
+        return digits.toString();
+    }
+}
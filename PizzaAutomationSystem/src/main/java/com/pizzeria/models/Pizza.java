@@ -8,10 +8,14 @@ public class Pizza {
     private String description;
     private List<String> ingredients;
     private PizzaSize size;
-    private double price;
+    private long priceCents;
     private int preparationTime;
     private Category category;
     private boolean isAvailable;
+    // Битовая маска id ингредиентов из словаря, заполняется при загрузке из БД
+    private IngredientSet ingredientSet = IngredientSet.EMPTY;
+    // Версия строки в БД для проверки при сохранении с нескольких терминалов
+    private long version;
 
     public enum PizzaSize {
         SMALL(25), MEDIUM(30), LARGE(35), XXL(40);
@@ -46,14 +50,14 @@ public class Pizza {
     }
 
     public Pizza(String id, String name, String description, List<String> ingredients,
-                 PizzaSize size, double price, int preparationTime,
+                 PizzaSize size, long priceCents, int preparationTime,
                  Category category, boolean isAvailable) {
         this.id = id;
         this.name = name;
         this.description = description;
         this.ingredients = ingredients;
         this.size = size;
-        this.price = price;
+        this.priceCents = priceCents;
         this.preparationTime = preparationTime;
         this.category = category;
         this.isAvailable = isAvailable;
@@ -61,8 +65,8 @@ public class Pizza {
 
     // Упрощенный конструктор
     public Pizza(String id, String name, List<String> ingredients, PizzaSize size,
-                 double price, Category category) {
-        this(id, name, "Вкусная пицца " + name, ingredients, size, price,
+                 long priceCents, Category category) {
+        this(id, name, "Вкусная пицца " + name, ingredients, size, priceCents,
                 20, category, true);
     }
 
@@ -72,23 +76,27 @@ public class Pizza {
     public String getDescription() { return description; }
     public List<String> getIngredients() { return ingredients; }
     public PizzaSize getSize() { return size; }
-    public double getPrice() { return price; }
+    public long getPriceCents() { return priceCents; }
     public int getPreparationTime() { return preparationTime; }
     public Category getCategory() { return category; }
     public boolean isAvailable() { return isAvailable; }
+    public IngredientSet getIngredientSet() { return ingredientSet; }
+    public long getVersion() { return version; }
 
     // Setters
     public void setName(String name) { this.name = name; }
     public void setDescription(String description) { this.description = description; }
     public void setIngredients(List<String> ingredients) { this.ingredients = ingredients; }
     public void setSize(PizzaSize size) { this.size = size; }
-    public void setPrice(double price) { this.price = price; }
+    public void setPriceCents(long priceCents) { this.priceCents = priceCents; }
     public void setPreparationTime(int preparationTime) { this.preparationTime = preparationTime; }
     public void setCategory(Category category) { this.category = category; }
     public void setAvailable(boolean available) { isAvailable = available; }
+    public void setIngredientSet(IngredientSet ingredientSet) { this.ingredientSet = ingredientSet; }
+    public void setVersion(long version) { this.version = version; }
 
     public String getFormattedPrice() {
-        return String.format("%.2f₸", price);
+        return Money.format(priceCents);
     }
 
     public String getIngredientsString() {
@@ -97,6 +105,6 @@ public class Pizza {
 
     @Override
     public String toString() {
-        return String.format("%s (%s) - %s", name, size, getFormattedPrice());
+        return name + " (" + size + ") - " + getFormattedPrice();
     }
 }
@@ -0,0 +1,36 @@
+package com.pizzeria.models;
+
+import com.pizzeria.models.Order.OrderStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Итог условной смены статуса заказа.
+ * <p>
+ * {@code actual} — статус заказа в БД после попытки: новый при {@link Result#APPLIED},
+ * а при {@link Result#CONFLICT} тот, который успел поставить кто-то другой.
+ * Недопустимый переход отклоняется без обращения к БД.
+ * Время и сумма заказа заполнены только при успешном переходе.
+ */
+public record StatusChange(Result result, OrderStatus expected, OrderStatus actual,
+                           LocalDateTime orderTime, long totalCents) {
+
+    public enum Result {
+        APPLIED,
+        INVALID_TRANSITION,
+        CONFLICT,
+        NOT_FOUND
+    }
+
+    public static StatusChange applied(OrderStatus from, OrderStatus to, LocalDateTime orderTime, long totalCents) {
+        return new StatusChange(Result.APPLIED, from, to, orderTime, totalCents);
+    }
+
+    public static StatusChange rejected(Result result, OrderStatus expected, OrderStatus actual) {
+        return new StatusChange(result, expected, actual, null, 0);
+    }
+
+    public boolean isApplied() {
+        return result == Result.APPLIED;
+    }
+}
@@ -0,0 +1,90 @@
+package com.pizzeria.server;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Построчная сборка JSON-ответа без промежуточных объектов. Запятые между
+ * элементами расставляются сами; вложенность проверяет вызывающий код.
+ */
+final class JsonWriter {
+    private final StringBuilder out = new StringBuilder(256);
+    private boolean first = true;
+
+    JsonWriter beginObject() {
+        separate();
+        out.append('{');
+        first = true;
+        return this;
+    }
+
+    JsonWriter endObject() {
+        out.append('}');
+        first = false;
+        return this;
+    }
+
+    JsonWriter beginArray() {
+        separate();
+        out.append('[');
+        first = true;
+        return this;
+    }
+
+    JsonWriter endArray() {
+        out.append(']');
+        first = false;
+        return this;
+    }
+
+    JsonWriter name(String name) {
+        separate();
+        Json.appendQuoted(out, name);
+        out.append(':');
+        first = true;
+        return this;
+    }
+
+    JsonWriter value(String value) {
+        separate();
+        if (value == null) {
+            out.append("null");
+        } else {
+            Json.appendQuoted(out, value);
+        }
+        return this;
+    }
+
+    JsonWriter value(long value) {
+        separate();
+        out.append(value);
+        return this;
+    }
+
+    JsonWriter field(String name, String value) {
+        return name(name).value(value);
+    }
+
+    JsonWriter field(String name, long value) {
+        return name(name).value(value);
+    }
+
+    JsonWriter field(String name, Object value) {
+        return name(name).value(value == null ? null : value.toString());
+    }
+
+    byte[] toBytes() {
+        return out.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public String toString() {
+        return out.toString();
+    }
+
+    private void separate() {
+        if (!first) {
+            out.append(',');
+        }
+        first = false;
+    }
+}
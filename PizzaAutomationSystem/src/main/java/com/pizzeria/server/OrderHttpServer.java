@@ -0,0 +1,562 @@
+package com.pizzeria.server;
+
+import com.pizzeria.dao.DatabaseConnection;
+import com.pizzeria.metrics.Metrics;
+import com.pizzeria.metrics.Timer;
+import com.pizzeria.models.Customer;
+import com.pizzeria.models.Money;
+import com.pizzeria.models.Order;
+import com.pizzeria.models.Order.OrderStatus;
+import com.pizzeria.models.OrderItem;
+import com.pizzeria.models.OrderRequest;
+import com.pizzeria.models.Pizza;
+import com.pizzeria.models.StatusChange;
+import com.pizzeria.services.MenuSnapshot;
+import com.pizzeria.services.OrderArchiver;
+import com.pizzeria.services.OrderIngestionPipeline;
+import com.pizzeria.services.OrderService;
+import com.pizzeria.services.PizzaService;
+import com.pizzeria.services.ServiceExecutor;
+import com.pizzeria.services.SharedStoreRefresher;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * HTTP API для приёма заказов без графического интерфейса: онлайн-заказы и киоски.
+ * <p>
+ * Запросы разбирает встроенный {@link HttpServer} JDK на небольшом пуле потоков, а работа с БД
+ * идёт асинхронно: новые заказы — через {@link OrderIngestionPipeline} с групповой фиксацией,
+ * остальное — через {@link ServiceExecutor}. Ответ отправляется по завершении future, поэтому
+ * запрос, ждущий БД, не занимает поток, и тысяча клиентов обслуживается десятком потоков.
+ * <ul>
+ *     <li>{@code GET /api/menu[?category=CLASSIC]} — доступные пиццы;</li>
+ *     <li>{@code POST /api/orders} — новый заказ;</li>
+ *     <li>{@code GET /api/orders/{id}} — заказ с позициями;</li>
+ *     <li>{@code GET /api/orders/{id}/status} — статус и разрешённые переходы;</li>
+ *     <li>{@code PUT /api/orders/{id}/status} — смена статуса, тело {@code {"status": "CONFIRMED", "expected": "PENDING"}};
+ *     без {@code expected} берётся текущий статус из БД.</li>
+ * </ul>
+ * Смена статуса и данные клиента в заказе требуют заголовка {@code Authorization: Bearer <токен>}
+ * с токеном из -Dpizzeria.server.token. Без настроенного токена смена статуса запрещена,
+ * а заказ отдаётся без имени и телефона клиента.
+ */
+public class OrderHttpServer implements AutoCloseable {
+    private static final Logger logger = LogManager.getLogger(OrderHttpServer.class);
+
+    private static final String JSON = "application/json; charset=utf-8";
+    private static final int MAX_BODY_BYTES = 64 * 1024;
+    private static final int MAX_QUANTITY = 100;
+    private static final int QUEUE_CAPACITY = 10_000;
+
+    private final PizzaService pizzaService;
+    private final OrderService orderService;
+    private final OrderIngestionPipeline pipeline;
+    private final ThreadPoolExecutor executor;
+    private final HttpServer server;
+    // Токен доступа к смене статуса и данным клиентов; null — доступ закрыт
+    private final byte[] token;
+
+    // Меню меняется редко, поэтому готовый JSON хранится до смены версии снимка
+    private volatile MenuCache menuCache;
+
+    private enum Route {
+        MENU("GET /api/menu"),
+        CREATE_ORDER("POST /api/orders"),
+        GET_ORDER("GET /api/orders/{id}"),
+        GET_STATUS("GET /api/orders/{id}/status"),
+        CHANGE_STATUS("PUT /api/orders/{id}/status");
+
+        final Timer timer;
+
+        Route(String label) {
+            this.timer = Metrics.http(label);
+        }
+    }
+
+    private record Response(int status, byte[] body) {
+    }
+
+    private record MenuCache(long version, Map<String, byte[]> bodies) {
+    }
+
+    /**
+     * Ошибка запроса с готовым HTTP-статусом.
+     */
+    private static final class ApiException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        final int status;
+
+        ApiException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    public OrderHttpServer(PizzaService pizzaService, OrderService orderService, InetSocketAddress address,
+                           int threads, int backlog, String token) throws IOException {
+        this.pizzaService = pizzaService;
+        this.orderService = orderService;
+        this.token = token == null || token.isBlank() ? null : token.getBytes(StandardCharsets.UTF_8);
+        this.pipeline = new OrderIngestionPipeline(orderService);
+
+        // Переполненная очередь тормозит приём соединений, а не отбрасывает запросы
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(QUEUE_CAPACITY), r -> {
+            Thread t = new Thread(r, "http-api-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }, new ThreadPoolExecutor.CallerRunsPolicy());
+
+        this.server = HttpServer.create(address, backlog);
+        server.setExecutor(executor);
+        server.createContext("/api/", this::handle);
+        server.start();
+    }
+
+    /**
+     * Сервер с настройками из -Dpizzeria.server.host, .port, .threads, .backlog и .token.
+     * По умолчанию слушает только localhost, как и страница метрик.
+     */
+    public static OrderHttpServer fromSystemProperties(PizzaService pizzaService, OrderService orderService)
+            throws IOException {
+        String host = System.getProperty("pizzeria.server.host");
+        InetSocketAddress address = new InetSocketAddress(
+                host == null ? InetAddress.getLoopbackAddress() : InetAddress.getByName(host),
+                Integer.getInteger("pizzeria.server.port", 8080));
+        String token = System.getProperty("pizzeria.server.token");
+        if (token == null || token.isBlank()) {
+            logger.warn("Не задан -Dpizzeria.server.token: смена статуса по HTTP отключена");
+        }
+        return new OrderHttpServer(pizzaService, orderService, address,
+                Integer.getInteger("pizzeria.server.threads", Math.max(4, Runtime.getRuntime().availableProcessors())),
+                Integer.getInteger("pizzeria.server.backlog", 1024), token);
+    }
+
+    /**
+     * Запуск без UI по флагу {@code --server}. Процесс работает до SIGTERM/Ctrl+C,
+     * после чего принятые заказы сохраняются и БД закрывается.
+     */
+    public static void runHeadless() throws IOException {
+        logger.info("Запуск Pizza Automation System в режиме HTTP API");
+        Metrics.start();
+        PizzaService pizzaService = new PizzaService();
+        OrderService orderService = new OrderService(pizzaService);
+        OrderHttpServer server = fromSystemProperties(pizzaService, orderService);
+        SharedStoreRefresher refresher = SharedStoreRefresher.startIfShared(pizzaService, orderService);
+        OrderArchiver archiver = OrderArchiver.startFromSystemProperties(orderService);
+
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            logger.info("Завершение работы HTTP API...");
+            if (refresher != null) {
+                refresher.close();
+            }
+            if (archiver != null) {
+                archiver.close();
+            }
+            server.close();
+            ServiceExecutor.shutdown();
+            Metrics.stop();
+            try {
+                DatabaseConnection.close();
+            } catch (Exception e) {
+                logger.error("Ошибка при закрытии БД", e);
+            }
+        }, "http-api-shutdown"));
+
+        logger.info("HTTP API слушает порт " + server.getPort());
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(1);
+        pipeline.close();
+        executor.shutdown();
+    }
+
+    // ==================== ROUTING ====================
+
+    private void handle(HttpExchange exchange) {
+        long start = System.nanoTime();
+        Route route = null;
+        CompletableFuture<Response> response;
+        try {
+            String[] path = exchange.getRequestURI().getPath().substring("/api/".length()).split("/");
+            route = route(exchange.getRequestMethod(), path);
+            response = switch (route) {
+                case MENU -> CompletableFuture.completedFuture(menu(exchange));
+                case CREATE_ORDER -> createOrder(exchange);
+                case GET_ORDER -> getOrder(path[1], authorized(exchange));
+                case GET_STATUS -> getStatus(path[1]);
+                case CHANGE_STATUS -> changeStatus(exchange, path[1]);
+            };
+        } catch (Exception e) {
+            response = CompletableFuture.failedFuture(e);
+        }
+
+        Route timed = route;
+        response.whenCompleteAsync((result, error) ->
+                send(exchange, result != null ? result : errorResponse(error), timed, start), executor);
+    }
+
+    private static Route route(String method, String[] path) {
+        if (path.length == 1 && path[0].equals("menu")) {
+            return allow(method, "GET", Route.MENU);
+        }
+        if (path.length >= 1 && path[0].equals("orders")) {
+            if (path.length == 1) {
+                return allow(method, "POST", Route.CREATE_ORDER);
+            }
+            if (path.length == 2) {
+                return allow(method, "GET", Route.GET_ORDER);
+            }
+            if (path.length == 3 && path[2].equals("status")) {
+                return "PUT".equals(method) ? Route.CHANGE_STATUS : allow(method, "GET", Route.GET_STATUS);
+            }
+        }
+        throw new ApiException(404, "Неизвестный адрес");
+    }
+
+    private static Route allow(String method, String expected, Route route) {
+        if (!expected.equals(method)) {
+            throw new ApiException(405, "Метод " + method + " не поддерживается");
+        }
+        return route;
+    }
+
+    /**
+     * Проверяет токен из заголовка {@code Authorization: Bearer}. Сравнение за постоянное время,
+     * чтобы токен нельзя было подобрать по времени ответа.
+     */
+    private boolean authorized(HttpExchange exchange) {
+        String header = exchange.getRequestHeaders().getFirst("Authorization");
+        if (token == null || header == null || !header.startsWith("Bearer ")) {
+            return false;
+        }
+        return MessageDigest.isEqual(token, header.substring("Bearer ".length()).trim().getBytes(StandardCharsets.UTF_8));
+    }
+
+    // ==================== HANDLERS ====================
+
+    private Response menu(HttpExchange exchange) {
+        Pizza.Category category = enumValue(Pizza.Category.class, queryParam(exchange, "category"), "category");
+        MenuSnapshot menu = pizzaService.getMenu();
+        MenuCache cache = menuCache;
+        if (cache == null || cache.version() != menu.getVersion()) {
+            cache = new MenuCache(menu.getVersion(), new ConcurrentHashMap<>());
+            menuCache = cache;
+        }
+        byte[] body = cache.bodies().computeIfAbsent(category == null ? "" : category.name(),
+                key -> menuJson(menu, category));
+        return new Response(200, body);
+    }
+
+    private CompletableFuture<Response> createOrder(HttpExchange exchange) throws IOException {
+        Map<?, ?> body = readObject(exchange);
+        Map<?, ?> customerJson = object(body, "customer");
+        Customer customer = new Customer(required(customerJson, "name"), required(customerJson, "phone"),
+                orEmpty(text(customerJson, "email")), orEmpty(text(customerJson, "address")));
+
+        List<OrderItem> items = new ArrayList<>();
+        for (Object element : array(body, "items")) {
+            if (!(element instanceof Map<?, ?> item)) {
+                throw new ApiException(400, "Позиция заказа должна быть объектом");
+            }
+            String pizzaId = required(item, "pizzaId");
+            long quantity = number(item, "quantity", 1);
+            if (quantity < 1 || quantity > MAX_QUANTITY) {
+                throw new ApiException(400, "Количество должно быть от 1 до " + MAX_QUANTITY + ": " + pizzaId);
+            }
+            Pizza pizza = pizzaService.getPizzaById(pizzaId)
+                    .filter(Pizza::isAvailable)
+                    .orElseThrow(() -> new ApiException(422, "Пицца недоступна: " + pizzaId));
+            items.add(new OrderItem(pizza, (int) quantity));
+        }
+        if (items.isEmpty()) {
+            throw new ApiException(400, "Заказ без позиций");
+        }
+
+        Order.DeliveryType deliveryType = enumValue(Order.DeliveryType.class, text(body, "deliveryType"), "deliveryType");
+        if (deliveryType == null) {
+            deliveryType = Order.DeliveryType.PICKUP;
+        }
+        String address = text(body, "deliveryAddress");
+        if (address == null || address.isBlank()) {
+            address = customer.getAddress();
+        }
+        if (deliveryType == Order.DeliveryType.DELIVERY && address.isBlank()) {
+            throw new ApiException(400, "Для доставки нужен адрес");
+        }
+
+        OrderRequest request = new OrderRequest(customer, items, orEmpty(text(body, "notes")), address, deliveryType);
+        return pipeline.submit(request).thenApply(result -> result.isSuccess()
+                ? new Response(201, orderJson(result.order(), true))
+                : error(422, result.error()));
+    }
+
+    private CompletableFuture<Response> getOrder(String orderId, boolean withCustomer) {
+        return ServiceExecutor.supply(() -> orderService.getOrderById(orderId))
+                .thenApply(order -> order
+                        .map(o -> new Response(200, orderJson(o, withCustomer)))
+                        .orElseGet(() -> error(404, "Заказ не найден: " + orderId)));
+    }
+
+    private CompletableFuture<Response> getStatus(String orderId) {
+        return ServiceExecutor.supply(() -> orderService.getOrderStatus(orderId))
+                .thenApply(status -> status
+                        .map(s -> new Response(200, statusJson(orderId, s)))
+                        .orElseGet(() -> error(404, "Заказ не найден: " + orderId)));
+    }
+
+    private CompletableFuture<Response> changeStatus(HttpExchange exchange, String orderId) throws IOException {
+        if (!authorized(exchange)) {
+            throw new ApiException(401, "Нужен токен доступа");
+        }
+        Map<?, ?> body = readObject(exchange);
+        OrderStatus next = enumValue(OrderStatus.class, required(body, "status"), "status");
+        OrderStatus expected = enumValue(OrderStatus.class, text(body, "expected"), "expected");
+
+        return ServiceExecutor.supply(() -> {
+            OrderStatus from = expected != null ? expected : orderService.getOrderStatus(orderId).orElse(null);
+            return from == null
+                    ? StatusChange.rejected(StatusChange.Result.NOT_FOUND, null, null)
+                    : orderService.changeStatus(orderId, from, next);
+        }).thenApply(change -> switch (change.result()) {
+            case APPLIED -> new Response(200, statusJson(orderId, next));
+            case CONFLICT -> new Response(409, new JsonWriter().beginObject()
+                    .field("error", "Статус заказа уже изменён")
+                    .field("status", change.actual().name())
+                    .endObject().toBytes());
+            case INVALID_TRANSITION -> error(422, "Переход " + change.expected() + " -> " + next + " не разрешён");
+            case NOT_FOUND -> error(404, "Заказ не найден: " + orderId);
+        });
+    }
+
+    // ==================== RESPONSES ====================
+
+    private void send(HttpExchange exchange, Response response, Route route, long start) {
+        try (exchange) {
+            exchange.getResponseHeaders().set("Content-Type", JSON);
+            if (response.status() == 401) {
+                exchange.getResponseHeaders().set("WWW-Authenticate", "Bearer");
+            }
+            if (response.status() == 503) {
+                exchange.getResponseHeaders().set("Retry-After", "1");
+            }
+            exchange.sendResponseHeaders(response.status(), response.body().length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(response.body());
+            }
+        } catch (IOException e) {
+            // Клиент не дождался ответа и закрыл соединение
+        } finally {
+            if (route != null) {
+                route.timer.recordSince(start);
+                if (response.status() >= 500) {
+                    route.timer.recordError();
+                }
+            }
+        }
+    }
+
+    private static Response errorResponse(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof ApiException api) {
+            return error(api.status, api.getMessage());
+        }
+        if (cause instanceof RejectedExecutionException) {
+            return error(503, "Сервер перегружен, повторите запрос позже");
+        }
+        if (cause instanceof IllegalArgumentException) {
+            return error(400, cause.getMessage());
+        }
+        logger.error("Ошибка обработки запроса", cause);
+        return error(500, "Внутренняя ошибка сервера");
+    }
+
+    private static Response error(int status, String message) {
+        return new Response(status, new JsonWriter().beginObject().field("error", message).endObject().toBytes());
+    }
+
+    private static byte[] menuJson(MenuSnapshot menu, Pizza.Category category) {
+        JsonWriter json = new JsonWriter().beginObject()
+                .field("version", menu.getVersion())
+                .name("pizzas").beginArray();
+        for (Pizza pizza : category == null ? menu.getAvailable() : menu.getAvailableByCategory(category)) {
+            json.beginObject()
+                    .field("id", pizza.getId())
+                    .field("name", pizza.getName())
+                    .field("description", pizza.getDescription())
+                    .field("size", pizza.getSize())
+                    .field("category", pizza.getCategory())
+                    .field("price", Money.toPlainString(pizza.getPriceCents()))
+                    .field("preparationTime", pizza.getPreparationTime())
+                    .name("ingredients").beginArray();
+            for (String ingredient : pizza.getIngredients()) {
+                json.value(ingredient);
+            }
+            json.endArray().endObject();
+        }
+        return json.endArray().endObject().toBytes();
+    }
+
+    /**
+     * @param withCustomer добавить имя и телефон клиента: только для автора заказа и запросов с токеном
+     */
+    private static byte[] orderJson(Order order, boolean withCustomer) {
+        JsonWriter json = new JsonWriter().beginObject()
+                .field("orderId", order.getOrderId())
+                .field("status", order.getStatus())
+                .field("orderTime", order.getOrderTime())
+                .field("estimatedReadyTime", order.getEstimatedReadyTime())
+                .field("deliveryType", order.getDeliveryType())
+                .field("deliveryAddress", order.getDeliveryAddress())
+                .field("notes", order.getNotes());
+        Customer customer = order.getCustomer();
+        if (customer != null && withCustomer) {
+            json.name("customer").beginObject()
+                    .field("id", customer.getId())
+                    .field("name", customer.getName())
+                    .field("phone", customer.getPhone())
+                    .endObject();
+        }
+        json.name("items").beginArray();
+        for (OrderItem item : order.getItems()) {
+            json.beginObject()
+                    .field("pizzaId", item.getPizza().getId())
+                    .field("name", item.getPizza().getName())
+                    .field("quantity", item.getQuantity())
+                    .field("unitPrice", Money.toPlainString(item.getUnitPriceCents()))
+                    .field("total", Money.toPlainString(item.getTotalPriceCents()))
+                    .endObject();
+        }
+        return json.endArray()
+                .field("total", Money.toPlainString(order.getTotalCents()))
+                .endObject().toBytes();
+    }
+
+    private static byte[] statusJson(String orderId, OrderStatus status) {
+        JsonWriter json = new JsonWriter().beginObject()
+                .field("orderId", orderId)
+                .field("status", status)
+                .name("allowedTransitions").beginArray();
+        for (OrderStatus next : status.getAllowedTransitions()) {
+            json.value(next.name());
+        }
+        return json.endArray().endObject().toBytes();
+    }
+
+    // ==================== REQUEST PARSING ====================
+
+    private static Map<?, ?> readObject(HttpExchange exchange) throws IOException {
+        byte[] bytes;
+        try (InputStream in = exchange.getRequestBody()) {
+            bytes = in.readNBytes(MAX_BODY_BYTES + 1);
+        }
+        if (bytes.length > MAX_BODY_BYTES) {
+            throw new ApiException(413, "Тело запроса больше " + MAX_BODY_BYTES + " байт");
+        }
+        if (!(Json.parse(new String(bytes, StandardCharsets.UTF_8)) instanceof Map<?, ?> object)) {
+            throw new ApiException(400, "Ожидался JSON-объект");
+        }
+        return object;
+    }
+
+    private static String queryParam(HttpExchange exchange, String name) {
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null) {
+            return null;
+        }
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0 && pair.substring(0, eq).equals(name)) {
+                return URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+            }
+        }
+        return null;
+    }
+
+    private static String text(Map<?, ?> object, String field) {
+        Object value = object.get(field);
+        if (value != null && !(value instanceof String)) {
+            throw new ApiException(400, "Поле " + field + " должно быть строкой");
+        }
+        return (String) value;
+    }
+
+    private static String required(Map<?, ?> object, String field) {
+        String value = text(object, field);
+        if (value == null || value.isBlank()) {
+            throw new ApiException(400, "Не заполнено поле " + field);
+        }
+        return value;
+    }
+
+    private static long number(Map<?, ?> object, String field, long defaultValue) {
+        Object value = object.get(field);
+        if (value == null) {
+            return defaultValue;
+        }
+        if (!(value instanceof Long number)) {
+            throw new ApiException(400, "Поле " + field + " должно быть целым числом");
+        }
+        return number;
+    }
+
+    private static Map<?, ?> object(Map<?, ?> object, String field) {
+        if (!(object.get(field) instanceof Map<?, ?> value)) {
+            throw new ApiException(400, "Поле " + field + " должно быть объектом");
+        }
+        return value;
+    }
+
+    private static List<?> array(Map<?, ?> object, String field) {
+        if (!(object.get(field) instanceof List<?> value)) {
+            throw new ApiException(400, "Поле " + field + " должно быть массивом");
+        }
+        return value;
+    }
+
+    private static <E extends Enum<E>> E enumValue(Class<E> type, String value, String field) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return Enum.valueOf(type, value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ApiException(400, "Неизвестное значение поля " + field + ": " + value);
+        }
+    }
+
+    private static String orEmpty(String value) {
+        return value == null ? "" : value;
+    }
+}
@@ -0,0 +1,92 @@
+package com.pizzeria.services;
+
+import com.pizzeria.models.DietaryTag;
+import com.pizzeria.models.Ingredient;
+import com.pizzeria.models.IngredientDictionary;
+import com.pizzeria.models.IngredientSet;
+import com.pizzeria.models.Pizza;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Условие на состав пиццы: какие ингредиенты обязательны, а какие ингредиенты
+ * и пищевые признаки исключены. Перед проверкой условие переводится в две битовые маски
+ * по словарю, так что проверка одной пиццы — пара побитовых операций.
+ * Ингредиент с непроверенными признаками может оказаться чем угодно, поэтому любой фильтр
+ * по признакам исключает пиццы с ним.
+ * <pre>
+ * IngredientFilter.vegetarian().containing("грибы")
+ * IngredientFilter.any().withoutTags(DietaryTag.PORK)
+ * </pre>
+ */
+public final class IngredientFilter {
+    private final Set<DietaryTag> excludedTags = EnumSet.noneOf(DietaryTag.class);
+    private final List<String> required = new ArrayList<>();
+    private final List<String> excluded = new ArrayList<>();
+
+    private IngredientFilter() {
+    }
+
+    public static IngredientFilter any() {
+        return new IngredientFilter();
+    }
+
+    public static IngredientFilter vegetarian() {
+        return any().withoutTags(DietaryTag.MEAT, DietaryTag.FISH);
+    }
+
+    public static IngredientFilter vegan() {
+        return vegetarian().withoutTags(DietaryTag.DAIRY);
+    }
+
+    public IngredientFilter withoutTags(DietaryTag... tags) {
+        excludedTags.addAll(Arrays.asList(tags));
+        return this;
+    }
+
+    public IngredientFilter containing(String... ingredients) {
+        required.addAll(Arrays.asList(ingredients));
+        return this;
+    }
+
+    public IngredientFilter excluding(String... ingredients) {
+        excluded.addAll(Arrays.asList(ingredients));
+        return this;
+    }
+
+    /**
+     * Переводит условие в маски по словарю. Если обязательного ингредиента нет в словаре,
+     * ни одна пицца не подходит; неизвестные исключённые ингредиенты ни на что не влияют.
+     */
+    Predicate<Pizza> compile(IngredientDictionary dictionary) {
+        IngredientSet.Builder requiredMask = new IngredientSet.Builder();
+        for (String name : required) {
+            Ingredient ingredient = dictionary.find(name);
+            if (ingredient == null) {
+                return pizza -> false;
+            }
+            requiredMask.add(ingredient.getId());
+        }
+
+        IngredientSet.Builder excludedMask = new IngredientSet.Builder()
+                .addAll(dictionary.withAnyTag(excludedTags));
+        if (!excludedTags.isEmpty()) {
+            excludedMask.addAll(dictionary.untagged());
+        }
+        for (String name : excluded) {
+            Ingredient ingredient = dictionary.find(name);
+            if (ingredient != null) {
+                excludedMask.add(ingredient.getId());
+            }
+        }
+
+        IngredientSet must = requiredMask.build();
+        IngredientSet mustNot = excludedMask.build();
+        return pizza -> pizza.getIngredientSet().containsAll(must) && !pizza.getIngredientSet().intersects(mustNot);
+    }
+}
@@ -0,0 +1,264 @@
+package com.pizzeria.services;
+
+import com.pizzeria.models.Order;
+import com.pizzeria.models.Order.OrderStatus;
+import com.pizzeria.models.OrderItem;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Расчёт времени готовности заказов с учётом загрузки кухни.
+ * <p>
+ * Кухня — это {@code prepStations} мест сборки и {@code ovenSlots} мест в печах. Для каждого
+ * ресурса хранится min-куча моментов, когда он освободится. Каждая пицца заказа занимает
+ * ближайшее свободное место сборки, затем ближайшее место в печи; заказ готов, когда
+ * испечена последняя пицца. Новый заказ планируется за O(k log n), где k — число пицц,
+ * без пересчёта остальных.
+ * <p>
+ * Время готовности пиццы из меню делится на выпечку ({@code bakeMinutes}, не больше общего)
+ * и сборку (остаток). Когда заказ переходит в PREPARING или BAKING, покидает кухню или
+ * отменяется, план всех заказов в работе пересчитывается заново: сначала пиццы в печи,
+ * затем собираемые, затем ожидающие в порядке поступления.
+ */
+public class KitchenScheduler {
+    private static final long MINUTE_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private final int prepStations;
+    private final int ovenSlots;
+    private final int bakeMinutes;
+    private final Clock clock;
+
+    private final PriorityQueue<Long> stations = new PriorityQueue<>();
+    private final PriorityQueue<Long> ovens = new PriorityQueue<>();
+    // Заказы в работе в порядке поступления
+    private final Map<String, Job> jobs = new LinkedHashMap<>();
+
+    private enum Stage { WAITING, PREPARING, BAKING }
+
+    private static final class Job {
+        final int[] prepMillis;
+        final int[] bakeMillis;
+        Stage stage = Stage.WAITING;
+        long stageStartedAt;
+        long readyAt;
+
+        Job(int[] prepMillis, int[] bakeMillis) {
+            this.prepMillis = prepMillis;
+            this.bakeMillis = bakeMillis;
+        }
+    }
+
+    public KitchenScheduler(int prepStations, int ovenSlots, int bakeMinutes, Clock clock) {
+        if (prepStations < 1 || ovenSlots < 1) {
+            throw new IllegalArgumentException("На кухне должно быть хотя бы одно место сборки и одно место в печи");
+        }
+        this.prepStations = prepStations;
+        this.ovenSlots = ovenSlots;
+        this.bakeMinutes = bakeMinutes;
+        this.clock = clock;
+        resetResources();
+    }
+
+    public static KitchenScheduler fromSystemProperties() {
+        return new KitchenScheduler(
+                Integer.getInteger("pizzeria.kitchen.prepStations", 2),
+                Integer.getInteger("pizzeria.kitchen.ovenSlots", 4),
+                Integer.getInteger("pizzeria.kitchen.bakeMinutes", 8),
+                Clock.systemDefaultZone());
+    }
+
+    /**
+     * Восстанавливает план по заказам, которые уже в работе. Время начала текущего этапа
+     * неизвестно, поэтому считается, что он начался сейчас.
+     */
+    public synchronized void seed(List<Order> activeOrders) {
+        long now = clock.millis();
+        for (Order order : activeOrders) {
+            Stage stage = stageOf(order.getStatus());
+            if (stage != null) {
+                Job job = newJob(order.getItems());
+                job.stage = stage;
+                job.stageStartedAt = now;
+                jobs.put(order.getOrderId(), job);
+            }
+        }
+        replan(now);
+    }
+
+    /**
+     * Ставит новый заказ в очередь кухни и возвращает время его готовности.
+     * Если заказ так и не сохранится, его нужно снять через {@link #discard}.
+     */
+    public synchronized LocalDateTime schedule(Order order) {
+        long now = clock.millis();
+        Job job = newJob(order.getItems());
+        job.readyAt = place(job, now);
+        jobs.put(order.getOrderId(), job);
+        return toDateTime(job.readyAt);
+    }
+
+    /**
+     * Снимает несохранённый заказ с кухни и пересчитывает план.
+     *
+     * @return заказы, чьё время готовности сдвинулось хотя бы на минуту
+     */
+    public synchronized Map<String, LocalDateTime> discard(String orderId) {
+        if (jobs.remove(orderId) == null) {
+            return Map.of();
+        }
+        return replan(clock.millis());
+    }
+
+    /**
+     * Учитывает смену статуса и пересчитывает план.
+     *
+     * @return заказы, чьё время готовности сдвинулось хотя бы на минуту
+     */
+    public synchronized Map<String, LocalDateTime> statusChanged(String orderId, OrderStatus newStatus) {
+        Job job = jobs.get(orderId);
+        if (job == null) {
+            return Map.of();
+        }
+        long now = clock.millis();
+        Stage stage = stageOf(newStatus);
+        if (stage == null) {
+            jobs.remove(orderId);
+        } else if (stage != Stage.WAITING && stage != job.stage) {
+            job.stage = stage;
+            job.stageStartedAt = now;
+        } else {
+            return Map.of();
+        }
+        return replan(now);
+    }
+
+    /**
+     * Учитывает заказ, который изменил другой терминал: незнакомый заказ в работе
+     * добавляется в план, как при {@link #seed}, для знакомого меняется этап.
+     *
+     * @return заказы, чьё время готовности сдвинулось хотя бы на минуту
+     */
+    public synchronized Map<String, LocalDateTime> orderRefreshed(Order order) {
+        if (jobs.containsKey(order.getOrderId())) {
+            return statusChanged(order.getOrderId(), order.getStatus());
+        }
+        Stage stage = stageOf(order.getStatus());
+        if (stage == null) {
+            return Map.of();
+        }
+        long now = clock.millis();
+        Job job = newJob(order.getItems());
+        job.stage = stage;
+        job.stageStartedAt = now;
+        jobs.put(order.getOrderId(), job);
+        return replan(now);
+    }
+
+    public synchronized int getInFlightCount() {
+        return jobs.size();
+    }
+
+    public synchronized LocalDateTime getEstimatedReadyTime(String orderId) {
+        Job job = jobs.get(orderId);
+        return job == null ? null : toDateTime(job.readyAt);
+    }
+
+    // ==================== PLANNING ====================
+
+    private Map<String, LocalDateTime> replan(long now) {
+        resetResources();
+        Map<String, LocalDateTime> changed = new LinkedHashMap<>();
+        for (Stage stage : new Stage[]{Stage.BAKING, Stage.PREPARING, Stage.WAITING}) {
+            for (Iterator<Map.Entry<String, Job>> it = jobs.entrySet().iterator(); it.hasNext(); ) {
+                Map.Entry<String, Job> e = it.next();
+                Job job = e.getValue();
+                if (job.stage != stage) {
+                    continue;
+                }
+                long readyAt = place(job, now);
+                if (Math.abs(readyAt - job.readyAt) >= MINUTE_MILLIS) {
+                    changed.put(e.getKey(), toDateTime(readyAt));
+                }
+                job.readyAt = readyAt;
+            }
+        }
+        return changed;
+    }
+
+    private long place(Job job, long now) {
+        long readyAt = now;
+        for (int i = 0; i < job.bakeMillis.length; i++) {
+            long bakeFrom;
+            if (job.stage == Stage.BAKING) {
+                bakeFrom = job.stageStartedAt;
+            } else {
+                long earliest = job.stage == Stage.PREPARING ? job.stageStartedAt : now;
+                long prepStart = Math.max(stations.poll(), earliest);
+                long prepEnd = Math.max(prepStart + job.prepMillis[i], now);
+                stations.add(prepEnd);
+                bakeFrom = prepEnd;
+            }
+            long bakeStart = Math.max(ovens.poll(), bakeFrom);
+            long bakeEnd = Math.max(bakeStart + job.bakeMillis[i], now);
+            ovens.add(bakeEnd);
+            readyAt = Math.max(readyAt, bakeEnd);
+        }
+        return readyAt;
+    }
+
+    private void resetResources() {
+        stations.clear();
+        ovens.clear();
+        for (int i = 0; i < prepStations; i++) {
+            stations.add(0L);
+        }
+        for (int i = 0; i < ovenSlots; i++) {
+            ovens.add(0L);
+        }
+    }
+
+    private Job newJob(List<OrderItem> items) {
+        int pizzas = 0;
+        for (OrderItem item : items) {
+            pizzas += item.getQuantity();
+        }
+        int[] prep = new int[pizzas];
+        int[] bake = new int[pizzas];
+        int p = 0;
+        for (OrderItem item : items) {
+            int total = item.getPreparationTime();
+            int baking = Math.min(total, bakeMinutes);
+            for (int q = 0; q < item.getQuantity(); q++, p++) {
+                prep[p] = (int) ((total - baking) * MINUTE_MILLIS);
+                bake[p] = (int) (baking * MINUTE_MILLIS);
+            }
+        }
+        return new Job(prep, bake);
+    }
+
+    private static Stage stageOf(OrderStatus status) {
+        switch (status) {
+            case PENDING:
+            case CONFIRMED:
+                return Stage.WAITING;
+            case PREPARING:
+                return Stage.PREPARING;
+            case BAKING:
+                return Stage.BAKING;
+            default:
+                return null;
+        }
+    }
+
+    private LocalDateTime toDateTime(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), clock.getZone());
+    }
+}
@@ -0,0 +1,248 @@
+package com.pizzeria.services;
+
+import com.pizzeria.models.Pizza;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Инвертированный индекс меню по названию, описанию и ингредиентам.
+ * <p>
+ * Каждое слово запроса ищется точно, по префиксу и, если не нашлось, нечётко по триграммам,
+ * чтобы «пеперони» находило «пепперони». Пицца должна совпасть со всеми словами запроса;
+ * результаты упорядочены по релевантности. Индекс обновляется по одной пицце.
+ */
+public class MenuSearchIndex {
+    private static final int NAME_WEIGHT = 3;
+    private static final int INGREDIENT_WEIGHT = 2;
+    private static final int DESCRIPTION_WEIGHT = 1;
+
+    private static final double EXACT_FACTOR = 3;
+    private static final double PREFIX_FACTOR = 2;
+    private static final double FUZZY_FACTOR = 1;
+    private static final double MIN_SIMILARITY = 0.5;
+    private static final int MIN_FUZZY_LENGTH = 3;
+
+    // слово -> (id пиццы -> наибольший вес поля, где слово встретилось)
+    private final NavigableMap<String, Map<String, Integer>> postings = new TreeMap<>();
+    private final Map<String, Set<String>> tokensByTrigram = new HashMap<>();
+    private final Map<String, Set<String>> tokensByPizza = new HashMap<>();
+    private final Map<String, String> signatures = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public record Hit(String pizzaId, double score) {
+    }
+
+    // ==================== INDEXING ====================
+
+    /**
+     * Приводит индекс в соответствие с меню: удаляет исчезнувшие пиццы
+     * и переиндексирует только те, у которых изменился текст.
+     */
+    public void sync(List<Pizza> pizzas) {
+        lock.writeLock().lock();
+        try {
+            Set<String> present = new HashSet<>();
+            for (Pizza pizza : pizzas) {
+                present.add(pizza.getId());
+                String signature = signature(pizza);
+                if (!signature.equals(signatures.get(pizza.getId()))) {
+                    removeInternal(pizza.getId());
+                    addInternal(pizza, signature);
+                }
+            }
+            for (String id : new ArrayList<>(signatures.keySet())) {
+                if (!present.contains(id)) {
+                    removeInternal(id);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void addInternal(Pizza pizza, String signature) {
+        String id = pizza.getId();
+        Set<String> pizzaTokens = new HashSet<>();
+        addField(id, pizza.getName(), NAME_WEIGHT, pizzaTokens);
+        addField(id, pizza.getDescription(), DESCRIPTION_WEIGHT, pizzaTokens);
+        if (pizza.getIngredients() != null) {
+            for (String ingredient : pizza.getIngredients()) {
+                addField(id, ingredient, INGREDIENT_WEIGHT, pizzaTokens);
+            }
+        }
+        tokensByPizza.put(id, pizzaTokens);
+        signatures.put(id, signature);
+    }
+
+    private void addField(String pizzaId, String text, int weight, Set<String> pizzaTokens) {
+        for (String token : tokenize(text)) {
+            Map<String, Integer> posting = postings.get(token);
+            if (posting == null) {
+                posting = new HashMap<>();
+                postings.put(token, posting);
+                for (String trigram : trigrams(token)) {
+                    tokensByTrigram.computeIfAbsent(trigram, t -> new HashSet<>()).add(token);
+                }
+            }
+            posting.merge(pizzaId, weight, Math::max);
+            pizzaTokens.add(token);
+        }
+    }
+
+    private void removeInternal(String pizzaId) {
+        Set<String> pizzaTokens = tokensByPizza.remove(pizzaId);
+        signatures.remove(pizzaId);
+        if (pizzaTokens == null) {
+            return;
+        }
+        for (String token : pizzaTokens) {
+            Map<String, Integer> posting = postings.get(token);
+            if (posting == null) {
+                continue;
+            }
+            posting.remove(pizzaId);
+            if (posting.isEmpty()) {
+                postings.remove(token);
+                for (String trigram : trigrams(token)) {
+                    Set<String> tokens = tokensByTrigram.get(trigram);
+                    if (tokens != null) {
+                        tokens.remove(token);
+                        if (tokens.isEmpty()) {
+                            tokensByTrigram.remove(trigram);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    // ==================== SEARCH ====================
+
+    public List<Hit> search(String query) {
+        List<String> queryTokens = tokenize(query);
+        if (queryTokens.isEmpty()) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            Map<String, Double> scores = null;
+            for (String queryToken : queryTokens) {
+                Map<String, Double> tokenScores = scoreToken(queryToken);
+                if (scores == null) {
+                    scores = tokenScores;
+                } else {
+                    // Пицца должна подходить под каждое слово запроса
+                    Map<String, Double> merged = new HashMap<>();
+                    for (Map.Entry<String, Double> e : scores.entrySet()) {
+                        Double other = tokenScores.get(e.getKey());
+                        if (other != null) {
+                            merged.put(e.getKey(), e.getValue() + other);
+                        }
+                    }
+                    scores = merged;
+                }
+                if (scores.isEmpty()) {
+                    return List.of();
+                }
+            }
+
+            List<Hit> hits = new ArrayList<>(scores.size());
+            scores.forEach((id, score) -> hits.add(new Hit(id, score)));
+            hits.sort(Comparator.comparingDouble(Hit::score).reversed().thenComparing(Hit::pizzaId));
+            return hits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Map<String, Double> scoreToken(String queryToken) {
+        Map<String, Double> scores = new HashMap<>();
+
+        String upper = queryToken + Character.MAX_VALUE;
+        for (Map.Entry<String, Map<String, Integer>> e : postings.subMap(queryToken, true, upper, false).entrySet()) {
+            double factor = e.getKey().equals(queryToken) ? EXACT_FACTOR : PREFIX_FACTOR;
+            accumulate(scores, e.getValue(), factor);
+        }
+
+        if (scores.isEmpty() && queryToken.length() >= MIN_FUZZY_LENGTH) {
+            Set<String> queryTrigrams = trigrams(queryToken);
+            Map<String, Integer> shared = new HashMap<>();
+            for (String trigram : queryTrigrams) {
+                Set<String> tokens = tokensByTrigram.get(trigram);
+                if (tokens != null) {
+                    for (String token : tokens) {
+                        shared.merge(token, 1, Integer::sum);
+                    }
+                }
+            }
+            for (Map.Entry<String, Integer> e : shared.entrySet()) {
+                int tokenTrigrams = e.getKey().length() + 1;
+                double similarity = 2.0 * e.getValue() / (queryTrigrams.size() + tokenTrigrams);
+                if (similarity >= MIN_SIMILARITY) {
+                    accumulate(scores, postings.get(e.getKey()), FUZZY_FACTOR * similarity);
+                }
+            }
+        }
+        return scores;
+    }
+
+    private static void accumulate(Map<String, Double> scores, Map<String, Integer> posting, double factor) {
+        for (Map.Entry<String, Integer> e : posting.entrySet()) {
+            scores.merge(e.getKey(), e.getValue() * factor, Math::max);
+        }
+    }
+
+    // ==================== TEXT ====================
+
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        StringBuilder current = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                current.append(normalize(c));
+            } else if (current.length() > 0) {
+                tokens.add(current.toString());
+                current.setLength(0);
+            }
+        }
+        if (current.length() > 0) {
+            tokens.add(current.toString());
+        }
+        return tokens;
+    }
+
+    private static char normalize(char c) {
+        char lower = Character.toLowerCase(c);
+        return lower == 'ё' ? 'е' : lower;
+    }
+
+    // Триграммы слова с границами: «сыр» -> «  с», « сы», «сыр», «ыр »
+    private static Set<String> trigrams(String token) {
+        String padded = "  " + token + " ";
+        Set<String> result = new HashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            result.add(padded.substring(i, i + 3));
+        }
+        return result;
+    }
+
+    private static String signature(Pizza pizza) {
+        return pizza.getName() + '\u0000' + pizza.getDescription() + '\u0000' +
+                (pizza.getIngredients() == null ? "" : String.join(",", pizza.getIngredients()));
+    }
+}
@@ -0,0 +1,72 @@
+package com.pizzeria.services;
+
+import com.pizzeria.models.IngredientDictionary;
+import com.pizzeria.models.Pizza;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Неизменяемый снимок меню с заранее построенными представлениями по категориям
+ * и доступности. Чтение из снимка не обращается к БД и не создаёт новых коллекций.
+ */
+public final class MenuSnapshot {
+    private final long version;
+    private final List<Pizza> all;
+    private final List<Pizza> available;
+    private final Map<Pizza.Category, List<Pizza>> byCategory;
+    private final Map<Pizza.Category, List<Pizza>> availableByCategory;
+    private final Map<String, Pizza> byId;
+    private final IngredientDictionary ingredients;
+
+    private MenuSnapshot(long version, List<Pizza> pizzas, IngredientDictionary ingredients) {
+        this.version = version;
+        this.ingredients = ingredients;
+
+        List<Pizza> sorted = new ArrayList<>(pizzas);
+        sorted.sort(Comparator.comparing(Pizza::getName));
+
+        List<Pizza> availableList = new ArrayList<>();
+        Map<Pizza.Category, List<Pizza>> categories = new EnumMap<>(Pizza.Category.class);
+        Map<Pizza.Category, List<Pizza>> availableCategories = new EnumMap<>(Pizza.Category.class);
+        for (Pizza.Category category : Pizza.Category.values()) {
+            categories.put(category, new ArrayList<>());
+            availableCategories.put(category, new ArrayList<>());
+        }
+        Map<String, Pizza> ids = new HashMap<>();
+
+        for (Pizza pizza : sorted) {
+            ids.put(pizza.getId(), pizza);
+            categories.get(pizza.getCategory()).add(pizza);
+            if (pizza.isAvailable()) {
+                availableList.add(pizza);
+                availableCategories.get(pizza.getCategory()).add(pizza);
+            }
+        }
+        categories.replaceAll((category, list) -> Collections.unmodifiableList(list));
+        availableCategories.replaceAll((category, list) -> Collections.unmodifiableList(list));
+
+        this.all = Collections.unmodifiableList(sorted);
+        this.available = Collections.unmodifiableList(availableList);
+        this.byCategory = Collections.unmodifiableMap(categories);
+        this.availableByCategory = Collections.unmodifiableMap(availableCategories);
+        this.byId = Collections.unmodifiableMap(ids);
+    }
+
+    public static MenuSnapshot of(long version, List<Pizza> pizzas, IngredientDictionary ingredients) {
+        return new MenuSnapshot(version, pizzas, ingredients);
+    }
+
+    public long getVersion() { return version; }
+    public List<Pizza> getAll() { return all; }
+    public List<Pizza> getAvailable() { return available; }
+    public List<Pizza> getByCategory(Pizza.Category category) { return byCategory.get(category); }
+    public List<Pizza> getAvailableByCategory(Pizza.Category category) { return availableByCategory.get(category); }
+    public Pizza getById(String id) { return byId.get(id); }
+    public IngredientDictionary getIngredients() { return ingredients; }
+}
@@ -0,0 +1,117 @@
+package com.pizzeria.services;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Фоновый перенос старых завершённых и отменённых заказов в архивные таблицы,
+ * чтобы orders и order_items оставались небольшими.
+ * <p>
+ * Раз в {@code intervalMinutes} заказы старше {@code afterDays} дней переносятся порциями по
+ * {@code chunkSize}: каждая порция — отдельная короткая транзакция, между порциями пауза
+ * {@code pauseMillis}, чтобы перенос не задерживал оформление заказов.
+ */
+public class OrderArchiver implements AutoCloseable {
+    private static final long CLOSE_TIMEOUT_SECONDS = 30;
+
+    private final OrderService orderService;
+    private final int afterDays;
+    private final int chunkSize;
+    private final long pauseMillis;
+    private final ScheduledExecutorService scheduler;
+    private volatile boolean closed = false;
+
+    public OrderArchiver(OrderService orderService, int afterDays, int chunkSize, long pauseMillis, long intervalMinutes) {
+        // Сегодняшние заказы входят в дневную статистику, поэтому архивируются не раньше чем через сутки
+        if (afterDays < 1) {
+            throw new IllegalArgumentException("Заказы архивируются не раньше чем через день: " + afterDays);
+        }
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Размер порции должен быть больше нуля: " + chunkSize);
+        }
+        if (intervalMinutes < 1) {
+            throw new IllegalArgumentException("Интервал архивации — не меньше минуты: " + intervalMinutes);
+        }
+        this.orderService = orderService;
+        this.afterDays = afterDays;
+        this.chunkSize = chunkSize;
+        this.pauseMillis = pauseMillis;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "order-archiver");
+            t.setDaemon(true);
+            return t;
+        });
+        // Первый перенос через минуту после запуска, чтобы не мешать загрузке приложения
+        scheduler.scheduleWithFixedDelay(this::run, 1, intervalMinutes, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Запускает архивацию с настройками -Dpizzeria.archive.* (см. README).
+     *
+     * @return {@code null}, если архивация выключена через -Dpizzeria.archive.afterDays=0
+     */
+    public static OrderArchiver startFromSystemProperties(OrderService orderService) {
+        int afterDays = Integer.getInteger("pizzeria.archive.afterDays", 30);
+        if (afterDays <= 0) {
+            return null;
+        }
+        return new OrderArchiver(orderService, afterDays,
+                Integer.getInteger("pizzeria.archive.chunkSize", 200),
+                Long.getLong("pizzeria.archive.pauseMs", 100),
+                Long.getLong("pizzeria.archive.intervalMinutes", 60));
+    }
+
+    /**
+     * Переносит все подходящие заказы и возвращает их число.
+     */
+    public int archiveNow() throws IOException {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(afterDays);
+        int total = 0;
+        while (!closed) {
+            int moved = orderService.archiveOrders(cutoff, chunkSize);
+            total += moved;
+            if (moved < chunkSize) {
+                break;
+            }
+            try {
+                Thread.sleep(pauseMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        return total;
+    }
+
+    private void run() {
+        // Исключение остановило бы расписание, поэтому ошибка только печатается
+        try {
+            int moved = archiveNow();
+            if (moved > 0) {
+                System.out.println("Перенесено в архив заказов: " + moved);
+            }
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Ошибка архивации заказов: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Останавливает архивацию. Текущая порция не прерывается, а дожидается фиксации:
+     * прерывание внутри транзакции переноса закрыло бы файловую базу.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        scheduler.shutdown();
+        try {
+            if (!scheduler.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                System.err.println("Перенос в архив не завершился за " + CLOSE_TIMEOUT_SECONDS + " с");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
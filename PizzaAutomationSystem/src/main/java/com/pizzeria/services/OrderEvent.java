@@ -0,0 +1,41 @@
+package com.pizzeria.services;
+
+import com.pizzeria.models.Order;
+import com.pizzeria.models.Order.OrderStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Событие жизненного цикла заказа, публикуемое через {@link OrderEventBus}.
+ * События смены статуса несут время и сумму заказа, чтобы подписчикам не нужно было его загружать.
+ */
+public sealed interface OrderEvent permits OrderEvent.OrderCreated, OrderEvent.StatusChanged, OrderEvent.OrderCancelled,
+        OrderEvent.OrderRefreshed {
+
+    String orderId();
+
+    record OrderCreated(Order order) implements OrderEvent {
+        @Override
+        public String orderId() {
+            return order.getOrderId();
+        }
+    }
+
+    record StatusChanged(String orderId, OrderStatus from, OrderStatus to,
+                         LocalDateTime orderTime, long totalCents) implements OrderEvent {
+    }
+
+    record OrderCancelled(String orderId, OrderStatus from,
+                          LocalDateTime orderTime, long totalCents) implements OrderEvent {
+    }
+
+    /**
+     * Заказ, изменённый другим терминалом общей БД; {@code order} — его текущее состояние в БД.
+     */
+    record OrderRefreshed(Order order) implements OrderEvent {
+        @Override
+        public String orderId() {
+            return order.getOrderId();
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.pizzeria.services;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Шина событий заказов внутри процесса.
+ * <p>
+ * Подписчики регистрируются на конкретный тип события или на {@link OrderEvent} целиком.
+ * События доставляются синхронно в потоке, который их опубликовал, поэтому обработчики
+ * должны быть короткими; UI-подписчики сами переносят работу в UI-поток.
+ * Исключение одного обработчика не мешает остальным.
+ */
+public class OrderEventBus {
+
+    /**
+     * Отмена подписки.
+     */
+    public interface Subscription extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    private final Map<Class<?>, List<Consumer<OrderEvent>>> listeners = new ConcurrentHashMap<>();
+
+    public <E extends OrderEvent> Subscription subscribe(Class<E> type, Consumer<? super E> listener) {
+        Consumer<OrderEvent> handler = event -> listener.accept(type.cast(event));
+        List<Consumer<OrderEvent>> handlers = listeners.computeIfAbsent(type, t -> new CopyOnWriteArrayList<>());
+        handlers.add(handler);
+        return () -> handlers.remove(handler);
+    }
+
+    public void publish(OrderEvent event) {
+        dispatch(listeners.get(event.getClass()), event);
+        dispatch(listeners.get(OrderEvent.class), event);
+    }
+
+    private static void dispatch(List<Consumer<OrderEvent>> handlers, OrderEvent event) {
+        if (handlers == null) {
+            return;
+        }
+        for (Consumer<OrderEvent> handler : handlers) {
+            try {
+                handler.accept(event);
+            } catch (RuntimeException e) {
+                System.err.println("Ошибка обработчика события " + event.getClass().getSimpleName() +
+                        ": " + e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.pizzeria.services;
+
+import com.pizzeria.models.OrderRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Фоновый приём заказов с групповой фиксацией.
+ * <p>
+ * Заказы, отправленные из разных потоков, копятся в очереди; фоновый поток забирает их пакетами
+ * не больше {@code maxBatch} штук и сохраняет каждый пакет через {@link OrderService#createOrders(List)}
+ * одной транзакцией. Пока фиксируется один пакет, в очереди набирается следующий, поэтому по умолчанию
+ * ({@code lingerMillis = 0}) пакет уходит сразу, как только очередь опустела. Ожидание добора
+ * {@code lingerMillis} имеет смысл только при редком потоке заказов: под нагрузкой оно лишь задерживает фиксацию.
+ */
+public class OrderIngestionPipeline implements AutoCloseable {
+    private final OrderService orderService;
+    private final int maxBatch;
+    private final long lingerNanos;
+    private final BlockingQueue<Pending> queue;
+    private final Thread worker;
+    private volatile boolean closed = false;
+
+    private final LongAdder ordersIngested = new LongAdder();
+    private final LongAdder ordersFailed = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final long startedNanos = System.nanoTime();
+
+    private record Pending(OrderRequest request, CompletableFuture<OrderResult> result) {
+    }
+
+    public OrderIngestionPipeline(OrderService orderService) {
+        this(orderService,
+                Integer.getInteger("pizzeria.ingest.maxBatch", 100),
+                Long.getLong("pizzeria.ingest.lingerMs", 0),
+                Integer.getInteger("pizzeria.ingest.queueCapacity", 10_000));
+    }
+
+    public OrderIngestionPipeline(OrderService orderService, int maxBatch, long lingerMillis, int queueCapacity) {
+        if (maxBatch < 1) {
+            throw new IllegalArgumentException("Размер пакета должен быть больше нуля: " + maxBatch);
+        }
+        this.orderService = orderService;
+        this.maxBatch = maxBatch;
+        this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(lingerMillis);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.worker = new Thread(this::run, "order-ingestion");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * Ставит заказ в очередь. Если очередь заполнена, future сразу завершается с
+     * {@link RejectedExecutionException}, чтобы источник заказов мог притормозить.
+     */
+    public CompletableFuture<OrderResult> submit(OrderRequest request) {
+        CompletableFuture<OrderResult> result = new CompletableFuture<>();
+        if (closed) {
+            result.completeExceptionally(new RejectedExecutionException("Приём заказов остановлен"));
+        } else if (!queue.offer(new Pending(request, result))) {
+            result.completeExceptionally(new RejectedExecutionException("Очередь заказов заполнена"));
+        }
+        return result;
+    }
+
+    private void run() {
+        List<Pending> batch = new ArrayList<>(maxBatch);
+        while (!closed || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + lingerNanos;
+                while (batch.size() < maxBatch) {
+                    // Всё, что уже в очереди, забираем без ожидания
+                    if (queue.drainTo(batch, maxBatch - batch.size()) > 0) {
+                        continue;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        break;
+                    }
+                    Pending next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                flush(batch);
+            } catch (InterruptedException e) {
+                if (closed) {
+                    // Принятые заказы сохраняются и при остановке
+                    flush(batch);
+                } else {
+                    Thread.currentThread().interrupt();
+                    closed = true;
+                    fail(batch, new RejectedExecutionException("Приём заказов прерван"));
+                    break;
+                }
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<Pending> batch) {
+        List<OrderRequest> requests = new ArrayList<>(batch.size());
+        for (Pending pending : batch) {
+            requests.add(pending.request());
+        }
+        try {
+            List<OrderResult> results = orderService.createOrders(requests);
+            batches.increment();
+            for (int i = 0; i < batch.size(); i++) {
+                OrderResult result = results.get(i);
+                if (result.isSuccess()) {
+                    ordersIngested.increment();
+                } else {
+                    ordersFailed.increment();
+                }
+                batch.get(i).result().complete(result);
+            }
+        } catch (RuntimeException e) {
+            fail(batch, e);
+        }
+    }
+
+    private void fail(List<Pending> batch, Exception error) {
+        for (Pending pending : batch) {
+            ordersFailed.increment();
+            pending.result().completeExceptionally(error);
+        }
+    }
+
+    /**
+     * Прекращает приём новых заказов и дожидается сохранения уже принятых.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            worker.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Заказ мог попасть в очередь одновременно с остановкой
+        Pending pending;
+        while ((pending = queue.poll()) != null) {
+            pending.result().completeExceptionally(new RejectedExecutionException("Приём заказов остановлен"));
+        }
+    }
+
+    // ==================== METRICS ====================
+
+    public int getQueueSize() { return queue.size(); }
+    public long getOrdersIngested() { return ordersIngested.sum(); }
+    public long getOrdersFailed() { return ordersFailed.sum(); }
+    public long getBatchCount() { return batches.sum(); }
+
+    public double getAverageBatchSize() {
+        long count = batches.sum();
+        return count == 0 ? 0 : (double) (ordersIngested.sum() + ordersFailed.sum()) / count;
+    }
+
+    public double getOrdersPerSecond() {
+        double seconds = (System.nanoTime() - startedNanos) / 1e9;
+        return seconds <= 0 ? 0 : ordersIngested.sum() / seconds;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("OrderIngestionPipeline[ingested=%d, failed=%d, batches=%d, avgBatch=%.1f, queue=%d, rate=%.0f orders/s]",
+                getOrdersIngested(), getOrdersFailed(), getBatchCount(), getAverageBatchSize(),
+                getQueueSize(), getOrdersPerSecond());
+    }
+}
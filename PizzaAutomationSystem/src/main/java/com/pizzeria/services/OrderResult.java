@@ -0,0 +1,22 @@
+package com.pizzeria.services;
+
+import com.pizzeria.models.Order;
+import com.pizzeria.models.OrderRequest;
+
+/**
+ * Итог оформления одного заказа из пакета: созданный заказ или причина отказа.
+ */
+public record OrderResult(OrderRequest request, Order order, String error) {
+
+    public static OrderResult success(OrderRequest request, Order order) {
+        return new OrderResult(request, order, null);
+    }
+
+    public static OrderResult failure(OrderRequest request, String error) {
+        return new OrderResult(request, null, error);
+    }
+
+    public boolean isSuccess() {
+        return order != null;
+    }
+}
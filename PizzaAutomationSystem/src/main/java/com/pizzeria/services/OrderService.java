@@ -1,92 +1,370 @@
 package com.pizzeria.services;
 
 import com.pizzeria.models.*;
+import com.pizzeria.dao.OrderCursor;
 import com.pizzeria.dao.OrderDAODB;
+import com.pizzeria.metrics.Metrics;
+import com.pizzeria.metrics.Timer;
 
 import java.io.IOException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 public class OrderService {
+    private static final Timer CREATE_ORDER = Metrics.service("OrderService.createOrder");
+    private static final Timer CREATE_ORDERS = Metrics.service("OrderService.createOrders");
+    private static final Timer GET_ALL_ORDERS = Metrics.service("OrderService.getAllOrders");
+    private static final Timer GET_ACTIVE_ORDERS = Metrics.service("OrderService.getActiveOrders");
+    private static final Timer GET_ORDERS_BY_STATUS = Metrics.service("OrderService.getOrdersByStatus");
+    private static final Timer GET_TODAY_ORDERS = Metrics.service("OrderService.getTodayOrders");
+    private static final Timer GET_ORDERS_PAGE = Metrics.service("OrderService.getOrdersPage");
+    private static final Timer GET_ORDERS_PAGE_BEFORE = Metrics.service("OrderService.getOrdersPageBefore");
+    private static final Timer COUNT_ORDERS = Metrics.service("OrderService.countOrders");
+    private static final Timer GET_ORDER_BY_ID = Metrics.service("OrderService.getOrderById");
+    private static final Timer GET_ORDER_STATUS = Metrics.service("OrderService.getOrderStatus");
+    private static final Timer CHANGE_STATUS = Metrics.service("OrderService.changeStatus");
+    private static final Timer UPDATE_ORDER_STATUS = Metrics.service("OrderService.updateOrderStatus");
+    private static final Timer REFRESH_FROM_STORE = Metrics.service("OrderService.refreshFromStore");
+    private static final Timer ARCHIVE_ORDERS = Metrics.service("OrderService.archiveOrders");
+
     private final OrderDAODB orderDAODB;
     private final PizzaService pizzaService;
+    private final OrderStatistics statistics;
+    private final PopularPizzaTracker popularPizzas;
+    private final OrderEventBus eventBus = new OrderEventBus();
+    private final KitchenScheduler kitchen;
+    // Версии заказов, до которых прочитаны изменения других терминалов (см. refreshFromStore)
+    private long refreshedVersion;
+    private long lastMaxVersion;
 
     public OrderService(PizzaService pizzaService) {
         this.orderDAODB = new OrderDAODB();
         this.pizzaService = pizzaService;
+        this.lastMaxVersion = orderDAODB.getMaxOrderVersion();
+        this.refreshedVersion = lastMaxVersion;
+        this.statistics = new OrderStatistics();
+        this.statistics.seed(orderDAODB);
+        this.popularPizzas = new PopularPizzaTracker();
+        this.popularPizzas.seed(orderDAODB);
+        this.kitchen = KitchenScheduler.fromSystemProperties();
+        this.kitchen.seed(orderDAODB.getAllActiveOrders());
+
+        // Статистика и топ пицц обновляются теми же событиями, что получает UI
+        eventBus.subscribe(OrderEvent.OrderCreated.class, e -> {
+            statistics.orderCreated(e.order());
+            popularPizzas.orderCreated(e.order());
+        });
+        eventBus.subscribe(OrderEvent.StatusChanged.class,
+                e -> statistics.statusChanged(e.orderTime(), e.totalCents(), e.from(), e.to()));
+        eventBus.subscribe(OrderEvent.OrderCancelled.class,
+                e -> statistics.statusChanged(e.orderTime(), e.totalCents(), e.from(), Order.OrderStatus.CANCELLED));
+
+        // Смена этапа освобождает или занимает кухню, сдвинутое время готовности сохраняется в БД
+        eventBus.subscribe(OrderEvent.StatusChanged.class,
+                e -> orderDAODB.updateEstimatedReadyTimes(kitchen.statusChanged(e.orderId(), e.to())));
+        eventBus.subscribe(OrderEvent.OrderCancelled.class,
+                e -> orderDAODB.updateEstimatedReadyTimes(kitchen.statusChanged(e.orderId(), Order.OrderStatus.CANCELLED)));
+        eventBus.subscribe(OrderEvent.OrderRefreshed.class,
+                e -> orderDAODB.updateEstimatedReadyTimes(kitchen.orderRefreshed(e.order())));
     }
 
     public Order createOrder(Customer customer, List<OrderItem> items,
                              String notes, String deliveryAddress,
                              Order.DeliveryType deliveryType) throws IOException {
+        return CREATE_ORDER.record(() -> {
+            // Сначала сохраняем клиента в БД
+            Customer savedCustomer = orderDAODB.saveCustomer(customer);
+            if (savedCustomer == null) {
+                throw new IOException("Не удалось сохранить клиента");
+            }
 
-        // Сначала сохраняем клиента в БД
-        Customer savedCustomer = orderDAODB.saveCustomer(customer);
-        if (savedCustomer == null) {
-            throw new IOException("Не удалось сохранить клиента");
-        }
+            Order order = buildOrder(savedCustomer, items, notes, deliveryAddress, deliveryType);
+            Order created = orderDAODB.createOrder(order);
+            if (created != null) {
+                orderCreated(created);
+            } else {
+                orderDAODB.updateEstimatedReadyTimes(kitchen.discard(order.getOrderId()));
+            }
+            return created;
+        });
+    }
+
+    /**
+     * Оформляет пакет заказов с одной фиксацией в БД на весь пакет.
+     * Результаты идут в том же порядке, что и запросы; ошибка одного заказа не отменяет остальные.
+     */
+    public List<OrderResult> createOrders(List<OrderRequest> requests) {
+        return CREATE_ORDERS.record(() -> {
+            List<OrderResult> results = new ArrayList<>(Collections.nCopies(requests.size(), null));
+            List<Order> orders = new ArrayList<>(requests.size());
+            List<Integer> positions = new ArrayList<>(requests.size());
+
+            for (int i = 0; i < requests.size(); i++) {
+                OrderRequest request = requests.get(i);
+                if (request.getItems() == null || request.getItems().isEmpty()) {
+                    results.set(i, OrderResult.failure(request, "Заказ без позиций"));
+                    continue;
+                }
+                Customer savedCustomer = orderDAODB.saveCustomer(request.getCustomer());
+                if (savedCustomer == null) {
+                    results.set(i, OrderResult.failure(request, "Не удалось сохранить клиента"));
+                    continue;
+                }
+                orders.add(buildOrder(savedCustomer, request.getItems(), request.getNotes(),
+                        request.getDeliveryAddress(), request.getDeliveryType()));
+                positions.add(i);
+            }
+
+            List<Order> created = orderDAODB.createOrders(orders);
+            // Снятые с кухни заказы сдвигают соседей; сохраняется последний план
+            Map<String, LocalDateTime> shifted = new LinkedHashMap<>();
+            for (int j = 0; j < created.size(); j++) {
+                int i = positions.get(j);
+                Order order = created.get(j);
+                if (order != null) {
+                    orderCreated(order);
+                    results.set(i, OrderResult.success(requests.get(i), order));
+                } else {
+                    shifted.putAll(kitchen.discard(orders.get(j).getOrderId()));
+                    results.set(i, OrderResult.failure(requests.get(i), "Не удалось сохранить заказ"));
+                }
+            }
+            orderDAODB.updateEstimatedReadyTimes(shifted);
+            return results;
+        });
+    }
 
-        int maxPrepTime = items.stream()
-                .mapToInt(OrderItem::getPreparationTime)
-                .max()
-                .orElse(0);
+    private Order buildOrder(Customer customer, List<OrderItem> items, String notes,
+                             String deliveryAddress, Order.DeliveryType deliveryType) {
+        Order order = new Order(customer, items, notes, deliveryAddress, deliveryType);
+        order.setEstimatedReadyTime(kitchen.schedule(order));
+        return order;
+    }
 
-        Order order = new Order(savedCustomer, items, notes, deliveryAddress, deliveryType);
-        order.setEstimatedReadyTime(LocalDateTime.now().plusMinutes(maxPrepTime));
+    private void orderCreated(Order order) {
+        eventBus.publish(new OrderEvent.OrderCreated(order));
+    }
 
-        return orderDAODB.createOrder(order);
+    public List<Order> getAllOrders() throws IOException {
+        return GET_ALL_ORDERS.record(() -> orderDAODB.getAllOrders());
     }
 
     public List<Order> getActiveOrders() throws IOException {
-        return orderDAODB.getAllActiveOrders();
+        return GET_ACTIVE_ORDERS.record(() -> orderDAODB.getAllActiveOrders());
     }
 
     public List<Order> getOrdersByStatus(Order.OrderStatus status) throws IOException {
-        return orderDAODB.getOrdersByStatus(status);
+        return GET_ORDERS_BY_STATUS.record(() -> orderDAODB.getOrdersByStatus(status));
     }
 
     public List<Order> getTodayOrders() throws IOException {
-        return orderDAODB.getTodayOrders();
+        return GET_TODAY_ORDERS.record(() -> orderDAODB.getTodayOrders());
+    }
+
+    public List<Order> getOrdersPage(Order.OrderStatus status, OrderCursor after, int limit) throws IOException {
+        return getOrdersPage(status, after, limit, false);
+    }
+
+    /**
+     * Страница истории заказов; с {@code includeArchive} в неё попадают и заказы, перенесённые в архив.
+     */
+    public List<Order> getOrdersPage(Order.OrderStatus status, OrderCursor after, int limit,
+                                     boolean includeArchive) throws IOException {
+        return GET_ORDERS_PAGE.record(() -> orderDAODB.getOrdersPage(status, after, limit, includeArchive));
+    }
+
+    public List<Order> getOrdersPageBefore(Order.OrderStatus status, OrderCursor before, int limit) throws IOException {
+        return getOrdersPageBefore(status, before, limit, false);
+    }
+
+    public List<Order> getOrdersPageBefore(Order.OrderStatus status, OrderCursor before, int limit,
+                                           boolean includeArchive) throws IOException {
+        return GET_ORDERS_PAGE_BEFORE.record(() -> orderDAODB.getOrdersPageBefore(status, before, limit, includeArchive));
+    }
+
+    public int countOrders(Order.OrderStatus status) throws IOException {
+        return countOrders(status, false);
+    }
+
+    public int countOrders(Order.OrderStatus status, boolean includeArchive) throws IOException {
+        return COUNT_ORDERS.record(() -> {
+            int hot = status == null ? orderDAODB.getTotalOrdersCount() : orderDAODB.getOrdersCountByStatus(status);
+            return includeArchive ? hot + orderDAODB.getArchivedOrdersCount(status) : hot;
+        });
+    }
+
+    /**
+     * Переносит в архив порцию завершённых и отменённых заказов старше {@code cutoff}.
+     * Статистика за всё время не меняется: итоги архива учитываются вместе с горячими таблицами.
+     *
+     * @return число перенесённых заказов
+     */
+    public int archiveOrders(LocalDateTime cutoff, int limit) throws IOException {
+        return ARCHIVE_ORDERS.record(() -> {
+            int moved = orderDAODB.archiveOrders(cutoff, limit);
+            if (moved < 0) {
+                throw new IOException("Не удалось перенести заказы в архив");
+            }
+            return moved;
+        });
     }
 
     public Optional<Order> getOrderById(String orderId) throws IOException {
-        return orderDAODB.getOrderById(orderId);
+        return GET_ORDER_BY_ID.record(() -> orderDAODB.getOrderById(orderId));
+    }
+
+    /**
+     * Текущий статус заказа без загрузки позиций.
+     */
+    public Optional<Order.OrderStatus> getOrderStatus(String orderId) throws IOException {
+        return GET_ORDER_STATUS.record(() -> orderDAODB.getOrderStatus(orderId));
     }
 
+    /**
+     * Переводит заказ из {@code expected} в {@code next}, если переход разрешён и статус
+     * в БД за это время не изменился. Заказ целиком не загружается; проигранная гонка
+     * возвращается как {@link StatusChange.Result#CONFLICT} с текущим статусом.
+     */
+    public StatusChange changeStatus(String orderId, Order.OrderStatus expected,
+                                     Order.OrderStatus next) throws IOException {
+        return CHANGE_STATUS.record(() -> {
+            if (!expected.canTransitionTo(next)) {
+                return StatusChange.rejected(StatusChange.Result.INVALID_TRANSITION, expected, expected);
+            }
+            StatusChange change = orderDAODB.compareAndSetStatus(orderId, expected, next);
+            if (change == null) {
+                throw new IOException("Не удалось изменить статус заказа " + orderId);
+            }
+            if (change.isApplied()) {
+                eventBus.publish(next == Order.OrderStatus.CANCELLED
+                        ? new OrderEvent.OrderCancelled(orderId, expected, change.orderTime(), change.totalCents())
+                        : new OrderEvent.StatusChanged(orderId, expected, next, change.orderTime(), change.totalCents()));
+            }
+            return change;
+        });
+    }
+
+    /**
+     * Смена статуса без известного ожидаемого значения: берётся текущий статус из БД.
+     */
     public boolean updateOrderStatus(String orderId, Order.OrderStatus newStatus) throws IOException {
-        Optional<Order> orderOpt = orderDAODB.getOrderById(orderId);
-        if (orderOpt.isPresent()) {
-            Order order = orderOpt.get();
-            order.setStatus(newStatus);
-            return orderDAODB.updateOrder(order);
-        }
-        return false;
+        return UPDATE_ORDER_STATUS.record(() -> {
+            Optional<Order.OrderStatus> current = getOrderStatus(orderId);
+            return current.isPresent() && changeStatus(orderId, current.get(), newStatus).isApplied();
+        });
     }
 
     public boolean completeOrder(String orderId) throws IOException {
-        return orderDAODB.completeOrder(orderId);
+        return updateOrderStatus(orderId, Order.OrderStatus.COMPLETED);
     }
 
-    public double calculateOrderTotal(List<OrderItem> items) {
-        return items.stream()
-                .mapToDouble(OrderItem::getTotalPrice)
-                .sum();
+    /**
+     * Догоняет изменения, которые другие терминалы общей БД внесли в заказы,
+     * и публикует по каждому {@link OrderEvent.OrderRefreshed}.
+     * Версия берётся из последовательности до фиксации транзакции, поэтому запись с меньшей версией
+     * может стать видна позже большей: граница чтения отстаёт на один вызов, и такие заказы
+     * приходят повторно, а не теряются. Обработчики события к повторам устойчивы.
+     *
+     * @return число заказов, изменённых другими терминалами
+     */
+    public synchronized int refreshFromStore() throws IOException {
+        return REFRESH_FROM_STORE.record(() -> {
+            long maxVersion = orderDAODB.getMaxOrderVersion();
+            List<Order> changed = orderDAODB.getOrdersChangedSince(refreshedVersion);
+            refreshedVersion = lastMaxVersion;
+            lastMaxVersion = maxVersion;
+            if (changed.isEmpty()) {
+                return 0;
+            }
+
+            // Счётчики по статусам и топ пицц проще пересчитать из БД, чем восстанавливать прежний статус
+            statistics.seed(orderDAODB);
+            popularPizzas.seed(orderDAODB);
+            for (Order order : changed) {
+                eventBus.publish(new OrderEvent.OrderRefreshed(order));
+            }
+            return changed.size();
+        });
     }
 
-    public int getTotalOrdersCount() throws IOException {
-        return orderDAODB.getAllActiveOrders().size() + orderDAODB.getCompletedOrders().size();
+    public long calculateOrderTotalCents(List<OrderItem> items) {
+        long total = 0;
+        for (OrderItem item : items) {
+            total = Math.addExact(total, item.getTotalPriceCents());
+        }
+        return total;
+    }
+
+    public OrderStatistics getStatistics() {
+        return statistics;
+    }
+
+    public PopularPizzaTracker getPopularPizzas() {
+        return popularPizzas;
+    }
+
+    public KitchenScheduler getKitchen() {
+        return kitchen;
+    }
+
+    public OrderEventBus getEventBus() {
+        return eventBus;
+    }
+
+    // ==================== ASYNC ====================
+
+    public CompletableFuture<Order> createOrderAsync(Customer customer, List<OrderItem> items,
+                                                     String notes, String deliveryAddress,
+                                                     Order.DeliveryType deliveryType) {
+        return ServiceExecutor.supply(() -> createOrder(customer, items, notes, deliveryAddress, deliveryType));
+    }
+
+    public CompletableFuture<List<Order>> getOrdersPageAsync(Order.OrderStatus status, OrderCursor after, int limit) {
+        return getOrdersPageAsync(status, after, limit, false);
     }
 
-    public double getTotalRevenue() throws IOException {
-        double activeRevenue = orderDAODB.getAllActiveOrders().stream()
-                .mapToDouble(Order::calculateTotal)
-                .sum();
+    public CompletableFuture<List<Order>> getOrdersPageAsync(Order.OrderStatus status, OrderCursor after, int limit,
+                                                             boolean includeArchive) {
+        return ServiceExecutor.supply(() -> getOrdersPage(status, after, limit, includeArchive));
+    }
+
+    public CompletableFuture<List<Order>> getOrdersPageBeforeAsync(Order.OrderStatus status, OrderCursor before, int limit) {
+        return getOrdersPageBeforeAsync(status, before, limit, false);
+    }
+
+    public CompletableFuture<List<Order>> getOrdersPageBeforeAsync(Order.OrderStatus status, OrderCursor before, int limit,
+                                                                   boolean includeArchive) {
+        return ServiceExecutor.supply(() -> getOrdersPageBefore(status, before, limit, includeArchive));
+    }
+
+    public CompletableFuture<Integer> countOrdersAsync(Order.OrderStatus status) {
+        return countOrdersAsync(status, false);
+    }
 
-        double completedRevenue = orderDAODB.getCompletedOrders().stream()
-                .mapToDouble(Order::calculateTotal)
-                .sum();
+    public CompletableFuture<Integer> countOrdersAsync(Order.OrderStatus status, boolean includeArchive) {
+        return ServiceExecutor.supply(() -> countOrders(status, includeArchive));
+    }
+
+    public CompletableFuture<Boolean> updateOrderStatusAsync(String orderId, Order.OrderStatus newStatus) {
+        return ServiceExecutor.supply(() -> updateOrderStatus(orderId, newStatus));
+    }
+
+    public CompletableFuture<StatusChange> changeStatusAsync(String orderId, Order.OrderStatus expected,
+                                                             Order.OrderStatus next) {
+        return ServiceExecutor.supply(() -> changeStatus(orderId, expected, next));
+    }
+
+    public int getTotalOrdersCount() throws IOException {
+        return statistics.snapshot().getTotalOrdersCount();
+    }
 
-        return activeRevenue + completedRevenue;
+    public long getTotalRevenueCents() throws IOException {
+        return statistics.snapshot().getTotalRevenueCents();
     }
 }
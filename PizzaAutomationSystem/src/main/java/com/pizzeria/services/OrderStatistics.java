@@ -0,0 +1,111 @@
+package com.pizzeria.services;
+
+import com.pizzeria.dao.OrderDAODB;
+import com.pizzeria.models.DashboardSnapshot;
+import com.pizzeria.models.Order;
+import com.pizzeria.models.Order.OrderStatus;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+/**
+ * Статистика заказов в памяти. Один раз заполняется из {@link OrderDAODB#getDashboardSnapshot()},
+ * дальше обновляется за O(1) событиями от {@link OrderService}, так что вкладка
+ * статистики читает готовые числа без обращения к БД.
+ * <p>
+ * Счётчики и суммы (в тиынах) хранятся по статусам отдельно за всё время и за сегодня;
+ * итоговые показатели считает {@link DashboardSnapshot}.
+ */
+public class OrderStatistics {
+    private static final int STATUSES = OrderStatus.values().length;
+
+    private final int[] counts = new int[STATUSES];
+    private final long[] revenueCents = new long[STATUSES];
+    private final int[] todayCounts = new int[STATUSES];
+    private final long[] todayRevenueCents = new long[STATUSES];
+    private LocalDate today = LocalDate.now();
+
+    public synchronized void seed(OrderDAODB orderDAODB) {
+        DashboardSnapshot snapshot = orderDAODB.getDashboardSnapshot();
+        for (OrderStatus status : OrderStatus.values()) {
+            int s = status.ordinal();
+            counts[s] = snapshot.getCount(status);
+            revenueCents[s] = snapshot.getRevenueCents(status);
+            todayCounts[s] = snapshot.getTodayCount(status);
+            todayRevenueCents[s] = snapshot.getTodayRevenueCents(status);
+        }
+        today = snapshot.getDay();
+    }
+
+    // ==================== EVENTS ====================
+
+    public synchronized void orderCreated(Order order) {
+        rollOverDay();
+        int s = order.getStatus().ordinal();
+        long amount = amountCents(order);
+        counts[s]++;
+        revenueCents[s] += amount;
+        if (isToday(order.getOrderTime())) {
+            todayCounts[s]++;
+            todayRevenueCents[s] += amount;
+        }
+    }
+
+    /**
+     * Переход, о котором известны только время и сумма заказа — сам заказ не загружается.
+     */
+    public synchronized void statusChanged(LocalDateTime orderTime, long amountCents,
+                                           OrderStatus oldStatus, OrderStatus newStatus) {
+        rollOverDay();
+        int from = oldStatus.ordinal();
+        int to = newStatus.ordinal();
+        if (from == to) {
+            return;
+        }
+        counts[from]--;
+        counts[to]++;
+        revenueCents[from] -= amountCents;
+        revenueCents[to] += amountCents;
+        if (isToday(orderTime)) {
+            todayCounts[from]--;
+            todayCounts[to]++;
+            todayRevenueCents[from] -= amountCents;
+            todayRevenueCents[to] += amountCents;
+        }
+    }
+
+    // ==================== READS ====================
+
+    public synchronized int getCount(OrderStatus status) {
+        return counts[status.ordinal()];
+    }
+
+    /**
+     * Копия всех счётчиков на один момент времени.
+     */
+    public synchronized DashboardSnapshot snapshot() {
+        rollOverDay();
+        return new DashboardSnapshot(today, counts.clone(), revenueCents.clone(),
+                todayCounts.clone(), todayRevenueCents.clone());
+    }
+
+    // ==================== HELPERS ====================
+
+    private void rollOverDay() {
+        LocalDate now = LocalDate.now();
+        if (!now.equals(today)) {
+            Arrays.fill(todayCounts, 0);
+            Arrays.fill(todayRevenueCents, 0);
+            today = now;
+        }
+    }
+
+    private boolean isToday(LocalDateTime orderTime) {
+        return orderTime != null && orderTime.toLocalDate().equals(today);
+    }
+
+    private static long amountCents(Order order) {
+        return order.getTotalCents();
+    }
+}
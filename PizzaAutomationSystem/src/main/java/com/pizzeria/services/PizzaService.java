@@ -1,57 +1,165 @@
 package com.pizzeria.services;
 
+import com.pizzeria.dao.IngredientDAODB;
 import com.pizzeria.dao.PizzaDAODB;
+import com.pizzeria.metrics.Metrics;
+import com.pizzeria.metrics.Timer;
+import com.pizzeria.models.IngredientDictionary;
 import com.pizzeria.models.Pizza;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Predicate;
 
 public class PizzaService {
+    // Чтения из снимка меню не измеряются: они стоят меньше самого таймера
+    private static final Timer ADD_PIZZA = Metrics.service("PizzaService.addPizza");
+    private static final Timer UPDATE_PIZZA = Metrics.service("PizzaService.updatePizza");
+    private static final Timer DELETE_PIZZA = Metrics.service("PizzaService.deletePizza");
+    private static final Timer SEARCH_PIZZAS = Metrics.service("PizzaService.searchPizzas");
+    private static final Timer FILTER_BY_INGREDIENTS = Metrics.service("PizzaService.filterByIngredients");
+
     private final PizzaDAODB pizzaDAO;
+    private final IngredientDAODB ingredientDAO;
+    // Все чтения меню идут из снимка; запись в БД заменяет его целиком
+    private volatile MenuSnapshot menu;
+    private final MenuSearchIndex searchIndex = new MenuSearchIndex();
+    // Отпечаток меню в БД на момент последней загрузки снимка
+    private volatile PizzaDAODB.MenuStamp stamp;
     
     public PizzaService() {
         this.pizzaDAO = new PizzaDAODB();
+        this.ingredientDAO = new IngredientDAODB();
+        this.stamp = pizzaDAO.getMenuStamp();
+        this.menu = MenuSnapshot.of(1, pizzaDAO.getAllPizzas(), ingredientDAO.loadDictionary());
+        this.searchIndex.sync(menu.getAll());
     }
     
     public void initializeData() {
         // БД сама создает тестовые данные при инициализации
         System.out.println("🔄 Инициализация данных...");
     }
+
+    public MenuSnapshot getMenu() {
+        return menu;
+    }
     
     public List<Pizza> getAllPizzas() {
-        return pizzaDAO.getAllPizzas();
+        return menu.getAll();
     }
     
     public List<Pizza> getAvailablePizzas() {
-        return pizzaDAO.getAllPizzas().stream()
-                .filter(Pizza::isAvailable)
-                .toList();
+        return menu.getAvailable();
+    }
+
+    public List<Pizza> getAvailablePizzas(Pizza.Category category) {
+        return category == null ? menu.getAvailable() : menu.getAvailableByCategory(category);
     }
     
     public List<Pizza> getPizzasByCategory(Pizza.Category category) {
-        return pizzaDAO.getPizzasByCategory(category);
+        return menu.getByCategory(category);
     }
     
     public Optional<Pizza> getPizzaById(String id) {
-        return pizzaDAO.getPizzaById(id);
+        return Optional.ofNullable(menu.getById(id));
     }
     
-    public boolean addPizza(Pizza pizza) {
-        return pizzaDAO.addPizza(pizza);
+    public synchronized boolean addPizza(Pizza pizza) {
+        return ADD_PIZZA.record(() -> {
+            boolean result = pizzaDAO.addPizza(pizza);
+            reloadMenu();
+            return result;
+        });
     }
     
-    public boolean updatePizza(Pizza pizza) {
-        return pizzaDAO.updatePizza(pizza);
+    public synchronized boolean updatePizza(Pizza pizza) {
+        return UPDATE_PIZZA.record(() -> {
+            boolean result = pizzaDAO.updatePizza(pizza);
+            reloadMenu();
+            return result;
+        });
     }
     
-    public boolean deletePizza(String id) {
-        return pizzaDAO.deletePizza(id);
+    public synchronized boolean deletePizza(String id) {
+        return DELETE_PIZZA.record(() -> {
+            boolean result = pizzaDAO.deletePizza(id);
+            reloadMenu();
+            return result;
+        });
     }
     
+    public CompletableFuture<Boolean> addPizzaAsync(Pizza pizza) {
+        return ServiceExecutor.supply(() -> addPizza(pizza));
+    }
+
+    public CompletableFuture<Boolean> updatePizzaAsync(Pizza pizza) {
+        return ServiceExecutor.supply(() -> updatePizza(pizza));
+    }
+
+    public CompletableFuture<Boolean> deletePizzaAsync(String id) {
+        return ServiceExecutor.supply(() -> deletePizza(id));
+    }
+
+    /**
+     * Поиск по названию, описанию и ингредиентам; результаты отсортированы по релевантности.
+     */
     public List<Pizza> searchPizzas(String query) {
-        String lowerQuery = query.toLowerCase();
-        return pizzaDAO.getAllPizzas().stream()
-                .filter(p -> p.getName().toLowerCase().contains(lowerQuery) ||
-                            p.getDescription().toLowerCase().contains(lowerQuery))
-                .toList();
+        return SEARCH_PIZZAS.record(() -> {
+            MenuSnapshot current = menu;
+            List<Pizza> result = new ArrayList<>();
+            for (MenuSearchIndex.Hit hit : searchIndex.search(query)) {
+                Pizza pizza = current.getById(hit.pizzaId());
+                if (pizza != null) {
+                    result.add(pizza);
+                }
+            }
+            return result;
+        });
+    }
+
+    /**
+     * Пиццы, подходящие под условие на состав, например «без свинины» или «вегетарианская с грибами».
+     */
+    public List<Pizza> filterByIngredients(IngredientFilter filter, boolean availableOnly) {
+        return FILTER_BY_INGREDIENTS.record(() -> {
+            MenuSnapshot current = menu;
+            Predicate<Pizza> matches = filter.compile(current.getIngredients());
+            List<Pizza> result = new ArrayList<>();
+            for (Pizza pizza : availableOnly ? current.getAvailable() : current.getAll()) {
+                if (matches.test(pizza)) {
+                    result.add(pizza);
+                }
+            }
+            return result;
+        });
+    }
+
+    public IngredientDictionary getIngredientDictionary() {
+        return menu.getIngredients();
+    }
+
+    /**
+     * Перечитывает меню, если его изменил другой терминал общей БД.
+     *
+     * @return {@code true}, если снимок меню заменён
+     */
+    public synchronized boolean refreshFromStore() {
+        PizzaDAODB.MenuStamp current = pizzaDAO.getMenuStamp();
+        if (current == null || current.equals(stamp)) {
+            return false;
+        }
+        reloadMenu();
+        return true;
+    }
+
+    // Перечитываем меню и после неудачной записи: объект пиццы мог быть изменён до вызова
+    private void reloadMenu() {
+        // Отпечаток читается до меню: изменение между запросами вызовет ещё одну перезагрузку, а не потеряется
+        stamp = pizzaDAO.getMenuStamp();
+        MenuSnapshot reloaded = MenuSnapshot.of(menu.getVersion() + 1, pizzaDAO.getAllPizzas(),
+                ingredientDAO.loadDictionary());
+        searchIndex.sync(reloaded.getAll());
+        menu = reloaded;
     }
 }
@@ -0,0 +1,70 @@
+package com.pizzeria.services;
+
+import com.pizzeria.dao.OrderDAODB;
+import com.pizzeria.dao.OrderDAODB.PizzaSales;
+import com.pizzeria.models.Order;
+import com.pizzeria.models.OrderItem;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Топ популярных пицц за всё время и за сегодня.
+ * Заполняется одним агрегатным запросом по order_items и дальше обновляется при каждом
+ * новом заказе; память ограничена ёмкостью {@link SpaceSavingSketch} и не растёт с меню.
+ */
+public class PopularPizzaTracker {
+    private static final int CAPACITY = Integer.getInteger("pizzeria.stats.topCapacity", 64);
+
+    private final SpaceSavingSketch allTime = new SpaceSavingSketch(CAPACITY);
+    private final SpaceSavingSketch today = new SpaceSavingSketch(CAPACITY);
+    private LocalDate day = LocalDate.now();
+
+    public synchronized void seed(OrderDAODB orderDAODB) {
+        allTime.clear();
+        today.clear();
+        day = LocalDate.now();
+        // Точные суммы из БД загружаются без погрешности: в каждое окно попадают его лидеры,
+        // для сегодняшнего окна продажи пересортировываются по сегодняшнему количеству
+        List<PizzaSales> sales = orderDAODB.getPizzaSales();
+        for (PizzaSales s : sales) {
+            allTime.load(s.pizzaId(), s.name(), s.allTimeQuantity());
+        }
+        List<PizzaSales> todaySales = new ArrayList<>(sales);
+        todaySales.removeIf(s -> s.todayQuantity() == 0);
+        todaySales.sort(Comparator.comparingLong(PizzaSales::todayQuantity).reversed());
+        for (PizzaSales s : todaySales) {
+            today.load(s.pizzaId(), s.name(), s.todayQuantity());
+        }
+    }
+
+    public synchronized void orderCreated(Order order) {
+        rollOverDay();
+        boolean placedToday = order.getOrderTime() != null && order.getOrderTime().toLocalDate().equals(day);
+        for (OrderItem item : order.getItems()) {
+            allTime.add(item.getPizza().getId(), item.getPizza().getName(), item.getQuantity());
+            if (placedToday) {
+                today.add(item.getPizza().getId(), item.getPizza().getName(), item.getQuantity());
+            }
+        }
+    }
+
+    public synchronized List<SpaceSavingSketch.Entry> getTopAllTime(int k) {
+        return allTime.top(k);
+    }
+
+    public synchronized List<SpaceSavingSketch.Entry> getTopToday(int k) {
+        rollOverDay();
+        return today.top(k);
+    }
+
+    private void rollOverDay() {
+        LocalDate now = LocalDate.now();
+        if (!now.equals(day)) {
+            today.clear();
+            day = now;
+        }
+    }
+}
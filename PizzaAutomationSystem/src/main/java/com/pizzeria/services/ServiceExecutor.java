@@ -0,0 +1,100 @@
+package com.pizzeria.services;
+
+import com.pizzeria.metrics.Metrics;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Общий ограниченный пул потоков для асинхронных вызовов сервисов.
+ * <p>
+ * Потоков не больше, чем соединений в пуле БД, иначе они всё равно будут ждать соединение.
+ * Отмена возвращённого future не даёт задаче начаться, если она ещё в очереди; уже идущая
+ * задача не прерывается, её результат просто отбрасывается. Прерывание потока внутри JDBC
+ * закрывает файловую H2 базу (MVStore), поэтому потоки пула не прерываются никогда.
+ */
+public final class ServiceExecutor {
+    private static final int THREADS = Integer.getInteger("pizzeria.service.threads",
+            Integer.getInteger("pizzeria.db.poolSize", 8));
+    private static final int QUEUE_CAPACITY = Integer.getInteger("pizzeria.service.queue", 1_000);
+    private static final long SHUTDOWN_TIMEOUT_MS = Long.getLong("pizzeria.service.shutdownTimeoutMs", 10_000);
+
+    private static final ThreadPoolExecutor EXECUTOR = createExecutor();
+
+    static {
+        Metrics.registry().gauge("pizzeria_executor_queue", "Задачи в очереди фоновых потоков", ServiceExecutor::getQueueSize);
+        Metrics.registry().gauge("pizzeria_executor_active", "Занятые фоновые потоки", ServiceExecutor::getActiveCount);
+    }
+
+    private ServiceExecutor() {
+    }
+
+    private static ThreadPoolExecutor createExecutor() {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(THREADS, THREADS, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(QUEUE_CAPACITY), r -> {
+            Thread t = new Thread(r, "pizzeria-service-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    public static <T> CompletableFuture<T> supply(Callable<T> work) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Future<?> task;
+        long submitted = System.nanoTime();
+        try {
+            task = EXECUTOR.submit(() -> {
+                Metrics.executorWait().recordSince(submitted);
+                if (result.isDone()) {
+                    return;
+                }
+                try {
+                    result.complete(work.call());
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            result.completeExceptionally(e);
+            return result;
+        }
+        result.whenComplete((value, error) -> {
+            if (result.isCancelled()) {
+                task.cancel(false);
+            }
+        });
+        return result;
+    }
+
+    public static int getQueueSize() {
+        return EXECUTOR.getQueue().size();
+    }
+
+    public static int getActiveCount() {
+        return EXECUTOR.getActiveCount();
+    }
+
+    /**
+     * Перестаёт принимать задачи и ждёт, пока начатые и уже поставленные в очередь завершатся,
+     * чтобы база закрывалась после последней транзакции.
+     */
+    public static void shutdown() {
+        EXECUTOR.shutdown();
+        try {
+            if (!EXECUTOR.awaitTermination(SHUTDOWN_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                System.err.println("Фоновые задачи не завершились за " + SHUTDOWN_TIMEOUT_MS + " мс");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.pizzeria.services;
+
+import com.pizzeria.dao.DatabaseConnection;
+
+import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Периодически подтягивает в память терминала изменения, которые внесли другие терминалы общей БД:
+ * меню перечитывается по отпечатку {@link com.pizzeria.dao.PizzaDAODB.MenuStamp},
+ * заказы — по версиям строк. Каждая проверка — пара агрегатных запросов по индексу,
+ * без блокировок таблиц.
+ */
+public class SharedStoreRefresher implements AutoCloseable {
+    private static final long CLOSE_TIMEOUT_SECONDS = 10;
+
+    private final PizzaService pizzaService;
+    private final OrderService orderService;
+    private final ScheduledExecutorService scheduler;
+    private volatile Runnable menuListener = () -> { };
+
+    public SharedStoreRefresher(PizzaService pizzaService, OrderService orderService, long periodMillis) {
+        this.pizzaService = pizzaService;
+        this.orderService = orderService;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "shared-db-refresh");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(this::refresh, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Запускает обновление с периодом -Dpizzeria.db.refreshMs (2000 мс), если база открыта в общем режиме.
+     *
+     * @return {@code null} для встроенной базы: другие процессы её не меняют
+     */
+    public static SharedStoreRefresher startIfShared(PizzaService pizzaService, OrderService orderService) {
+        if (!DatabaseConnection.isShared()) {
+            return null;
+        }
+        return new SharedStoreRefresher(pizzaService, orderService, Long.getLong("pizzeria.db.refreshMs", 2_000));
+    }
+
+    /**
+     * Вызывается в потоке обновления после того, как меню перечитано; заказы приходят через шину событий.
+     */
+    public void onMenuChanged(Runnable listener) {
+        this.menuListener = listener;
+    }
+
+    private void refresh() {
+        // Исключение остановило бы расписание, поэтому ошибка только печатается
+        try {
+            if (pizzaService.refreshFromStore()) {
+                menuListener.run();
+            }
+            orderService.refreshFromStore();
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Ошибка при обновлении данных общей БД: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Останавливает обновление и дожидается текущей проверки: прерывание посреди запроса закрыло бы файловую базу.
+     */
+    @Override
+    public void close() {
+        scheduler.shutdown();
+        try {
+            if (!scheduler.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                System.err.println("Обновление данных общей БД не завершилось за " + CLOSE_TIMEOUT_SECONDS + " с");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.pizzeria.services;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Алгоритм Space-Saving для поиска самых частых ключей в потоке при ограниченной памяти.
+ * <p>
+ * Хранит не больше {@code capacity} счётчиков. Новый ключ при заполненной таблице вытесняет
+ * счётчик с минимальным значением и наследует его как погрешность, поэтому оценка
+ * {@code count} никогда не занижена, а {@code count - error} никогда не завышена.
+ * Любой ключ с частотой больше {@code total / capacity} гарантированно присутствует в таблице.
+ */
+public class SpaceSavingSketch {
+
+    public record Entry(String key, String label, long count, long error) {
+        public long guaranteedCount() {
+            return count - error;
+        }
+    }
+
+    private static final class Counter {
+        String label;
+        long count;
+        long error;
+    }
+
+    private final int capacity;
+    private final Map<String, Counter> counters;
+    private long total = 0;
+
+    public SpaceSavingSketch(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Ёмкость должна быть больше нуля: " + capacity);
+        }
+        this.capacity = capacity;
+        this.counters = new HashMap<>(capacity * 2);
+    }
+
+    public void add(String key, String label, long weight) {
+        total += weight;
+        Counter counter = counters.get(key);
+        if (counter == null) {
+            if (counters.size() < capacity) {
+                counter = new Counter();
+            } else {
+                // Вытеснение случается только для новых ключей, линейный поиск по capacity ячейкам
+                String minKey = null;
+                long min = Long.MAX_VALUE;
+                for (Map.Entry<String, Counter> e : counters.entrySet()) {
+                    if (e.getValue().count < min) {
+                        min = e.getValue().count;
+                        minKey = e.getKey();
+                    }
+                }
+                counter = counters.remove(minKey);
+                counter.error = counter.count;
+            }
+            counters.put(key, counter);
+        }
+        counter.count += weight;
+        if (label != null) {
+            counter.label = label;
+        }
+    }
+
+    /**
+     * Загружает точный счётчик, посчитанный заранее (например, агрегатом в БД), с нулевой погрешностью.
+     * Ключи передаются по убыванию счётчика: когда таблица заполнена, остальные ключи только
+     * увеличивают {@code total}, ничего не вытесняя. Их частота не больше минимального счётчика,
+     * поэтому оценки последующих {@link #add} остаются корректными.
+     */
+    public void load(String key, String label, long count) {
+        total += count;
+        Counter counter = counters.get(key);
+        if (counter == null) {
+            if (counters.size() >= capacity) {
+                return;
+            }
+            counter = new Counter();
+            counters.put(key, counter);
+        }
+        counter.count += count;
+        if (label != null) {
+            counter.label = label;
+        }
+    }
+
+    public List<Entry> top(int k) {
+        List<Entry> entries = new ArrayList<>(counters.size());
+        counters.forEach((key, c) -> entries.add(new Entry(key, c.label, c.count, c.error)));
+        entries.sort(Comparator.comparingLong(Entry::count).reversed().thenComparing(Entry::key));
+        return entries.size() > k ? new ArrayList<>(entries.subList(0, k)) : entries;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public void clear() {
+        counters.clear();
+        total = 0;
+    }
+}
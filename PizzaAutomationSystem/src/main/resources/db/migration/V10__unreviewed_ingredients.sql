@@ -0,0 +1,10 @@
+-- Пустой список признаков означал и «проверено, признаков нет», и «ещё не проверено»:
+-- ингредиент, добавленный из окна пиццы, проходил вегетарианский фильтр, даже если это мясо.
+-- Теперь NULL значит «признаки не проверены», и фильтры по признакам такой ингредиент исключают
+ALTER TABLE ingredients ALTER COLUMN tags SET NULL;
+ALTER TABLE ingredients ALTER COLUMN tags SET DEFAULT NULL;
+
+-- Проверенными без признаков остаются только ингредиенты из V3, остальные добавлены без проверки
+UPDATE ingredients SET tags = NULL
+WHERE tags = '' AND name NOT IN ('томатный соус', 'базилик', 'орегано', 'оливковое масло', 'трюфельное масло',
+                                 'болгарский перец', 'помидоры', 'грибы', 'шампиньоны', 'оливки', 'ананас');
@@ -0,0 +1,12 @@
+-- Индексы под фильтры, которые используют все запросы OrderDAODB
+
+-- Фильтр по статусу с сортировкой по времени заказа
+CREATE INDEX IF NOT EXISTS idx_orders_status_time ON orders(status, order_time);
+
+-- Список без фильтра, заказы за сегодня и keyset-пагинация по (order_time, order_id)
+CREATE INDEX IF NOT EXISTS idx_orders_time_id ON orders(order_time, order_id);
+
+-- order_items(order_id) отдельный индекс не нужен: H2 сам индексирует столбец внешнего ключа
+
+-- Поиск клиента по телефону при оформлении заказа
+CREATE INDEX IF NOT EXISTS idx_customers_phone ON customers(phone);
@@ -0,0 +1,45 @@
+-- Словарь ингредиентов и связь пицц с ингредиентами.
+-- Колонка pizza.ingredients остаётся как текст для отображения, источник данных — pizza_ingredients
+
+CREATE TABLE IF NOT EXISTS ingredients (
+    id INT AUTO_INCREMENT PRIMARY KEY,
+    name VARCHAR(100) NOT NULL UNIQUE,
+    -- Пищевые признаки через запятую: MEAT, PORK, POULTRY, FISH, DAIRY, SPICY
+    tags VARCHAR(200) NOT NULL DEFAULT ''
+);
+
+CREATE TABLE IF NOT EXISTS pizza_ingredients (
+    pizza_id VARCHAR(10) NOT NULL,
+    ingredient_id INT NOT NULL,
+    position INT NOT NULL,
+    PRIMARY KEY (pizza_id, ingredient_id),
+    FOREIGN KEY (pizza_id) REFERENCES pizza(id) ON DELETE CASCADE,
+    FOREIGN KEY (ingredient_id) REFERENCES ingredients(id)
+);
+
+-- Известные ингредиенты с признаками; остальные добавит следующая миграция без признаков
+INSERT INTO ingredients (name, tags) VALUES
+    ('томатный соус', ''),
+    ('сливочный соус', 'DAIRY'),
+    ('моцарелла', 'DAIRY'),
+    ('пармезан', 'DAIRY'),
+    ('горгонзола', 'DAIRY'),
+    ('эмменталь', 'DAIRY'),
+    ('пепперони', 'MEAT,PORK'),
+    ('острая салями', 'MEAT,PORK,SPICY'),
+    ('ветчина', 'MEAT,PORK'),
+    ('бекон', 'MEAT,PORK'),
+    ('говядина', 'MEAT'),
+    ('курица', 'MEAT,POULTRY'),
+    ('халапеньо', 'SPICY'),
+    ('чили', 'SPICY'),
+    ('базилик', ''),
+    ('орегано', ''),
+    ('оливковое масло', ''),
+    ('трюфельное масло', ''),
+    ('болгарский перец', ''),
+    ('помидоры', ''),
+    ('грибы', ''),
+    ('шампиньоны', ''),
+    ('оливки', ''),
+    ('ананас', '');
@@ -0,0 +1,7 @@
+-- Идентификаторы из IdGenerator: 13 символов base32, упорядочены по времени создания
+
+ALTER TABLE customers ALTER COLUMN id SET DATA TYPE VARCHAR(20);
+ALTER TABLE orders ALTER COLUMN customer_id SET DATA TYPE VARCHAR(20);
+
+-- Каждый запуск приложения берёт отсюда номер узла, чтобы терминалы с общей БД не выдавали одинаковые id
+CREATE SEQUENCE IF NOT EXISTS id_node_seq START WITH 1;
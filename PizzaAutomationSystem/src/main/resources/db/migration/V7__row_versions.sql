@@ -0,0 +1,12 @@
+-- Версии строк для работы нескольких терминалов с одной БД.
+-- Каждая запись заказа или пиццы берёт новое значение общей последовательности:
+-- UPDATE ... WHERE version = ? не даёт затереть чужое изменение, а рост MAX(version)
+-- показывает остальным терминалам, что данные изменились
+CREATE SEQUENCE IF NOT EXISTS row_version_seq START WITH 1;
+
+ALTER TABLE orders ADD COLUMN version BIGINT DEFAULT NEXT VALUE FOR row_version_seq NOT NULL;
+-- Номер узла IdGenerator, последним записавшего заказ: свои изменения терминал не перечитывает
+ALTER TABLE orders ADD COLUMN updated_by INT DEFAULT 0 NOT NULL;
+CREATE INDEX IF NOT EXISTS idx_orders_version ON orders(version);
+
+ALTER TABLE pizza ADD COLUMN version BIGINT DEFAULT NEXT VALUE FOR row_version_seq NOT NULL;
@@ -0,0 +1,47 @@
+-- Холодное хранилище завершённых и отменённых заказов.
+-- OrderArchiver переносит сюда старые заказы небольшими порциями, чтобы orders и order_items не росли бесконечно.
+-- Столбцы повторяют горячие таблицы: новые столбцы orders и order_items нужно добавлять и сюда
+
+CREATE TABLE IF NOT EXISTS orders_archive (
+    order_id VARCHAR(20) PRIMARY KEY,
+    customer_id VARCHAR(20),
+    status VARCHAR(20) NOT NULL,
+    order_time TIMESTAMP,
+    estimated_ready_time TIMESTAMP,
+    delivery_address VARCHAR(255),
+    delivery_type VARCHAR(20),
+    notes VARCHAR(500),
+    payment_method VARCHAR(20),
+    payment_status VARCHAR(20),
+    total_amount DECIMAL(10,2),
+    version BIGINT NOT NULL,
+    updated_by INT NOT NULL,
+    archived_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Те же индексы, что у orders, для истории по статусу и keyset-пагинации
+CREATE INDEX IF NOT EXISTS idx_orders_archive_status_time ON orders_archive(status, order_time);
+CREATE INDEX IF NOT EXISTS idx_orders_archive_time_id ON orders_archive(order_time, order_id);
+
+CREATE TABLE IF NOT EXISTS order_items_archive (
+    id INT PRIMARY KEY,
+    order_id VARCHAR(20) NOT NULL,
+    pizza_id VARCHAR(10) NOT NULL,
+    quantity INT NOT NULL,
+    unit_price DECIMAL(10,2) NOT NULL,
+    FOREIGN KEY (order_id) REFERENCES orders_archive(order_id),
+    FOREIGN KEY (pizza_id) REFERENCES pizza(id)
+);
+
+-- Итоги по архиву, которые обновляются вместе с переносом: статистика за всё время
+-- складывает их с горячими таблицами и не читает архив целиком
+CREATE TABLE IF NOT EXISTS orders_archive_totals (
+    status VARCHAR(20) PRIMARY KEY,
+    orders_count BIGINT NOT NULL,
+    revenue_cents BIGINT NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS pizza_archive_sales (
+    pizza_id VARCHAR(10) PRIMARY KEY,
+    quantity BIGINT NOT NULL
+);
@@ -0,0 +1,10 @@
+-- Номера узлов для IdGenerator берутся в аренду: терминал занимает свободный номер и продлевает аренду,
+-- номер упавшего терминала освобождается, когда аренда истекает. Последовательность id_node_seq
+-- выдавала номера по кругу, и после 1024 запусков они повторялись у работающих терминалов
+CREATE TABLE IF NOT EXISTS node_leases (
+    node_id INT PRIMARY KEY,
+    owner VARCHAR(64) NOT NULL,
+    heartbeat TIMESTAMP NOT NULL
+);
+
+DROP SEQUENCE IF EXISTS id_node_seq;
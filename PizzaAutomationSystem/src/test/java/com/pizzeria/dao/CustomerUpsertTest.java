@@ -0,0 +1,113 @@
+package com.pizzeria.dao;
+
+import com.pizzeria.models.Customer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * Клиент ищется по нормализованному телефону: разные записи одного номера дают одну строку.
+ * У каждого DAO свой кэш клиентов, поэтому отдельные экземпляры играют роль разных терминалов.
+ */
+class CustomerUpsertTest {
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        TestDatabase.clearOrders();
+    }
+
+    @Test
+    void samePhoneInDifferentFormatsUpdatesOneRow() throws SQLException {
+        Customer first = new OrderDAODB().saveCustomer(new Customer("Айгерим", "+7 (701) 123-45-67", "", "ул. Абая, 1"));
+        Customer second = new OrderDAODB().saveCustomer(new Customer("Айгерим С.", "87011234567", "a@example.com", "ул. Абая, 2"));
+
+        assertEquals(first.getId(), second.getId());
+        assertEquals(1, TestDatabase.queryLong("SELECT COUNT(*) FROM customers"));
+        Customer stored = new OrderDAODB().getCustomerByPhone("8 701 123 45 67").orElseThrow();
+        assertEquals("Айгерим С.", stored.getName());
+        assertEquals("ул. Абая, 2", stored.getAddress());
+    }
+
+    /**
+     * Другой терминал вставил того же клиента, но ещё не зафиксировал: MERGE ждёт на уникальном
+     * индексе и после фиксации обновляет эту строку, а не создаёт второго клиента.
+     */
+    @Test
+    void mergeWaitsForUncommittedInsertOfSamePhone() throws Exception {
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try (Connection other = DatabaseConnection.getConnection()) {
+            other.setAutoCommit(false);
+            try (Statement stmt = other.createStatement()) {
+                stmt.executeUpdate("INSERT INTO customers (id, name, phone, phone_normalized, email, address) " +
+                        "VALUES ('OTHER', 'Другой терминал', '87025550000', '77025550000', '', '')");
+            }
+
+            Future<Customer> saved = pool.submit(() ->
+                    new OrderDAODB().saveCustomer(new Customer("Кассир", "+7 702 555 00 00", "", "ул. Тестовая")));
+            Thread.sleep(300);
+            assertFalse(saved.isDone(), "MERGE должен ждать незафиксированную вставку");
+            other.commit();
+            other.setAutoCommit(true);
+
+            Customer customer = saved.get(10, TimeUnit.SECONDS);
+            assertNotNull(customer);
+            assertEquals("OTHER", customer.getId());
+            assertEquals("Кассир", new OrderDAODB().getCustomerByPhone("87025550000").orElseThrow().getName());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Одновременные MERGE нового номера: проигравший получает 23505 и повторяет запрос.
+     */
+    @Test
+    void concurrentFirstOrdersFromOnePhoneCreateOneCustomer() throws Exception {
+        int terminals = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(terminals);
+        try {
+            for (int round = 0; round < 20; round++) {
+                String phone = "+7 702 000 00 " + String.format("%02d", round);
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<Customer>> results = new ArrayList<>();
+                for (int i = 0; i < terminals; i++) {
+                    OrderDAODB terminal = new OrderDAODB();
+                    Customer customer = new Customer("Клиент " + i, phone, "", "ул. Тестовая");
+                    results.add(pool.submit((Callable<Customer>) () -> {
+                        start.await();
+                        return terminal.saveCustomer(customer);
+                    }));
+                }
+                start.countDown();
+
+                Set<String> ids = new HashSet<>();
+                for (Future<Customer> result : results) {
+                    Customer saved = result.get();
+                    assertNotNull(saved, "saveCustomer вернул null для " + phone);
+                    ids.add(saved.getId());
+                }
+                assertEquals(1, ids.size(), phone);
+            }
+            assertEquals(20, TestDatabase.queryLong("SELECT COUNT(*) FROM customers"));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
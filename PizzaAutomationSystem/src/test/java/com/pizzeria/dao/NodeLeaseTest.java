@@ -0,0 +1,66 @@
+package com.pizzeria.dao;
+
+import com.pizzeria.models.IdGenerator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Номер 0 при запуске занимает само приложение, остальные номера раздаются тестом.
+ */
+class NodeLeaseTest {
+
+    private static final long TTL = 60_000;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        // Номер приложения известен только после инициализации базы
+        assertTrue(DatabaseConnection.isInitialized());
+        TestDatabase.execute("DELETE FROM node_leases WHERE node_id <> " + IdGenerator.getNodeId());
+    }
+
+    @Test
+    void applicationHoldsItsNodeId() throws SQLException {
+        assertEquals(1, TestDatabase.queryLong("SELECT COUNT(*) FROM node_leases WHERE node_id = " + IdGenerator.getNodeId()));
+    }
+
+    @Test
+    void failsWhenAllNodeIdsAreTaken() throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            assertEquals(1, NodeLease.claim(conn, "a", 2, TTL).nodeId);
+            assertEquals(2, NodeLease.claim(conn, "b", 2, TTL).nodeId);
+            assertThrows(SQLException.class, () -> NodeLease.claim(conn, "c", 2, TTL));
+        }
+    }
+
+    @Test
+    void expiredLeaseIsReusedAndItsOwnerNotices() throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            NodeLease stalled = NodeLease.claim(conn, "stalled", 2, TTL);
+            NodeLease alive = NodeLease.claim(conn, "alive", 2, TTL);
+            TestDatabase.execute("UPDATE node_leases SET heartbeat = DATEADD(MINUTE, -5, CURRENT_TIMESTAMP) " +
+                    "WHERE owner = 'stalled'");
+
+            NodeLease next = NodeLease.claim(conn, "next", 2, TTL);
+            assertEquals(stalled.nodeId, next.nodeId);
+            assertFalse(stalled.heartbeat(conn));
+            assertTrue(alive.heartbeat(conn));
+        }
+    }
+
+    @Test
+    void releasedNodeIdIsFree() throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            NodeLease lease = NodeLease.claim(conn, "a", 1, TTL);
+            lease.release(conn);
+            assertEquals(lease.nodeId, NodeLease.claim(conn, "b", 1, TTL).nodeId);
+        }
+    }
+}
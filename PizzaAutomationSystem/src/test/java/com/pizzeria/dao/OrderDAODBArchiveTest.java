@@ -0,0 +1,110 @@
+package com.pizzeria.dao;
+
+import com.pizzeria.models.Order;
+import com.pizzeria.models.Order.OrderStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Перенос в архив: строки переезжают вместе с позициями, итоги архива пополняются,
+ * а активные и свежие заказы остаются в горячих таблицах.
+ */
+class OrderDAODBArchiveTest {
+
+    private final OrderDAODB dao = new OrderDAODB();
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        TestDatabase.clearOrders();
+    }
+
+    @Test
+    void movesOldFinishedOrdersWithItems() throws SQLException {
+        List<Order> orders = TestDatabase.createOrders(4, 2);
+        setStatus(orders.get(0), OrderStatus.COMPLETED, 40);
+        setStatus(orders.get(1), OrderStatus.CANCELLED, 40);
+        setStatus(orders.get(2), OrderStatus.PREPARING, 40);
+        setStatus(orders.get(3), OrderStatus.COMPLETED, 0);
+
+        int moved = dao.archiveOrders(LocalDateTime.now().minusDays(30), 100);
+
+        assertEquals(2, moved);
+        assertEquals(2, TestDatabase.queryLong("SELECT COUNT(*) FROM orders"));
+        assertEquals(4, TestDatabase.queryLong("SELECT COUNT(*) FROM order_items"));
+        assertEquals(2, TestDatabase.queryLong("SELECT COUNT(*) FROM orders_archive"));
+        assertEquals(4, TestDatabase.queryLong("SELECT COUNT(*) FROM order_items_archive"));
+        assertEquals(1, dao.getArchivedOrdersCount(OrderStatus.COMPLETED));
+        assertEquals(2, dao.getArchivedOrdersCount(null));
+        // Каждая позиция — по 1 и 2 пиццы P001
+        assertEquals(6, TestDatabase.queryLong("SELECT quantity FROM pizza_archive_sales WHERE pizza_id = 'P001'"));
+
+        Order archived = dao.getOrderById(orders.get(0).getOrderId()).orElseThrow();
+        assertEquals(OrderStatus.COMPLETED, archived.getStatus());
+        assertEquals(2, archived.getItems().size());
+        assertEquals(orders.get(0).getTotalCents(), archived.getTotalCents());
+    }
+
+    @Test
+    void movesInChunksOldestFirst() throws SQLException {
+        List<Order> orders = TestDatabase.createOrders(5, 1);
+        for (int i = 0; i < orders.size(); i++) {
+            setStatus(orders.get(i), OrderStatus.COMPLETED, 50 - i);
+        }
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(30);
+
+        assertEquals(2, dao.archiveOrders(cutoff, 2));
+        assertEquals(2, TestDatabase.queryLong("SELECT COUNT(*) FROM orders_archive WHERE order_id IN ('" +
+                orders.get(0).getOrderId() + "', '" + orders.get(1).getOrderId() + "')"));
+        assertEquals(2, dao.archiveOrders(cutoff, 2));
+        assertEquals(1, dao.archiveOrders(cutoff, 2));
+        assertEquals(0, dao.archiveOrders(cutoff, 2));
+        assertEquals(5, dao.getArchivedOrdersCount(OrderStatus.COMPLETED));
+    }
+
+    @Test
+    void pagesAcrossHotAndArchiveBoundary() throws SQLException {
+        List<Order> orders = TestDatabase.createOrders(6, 1);
+        for (int i = 0; i < orders.size(); i++) {
+            setStatus(orders.get(i), OrderStatus.COMPLETED, 50 - i);
+        }
+        // Три самых старых уходят в архив, три остаются в горячей таблице
+        assertEquals(3, dao.archiveOrders(LocalDateTime.now().minusDays(30), 3));
+
+        List<Order> first = dao.getOrdersPage(null, null, 2, true);
+        assertEquals(ids(orders, 5, 4), ids(first));
+        List<Order> boundary = dao.getOrdersPage(null, OrderCursor.of(first.get(1)), 2, true);
+        assertEquals(ids(orders, 3, 2), ids(boundary));
+        List<Order> last = dao.getOrdersPage(null, OrderCursor.of(boundary.get(1)), 2, true);
+        assertEquals(ids(orders, 1, 0), ids(last));
+        assertEquals(List.of(), dao.getOrdersPage(null, OrderCursor.of(last.get(1)), 2, true));
+        // Без архива листание останавливается на границе
+        assertEquals(ids(orders, 3), ids(dao.getOrdersPage(null, OrderCursor.of(first.get(1)), 2, false)));
+
+        // Вверх от архивного заказа: ближайшие к курсору, от новых к старым
+        assertEquals(ids(orders, 3, 2), ids(dao.getOrdersPageBefore(null, OrderCursor.of(last.get(0)), 2, true)));
+        assertEquals(ids(orders, 5, 4, 3), ids(dao.getOrdersPageBefore(
+                OrderStatus.COMPLETED, OrderCursor.of(boundary.get(1)), 3, true)));
+        assertEquals(ids(orders, 5, 4, 3), ids(dao.getOrdersPageBefore(null, OrderCursor.of(last.get(1)), 3, false)));
+    }
+
+    private static List<String> ids(List<Order> orders, int... indexes) {
+        return Arrays.stream(indexes).mapToObj(i -> orders.get(i).getOrderId()).collect(Collectors.toList());
+    }
+
+    private static List<String> ids(List<Order> page) {
+        return page.stream().map(Order::getOrderId).collect(Collectors.toList());
+    }
+
+    private static void setStatus(Order order, OrderStatus status, int daysAgo) throws SQLException {
+        TestDatabase.execute("UPDATE orders SET status = '" + status.name() + "', order_time = DATEADD(DAY, -" + daysAgo +
+                ", CURRENT_TIMESTAMP) WHERE order_id = '" + order.getOrderId() + "'");
+    }
+}
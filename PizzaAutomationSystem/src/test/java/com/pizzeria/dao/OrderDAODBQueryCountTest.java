@@ -0,0 +1,66 @@
+package com.pizzeria.dao;
+
+import com.pizzeria.models.Order;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Загрузка списка заказов — два запроса (заказы и все их позиции) при любом числе заказов.
+ * Запросы считает сама H2 через INFORMATION_SCHEMA.QUERY_STATISTICS.
+ */
+class OrderDAODBQueryCountTest {
+
+    private final OrderDAODB dao = new OrderDAODB();
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        TestDatabase.clearOrders();
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        TestDatabase.execute("SET QUERY_STATISTICS FALSE");
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 100})
+    void pageLoadsOrdersAndItemsWithTwoStatements(int orders) throws SQLException {
+        TestDatabase.createOrders(orders, 3);
+
+        startCounting();
+        List<Order> page = dao.getOrdersPage(null, null, orders);
+
+        assertEquals(orders, page.size());
+        assertEquals(3, page.get(orders - 1).getItems().size());
+        assertEquals(2, countedStatements());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 100})
+    void fullListingUsesTwoStatements(int orders) throws SQLException {
+        TestDatabase.createOrders(orders, 2);
+
+        startCounting();
+        List<Order> all = dao.getAllOrders();
+
+        assertEquals(orders, all.size());
+        assertEquals(2, countedStatements());
+    }
+
+    // Выключение статистики сбрасывает накопленные счётчики
+    private static void startCounting() throws SQLException {
+        TestDatabase.execute("SET QUERY_STATISTICS FALSE", "SET QUERY_STATISTICS TRUE");
+    }
+
+    private static long countedStatements() throws SQLException {
+        return TestDatabase.queryLong("SELECT COALESCE(SUM(EXECUTION_COUNT), 0) FROM INFORMATION_SCHEMA.QUERY_STATISTICS " +
+                "WHERE UPPER(SQL_STATEMENT) LIKE '%FROM ORDER%' AND SQL_STATEMENT NOT LIKE '%QUERY_STATISTICS%'");
+    }
+}
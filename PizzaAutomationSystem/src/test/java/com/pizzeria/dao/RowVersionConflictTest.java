@@ -0,0 +1,88 @@
+package com.pizzeria.dao;
+
+import com.pizzeria.models.Order;
+import com.pizzeria.models.Order.OrderStatus;
+import com.pizzeria.models.Pizza;
+import com.pizzeria.models.StatusChange;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Две копии одной строки, прочитанные разными терминалами: вторая запись по устаревшей версии отклоняется.
+ */
+class RowVersionConflictTest {
+
+    private final PizzaDAODB pizzaDAO = new PizzaDAODB();
+    private final OrderDAODB orderDAO = new OrderDAODB();
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        TestDatabase.clearOrders();
+    }
+
+    @Test
+    void stalePizzaUpdateIsRejected() {
+        Pizza first = TestDatabase.pizza("P002");
+        Pizza second = TestDatabase.pizza("P002");
+        long readVersion = first.getVersion();
+
+        first.setName("Первая правка");
+        assertTrue(pizzaDAO.updatePizza(first));
+        assertNotEquals(readVersion, first.getVersion());
+
+        second.setName("Вторая правка");
+        assertFalse(pizzaDAO.updatePizza(second));
+        assertEquals("Первая правка", TestDatabase.pizza("P002").getName());
+
+        // Перечитанная копия сохраняется
+        Pizza reloaded = TestDatabase.pizza("P002");
+        reloaded.setName("Вторая правка");
+        assertTrue(pizzaDAO.updatePizza(reloaded));
+    }
+
+    @Test
+    void staleOrderUpdateIsRejected() throws SQLException {
+        String id = TestDatabase.createOrders(1, 1).get(0).getOrderId();
+        Order first = orderDAO.getOrderById(id).orElseThrow();
+        Order second = orderDAO.getOrderById(id).orElseThrow();
+        long readVersion = first.getVersion();
+
+        first.setStatus(OrderStatus.CONFIRMED);
+        assertTrue(orderDAO.updateOrder(first));
+        assertNotEquals(readVersion, first.getVersion());
+
+        second.setStatus(OrderStatus.CANCELLED);
+        assertFalse(orderDAO.updateOrder(second));
+        assertEquals(readVersion, second.getVersion());
+        assertEquals(OrderStatus.CONFIRMED, orderDAO.getOrderById(id).orElseThrow().getStatus());
+
+        Order reloaded = orderDAO.getOrderById(id).orElseThrow();
+        reloaded.setStatus(OrderStatus.PREPARING);
+        assertTrue(orderDAO.updateOrder(reloaded));
+    }
+
+    @Test
+    void statusChangeFromStaleStatusIsConflict() throws SQLException {
+        Order order = TestDatabase.createOrders(1, 1).get(0);
+        String id = order.getOrderId();
+        long version = TestDatabase.queryLong("SELECT version FROM orders WHERE order_id = '" + id + "'");
+
+        StatusChange applied = orderDAO.compareAndSetStatus(id, OrderStatus.PENDING, OrderStatus.CONFIRMED);
+        assertTrue(applied.isApplied());
+        assertNotEquals(version, TestDatabase.queryLong("SELECT version FROM orders WHERE order_id = '" + id + "'"));
+
+        StatusChange stale = orderDAO.compareAndSetStatus(id, OrderStatus.PENDING, OrderStatus.CANCELLED);
+        assertEquals(StatusChange.Result.CONFLICT, stale.result());
+        assertEquals(OrderStatus.CONFIRMED, stale.actual());
+
+        StatusChange missing = orderDAO.compareAndSetStatus("NO-SUCH-ORDER", OrderStatus.PENDING, OrderStatus.CONFIRMED);
+        assertEquals(StatusChange.Result.NOT_FOUND, missing.result());
+    }
+}
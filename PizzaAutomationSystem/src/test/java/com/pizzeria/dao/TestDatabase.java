@@ -0,0 +1,72 @@
+package com.pizzeria.dao;
+
+import com.pizzeria.models.Customer;
+import com.pizzeria.models.Order;
+import com.pizzeria.models.OrderItem;
+import com.pizzeria.models.Pizza;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Общие действия тестов с базой в памяти (URL задаётся в настройках surefire в pom.xml).
+ */
+public final class TestDatabase {
+
+    private TestDatabase() {
+    }
+
+    /**
+     * Удаляет заказы, архив и клиентов, оставляя меню из миграций.
+     */
+    public static void clearOrders() throws SQLException {
+        execute("DELETE FROM order_items", "DELETE FROM orders",
+                "DELETE FROM order_items_archive", "DELETE FROM orders_archive",
+                "DELETE FROM orders_archive_totals", "DELETE FROM pizza_archive_sales",
+                "DELETE FROM customers");
+    }
+
+    public static void execute(String... statements) throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement stmt = conn.createStatement()) {
+            for (String sql : statements) {
+                stmt.execute(sql);
+            }
+        }
+    }
+
+    public static long queryLong(String sql) throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    public static Pizza pizza(String id) {
+        return new PizzaDAODB().getPizzaById(id).orElseThrow();
+    }
+
+    /**
+     * Сохраняет {@code count} заказов одного клиента, в каждом по {@code itemsPerOrder} позиций.
+     */
+    public static List<Order> createOrders(int count, int itemsPerOrder) {
+        OrderDAODB dao = new OrderDAODB();
+        Customer customer = dao.saveCustomer(new Customer("Тест", "+7 700 123 45 67", "test@example.com", "ул. Тестовая"));
+        Pizza pizza = pizza("P001");
+        List<Order> orders = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            List<OrderItem> items = new ArrayList<>(itemsPerOrder);
+            for (int j = 0; j < itemsPerOrder; j++) {
+                items.add(new OrderItem(pizza, j + 1));
+            }
+            orders.add(new Order(customer, items, "", "ул. Тестовая", Order.DeliveryType.PICKUP));
+        }
+        return dao.createOrders(orders);
+    }
+}
@@ -0,0 +1,131 @@
+package com.pizzeria.dao.migration;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Мигратор на отдельной базе в памяти, без DatabaseConnection.
+ */
+class SchemaMigratorTest {
+
+    @Test
+    void concurrentTerminalsApplyEachMigrationOnce() throws Exception {
+        String url = "jdbc:h2:mem:migrator-concurrent;DB_CLOSE_DELAY=-1";
+        AtomicInteger applications = new AtomicInteger();
+        List<Migration> migrations = List.of(new SlowMigration(1, applications), new SlowMigration(2, applications));
+
+        int terminals = 4;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(terminals);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int i = 0; i < terminals; i++) {
+                results.add(pool.submit((Callable<Integer>) () -> {
+                    try (Connection conn = DriverManager.getConnection(url, "sa", "")) {
+                        start.await();
+                        return new SchemaMigrator(migrations).migrate(conn);
+                    }
+                }));
+            }
+            start.countDown();
+            int applied = 0;
+            for (Future<Integer> result : results) {
+                applied += result.get();
+            }
+
+            assertEquals(2, applied);
+            assertEquals(2, applications.get());
+            try (Connection conn = DriverManager.getConnection(url, "sa", "")) {
+                assertEquals(2, count(conn, "SELECT COUNT(*) FROM schema_version"));
+                assertEquals(2, count(conn, "SELECT COUNT(*) FROM migrated"));
+                assertEquals(0, count(conn, "SELECT COUNT(*) FROM schema_lock"));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void changedMigrationFailsStartup() throws SQLException {
+        try (Connection conn = DriverManager.getConnection("jdbc:h2:mem:migrator-checksum", "sa", "")) {
+            new SchemaMigrator(List.of(new SlowMigration(1, new AtomicInteger()))).migrate(conn);
+            Migration changed = new SlowMigration(1, new AtomicInteger()) {
+                @Override
+                public String getChecksum() {
+                    return "changed";
+                }
+            };
+            assertThrows(SQLException.class, () -> new SchemaMigrator(List.of(changed)).migrate(conn));
+        }
+    }
+
+    private static long count(Connection conn, String sql) throws SQLException {
+        try (Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery(sql)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    /**
+     * DDL плюс вставка, растянутые по времени, чтобы терминалы успели столкнуться.
+     */
+    private static class SlowMigration implements Migration {
+        private final int version;
+        private final AtomicInteger applications;
+
+        SlowMigration(int version, AtomicInteger applications) {
+            this.version = version;
+            this.applications = applications;
+        }
+
+        @Override
+        public int getVersion() {
+            return version;
+        }
+
+        @Override
+        public String getDescription() {
+            return "slow " + version;
+        }
+
+        @Override
+        public String getChecksum() {
+            return "v" + version;
+        }
+
+        @Override
+        public void apply(Connection conn) throws SQLException {
+            applications.incrementAndGet();
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("CREATE TABLE IF NOT EXISTS migrated (version INT)");
+                sleep();
+                stmt.execute("INSERT INTO migrated VALUES (" + version + ")");
+            }
+        }
+
+        private static void sleep() throws SQLException {
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.pizzeria.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimerTest {
+
+    private static final double EPS = 1e-9;
+
+    @Test
+    void percentilesAreUpperBoundsOfBuckets() {
+        Timer timer = timer();
+        record(timer, 900, 100);
+        record(timer, 90, 1_000);
+        record(timer, 10, 50_000);
+
+        // 100 мкс лежат в корзине до 128 мкс, 1000 мкс — до 1024 мкс
+        assertEquals(0.128, timer.getPercentileMillis(50), EPS);
+        assertEquals(0.128, timer.getPercentileMillis(90), EPS);
+        assertEquals(1.024, timer.getPercentileMillis(99), EPS);
+        // Граница корзины 65.536 мс больше максимума, поэтому возвращается максимум
+        assertEquals(50.0, timer.getPercentileMillis(100), EPS);
+        assertEquals(1000, timer.getCount());
+    }
+
+    @Test
+    void percentileIsWithinFactorOfTwoAboveExactValue() {
+        Timer timer = timer();
+        Random random = new Random(11);
+        long[] micros = new long[10_000];
+        for (int i = 0; i < micros.length; i++) {
+            // Логнормальное распределение, как у времени запросов
+            micros[i] = 1 + (long) Math.exp(5 + 1.5 * random.nextGaussian());
+            timer.record(TimeUnit.MICROSECONDS.toNanos(micros[i]));
+        }
+        Arrays.sort(micros);
+
+        for (double p : new double[] {50, 90, 95, 99, 99.9}) {
+            double exact = micros[(int) Math.ceil(p / 100 * micros.length) - 1] / 1000.0;
+            double estimate = timer.getPercentileMillis(p);
+            assertTrue(estimate >= exact && estimate <= 2 * exact,
+                    "p" + p + ": точное " + exact + " мс, оценка " + estimate + " мс");
+        }
+    }
+
+    @Test
+    void extremeDurationsStayInRange() {
+        Timer timer = timer();
+        timer.record(0);
+        timer.record(-5);
+        timer.record(TimeUnit.DAYS.toNanos(30));
+
+        long[] buckets = timer.getBucketCounts();
+        assertEquals(2, buckets[0]);
+        assertEquals(1, buckets[Timer.BUCKETS - 1]);
+        assertEquals(0.001, timer.getPercentileMillis(50), EPS);
+    }
+
+    @Test
+    void emptyTimerReportsZero() {
+        Timer timer = timer();
+        assertEquals(0, timer.getPercentileMillis(99), EPS);
+        assertEquals(0, timer.getMeanMillis(), EPS);
+    }
+
+    @Test
+    void failedCallIsTimedAndCountedAsError() {
+        Timer timer = timer();
+        assertThrows(IOException.class, () -> timer.record(() -> {
+            throw new IOException("нет связи");
+        }));
+        assertEquals(1, timer.getCount());
+        assertEquals(1, timer.getErrors());
+    }
+
+    private static Timer timer() {
+        return new Timer("test_seconds", "Test.op", "тест");
+    }
+
+    private static void record(Timer timer, int times, long micros) {
+        for (int i = 0; i < times; i++) {
+            timer.record(TimeUnit.MICROSECONDS.toNanos(micros));
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.pizzeria.models;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IngredientSetTest {
+
+    @Test
+    void checksWorkAcrossWords() {
+        IngredientSet pizza = IngredientSet.of(3, 64, 130);
+
+        assertTrue(pizza.containsAll(IngredientSet.of(64, 130)));
+        assertFalse(pizza.containsAll(IngredientSet.of(3, 129)));
+        assertFalse(pizza.containsAll(IngredientSet.of(200)));
+        assertTrue(pizza.intersects(IngredientSet.of(1, 130)));
+        assertFalse(pizza.intersects(IngredientSet.of(0, 65, 200)));
+        assertTrue(pizza.contains(64));
+        assertFalse(pizza.contains(1000));
+    }
+
+    @Test
+    void emptySetIsContainedEverywhereAndIntersectsNothing() {
+        IngredientSet pizza = IngredientSet.of(5);
+
+        assertTrue(pizza.containsAll(IngredientSet.EMPTY));
+        assertTrue(IngredientSet.EMPTY.containsAll(IngredientSet.EMPTY));
+        assertFalse(IngredientSet.EMPTY.containsAll(pizza));
+        assertFalse(pizza.intersects(IngredientSet.EMPTY));
+        assertTrue(IngredientSet.of().isEmpty());
+    }
+
+    @Test
+    void equalSetsDoNotDependOnHowTheyWereBuilt() {
+        IngredientSet built = new IngredientSet.Builder().add(70).add(1).build();
+        IngredientSet union = IngredientSet.of(1).union(IngredientSet.of(70));
+
+        assertEquals(IngredientSet.of(1, 70), built);
+        assertEquals(built, union);
+        assertEquals(built.hashCode(), union.hashCode());
+        assertEquals(IngredientSet.EMPTY, new IngredientSet.Builder().build());
+    }
+
+    @Test
+    void listsIdsInAscendingOrder() {
+        IngredientSet set = IngredientSet.of(130, 3, 64, 3);
+
+        assertEquals(3, set.size());
+        assertArrayEquals(new int[] {3, 64, 130}, set.toArray());
+    }
+
+    @Test
+    void rejectsNegativeId() {
+        assertThrows(IllegalArgumentException.class, () -> IngredientSet.of(-1));
+    }
+}
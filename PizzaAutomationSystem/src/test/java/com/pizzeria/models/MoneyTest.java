@@ -0,0 +1,56 @@
+package com.pizzeria.models;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MoneyTest {
+
+    @ParameterizedTest
+    @ValueSource(longs = {0, 1, 9, 10, 99, 100, 250050, 123456789, -5, -250050})
+    void plainStringParsesBack(long cents) {
+        assertEquals(cents, Money.parse(Money.toPlainString(cents)));
+        assertEquals(Money.toPlainString(cents) + Money.CURRENCY, Money.format(cents));
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "2500, 250000",
+            "2500.5, 250050",
+            "'2500,50', 250050",
+            "' 0.07 ', 7",
+            "2500.500, 250050"
+    })
+    void parsesUserInput(String text, long cents) {
+        assertEquals(cents, Money.parse(text));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"2500.505", "abc", "", "99999999999999999999"})
+    void rejectsInvalidInput(String text) {
+        assertThrows(NumberFormatException.class, () -> Money.parse(text));
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "1.005, 101",
+            "1.004, 100",
+            "2.675, 268",
+            "-1.005, -101",
+            "2500.50, 250050"
+    })
+    void fromDecimalRoundsHalfUp(String amount, long cents) {
+        assertEquals(cents, Money.fromDecimal(new BigDecimal(amount)));
+    }
+
+    @ParameterizedTest
+    @CsvSource({"250049, 2500", "250050, 2501", "-250050, -2500"})
+    void roundsToWholeHalfUp(long cents, long whole) {
+        assertEquals(whole, Money.roundToWhole(cents));
+    }
+}
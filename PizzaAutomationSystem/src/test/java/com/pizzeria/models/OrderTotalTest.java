@@ -0,0 +1,99 @@
+package com.pizzeria.models;
+
+import com.pizzeria.services.OrderStatistics;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class OrderTotalTest {
+
+    // Цены с копейками, которые в double не представимы точно
+    private static final Pizza PIZZA = new Pizza("P1", "Маргарита", List.of(), Pizza.PizzaSize.MEDIUM, 2_990_10L,
+            Pizza.Category.CLASSIC);
+    private static final Pizza SPECIAL = new Pizza("P2", "Пепперони", List.of(), Pizza.PizzaSize.LARGE, 3_450_33L,
+            Pizza.Category.SPECIAL);
+
+    @Test
+    void totalStaysExactAfterManyQuantityEdits() {
+        List<OrderItem> items = new ArrayList<>(List.of(new OrderItem(PIZZA, 1), new OrderItem(SPECIAL, 2)));
+        Order order = new Order(null, items, "", "", Order.DeliveryType.PICKUP);
+        Random random = new Random(13);
+
+        for (int i = 0; i < 100_000; i++) {
+            OrderItem item = order.getItems().get(random.nextInt(order.getItems().size()));
+            item.setQuantity(1 + random.nextInt(20));
+        }
+
+        assertEquals(recalculated(order), order.getTotalCents());
+    }
+
+    @Test
+    void addingAndRemovingItemsKeepsTotal() {
+        Order order = new Order(null, List.of(new OrderItem(PIZZA, 3)), "", "", Order.DeliveryType.PICKUP);
+        OrderItem extra = new OrderItem(SPECIAL, 2);
+
+        order.addItem(extra);
+        assertEquals(3 * 2_990_10L + 2 * 3_450_33L, order.getTotalCents());
+
+        extra.setQuantity(5);
+        assertEquals(3 * 2_990_10L + 5 * 3_450_33L, order.getTotalCents());
+
+        order.removeItem(extra);
+        assertEquals(3 * 2_990_10L, order.getTotalCents());
+        // Позиция, удалённая из заказа, больше не меняет его сумму
+        extra.setQuantity(7);
+        assertEquals(3 * 2_990_10L, order.getTotalCents());
+        assertFalse(order.removeItem(extra));
+    }
+
+    @Test
+    void millionOrdersAggregateToExactSum() {
+        OrderStatistics statistics = new OrderStatistics();
+        Random random = new Random(2024);
+        LocalDateTime time = LocalDateTime.now();
+        BigDecimal expected = BigDecimal.ZERO;
+        BigDecimal expectedCompleted = BigDecimal.ZERO;
+
+        for (int i = 0; i < 1_000_000; i++) {
+            List<OrderItem> items = new ArrayList<>(3);
+            BigDecimal orderTotal = BigDecimal.ZERO;
+            for (int j = random.nextInt(3); j >= 0; j--) {
+                // Произвольные цены от 1,00 до 9 999,99 с копейками
+                long unitCents = 100 + random.nextInt(999_900);
+                int quantity = 1 + random.nextInt(20);
+                items.add(new OrderItem(PIZZA, quantity, unitCents));
+                orderTotal = orderTotal.add(Money.toDecimal(unitCents).multiply(BigDecimal.valueOf(quantity)));
+            }
+            Order order = new Order("O" + i, null, items, Order.OrderStatus.PENDING, time, time, null,
+                    "", "", Order.DeliveryType.PICKUP);
+            statistics.orderCreated(order);
+            expected = expected.add(orderTotal);
+            if (i % 7 == 0) {
+                statistics.statusChanged(time, order.getTotalCents(), Order.OrderStatus.PENDING, Order.OrderStatus.COMPLETED);
+                expectedCompleted = expectedCompleted.add(orderTotal);
+            }
+        }
+
+        DashboardSnapshot snapshot = statistics.snapshot();
+        assertEquals(1_000_000, snapshot.getTotalOrdersCount());
+        assertEquals(0, expected.compareTo(Money.toDecimal(snapshot.getTotalRevenueCents())));
+        assertEquals(0, expectedCompleted.compareTo(Money.toDecimal(snapshot.getRevenueCents(Order.OrderStatus.COMPLETED))));
+        assertEquals(0, expected.subtract(expectedCompleted)
+                .compareTo(Money.toDecimal(snapshot.getRevenueCents(Order.OrderStatus.PENDING))));
+    }
+
+    private static long recalculated(Order order) {
+        long total = 0;
+        for (OrderItem item : order.getItems()) {
+            total += item.getUnitPriceCents() * item.getQuantity();
+        }
+        return total;
+    }
+}
@@ -0,0 +1,31 @@
+package com.pizzeria.models;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class PhoneNumbersTest {
+
+    @ParameterizedTest
+    @CsvSource({
+            "'+7 (701) 123-45-67', 77011234567",
+            "87011234567, 77011234567",
+            "'8 701 123 45 67', 77011234567",
+            "77011234567, 77011234567",
+            // Короткие и иностранные номера только очищаются от символов
+            "'123-45', 12345",
+            "'+49 30 1234567', 49301234567",
+            "' нет телефона ', нет телефона"
+    })
+    void normalizes(String phone, String normalized) {
+        assertEquals(normalized, PhoneNumbers.normalize(phone));
+    }
+
+    @Test
+    void keepsNull() {
+        assertNull(PhoneNumbers.normalize(null));
+    }
+}
@@ -0,0 +1,39 @@
+package com.pizzeria.server;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class JsonTest {
+
+    @Test
+    void parsesNestingUpToLimit() {
+        String text = "[".repeat(Json.MAX_DEPTH) + "]".repeat(Json.MAX_DEPTH);
+        assertEquals(List.of(), flatten(Json.parse(text)));
+    }
+
+    @Test
+    void rejectsDeepNestingWithoutStackOverflow() {
+        assertThrows(IllegalArgumentException.class, () -> Json.parse("[".repeat(65536)));
+        assertThrows(IllegalArgumentException.class, () -> Json.parse("{\"a\":".repeat(Json.MAX_DEPTH + 1)));
+    }
+
+    @Test
+    void depthIsCountedPerBranch() {
+        // Соседние вложенные значения не складываются в глубину
+        String nested = "[".repeat(Json.MAX_DEPTH - 1) + "]".repeat(Json.MAX_DEPTH - 1);
+        Object value = Json.parse("{\"a\":" + nested + ",\"b\":" + nested + "}");
+        assertEquals(2, ((Map<?, ?>) value).size());
+    }
+
+    private static Object flatten(Object value) {
+        while (value instanceof List<?> list && list.size() == 1) {
+            value = list.get(0);
+        }
+        return value;
+    }
+}
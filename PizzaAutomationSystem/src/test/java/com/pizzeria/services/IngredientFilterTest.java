@@ -0,0 +1,73 @@
+package com.pizzeria.services;
+
+import com.pizzeria.models.DietaryTag;
+import com.pizzeria.models.Ingredient;
+import com.pizzeria.models.IngredientDictionary;
+import com.pizzeria.models.IngredientSet;
+import com.pizzeria.models.Pizza;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class IngredientFilterTest {
+
+    private static final IngredientDictionary DICTIONARY = new IngredientDictionary(List.of(
+            new Ingredient(0, "сыр", Set.of(DietaryTag.DAIRY)),
+            new Ingredient(1, "томаты", Set.of()),
+            new Ingredient(2, "ветчина", Set.of(DietaryTag.MEAT, DietaryTag.PORK)),
+            new Ingredient(3, "курица", Set.of(DietaryTag.MEAT, DietaryTag.POULTRY)),
+            new Ingredient(70, "грибы", Set.of()),
+            // Добавлен из окна пиццы, признаки не проверены
+            new Ingredient(71, "хамон", null)
+    ));
+
+    private static final Pizza MARGHERITA = pizza("Маргарита", 0, 1);
+    private static final Pizza HAM = pizza("Ветчина", 0, 1, 2);
+    private static final Pizza CHICKEN = pizza("Курица", 0, 3, 70);
+    private static final Pizza VEGAN = pizza("Овощная", 1, 70);
+    private static final Pizza UNREVIEWED = pizza("Испанская", 1, 71);
+    private static final List<Pizza> MENU = List.of(MARGHERITA, HAM, CHICKEN, VEGAN, UNREVIEWED);
+
+    @Test
+    void excludesByDietaryTags() {
+        assertEquals(List.of(MARGHERITA, VEGAN), filter(IngredientFilter.vegetarian()));
+        assertEquals(List.of(VEGAN), filter(IngredientFilter.vegan()));
+        assertEquals(List.of(MARGHERITA, CHICKEN, VEGAN), filter(IngredientFilter.any().withoutTags(DietaryTag.PORK)));
+    }
+
+    @Test
+    void uncheckedIngredientFailsEveryTagFilter() {
+        assertEquals(List.of(VEGAN), filter(IngredientFilter.vegan()));
+        assertEquals(List.of(MARGHERITA, HAM, CHICKEN, VEGAN), filter(IngredientFilter.any().withoutTags(DietaryTag.SPICY)));
+        // Без фильтра по признакам такая пицца подходит
+        assertEquals(List.of(VEGAN, UNREVIEWED), filter(IngredientFilter.any().excluding("сыр")));
+    }
+
+    @Test
+    void requiresAndExcludesIngredientsByName() {
+        assertEquals(List.of(CHICKEN, VEGAN), filter(IngredientFilter.any().containing(" Грибы ")));
+        assertEquals(List.of(VEGAN), filter(IngredientFilter.vegetarian().containing("грибы")));
+        // Неизвестный исключённый ингредиент ни на что не влияет
+        assertEquals(List.of(VEGAN, UNREVIEWED), filter(IngredientFilter.any().excluding("сыр", "нет такого")));
+    }
+
+    @Test
+    void unknownRequiredIngredientMatchesNothing() {
+        assertEquals(List.of(), filter(IngredientFilter.any().containing("ананас")));
+    }
+
+    private static List<Pizza> filter(IngredientFilter filter) {
+        Predicate<Pizza> matches = filter.compile(DICTIONARY);
+        return MENU.stream().filter(matches).toList();
+    }
+
+    private static Pizza pizza(String name, int... ingredientIds) {
+        Pizza pizza = new Pizza(name, name, List.of(), Pizza.PizzaSize.MEDIUM, 100_000, Pizza.Category.CLASSIC);
+        pizza.setIngredientSet(IngredientSet.of(ingredientIds));
+        return pizza;
+    }
+}
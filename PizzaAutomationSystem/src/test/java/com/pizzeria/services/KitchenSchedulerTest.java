@@ -0,0 +1,149 @@
+package com.pizzeria.services;
+
+import com.pizzeria.models.Order;
+import com.pizzeria.models.Order.OrderStatus;
+import com.pizzeria.models.OrderItem;
+import com.pizzeria.models.Pizza;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * План кухни по часам теста: пицца собирается 12 минут и печётся 8.
+ */
+class KitchenSchedulerTest {
+
+    private static final Pizza PIZZA = new Pizza("P1", "Маргарита", "", List.of(), Pizza.PizzaSize.MEDIUM, 2_500_00,
+            20, Pizza.Category.CLASSIC, true);
+    private static final Instant START = Instant.parse("2026-01-15T12:00:00Z");
+
+    private final TestClock clock = new TestClock();
+
+    @Test
+    void ordersQueueForTheOnlyStation() {
+        KitchenScheduler kitchen = new KitchenScheduler(1, 4, 8, clock);
+
+        assertEquals(at(20), kitchen.schedule(order("A", 1)));
+        // Сборка B ждёт, пока освободится место сборки
+        assertEquals(at(32), kitchen.schedule(order("B", 1)));
+    }
+
+    @Test
+    void ordersQueueForTheOnlyOven() {
+        KitchenScheduler kitchen = new KitchenScheduler(2, 1, 8, clock);
+
+        assertEquals(at(20), kitchen.schedule(order("A", 1)));
+        // B собрана одновременно с A, но в печь попадает после неё
+        assertEquals(at(28), kitchen.schedule(order("B", 1)));
+        // Две пиццы C собираются параллельно и пекутся одна за другой
+        assertEquals(at(44), kitchen.schedule(order("C", 2)));
+    }
+
+    @Test
+    void replansWhenOrderMovesThroughTheKitchen() {
+        KitchenScheduler kitchen = new KitchenScheduler(1, 1, 8, clock);
+        kitchen.schedule(order("A", 1));
+        kitchen.schedule(order("B", 1));
+
+        clock.advanceMinutes(5);
+        assertEquals(Map.of("A", at(25), "B", at(37)), kitchen.statusChanged("A", OrderStatus.PREPARING));
+
+        // Сборка шла по плану: время готовности не сдвинулось
+        clock.advanceMinutes(12);
+        assertEquals(Map.of(), kitchen.statusChanged("A", OrderStatus.BAKING));
+
+        clock.advanceMinutes(8);
+        assertEquals(Map.of("B", at(45)), kitchen.statusChanged("A", OrderStatus.READY));
+        assertNull(kitchen.getEstimatedReadyTime("A"));
+        assertEquals(1, kitchen.getInFlightCount());
+    }
+
+    @Test
+    void cancelledOrderFreesTheKitchen() {
+        KitchenScheduler kitchen = new KitchenScheduler(1, 1, 8, clock);
+        kitchen.schedule(order("A", 1));
+        kitchen.schedule(order("B", 1));
+
+        assertEquals(Map.of("B", at(20)), kitchen.statusChanged("A", OrderStatus.CANCELLED));
+        assertEquals(Map.of(), kitchen.statusChanged("A", OrderStatus.CANCELLED));
+    }
+
+    @Test
+    void discardedOrderShiftsTheRest() {
+        KitchenScheduler kitchen = new KitchenScheduler(1, 1, 8, clock);
+        kitchen.schedule(order("A", 1));
+        kitchen.schedule(order("B", 1));
+        kitchen.schedule(order("C", 1));
+
+        // Вставка A не удалась: B и C сдвигаются на её место
+        assertEquals(Map.of("B", at(20), "C", at(32)), kitchen.discard("A"));
+        assertEquals(Map.of(), kitchen.discard("A"));
+        assertEquals(2, kitchen.getInFlightCount());
+    }
+
+    @Test
+    void shiftsUnderMinuteAreNotReported() {
+        KitchenScheduler kitchen = new KitchenScheduler(1, 1, 8, clock);
+        kitchen.schedule(order("A", 1));
+        kitchen.schedule(order("B", 1));
+
+        clock.advance(Duration.ofSeconds(30));
+        assertEquals(Map.of(), kitchen.statusChanged("A", OrderStatus.PREPARING));
+        // План при этом пересчитан
+        assertEquals(at(20).plusSeconds(30), kitchen.getEstimatedReadyTime("A"));
+        assertEquals(at(32).plusSeconds(30), kitchen.getEstimatedReadyTime("B"));
+
+        clock.advanceMinutes(1);
+        assertEquals(Map.of(), kitchen.statusChanged("B", OrderStatus.CONFIRMED));
+    }
+
+    private static Order order(String id, int pizzas) {
+        LocalDateTime time = LocalDateTime.ofInstant(START, ZoneOffset.UTC);
+        return new Order(id, null, List.of(new OrderItem(PIZZA, pizzas)), OrderStatus.PENDING, time, time, null,
+                "", "", Order.DeliveryType.PICKUP);
+    }
+
+    private static LocalDateTime at(int minutes) {
+        return LocalDateTime.ofInstant(START, ZoneOffset.UTC).plusMinutes(minutes);
+    }
+
+    /**
+     * Часы, которые идут только по команде теста.
+     */
+    private static final class TestClock extends Clock {
+        private Instant now = START;
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        void advanceMinutes(long minutes) {
+            advance(Duration.ofMinutes(minutes));
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
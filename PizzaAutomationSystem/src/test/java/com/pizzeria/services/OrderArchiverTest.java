@@ -0,0 +1,18 @@
+package com.pizzeria.services;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class OrderArchiverTest {
+
+    @Test
+    void rejectsIntervalShorterThanMinute() {
+        assertThrows(IllegalArgumentException.class, () -> new OrderArchiver(null, 30, 200, 0, 0));
+    }
+
+    @Test
+    void rejectsArchivingTodayOrders() {
+        assertThrows(IllegalArgumentException.class, () -> new OrderArchiver(null, 0, 200, 0, 60));
+    }
+}
@@ -0,0 +1,107 @@
+package com.pizzeria.services;
+
+import com.pizzeria.dao.TestDatabase;
+import com.pizzeria.models.Customer;
+import com.pizzeria.models.Order;
+import com.pizzeria.models.OrderItem;
+import com.pizzeria.models.OrderRequest;
+import com.pizzeria.models.Pizza;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Групповая фиксация заказов: пакет уходит одной транзакцией, ошибка одного заказа
+ * не отменяет соседей, а закрытие сохраняет уже принятые заказы.
+ */
+class OrderIngestionPipelineTest {
+
+    private final OrderService orderService = new OrderService(new PizzaService());
+    private OrderIngestionPipeline pipeline;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        TestDatabase.clearOrders();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (pipeline != null) {
+            pipeline.close();
+        }
+    }
+
+    @Test
+    void savesQueuedOrdersAsOneBatch() throws Exception {
+        // Долгое ожидание добора: пакет уходит, как только набрано maxBatch заказов
+        pipeline = new OrderIngestionPipeline(orderService, 3, 10_000, 100);
+
+        List<CompletableFuture<OrderResult>> results = submit(request("P001"), request("P002"), request("P003"));
+
+        for (CompletableFuture<OrderResult> result : results) {
+            assertTrue(result.get(5, TimeUnit.SECONDS).isSuccess());
+        }
+        assertEquals(1, pipeline.getBatchCount());
+        assertEquals(3, pipeline.getOrdersIngested());
+        assertEquals(3, TestDatabase.queryLong("SELECT COUNT(*) FROM orders"));
+    }
+
+    @Test
+    void failedOrderDoesNotCancelItsBatch() throws Exception {
+        pipeline = new OrderIngestionPipeline(orderService, 3, 10_000, 100);
+
+        // Пиццы NOPE нет в БД: пакет откатывается, и заказы сохраняются по одному
+        List<CompletableFuture<OrderResult>> results = submit(request("P001"), request("NOPE"), request("P002"));
+
+        assertTrue(results.get(0).get(5, TimeUnit.SECONDS).isSuccess());
+        assertFalse(results.get(1).get(5, TimeUnit.SECONDS).isSuccess());
+        assertTrue(results.get(2).get(5, TimeUnit.SECONDS).isSuccess());
+        assertEquals(1, pipeline.getBatchCount());
+        assertEquals(2, pipeline.getOrdersIngested());
+        assertEquals(1, pipeline.getOrdersFailed());
+        assertEquals(2, TestDatabase.queryLong("SELECT COUNT(*) FROM orders"));
+        assertEquals(0, TestDatabase.queryLong("SELECT COUNT(*) FROM order_items WHERE pizza_id = 'NOPE'"));
+    }
+
+    @Test
+    void closeSavesAcceptedOrders() throws Exception {
+        // Пакет не заполнится, и поток ждёт добора: close() должен дождаться сохранения принятых заказов
+        pipeline = new OrderIngestionPipeline(orderService, 100, 1_000, 100);
+
+        List<CompletableFuture<OrderResult>> results = submit(request("P001"), request("P002"));
+        pipeline.close();
+
+        for (CompletableFuture<OrderResult> result : results) {
+            assertTrue(result.isDone());
+            assertTrue(result.get().isSuccess());
+        }
+        assertEquals(2, TestDatabase.queryLong("SELECT COUNT(*) FROM orders"));
+        assertTrue(pipeline.submit(request("P001")).isCompletedExceptionally());
+    }
+
+    private List<CompletableFuture<OrderResult>> submit(OrderRequest... requests) {
+        List<CompletableFuture<OrderResult>> results = new ArrayList<>();
+        for (OrderRequest request : requests) {
+            results.add(pipeline.submit(request));
+        }
+        return results;
+    }
+
+    private static OrderRequest request(String pizzaId) {
+        Pizza pizza = pizzaId.equals("NOPE")
+                ? new Pizza("NOPE", "Нет в меню", List.of(), Pizza.PizzaSize.MEDIUM, 100_00, Pizza.Category.CLASSIC)
+                : TestDatabase.pizza(pizzaId);
+        Customer customer = new Customer("Тест", "+7 700 123 45 67", "test@example.com", "ул. Тестовая");
+        return new OrderRequest(customer, List.of(new OrderItem(pizza, 1)), "", "ул. Тестовая", Order.DeliveryType.PICKUP);
+    }
+}
@@ -0,0 +1,61 @@
+package com.pizzeria.services;
+
+import com.pizzeria.dao.OrderDAODB;
+import com.pizzeria.dao.OrderDAODB.PizzaSales;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PopularPizzaTrackerTest {
+
+    /**
+     * Продаж больше, чем ёмкость топа (64): лидеры обоих окон загружаются точно, без погрешности.
+     */
+    @Test
+    void seedLoadsExactLeadersForBothWindows() {
+        List<PizzaSales> sales = new ArrayList<>();
+        // За всё время лидирует P000, за сегодня — P199: обратный порядок
+        for (int i = 0; i < 200; i++) {
+            sales.add(new PizzaSales(String.format("P%03d", i), "Пицца " + i, 1000 - i, i + 1));
+        }
+        PopularPizzaTracker tracker = new PopularPizzaTracker();
+        tracker.seed(new OrderDAODB() {
+            @Override
+            public List<PizzaSales> getPizzaSales() {
+                return sales;
+            }
+        });
+
+        List<SpaceSavingSketch.Entry> allTime = tracker.getTopAllTime(64);
+        assertEquals(64, allTime.size());
+        for (int i = 0; i < allTime.size(); i++) {
+            assertEquals(String.format("P%03d", i), allTime.get(i).key());
+            assertEquals(1000 - i, allTime.get(i).count());
+            assertEquals(0, allTime.get(i).error());
+        }
+
+        List<SpaceSavingSketch.Entry> today = tracker.getTopToday(5);
+        assertEquals("P199", today.get(0).key());
+        assertEquals(200, today.get(0).count());
+        assertEquals(0, today.get(0).error());
+        assertEquals("P195", today.get(4).key());
+    }
+
+    @Test
+    void keyOutsideLoadedTableGetsErrorBoundedByMinimum() {
+        SpaceSavingSketch sketch = new SpaceSavingSketch(2);
+        sketch.load("a", "A", 10);
+        sketch.load("b", "B", 5);
+        sketch.load("c", "C", 3);
+        sketch.add("d", "D", 1);
+
+        SpaceSavingSketch.Entry d = sketch.top(2).get(1);
+        assertEquals("d", d.key());
+        assertEquals(6, d.count());
+        assertEquals(5, d.error());
+        assertEquals(19, sketch.getTotal());
+    }
+}
@@ -0,0 +1,46 @@
+package com.pizzeria.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ServiceExecutorTest {
+
+    /**
+     * Отменённая задача дорабатывает без прерывания: прерывание внутри JDBC закрыло бы H2 базу.
+     */
+    @Test
+    void cancellingRunningTaskDoesNotInterruptIt() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(1);
+        AtomicBoolean interrupted = new AtomicBoolean();
+
+        CompletableFuture<Integer> future = ServiceExecutor.supply(() -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                interrupted.set(true);
+            } finally {
+                finished.countDown();
+            }
+            return 1;
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        future.cancel(true);
+        Thread.sleep(100);
+        release.countDown();
+
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+        assertFalse(interrupted.get());
+        assertTrue(future.isCancelled());
+    }
+}